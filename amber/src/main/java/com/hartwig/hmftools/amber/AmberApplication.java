@@ -8,7 +8,11 @@ import static com.hartwig.hmftools.common.utils.collection.Multimaps.filterEntri
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -19,6 +23,8 @@ import java.util.function.Predicate;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.hartwig.hmftools.common.amber.AmberBAF;
 import com.hartwig.hmftools.common.amber.AmberSite;
@@ -27,14 +33,18 @@ import com.hartwig.hmftools.common.amber.BaseDepth;
 import com.hartwig.hmftools.common.amber.BaseDepthEvidence;
 import com.hartwig.hmftools.common.amber.BaseDepthFactory;
 import com.hartwig.hmftools.common.amber.BaseDepthFilter;
+import com.hartwig.hmftools.common.amber.ImmutableTumorContamination;
+import com.hartwig.hmftools.common.amber.ModifiableTumorBAF;
 import com.hartwig.hmftools.common.amber.NormalHeterozygousFilter;
 import com.hartwig.hmftools.common.amber.NormalHomozygousFilter;
 import com.hartwig.hmftools.common.amber.TumorBAF;
 import com.hartwig.hmftools.common.amber.TumorBAFEvidence;
 import com.hartwig.hmftools.common.amber.TumorContamination;
-import com.hartwig.hmftools.common.amber.TumorContaminationEvidence;
+import com.hartwig.hmftools.common.amber.TumorEvidence;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.genome.position.GenomePosition;
+import com.hartwig.hmftools.common.genome.position.GenomePositions;
 import com.hartwig.hmftools.common.utils.Doubles;
 import com.hartwig.hmftools.common.utils.version.VersionInfo;
 
@@ -86,7 +96,6 @@ public class AmberApplication implements AutoCloseable {
         final Predicate<BaseDepth> isValidFilter = BaseDepth::isValid;
         homozygousFilter = new NormalHomozygousFilter().and(isValidFilter);
         heterozygousFilter = new NormalHeterozygousFilter(config.minHetAfPercent(), config.maxHetAfPercent()).and(isValidFilter);
-        persistence = new AmberPersistence(config);
 
         final File outputDir = new File(config.outputDirectory());
         if (!outputDir.exists() && !outputDir.mkdirs()) {
@@ -94,7 +103,7 @@ public class AmberApplication implements AutoCloseable {
         }
 
         if (!new File(config.bafLociPath()).exists()) {
-            throw new IOException("Unable to locate vcf file " + config.bafLociPath());
+            throw new IOException("Unable to locate loci file " + config.bafLociPath());
         }
 
         if (!new File(config.tumorBamPath()).exists()) {
@@ -111,8 +120,9 @@ public class AmberApplication implements AutoCloseable {
 
         final ThreadFactory namedThreadFactory = new ThreadFactoryBuilder().setNameFormat("-%d").build();
         executorService = Executors.newFixedThreadPool(config.threadCount(), namedThreadFactory);
+        persistence = new AmberPersistence(config, executorService);
 
-        LOGGER.info("Loading vcf file {}", config.bafLociPath());
+        LOGGER.info("Loading loci file {}", config.bafLociPath());
         sites = AmberSiteFactory.sites(config.bafLociPath());
         snpCheckFilter = new SnpCheckFilter(sites);
     }
@@ -130,7 +140,25 @@ public class AmberApplication implements AutoCloseable {
         final AmberHetNormalEvidence hetNormalEvidence = new AmberHetNormalEvidence();
 
         // Primary Reference Data
-        final ListMultimap<Chromosome, BaseDepth> unfilteredNormal = normalDepth(readerFactory, config.referenceBamPath().get(0), sites);
+        final List<Callable<BaseDepthEvidence>> normalTasks = normalDepthTasks(readerFactory, config.referenceBamPath().get(0), sites);
+        final List<Future<BaseDepthEvidence>> normalFutures = Lists.newArrayList();
+        final List<Future<TumorEvidence>> tumorFutures = Lists.newArrayList();
+        if (config.pipelineTumor()) {
+            // Tumor pileups depend only on the sites so they are collected at every site while the reference is still being read
+            final List<Callable<TumorEvidence>> tumorTasks = tumorEvidenceTasks(readerFactory, emptyNormalHetSites(sites));
+            for (int i = 0; i < Math.max(normalTasks.size(), tumorTasks.size()); i++) {
+                if (i < normalTasks.size()) {
+                    normalFutures.add(executorService.submit(normalTasks.get(i)));
+                }
+                if (i < tumorTasks.size()) {
+                    tumorFutures.add(executorService.submit(tumorTasks.get(i)));
+                }
+            }
+        } else {
+            normalTasks.forEach(x -> normalFutures.add(executorService.submit(x)));
+        }
+
+        final ListMultimap<Chromosome, BaseDepth> unfilteredNormal = normalDepth(getFuture(normalFutures));
         final Predicate<BaseDepth> depthFilter = new BaseDepthFilter(config.minDepthPercent(), config.maxDepthPercent(), unfilteredNormal);
         final ListMultimap<Chromosome, BaseDepth> snpCheck = filterEntries(unfilteredNormal, snpCheckFilter);
         final ListMultimap<Chromosome, BaseDepth> homNormal = filterEntries(unfilteredNormal, depthFilter.and(homozygousFilter));
@@ -148,12 +176,16 @@ public class AmberApplication implements AutoCloseable {
         }
 
         final Predicate<BaseDepth> intersectionFilter = hetNormalEvidence.intersectionFilter();
-        final ListMultimap<Chromosome, TumorBAF> tumorBAFMap = tumorBAF(readerFactory, filterEntries(hetNormal, intersectionFilter));
-        final List<TumorBAF> tumorBAFList = tumorBAFMap.values().stream().sorted().collect(toList());
+        final ListMultimap<Chromosome, BaseDepth> hetSites = filterEntries(hetNormal, intersectionFilter);
+        if (!config.pipelineTumor()) {
+            tumorEvidenceTasks(readerFactory, hetSites, homNormal).forEach(x -> tumorFutures.add(executorService.submit(x)));
+        }
+
+        final List<TumorEvidence> tumorEvidence = getFuture(tumorFutures);
+        final List<TumorBAF> tumorBAFList = tumorBAF(tumorEvidence, hetSites).stream().sorted().collect(toList());
         final List<AmberBAF> amberBAFList = tumorBAFList.stream().map(AmberBAF::create).filter(AmberApplication::isValid).collect(toList());
 
-        final ListMultimap<Chromosome, TumorContamination> tumorContamination = contamination(readerFactory, homNormal);
-        final List<TumorContamination> contaminationList = Lists.newArrayList(tumorContamination.values());
+        final List<TumorContamination> contaminationList = contamination(tumorEvidence, homNormal);
 
         persistence.persisQC(amberBAFList, contaminationList);
         persistence.persistVersionInfo(versionInfo);
@@ -189,13 +221,31 @@ public class AmberApplication implements AutoCloseable {
     @NotNull
     private ListMultimap<Chromosome, BaseDepth> normalDepth(final SamReaderFactory readerFactory, final String bamPath,
             final ListMultimap<Chromosome, AmberSite> bedRegionsSortedSet) throws InterruptedException, ExecutionException {
+        final List<Future<BaseDepthEvidence>> futures = Lists.newArrayList();
+        for (Callable<BaseDepthEvidence> task : normalDepthTasks(readerFactory, bamPath, bedRegionsSortedSet)) {
+            futures.add(executorService.submit(task));
+        }
+
+        return normalDepth(getFuture(futures));
+    }
+
+    @NotNull
+    private static ListMultimap<Chromosome, BaseDepth> normalDepth(@NotNull final List<BaseDepthEvidence> evidence) {
+        final ListMultimap<Chromosome, BaseDepth> normalEvidence = ArrayListMultimap.create();
+        evidence.forEach(x -> normalEvidence.putAll(HumanChromosome.fromString(x.contig()), x.evidence()));
+        return normalEvidence;
+    }
+
+    @NotNull
+    private List<Callable<BaseDepthEvidence>> normalDepthTasks(final SamReaderFactory readerFactory, final String bamPath,
+            final ListMultimap<Chromosome, AmberSite> bedRegionsSortedSet) {
 
         final int partitionSize = Math.max(config.minPartition(), bedRegionsSortedSet.size() / config.threadCount());
 
         LOGGER.info("Processing {} potential sites in reference bam {}", bedRegionsSortedSet.values().size(), bamPath);
         final AmberTaskCompletion completion = new AmberTaskCompletion();
 
-        final List<Future<BaseDepthEvidence>> futures = Lists.newArrayList();
+        final List<Callable<BaseDepthEvidence>> tasks = Lists.newArrayList();
         for (final Chromosome contig : bedRegionsSortedSet.keySet()) {
             for (final List<AmberSite> inner : Lists.partition(Lists.newArrayList(bedRegionsSortedSet.get(contig)), partitionSize)) {
                 final BaseDepthEvidence evidence = new BaseDepthEvidence(config.typicalReadDepth(),
@@ -205,13 +255,11 @@ public class AmberApplication implements AutoCloseable {
                         bamPath,
                         readerFactory,
                         inner);
-                futures.add(executorService.submit(completion.task(evidence)));
+                tasks.add(completion.task(evidence));
             }
         }
 
-        final ListMultimap<Chromosome, BaseDepth> normalEvidence = ArrayListMultimap.create();
-        getFuture(futures).forEach(x -> normalEvidence.putAll(HumanChromosome.fromString(x.contig()), x.evidence()));
-        return normalEvidence;
+        return tasks;
     }
 
     @NotNull
@@ -256,36 +304,133 @@ public class AmberApplication implements AutoCloseable {
     }
 
     @NotNull
-    private ListMultimap<Chromosome, TumorContamination> contamination(@NotNull final SamReaderFactory readerFactory,
-            @NotNull final ListMultimap<Chromosome, BaseDepth> normalHomSites) throws ExecutionException, InterruptedException {
-        final int partitionSize = Math.max(config.minPartition(), normalHomSites.values().size() / config.threadCount());
+    private List<Callable<TumorEvidence>> tumorEvidenceTasks(@NotNull final SamReaderFactory readerFactory,
+            @NotNull final ListMultimap<Chromosome, BaseDepth> normalHetSites,
+            @NotNull final ListMultimap<Chromosome, BaseDepth> normalHomSites) {
+        final int siteCount = normalHetSites.size() + normalHomSites.size();
+        final int partitionSize = Math.max(config.minPartition(), siteCount / config.threadCount());
+
+        LOGGER.info("Processing {} heterozygous and {} homozygous sites in tumor bam {}",
+                normalHetSites.size(),
+                normalHomSites.size(),
+                config.tumorBamPath());
+        final AmberTaskCompletion completion = new AmberTaskCompletion();
+
+        final List<Callable<TumorEvidence>> tasks = Lists.newArrayList();
+        for (final Chromosome chromosome : Sets.union(normalHetSites.keySet(), normalHomSites.keySet())) {
+            final List<BaseDepth> hetSites = normalHetSites.get(chromosome);
+            final Set<BaseDepth> hetSiteSet = Sets.newIdentityHashSet();
+            hetSiteSet.addAll(hetSites);
+
+            final List<BaseDepth> allSites = Lists.newArrayList(hetSites);
+            allSites.addAll(normalHomSites.get(chromosome));
+            allSites.sort(Comparator.comparingLong(BaseDepth::position));
+
+            for (final List<BaseDepth> partition : Lists.partition(allSites, partitionSize)) {
+                final List<BaseDepth> partitionHetSites = Lists.newArrayList();
+                final List<BaseDepth> partitionHomSites = Lists.newArrayList();
+                for (BaseDepth site : partition) {
+                    (hetSiteSet.contains(site) ? partitionHetSites : partitionHomSites).add(site);
+                }
+
+                final String contig = partition.get(0).chromosome();
+                final TumorEvidence evidence = new TumorEvidence(config.typicalReadDepth(),
+                        config.minMappingQuality(),
+                        config.minBaseQuality(),
+                        contig,
+                        config.tumorBamPath(),
+                        readerFactory,
+                        partitionHetSites,
+                        partitionHomSites);
+                tasks.add(completion.task(evidence));
+            }
+        }
+
+        return tasks;
+    }
 
-        LOGGER.info("Processing {} homozygous sites in tumor bam {} for contamination", normalHomSites.size(), config.tumorBamPath());
+    /**
+     * Tumor evidence of both kinds at every site, to be selected by {@link #tumorBAF(List, ListMultimap)} and
+     * {@link #contamination(List, ListMultimap)} once the normal genotypes are known.
+     */
+    @NotNull
+    private List<Callable<TumorEvidence>> tumorEvidenceTasks(@NotNull final SamReaderFactory readerFactory,
+            @NotNull final ListMultimap<Chromosome, BaseDepth> sites) {
+        final int partitionSize = Math.max(config.minPartition(), sites.size() / config.threadCount());
+
+        LOGGER.info("Processing {} potential sites in tumor bam {}", sites.size(), config.tumorBamPath());
         final AmberTaskCompletion completion = new AmberTaskCompletion();
 
-        final List<Future<TumorContaminationEvidence>> futures = Lists.newArrayList();
-        for (final Chromosome chromosome : normalHomSites.keySet()) {
-            for (final List<BaseDepth> chromosomeBafPoints : Lists.partition(normalHomSites.get(chromosome), partitionSize)) {
-                if (!chromosomeBafPoints.isEmpty()) {
-                    final String contig = chromosomeBafPoints.get(0).chromosome();
-                    final TumorContaminationEvidence evidence = new TumorContaminationEvidence(config.typicalReadDepth(),
-                            config.minMappingQuality(),
-                            config.minBaseQuality(),
-                            contig,
-                            config.tumorBamPath(),
-                            readerFactory,
-                            chromosomeBafPoints);
-                    futures.add(executorService.submit(completion.task(evidence)));
+        final List<Callable<TumorEvidence>> tasks = Lists.newArrayList();
+        for (final Chromosome chromosome : sites.keySet()) {
+            for (final List<BaseDepth> partition : Lists.partition(sites.get(chromosome), partitionSize)) {
+                final TumorEvidence evidence = new TumorEvidence(config.typicalReadDepth(),
+                        config.minMappingQuality(),
+                        config.minBaseQuality(),
+                        partition.get(0).chromosome(),
+                        config.tumorBamPath(),
+                        readerFactory,
+                        partition);
+                tasks.add(completion.task(evidence));
+            }
+        }
+
+        return tasks;
+    }
+
+    /**
+     * Tumor BAF at the given normal heterozygous sites. Tumor evidence may have been collected at more sites than these.
+     */
+    @NotNull
+    private static List<TumorBAF> tumorBAF(@NotNull final List<TumorEvidence> tumorEvidence,
+            @NotNull final ListMultimap<Chromosome, BaseDepth> normalHetSites) {
+        final Map<GenomePosition, BaseDepth> normalMap = positionMap(normalHetSites);
+
+        final List<TumorBAF> result = Lists.newArrayList();
+        for (TumorEvidence evidence : tumorEvidence) {
+            for (TumorBAF tumor : evidence.bafEvidence()) {
+                final BaseDepth normal = normalMap.get(GenomePositions.create(tumor));
+                if (normal != null) {
+                    result.add(ModifiableTumorBAF.create()
+                            .from(tumor)
+                            .setNormalReadDepth(normal.readDepth())
+                            .setNormalRefSupport(normal.refSupport())
+                            .setNormalAltSupport(normal.altSupport()));
                 }
             }
         }
 
-        final ListMultimap<Chromosome, TumorContamination> result = ArrayListMultimap.create();
-        getFuture(futures).forEach(x -> result.putAll(HumanChromosome.fromString(x.contig()), x.evidence()));
+        return result;
+    }
+
+    /**
+     * Tumor contamination at the given normal homozygous sites. Tumor evidence may have been collected at more sites than these.
+     */
+    @NotNull
+    private static List<TumorContamination> contamination(@NotNull final List<TumorEvidence> tumorEvidence,
+            @NotNull final ListMultimap<Chromosome, BaseDepth> normalHomSites) {
+        final Map<GenomePosition, BaseDepth> normalMap = positionMap(normalHomSites);
+
+        final List<TumorContamination> result = Lists.newArrayList();
+        for (TumorEvidence evidence : tumorEvidence) {
+            for (TumorContamination contamination : evidence.contaminationEvidence()) {
+                final BaseDepth normal = normalMap.get(GenomePositions.create(contamination));
+                if (normal != null) {
+                    result.add(ImmutableTumorContamination.builder().from(normal).normal(normal).tumor(contamination.tumor()).build());
+                }
+            }
+        }
 
         return result;
     }
 
+    @NotNull
+    private static Map<GenomePosition, BaseDepth> positionMap(@NotNull final ListMultimap<Chromosome, BaseDepth> sites) {
+        final Map<GenomePosition, BaseDepth> result = Maps.newHashMapWithExpectedSize(sites.size());
+        sites.values().forEach(x -> result.put(GenomePositions.create(x), x));
+        return result;
+    }
+
     @NotNull
     private static CommandLine createCommandLine(@NotNull String[] args, @NotNull Options options) throws ParseException {
         final CommandLineParser parser = new DefaultParser();
@@ -56,6 +56,9 @@ public interface AmberConfig {
     String MAX_HET_AF_PERCENTAGE = "max_het_af_percent";
     String VALIDATION_STRINGENCY = "validation_stringency";
 
+    String PIPELINE_TUMOR = "pipeline_tumor";
+    String JAVA_SEGMENTATION = "java_segmentation";
+
     String TUMOR_ONLY = "tumor_only";
     String TUMOR_ONLY_MIN_VAF = "tumor_only_min_vaf";
     String TUMOR_ONLY_MIN_SUPPORT = "tumor_only_min_support";
@@ -86,12 +89,18 @@ public interface AmberConfig {
                 true,
                 "Min VAF in ref and alt in tumor only mode [" + DEFAULT_TUMOR_ONLY_MIN_SUPPORT + "]");
         options.addOption(VALIDATION_STRINGENCY, true, "SAM validation strategy: STRICT, SILENT, LENIENT [STRICT]");
+        options.addOption(PIPELINE_TUMOR, false, "Read the tumor bam at every site concurrently with the reference bam");
+        options.addOption(JAVA_SEGMENTATION, false, "Segment with the experimental Java piecewise constant fit rather than in R");
 
         return options;
     }
 
     boolean tumorOnly();
 
+    boolean pipelineTumor();
+
+    boolean javaSegmentation();
+
     int tumorOnlyMinSupport();
 
     double tumorOnlyMinVaf();
@@ -158,6 +167,8 @@ public interface AmberConfig {
     @NotNull
     static AmberConfig createConfig(@NotNull final CommandLine cmd) throws ParseException {
         final boolean isTumorOnly = cmd.hasOption(TUMOR_ONLY);
+        final boolean pipelineTumor = cmd.hasOption(PIPELINE_TUMOR);
+        final boolean javaSegmentation = cmd.hasOption(JAVA_SEGMENTATION);
 
         final int threadCount = defaultIntValue(cmd, THREADS, DEFAULT_THREADS);
         final int minBaseQuality = defaultIntValue(cmd, MIN_BASE_QUALITY, DEFAULT_MIN_BASE_QUALITY);
@@ -195,6 +206,8 @@ public interface AmberConfig {
 
         return ImmutableAmberConfig.builder()
                 .tumorOnly(isTumorOnly)
+                .pipelineTumor(pipelineTumor)
+                .javaSegmentation(javaSegmentation)
                 .tumorOnlyMinVaf(tumorOnlyMinVaf)
                 .tumorOnlyMinSupport(tumorOnlyMinSupport)
                 .threadCount(threadCount)
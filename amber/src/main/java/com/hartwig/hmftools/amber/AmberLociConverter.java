@@ -0,0 +1,74 @@
+package com.hartwig.hmftools.amber;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.hartwig.hmftools.common.amber.AmberSite;
+import com.hartwig.hmftools.common.amber.AmberSiteFactory;
+import com.hartwig.hmftools.common.amber.AmberSiteFile;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Converts an AMBER loci vcf into the binary loci format which can be passed to the loci argument of AMBER in place of the vcf.
+ */
+public class AmberLociConverter {
+
+    private static final Logger LOGGER = LogManager.getLogger(AmberLociConverter.class);
+
+    private static final String LOCI = "loci";
+    private static final String OUTPUT = "out";
+    private static final String DROP_NON_SNV = "drop_non_snv";
+
+    public static void main(final String... args) throws IOException {
+        final Options options = new Options();
+        options.addOption(LOCI, true, "Path to BAF loci vcf file");
+        options.addOption(OUTPUT, true, "Path to binary loci file to write");
+        options.addOption(DROP_NON_SNV, false, "Drop sites that are not single base substitutions rather than failing");
+
+        try {
+            final CommandLine cmd = new DefaultParser().parse(options, args);
+            if (!cmd.hasOption(LOCI) || !cmd.hasOption(OUTPUT)) {
+                throw new ParseException("Missing the following parameters: " + LOCI + ", " + OUTPUT);
+            }
+
+            final String lociPath = cmd.getOptionValue(LOCI);
+            final String outputPath = cmd.getOptionValue(OUTPUT);
+
+            LOGGER.info("Loading vcf file {}", lociPath);
+            final ListMultimap<Chromosome, AmberSite> allSites = AmberSiteFactory.vcfSites(lociPath);
+            final ListMultimap<Chromosome, AmberSite> sites = ArrayListMultimap.create();
+            for (Map.Entry<Chromosome, AmberSite> entry : allSites.entries()) {
+                if (AmberSiteFile.isSnv(entry.getValue())) {
+                    sites.put(entry.getKey(), entry.getValue());
+                }
+            }
+
+            final int dropped = allSites.size() - sites.size();
+            if (dropped > 0) {
+                if (!cmd.hasOption(DROP_NON_SNV)) {
+                    throw new ParseException(dropped + " of " + allSites.size()
+                            + " sites are not single base substitutions of A, C, G or T, use -" + DROP_NON_SNV + " to exclude them");
+                }
+                LOGGER.warn("Dropped {} of {} sites that are not single base substitutions of A, C, G or T", dropped, allSites.size());
+            }
+
+            LOGGER.info("Writing {} sites to {}", sites.size(), outputPath);
+            AmberSiteFile.write(outputPath, sites);
+        } catch (ParseException e) {
+            LOGGER.warn(e);
+            final HelpFormatter formatter = new HelpFormatter();
+            formatter.printHelp("AmberLociConverter", options);
+            System.exit(1);
+        }
+    }
+}
@@ -1,23 +1,50 @@
 package com.hartwig.hmftools.amber;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
+import com.hartwig.hmftools.common.amber.AmberBAF;
 import com.hartwig.hmftools.common.amber.AmberBAFFile;
 import com.hartwig.hmftools.common.utils.pcf.PCFFile;
+import com.hartwig.hmftools.common.utils.pcf.PCFSegment;
+import com.hartwig.hmftools.common.utils.pcf.PCFSegmentation;
 import com.hartwig.hmftools.common.utils.r.RExecutor;
 
 import org.jetbrains.annotations.NotNull;
 
 class BAFSegmentation {
 
+    private static final String SAMPLE_ID = "tumorModifiedBAF";
+
     @NotNull
     private final String outputDirectory;
+    @NotNull
+    private final PCFSegmentation segmentation;
+    private final boolean javaSegmentation;
 
-    BAFSegmentation(@NotNull final String outputDirectory) {
+    BAFSegmentation(@NotNull final ExecutorService executorService, @NotNull final String outputDirectory, boolean javaSegmentation) {
         this.outputDirectory = outputDirectory;
+        this.segmentation = new PCFSegmentation(executorService);
+        this.javaSegmentation = javaSegmentation;
+    }
+
+    void applySegmentation(@NotNull final String tumor, @NotNull final List<AmberBAF> bafs)
+            throws InterruptedException, ExecutionException, IOException {
+        if (!javaSegmentation) {
+            applyRSegmentation(tumor);
+            return;
+        }
+
+        // Segment the modified BAF as persisted in the amber baf file
+        final List<PCFSegment> segments = segmentation.segment(SAMPLE_ID, bafs, x -> round(x.tumorModifiedBAF()));
+        PCFFile.write(PCFFile.generateBAFFilename(outputDirectory, tumor), segments);
     }
 
-    void applySegmentation(@NotNull final String tumor) throws InterruptedException, IOException {
+    private void applyRSegmentation(@NotNull final String tumor) throws InterruptedException, IOException {
         final String ratioFile = AmberBAFFile.generateAmberFilenameForReading(outputDirectory, tumor);
         final String pcfFile = PCFFile.generateBAFFilename(outputDirectory, tumor);
         int result = RExecutor.executeFromClasspath("r/bafSegmentation.R", ratioFile, pcfFile);
@@ -25,4 +52,8 @@ class BAFSegmentation {
             throw new IOException("R execution failed. Unable to complete segmentation.");
         }
     }
+
+    private static double round(double value) {
+        return Double.isFinite(value) ? new BigDecimal(value).setScale(4, RoundingMode.HALF_EVEN).doubleValue() : value;
+    }
 }
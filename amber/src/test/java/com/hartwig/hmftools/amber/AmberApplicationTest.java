@@ -0,0 +1,140 @@
+package com.hartwig.hmftools.amber;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.amber.AmberBAFFile;
+import com.hartwig.hmftools.common.amber.TumorContaminationFile;
+import com.hartwig.hmftools.common.amber.qc.AmberQCFile;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+
+public class AmberApplicationTest {
+
+    private static final String[] CONTIGS = { "1", "2" };
+    private static final int SITES = 20;
+    private static final int DEPTH = 30;
+    private static final int READ_LENGTH = 50;
+
+    @Rule
+    public final TemporaryFolder directory = new TemporaryFolder();
+
+    @Test
+    public void testPipelineTumorMatchesSequentialTumor() throws Exception {
+        final File loci = directory.newFile("loci.vcf");
+        writeLoci(loci);
+
+        // Even sites are heterozygous and odd sites homozygous in the normal, with some alt support at the odd sites of the tumor
+        final File normalBam = writeBam("normal.bam", DEPTH / 2, 0);
+        final File tumorBam = writeBam("tumor.bam", DEPTH / 3, 3);
+
+        final File sequential = directory.newFolder("sequential");
+        final File pipelined = directory.newFolder("pipelined");
+        AmberApplication.main(args(loci, normalBam, tumorBam, sequential, false));
+        AmberApplication.main(args(loci, normalBam, tumorBam, pipelined, true));
+
+        final List<String> bafLines = lines(AmberBAFFile.generateAmberFilenameForWriting(sequential.toString(), "TUMOR"));
+        final List<String> contaminationLines =
+                lines(TumorContaminationFile.generateContaminationFilename(sequential.toString(), "TUMOR"));
+        assertEquals(CONTIGS.length * SITES / 2 + 1, bafLines.size());
+        assertEquals(CONTIGS.length * SITES / 2 + 1, contaminationLines.size());
+
+        assertEquals(bafLines, lines(AmberBAFFile.generateAmberFilenameForWriting(pipelined.toString(), "TUMOR")));
+        assertEquals(contaminationLines, lines(TumorContaminationFile.generateContaminationFilename(pipelined.toString(), "TUMOR")));
+
+        final List<String> qcLines = lines(AmberQCFile.generateFilename(sequential.toString(), "TUMOR"));
+        assertFalse(qcLines.isEmpty());
+        assertEquals(qcLines, lines(AmberQCFile.generateFilename(pipelined.toString(), "TUMOR")));
+    }
+
+    @NotNull
+    private static String[] args(@NotNull final File loci, @NotNull final File normalBam, @NotNull final File tumorBam,
+            @NotNull final File outputDirectory, boolean pipelineTumor) {
+        // Segmentation is done in Java as R is not available to the tests
+        final List<String> args = Lists.newArrayList("-reference", "NORMAL", "-reference_bam", normalBam.toString(), "-tumor", "TUMOR",
+                "-tumor_bam", tumorBam.toString(), "-loci", loci.toString(), "-output_dir", outputDirectory.toString(), "-threads", "2",
+                "-java_segmentation");
+        if (pipelineTumor) {
+            args.add("-pipeline_tumor");
+        }
+        return args.toArray(new String[0]);
+    }
+
+    @NotNull
+    private static List<String> lines(@NotNull final String filename) throws IOException {
+        return Files.readAllLines(new File(filename).toPath());
+    }
+
+    private static int sitePosition(int site) {
+        return 1000 * (site + 1);
+    }
+
+    private static void writeLoci(@NotNull final File loci) throws IOException {
+        final List<String> lines = Lists.newArrayList("##fileformat=VCFv4.2");
+        for (String contig : CONTIGS) {
+            lines.add("##contig=<ID=" + contig + ",length=100000>");
+        }
+        lines.add("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO");
+        for (String contig : CONTIGS) {
+            for (int site = 0; site < SITES; site++) {
+                lines.add(contig + "\t" + sitePosition(site) + "\t.\tA\tG\t.\tPASS\t.");
+            }
+        }
+        Files.write(loci.toPath(), lines);
+    }
+
+    @NotNull
+    private File writeBam(@NotNull final String name, int hetAltReads, int homAltReads) throws IOException {
+        final SAMSequenceDictionary dictionary = new SAMSequenceDictionary();
+        for (String contig : CONTIGS) {
+            dictionary.addSequence(new SAMSequenceRecord(contig, 100_000));
+        }
+        final SAMFileHeader header = new SAMFileHeader(dictionary);
+        header.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+
+        final byte[] qualities = new byte[READ_LENGTH];
+        Arrays.fill(qualities, (byte) 30);
+
+        final File file = new File(directory.getRoot(), name);
+        try (SAMFileWriter writer = new SAMFileWriterFactory().setCreateIndex(true).makeBAMWriter(header, false, file)) {
+            for (String contig : CONTIGS) {
+                for (int site = 0; site < SITES; site++) {
+                    final int altReads = site % 2 == 0 ? hetAltReads : homAltReads;
+                    for (int read = 0; read < DEPTH; read++) {
+                        final byte[] bases = new byte[READ_LENGTH];
+                        Arrays.fill(bases, (byte) 'A');
+                        bases[READ_LENGTH / 2] = (byte) (read < altReads ? 'G' : 'A');
+
+                        final SAMRecord record = new SAMRecord(header);
+                        record.setReadName(contig + ":" + site + ":" + read);
+                        record.setReferenceName(contig);
+                        record.setAlignmentStart(sitePosition(site) - READ_LENGTH / 2);
+                        record.setCigarString(READ_LENGTH + "M");
+                        record.setMappingQuality(60);
+                        record.setReadBases(bases);
+                        record.setBaseQualities(qualities);
+                        writer.addAlignment(record);
+                    }
+                }
+            }
+        }
+        return file;
+    }
+}
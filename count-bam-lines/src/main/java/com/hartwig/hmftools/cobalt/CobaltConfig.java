@@ -34,6 +34,8 @@ public interface CobaltConfig {
     String GC_PROFILE = "gc_profile";
     String MIN_MAPPING_QUALITY = "min_quality";
     String VALIDATION_STRINGENCY = "validation_stringency";
+    String BASELINE = "baseline";
+    String JAVA_SEGMENTATION = "java_segmentation";
 
     @NotNull
     static Options createOptions() {
@@ -48,6 +50,8 @@ public interface CobaltConfig {
         options.addOption(GC_PROFILE, true, "Location of GC Profile");
         options.addOption(REF_GENOME, true, "Path to reference genome fasta file if using CRAM files");
         options.addOption(VALIDATION_STRINGENCY, true, "SAM validation strategy: STRICT, SILENT, LENIENT [STRICT]");
+        options.addOption(BASELINE, true, "Optional path to cohort baseline to normalise ratios against");
+        options.addOption(JAVA_SEGMENTATION, false, "Segment with the experimental Java piecewise constant fit rather than in R");
 
         return options;
     }
@@ -71,6 +75,11 @@ public interface CobaltConfig {
     @NotNull
     String outputDirectory();
 
+    @NotNull
+    String baselinePath();
+
+    boolean javaSegmentation();
+
     @NotNull
     String reference();
 
@@ -89,6 +98,7 @@ public interface CobaltConfig {
         final int threadCount = defaultIntValue(cmd, THREADS, DEFAULT_THREADS);
         final int minMappingQuality = defaultIntValue(cmd, MIN_MAPPING_QUALITY, DEFAULT_MIN_MAPPING_QUALITY);
         final String refGenomePath = cmd.getOptionValue(REF_GENOME, "");
+        final String baselinePath = cmd.getOptionValue(BASELINE, "");
 
         final StringJoiner missingJoiner = new StringJoiner(", ");
         final String gcProfilePath = parameter(cmd, GC_PROFILE, missingJoiner);
@@ -117,6 +127,8 @@ public interface CobaltConfig {
                 .referenceBamPath(referenceBamPath)
                 .refGenomePath(refGenomePath)
                 .outputDirectory(outputDirectory)
+                .baselinePath(baselinePath)
+                .javaSegmentation(cmd.hasOption(JAVA_SEGMENTATION))
                 .reference(normal)
                 .tumor(tumor)
                 .validationStringency(validationStringency)
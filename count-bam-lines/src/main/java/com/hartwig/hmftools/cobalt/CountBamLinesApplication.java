@@ -9,10 +9,13 @@ import java.util.concurrent.ThreadFactory;
 
 import com.google.common.collect.Multimap;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.hartwig.hmftools.cobalt.cohort.CohortBaseline;
+import com.hartwig.hmftools.cobalt.cohort.CohortBaselineFile;
 import com.hartwig.hmftools.cobalt.count.CountSupplier;
 import com.hartwig.hmftools.cobalt.ratio.RatioSupplier;
 import com.hartwig.hmftools.common.cobalt.CobaltCount;
 import com.hartwig.hmftools.common.cobalt.CobaltRatio;
+import com.hartwig.hmftools.common.cobalt.CobaltRatioColumns;
 import com.hartwig.hmftools.common.cobalt.CobaltRatioFile;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.genome.gc.GCProfile;
@@ -72,6 +75,10 @@ public class CountBamLinesApplication implements AutoCloseable {
             throw new IOException("Unable to locate ref genome file " + config.refGenomePath());
         }
 
+        if (!config.baselinePath().isEmpty() && !new File(config.baselinePath()).exists()) {
+            throw new IOException("Unable to locate baseline file " + config.baselinePath());
+        }
+
         final ThreadFactory namedThreadFactory = new ThreadFactoryBuilder().setNameFormat("-%d").build();
         executorService = Executors.newFixedThreadPool(config.threadCount(), namedThreadFactory);
 
@@ -90,19 +97,31 @@ public class CountBamLinesApplication implements AutoCloseable {
                 config.outputDirectory(),
                 config.windowSize(),
                 config.minMappingQuality(),
+                config.threadCount(),
                 executorService,
                 readerFactory);
         final Multimap<Chromosome, CobaltCount> readCounts = countSupplier.fromBam(config.referenceBamPath(), config.tumorBamPath());
 
-        final RatioSupplier ratioSupplier = new RatioSupplier(config.reference(), config.tumor(), config.outputDirectory());
+        final CohortBaseline baseline = config.baselinePath().isEmpty() ? null : readBaseline(config.baselinePath());
+
+        final RatioSupplier ratioSupplier = new RatioSupplier(config.reference(), config.tumor(), config.outputDirectory(), baseline);
         final Multimap<Chromosome, CobaltRatio> ratios = ratioSupplier.generateRatios(gcProfiles, readCounts);
 
         final String outputFilename = CobaltRatioFile.generateFilenameForWriting(config.outputDirectory(), config.tumor());
         LOGGER.info("Persisting cobalt ratios to {}", outputFilename);
         versionInfo.write(config.outputDirectory());
         CobaltRatioFile.write(outputFilename, ratios);
+        CobaltRatioColumns.write(CobaltRatioFile.generateBinaryFilename(config.outputDirectory(), config.tumor()), ratios);
 
-        new RatioSegmentation(executorService, config.outputDirectory()).applySegmentation(config.reference(), config.tumor());
+        new RatioSegmentation(executorService, config.outputDirectory(), config.javaSegmentation()).applySegmentation(config.reference(),
+                config.tumor(),
+                ratios);
+    }
+
+    @NotNull
+    private static CohortBaseline readBaseline(@NotNull final String baselinePath) throws IOException {
+        LOGGER.info("Reading cohort baseline from {}", baselinePath);
+        return CohortBaselineFile.read(baselinePath);
     }
 
     @NotNull
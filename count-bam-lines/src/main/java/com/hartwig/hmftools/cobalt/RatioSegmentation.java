@@ -1,14 +1,23 @@
 package com.hartwig.hmftools.cobalt;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.function.ToDoubleFunction;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+import com.hartwig.hmftools.common.cobalt.CobaltRatio;
 import com.hartwig.hmftools.common.cobalt.CobaltRatioFile;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.utils.pcf.PCFFile;
+import com.hartwig.hmftools.common.utils.pcf.PCFSegment;
+import com.hartwig.hmftools.common.utils.pcf.PCFSegmentation;
 import com.hartwig.hmftools.common.utils.r.RExecutor;
 
 import org.apache.logging.log4j.LogManager;
@@ -19,15 +28,39 @@ class RatioSegmentation {
 
     private static final Logger LOGGER = LogManager.getLogger(RatioSegmentation.class);
 
+    private static final String SAMPLE_ID = "S1";
+    private static final double MIN_RATIO = 0.001;
+
     private final String outputDirectory;
     private final ExecutorService executorService;
+    private final PCFSegmentation segmentation;
+    private final boolean javaSegmentation;
 
-    RatioSegmentation(final ExecutorService executorService, final String outputDirectory) {
+    RatioSegmentation(final ExecutorService executorService, final String outputDirectory, boolean javaSegmentation) {
         this.outputDirectory = outputDirectory;
         this.executorService = executorService;
+        this.segmentation = new PCFSegmentation(executorService);
+        this.javaSegmentation = javaSegmentation;
+    }
+
+    void applySegmentation(@NotNull final String reference, @NotNull final String tumor,
+            @NotNull final Multimap<Chromosome, CobaltRatio> ratios) throws ExecutionException, InterruptedException, IOException {
+        if (!javaSegmentation) {
+            applyRSegmentation(reference, tumor);
+            return;
+        }
+
+        final List<CobaltRatio> sorted = Lists.newArrayList(ratios.values());
+        Collections.sort(sorted);
+
+        ratioSegmentation(sorted, reference, CobaltRatio::referenceGCDiploidRatio);
+        ratioSegmentation(sorted, tumor, CobaltRatio::tumorGCRatio);
+
+        LOGGER.info("Segmentation Complete");
     }
 
-    void applySegmentation(@NotNull final String reference, @NotNull final String tumor) throws ExecutionException, InterruptedException {
+    private void applyRSegmentation(@NotNull final String reference, @NotNull final String tumor)
+            throws ExecutionException, InterruptedException {
         final String ratioFile = CobaltRatioFile.generateFilenameForReading(outputDirectory, tumor);
         final List<Future<Object>> futures = Lists.newArrayList();
         futures.add(executorService.submit(() -> ratioSegmentation(ratioFile, reference, "referenceGCDiploidRatio")));
@@ -50,4 +83,24 @@ class RatioSegmentation {
 
         return null;
     }
+
+    private void ratioSegmentation(@NotNull final List<CobaltRatio> ratios, @NotNull final String sample,
+            @NotNull final ToDoubleFunction<CobaltRatio> ratio) throws ExecutionException, InterruptedException, IOException {
+        final List<PCFSegment> segments = segmentation.segment(SAMPLE_ID, ratios, x -> log2(ratio.applyAsDouble(x)));
+        PCFFile.write(PCFFile.generateRatioFilename(outputDirectory, sample), segments);
+    }
+
+    private static double log2(double ratio) {
+        if (!Double.isFinite(ratio)) {
+            return Double.NaN;
+        }
+
+        // Segment the ratio as persisted in the cobalt ratio file, excluding unknown (negative) ratios
+        final double persistedRatio = new BigDecimal(ratio).setScale(4, RoundingMode.HALF_EVEN).doubleValue();
+        if (persistedRatio < 0) {
+            return Double.NaN;
+        }
+
+        return Math.log(Math.max(MIN_RATIO, persistedRatio)) / Math.log(2);
+    }
 }
@@ -0,0 +1,207 @@
+package com.hartwig.hmftools.cobalt.cohort;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import com.hartwig.hmftools.common.cobalt.CobaltRatioColumns;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Cohort statistics of the reference GC diploid ratio of a contiguous run of windows of one contig. The windows are those of the
+ * template sample. Each sample is read through a cursor that advances with the windows so memory does not grow with the partition or
+ * the cohort beyond a value per sample.
+ */
+class BaselinePartition implements Callable<BaselinePartition> {
+
+    static final double MIN_SAMPLE_FRACTION = 0.5;
+    static final double MIN_MEDIAN = 0.5;
+    static final double MAX_MEDIAN = 1.5;
+    static final double MAX_RELATIVE_MAD = 0.25;
+
+    private final List<CobaltRatioColumns> samples;
+    private final String contig;
+    private final CobaltRatioColumns template;
+    private final int startRow;
+    private final int endRow;
+
+    // Allocated when the partition is run so that partitions waiting to run hold no results
+    private int[] positions = new int[0];
+    private int[] sampleCounts = new int[0];
+    private double[] medians = new double[0];
+    private double[] mads = new double[0];
+
+    BaselinePartition(@NotNull final List<CobaltRatioColumns> samples, @NotNull final CobaltRatioColumns template,
+            @NotNull final String contig, int startRow, int endRow) {
+        this.samples = samples;
+        this.template = template;
+        this.contig = contig;
+        this.startRow = startRow;
+        this.endRow = endRow;
+    }
+
+    @NotNull
+    String contig() {
+        return contig;
+    }
+
+    int windows() {
+        return positions.length;
+    }
+
+    int position(int window) {
+        return positions[window];
+    }
+
+    int sampleCount(int window) {
+        return sampleCounts[window];
+    }
+
+    /**
+     * Median ratio of the samples with a ratio, or -1 if none have.
+     */
+    double median(int window) {
+        return medians[window];
+    }
+
+    /**
+     * Median absolute deviation from the median, or -1 if no samples have a ratio.
+     */
+    double mad(int window) {
+        return mads[window];
+    }
+
+    /**
+     * Whether most samples have a ratio in the window and they are consistently near diploid.
+     */
+    boolean isUsable(int window) {
+        final double median = medians[window];
+        return sampleCounts[window] >= MIN_SAMPLE_FRACTION * samples.size() && median >= MIN_MEDIAN && median <= MAX_MEDIAN
+                && mads[window] <= MAX_RELATIVE_MAD * median;
+    }
+
+    @Override
+    public BaselinePartition call() {
+        final int windows = endRow - startRow;
+        positions = new int[windows];
+        sampleCounts = new int[windows];
+        medians = new double[windows];
+        mads = new double[windows];
+
+        final int sampleCount = samples.size();
+        final int[] rows = new int[sampleCount];
+        final int[] endRows = new int[sampleCount];
+        for (int i = 0; i < sampleCount; i++) {
+            final CobaltRatioColumns sample = samples.get(i);
+            final int contigStart = sample.startIndex(contig);
+            if (contigStart >= 0 && windows > 0) {
+                endRows[i] = sample.endIndex(contig);
+                rows[i] = firstAtOrAfter(sample, contigStart, endRows[i], template.position(startRow));
+            }
+        }
+
+        final double[] values = new double[sampleCount];
+        final double[] deviations = new double[sampleCount];
+        for (int window = 0; window < windows; window++) {
+            final long position = template.position(startRow + window);
+
+            int count = 0;
+            for (int i = 0; i < sampleCount; i++) {
+                final CobaltRatioColumns sample = samples.get(i);
+                while (rows[i] < endRows[i] && sample.position(rows[i]) < position) {
+                    rows[i]++;
+                }
+
+                if (rows[i] < endRows[i] && sample.position(rows[i]) == position) {
+                    // Windows without a ratio are stored as -1
+                    final double value = sample.referenceGCDiploidRatio(rows[i]);
+                    if (value >= 0) {
+                        values[count++] = value;
+                    }
+                }
+            }
+
+            positions[window] = (int) position;
+            sampleCounts[window] = count;
+            if (count == 0) {
+                medians[window] = -1;
+                mads[window] = -1;
+            } else {
+                final double median = median(values, count);
+                for (int i = 0; i < count; i++) {
+                    deviations[i] = Math.abs(values[i] - median);
+                }
+                medians[window] = median;
+                mads[window] = median(deviations, count);
+            }
+        }
+
+        return this;
+    }
+
+    private static int firstAtOrAfter(@NotNull final CobaltRatioColumns sample, int startRow, int endRow, long position) {
+        int low = startRow;
+        int high = endRow;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (sample.position(mid) < position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Median of the first count values found by selection rather than sorting. The values are reordered.
+     */
+    static double median(@NotNull final double[] values, int count) {
+        final int middle = count / 2;
+        final double upper = select(values, count, middle);
+        if (count % 2 == 1) {
+            return upper;
+        }
+
+        // After selection every value before the middle is no greater than it
+        double lower = values[0];
+        for (int i = 1; i < middle; i++) {
+            lower = Math.max(lower, values[i]);
+        }
+        return (lower + upper) / 2;
+    }
+
+    private static double select(@NotNull final double[] values, int count, int k) {
+        int left = 0;
+        int right = count - 1;
+        while (left < right) {
+            final double pivot = values[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    final double swap = values[i];
+                    values[i] = values[j];
+                    values[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                break;
+            }
+        }
+        return values[k];
+    }
+}
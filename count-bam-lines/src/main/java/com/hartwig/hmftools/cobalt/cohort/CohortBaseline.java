@@ -0,0 +1,112 @@
+package com.hartwig.hmftools.cobalt.cohort;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.cobalt.ImmutableReadRatio;
+import com.hartwig.hmftools.common.cobalt.ReadRatio;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Per window median reference ratio of a cohort, see {@link CohortBaselineApplication}. Dividing a sample's ratios by the cohort
+ * median removes the bias shared by all samples, and windows the cohort marks unusable are excluded from the sample.
+ */
+public class CohortBaseline {
+
+    private static final Logger LOGGER = LogManager.getLogger(CohortBaseline.class);
+
+    // Autosome windows of a sample aligned to the reference genome the baseline was built on are all in the baseline
+    static final double MIN_MATCHED_FRACTION = 0.95;
+
+    private final Map<String, Contig> contigs = Maps.newHashMap();
+
+    void add(@NotNull final String contig, int position, double median, boolean usable) {
+        contigs.computeIfAbsent(contig, x -> new Contig()).add(position, median, usable);
+    }
+
+    /**
+     * Returns the ratio relative to the cohort median, -1 if the window is unusable or unchanged if the cohort has no such window or
+     * the sample has no ratio.
+     */
+    public double normalise(@NotNull final String contig, long position, double ratio) {
+        final Contig windows = contigs.get(contig);
+        final int index = windows == null ? -1 : windows.indexOf(position);
+        if (index < 0 || ratio < 0) {
+            return ratio;
+        }
+
+        return windows.usable[index] ? ratio / windows.medians[index] : -1;
+    }
+
+    /**
+     * Normalises every ratio, see {@link #normalise(String, long, double)}. A baseline built on a different reference genome or window
+     * grid would silently leave the ratios unchanged, or a mix of normalised and unchanged ratios, so this fails if too few of the
+     * autosome windows are in the baseline.
+     */
+    @NotNull
+    public ListMultimap<Chromosome, ReadRatio> normalise(@NotNull final ListMultimap<Chromosome, ReadRatio> ratios) {
+        int matched = 0;
+        int unmatched = 0;
+        final ListMultimap<Chromosome, ReadRatio> result = ArrayListMultimap.create();
+        for (Chromosome chromosome : ratios.keySet()) {
+            for (ReadRatio ratio : ratios.get(chromosome)) {
+                if (chromosome.isAutosome()) {
+                    final Contig windows = contigs.get(ratio.chromosome());
+                    if (windows != null && windows.indexOf(ratio.position()) >= 0) {
+                        matched++;
+                    } else {
+                        unmatched++;
+                    }
+                }
+
+                final double normalised = normalise(ratio.chromosome(), ratio.position(), ratio.ratio());
+                result.put(chromosome, ImmutableReadRatio.builder().from(ratio).ratio(normalised).build());
+            }
+        }
+
+        final int windows = matched + unmatched;
+        if (matched < MIN_MATCHED_FRACTION * windows) {
+            throw new IllegalArgumentException(String.format("Cohort baseline has only %d of %d autosome windows, "
+                    + "check it was built on the same reference genome", matched, windows));
+        }
+        if (unmatched > 0) {
+            LOGGER.warn("Cohort baseline is missing {} of {} autosome windows, their ratios are not normalised", unmatched, windows);
+        } else {
+            LOGGER.info("Cohort baseline has all {} autosome windows", windows);
+        }
+
+        return result;
+    }
+
+    private static class Contig {
+
+        private int[] positions = new int[1024];
+        private double[] medians = new double[1024];
+        private boolean[] usable = new boolean[1024];
+        private int size;
+
+        private int indexOf(long position) {
+            return Arrays.binarySearch(positions, 0, size, (int) position);
+        }
+
+        // Windows are added in ascending position
+        private void add(int position, double median, boolean usable) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+                medians = Arrays.copyOf(medians, size * 2);
+                this.usable = Arrays.copyOf(this.usable, size * 2);
+            }
+            positions[size] = position;
+            medians[size] = median;
+            this.usable[size] = usable;
+            size++;
+        }
+    }
+}
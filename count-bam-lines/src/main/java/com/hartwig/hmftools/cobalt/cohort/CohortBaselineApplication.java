@@ -0,0 +1,152 @@
+package com.hartwig.hmftools.cobalt.cohort;
+
+import static com.hartwig.hmftools.common.cli.Configs.defaultIntValue;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.hartwig.hmftools.common.cobalt.CobaltRatioColumns;
+import com.hartwig.hmftools.common.cobalt.CobaltRatioFile;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Builds the cohort baseline that COBALT accepts as its baseline argument from the ratio files of many reference samples.
+ *
+ * Each window takes the median and median absolute deviation of the reference GC diploid ratio over the samples. A window is usable if
+ * at least half the samples have a ratio and the median is near diploid with a small spread. Only autosomes are included as the
+ * ratio of the allosomes depends on the gender of each sample.
+ *
+ * Ratio files are memory mapped and read a partition of windows at a time across all samples. Only a bounded number of partitions are
+ * in flight, so memory does not grow with the size of the cohort or genome. Ratio tsv files are first converted to the binary format
+ * one at a time. A current binary file beside the tsv is used as is, otherwise the converted file is written beside the output with the
+ * standard binary filename so that later runs can reuse it.
+ */
+public class CohortBaselineApplication {
+
+    private static final Logger LOGGER = LogManager.getLogger(CohortBaselineApplication.class);
+
+    private static final String RATIO_FILES = "ratio_files";
+    private static final String OUTPUT = "out";
+    private static final String THREADS = "threads";
+
+    private static final int DEFAULT_THREADS = 4;
+    private static final int PARTITION_WINDOWS = 10_000;
+
+    public static void main(final String... args) throws IOException, ExecutionException, InterruptedException {
+        final Options options = new Options();
+        options.addOption(RATIO_FILES, true, "File listing the path of a cobalt ratio file per line, either .cobalt.ratio.bin or tsv");
+        options.addOption(OUTPUT, true, "Path to baseline file to write");
+        options.addOption(THREADS, true, "Number of threads [" + DEFAULT_THREADS + "]");
+
+        try {
+            final CommandLine cmd = new DefaultParser().parse(options, args);
+            if (!cmd.hasOption(RATIO_FILES) || !cmd.hasOption(OUTPUT)) {
+                throw new ParseException("Missing the following parameters: " + RATIO_FILES + ", " + OUTPUT);
+            }
+
+            final String outputPath = cmd.getOptionValue(OUTPUT);
+            final File outputDirectory = new File(outputPath).getAbsoluteFile().getParentFile();
+            final List<CobaltRatioColumns> samples = samples(cmd.getOptionValue(RATIO_FILES), outputDirectory);
+            if (samples.isEmpty()) {
+                throw new ParseException("No ratio files listed in " + cmd.getOptionValue(RATIO_FILES));
+            }
+
+            run(samples, outputPath, defaultIntValue(cmd, THREADS, DEFAULT_THREADS));
+        } catch (ParseException e) {
+            LOGGER.warn(e);
+            final HelpFormatter formatter = new HelpFormatter();
+            formatter.printHelp("CohortBaselineApplication", options);
+            System.exit(1);
+        }
+    }
+
+    static void run(@NotNull final List<CobaltRatioColumns> samples, @NotNull final String outputPath, int threadCount)
+            throws IOException, ExecutionException, InterruptedException {
+        // Windows are taken from the first sample as every sample aligned to the same reference genome has the same windows
+        final CobaltRatioColumns template = samples.get(0);
+        final List<String> contigs = Lists.newArrayList();
+        for (String contig : template.contigs()) {
+            if (HumanChromosome.contains(contig) && HumanChromosome.fromString(contig).isAutosome()) {
+                contigs.add(contig);
+            }
+        }
+
+        LOGGER.info("Calculating baseline of {} samples over {} contigs", samples.size(), contigs.size());
+        final ExecutorService executorService =
+                Executors.newFixedThreadPool(threadCount, new ThreadFactoryBuilder().setNameFormat("-%d").build());
+        try (BufferedWriter writer = Files.newBufferedWriter(new File(outputPath).toPath())) {
+            CohortBaselineFile.writeHeader(writer);
+
+            // Partitions are created as they are submitted and written in order as they complete, so at most two per thread are held
+            final Deque<Future<BaselinePartition>> pending = new ArrayDeque<>();
+            for (String contig : contigs) {
+                final int endRow = template.endIndex(contig);
+                for (int startRow = template.startIndex(contig); startRow < endRow; startRow += PARTITION_WINDOWS) {
+                    if (pending.size() >= 2 * threadCount) {
+                        CohortBaselineFile.write(writer, pending.poll().get());
+                    }
+
+                    final int partitionEndRow = Math.min(endRow, startRow + PARTITION_WINDOWS);
+                    pending.add(executorService.submit(new BaselinePartition(samples, template, contig, startRow, partitionEndRow)));
+                }
+            }
+            while (!pending.isEmpty()) {
+                CohortBaselineFile.write(writer, pending.poll().get());
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        LOGGER.info("Baseline written to {}", outputPath);
+    }
+
+    @NotNull
+    static List<CobaltRatioColumns> samples(@NotNull final String ratioFiles, @NotNull final File outputDirectory) throws IOException {
+        final List<CobaltRatioColumns> result = Lists.newArrayList();
+        for (String line : Files.readAllLines(new File(ratioFiles).toPath())) {
+            final String ratioFile = line.trim();
+            if (ratioFile.isEmpty()) {
+                continue;
+            }
+
+            if (ratioFile.endsWith(".bin")) {
+                result.add(CobaltRatioColumns.read(ratioFile));
+                continue;
+            }
+
+            final String siblingFile = CobaltRatioFile.generateBinaryFilename(ratioFile);
+            if (CobaltRatioFile.isBinaryCurrent(siblingFile, ratioFile)) {
+                result.add(CobaltRatioColumns.read(siblingFile));
+                continue;
+            }
+
+            final String binaryFile = new File(outputDirectory, new File(siblingFile).getName()).toString();
+            if (!CobaltRatioFile.isBinaryCurrent(binaryFile, ratioFile)) {
+                LOGGER.info("Converting {} to {}", ratioFile, binaryFile);
+                CobaltRatioColumns.write(binaryFile, CobaltRatioFile.read(ratioFile));
+            }
+            result.add(CobaltRatioColumns.read(binaryFile));
+        }
+        return result;
+    }
+}
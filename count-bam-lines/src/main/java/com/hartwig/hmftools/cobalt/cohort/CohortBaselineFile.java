@@ -0,0 +1,56 @@
+package com.hartwig.hmftools.cobalt.cohort;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.text.DecimalFormat;
+import java.util.StringJoiner;
+
+import org.jetbrains.annotations.NotNull;
+
+public final class CohortBaselineFile {
+
+    private static final String DELIMITER = "\t";
+
+    private CohortBaselineFile() {
+    }
+
+    @NotNull
+    public static CohortBaseline read(@NotNull final String filename) throws IOException {
+        final CohortBaseline result = new CohortBaseline();
+        try (BufferedReader reader = Files.newBufferedReader(new File(filename).toPath())) {
+            // Skip the header
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null) {
+                final String[] values = line.split(DELIMITER);
+                result.add(values[0], Integer.parseInt(values[1]), Double.parseDouble(values[3]), Boolean.parseBoolean(values[5]));
+            }
+        }
+        return result;
+    }
+
+    static void writeHeader(@NotNull final Writer writer) throws IOException {
+        writer.write(new StringJoiner(DELIMITER, "", "\n").add("chromosome")
+                .add("position")
+                .add("samples")
+                .add("median")
+                .add("mad")
+                .add("usable")
+                .toString());
+    }
+
+    static void write(@NotNull final Writer writer, @NotNull final BaselinePartition partition) throws IOException {
+        final DecimalFormat format = new DecimalFormat("#.####");
+        for (int i = 0; i < partition.windows(); i++) {
+            writer.write(new StringJoiner(DELIMITER, "", "\n").add(partition.contig())
+                    .add(String.valueOf(partition.position(i)))
+                    .add(String.valueOf(partition.sampleCount(i)))
+                    .add(format.format(partition.median(i)))
+                    .add(format.format(partition.mad(i)))
+                    .add(String.valueOf(partition.isUsable(i)))
+                    .toString());
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.hartwig.hmftools.cobalt.count;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -10,6 +11,7 @@ import java.util.concurrent.Future;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.hartwig.hmftools.cobalt.CountBamLinesApplication;
 import com.hartwig.hmftools.common.cobalt.CobaltCount;
@@ -31,19 +33,24 @@ public class CountSupplier {
 
     private static final Logger LOGGER = LogManager.getLogger(CountBamLinesApplication.class);
 
+    private static final int PARTITIONS_PER_THREAD = 4;
+    private static final long MIN_PARTITION_SIZE = 1_000_000;
+
     private final String tumor;
     private final String outputDirectory;
     private final int windowSize;
     private final int minMappingQuality;
+    private final int threadCount;
     private final ExecutorService executorService;
     private final SamReaderFactory readerFactory;
 
     public CountSupplier(final String tumor, final String outputDirectory, final int windowSize, final int minMappingQuality,
-            final ExecutorService executorService, final SamReaderFactory readerFactory) {
+            final int threadCount, final ExecutorService executorService, final SamReaderFactory readerFactory) {
         this.tumor = tumor;
         this.outputDirectory = outputDirectory;
         this.windowSize = windowSize;
         this.minMappingQuality = minMappingQuality;
+        this.threadCount = threadCount;
         this.executorService = executorService;
         this.readerFactory = readerFactory;
     }
@@ -61,46 +68,76 @@ public class CountSupplier {
         }
         ChromosomeLengthFile.write(chromosomeLengthFileName, lengths);
 
+        final int partitionSize = partitionSize(lengths);
         LOGGER.info("Calculating Read Count from {}", tumorFile.toString());
-        final List<Future<ChromosomeReadCount>> tumorFutures = createFutures(readerFactory, tumorFile, lengths);
+        final List<Future<PartitionReadCount>> tumorFutures = createFutures(readerFactory, tumorFile, lengths, partitionSize);
 
         LOGGER.info("Calculating Read Count from {}", referenceFile.toString());
-        final List<Future<ChromosomeReadCount>> referenceFutures = createFutures(readerFactory, referenceFile, lengths);
+        final List<Future<PartitionReadCount>> referenceFutures = createFutures(readerFactory, referenceFile, lengths, partitionSize);
 
-        final Multimap<Chromosome, ReadCount> tumorCounts = fromFutures(tumorFutures);
-        final Multimap<Chromosome, ReadCount> referenceCounts = fromFutures(referenceFutures);
+        final Multimap<Chromosome, ReadCount> tumorCounts = fromFutures(tumorFutures, lengths);
+        final Multimap<Chromosome, ReadCount> referenceCounts = fromFutures(referenceFutures, lengths);
 
         LOGGER.info("Read Count Complete");
         return CobaltCountFactory.merge(referenceCounts, tumorCounts);
     }
 
+    /**
+     * Partitions are sized so that each thread has several of roughly equal size to work through, letting the threads that drew
+     * sparse regions pick up the slack at the end.
+     */
+    private int partitionSize(@NotNull final List<ChromosomeLength> lengths) {
+        final long genomeLength = lengths.stream().mapToLong(ChromosomeLength::length).sum();
+        final long targetSize = Math.max(MIN_PARTITION_SIZE, genomeLength / Math.max(1, threadCount * PARTITIONS_PER_THREAD));
+        final long windows = Math.max(1, targetSize / windowSize);
+        return (int) Math.min(Integer.MAX_VALUE / 2, windows * windowSize);
+    }
+
     @NotNull
-    private List<Future<ChromosomeReadCount>> createFutures(final SamReaderFactory readerFactory, final File file,
-            final List<ChromosomeLength> lengths) {
-        final List<Future<ChromosomeReadCount>> futures = Lists.newArrayList();
+    private List<Future<PartitionReadCount>> createFutures(final SamReaderFactory readerFactory, final File file,
+            final List<ChromosomeLength> lengths, final int partitionSize) {
+        final List<Future<PartitionReadCount>> futures = Lists.newArrayList();
         for (ChromosomeLength chromosome : lengths) {
-            final ChromosomeReadCount callable = new ChromosomeReadCount(file,
-                    readerFactory,
-                    chromosome.chromosome(),
-                    chromosome.length(),
-                    windowSize,
-                    minMappingQuality);
-            futures.add(executorService.submit(callable));
+            final int chromosomeLength = (int) chromosome.length();
+
+            // Split the chromosome into equal window aligned partitions no larger than the partition size
+            final int partitions = (chromosomeLength + partitionSize - 1) / partitionSize;
+            final int windows = (chromosomeLength + windowSize - 1) / windowSize;
+            final int windowsPerPartition = (windows + partitions - 1) / partitions;
+
+            for (int start = 1; start <= chromosomeLength; start += windowsPerPartition * windowSize) {
+                final int end = (int) Math.min(chromosomeLength, start + (long) windowsPerPartition * windowSize - 1);
+                futures.add(executorService.submit(new PartitionReadCount(file,
+                        readerFactory,
+                        chromosome.chromosome(),
+                        start,
+                        end,
+                        windowSize,
+                        minMappingQuality)));
+            }
         }
 
         return futures;
     }
 
     @NotNull
-    private static Multimap<Chromosome, ReadCount> fromFutures(List<Future<ChromosomeReadCount>> futures)
-            throws ExecutionException, InterruptedException {
-        final ListMultimap<Chromosome, ReadCount> readCounts = ArrayListMultimap.create();
-        for (Future<ChromosomeReadCount> future : futures) {
-            final ChromosomeReadCount readCount = future.get();
-            final Chromosome chromosome = readCount.chromosome();
-            final List<ReadCount> result = readCount.readCount();
+    private Multimap<Chromosome, ReadCount> fromFutures(@NotNull final List<Future<PartitionReadCount>> futures,
+            @NotNull final List<ChromosomeLength> lengths) throws ExecutionException, InterruptedException {
+        final Map<String, ChromosomeReadCount> chromosomeCounts = Maps.newLinkedHashMap();
+        for (ChromosomeLength chromosome : lengths) {
+            final String contig = chromosome.chromosome();
+            chromosomeCounts.put(contig, new ChromosomeReadCount(contig, chromosome.length(), windowSize));
+        }
+
+        // Partitions were submitted in order so each chromosome is stitched from its first partition onwards
+        for (Future<PartitionReadCount> future : futures) {
+            final PartitionReadCount partition = future.get();
+            chromosomeCounts.get(partition.chromosome()).addPartition(partition);
+        }
 
-            readCounts.putAll(chromosome, result);
+        final ListMultimap<Chromosome, ReadCount> readCounts = ArrayListMultimap.create();
+        for (ChromosomeReadCount readCount : chromosomeCounts.values()) {
+            readCounts.putAll(readCount.chromosome(), readCount.readCount());
         }
 
         return readCounts;
@@ -0,0 +1,180 @@
+package com.hartwig.hmftools.cobalt.count;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import htsjdk.samtools.BAMFileSpan;
+import htsjdk.samtools.Chunk;
+import htsjdk.samtools.SAMFlag;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMRecordIterator;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+
+/**
+ * Counts the eligible reads starting in each window of a window aligned range of a chromosome. Reads that overlap the range but start
+ * before it belong to the preceding partition and are ignored. Indexed BAM files are scanned without decoding full records.
+ */
+class PartitionReadCount implements Callable<PartitionReadCount> {
+
+    private static final Logger LOGGER = LogManager.getLogger(PartitionReadCount.class);
+
+    // refID, pos, l_read_name, mapq, bin, n_cigar_op, flag and l_seq of a BAM record, following its block_size
+    private static final int BLOCK_SIZE_SIZE = 4;
+    private static final int RECORD_HEADER_SIZE = 20;
+    private static final int EXCLUDED_FLAGS = SAMFlag.READ_UNMAPPED.intValue() | SAMFlag.DUPLICATE_READ.intValue()
+            | SAMFlag.SECONDARY_ALIGNMENT.intValue() | SAMFlag.SUPPLEMENTARY_ALIGNMENT.intValue();
+
+    private final File inputFile;
+    private final SamReaderFactory readerFactory;
+    private final String chromosome;
+    private final int start;
+    private final int end;
+    private final int windowSize;
+    private final int minMappingQuality;
+    private final int[] counts;
+
+    /**
+     * @param start first position of the range, which must also be the first position of a window
+     */
+    PartitionReadCount(final File inputFile, final SamReaderFactory readerFactory, @NotNull final String chromosome, final int start,
+            final int end, final int windowSize, final int minMappingQuality) {
+        this.inputFile = inputFile;
+        this.readerFactory = readerFactory;
+        this.chromosome = chromosome;
+        this.start = start;
+        this.end = end;
+        this.windowSize = windowSize;
+        this.minMappingQuality = minMappingQuality;
+        this.counts = new int[(end - start) / windowSize + 1];
+    }
+
+    @Override
+    public PartitionReadCount call() throws Exception {
+        LOGGER.debug("Generating windows on chromosome {} from {} to {}", chromosome, start, end);
+
+        try (final SamReader reader = readerFactory.open(inputFile)) {
+            if (reader.type() == SamReader.Type.BAM_TYPE && reader.hasIndex()) {
+                scanBam(reader);
+            } else {
+                try (final SAMRecordIterator iterator = reader.query(chromosome, start, end, false)) {
+                    while (iterator.hasNext()) {
+                        addRecord(iterator.next());
+                    }
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Reads the raw BAM records of the index chunks overlapping the partition straight from the BGZF stream. Only the fixed width
+     * fields at the start of each record are decoded, the read name, cigar, bases, qualities and tags are skipped.
+     */
+    private void scanBam(@NotNull final SamReader reader) throws IOException {
+        final int referenceIndex = reader.getFileHeader().getSequenceIndex(chromosome);
+        if (referenceIndex < 0) {
+            return;
+        }
+
+        final BAMFileSpan span = reader.indexing().getIndex().getSpanOverlapping(referenceIndex, start, end);
+        if (span == null) {
+            return;
+        }
+
+        final byte[] buffer = new byte[RECORD_HEADER_SIZE];
+        byte[] remainder = new byte[1024];
+        try (final BlockCompressedInputStream stream = new BlockCompressedInputStream(inputFile)) {
+            for (Chunk chunk : span.getChunks()) {
+                stream.seek(chunk.getChunkStart());
+                while (stream.getFilePointer() < chunk.getChunkEnd()) {
+                    readFully(stream, buffer, BLOCK_SIZE_SIZE);
+                    final int blockSize = intValue(buffer, 0);
+
+                    readFully(stream, buffer, RECORD_HEADER_SIZE);
+                    final int remaining = blockSize - RECORD_HEADER_SIZE;
+                    if (remaining > remainder.length) {
+                        remainder = new byte[remaining];
+                    }
+                    readFully(stream, remainder, remaining);
+
+                    final int recordReferenceIndex = intValue(buffer, 0);
+                    final int alignmentStart = intValue(buffer, 4) + 1;
+                    // Records are coordinate sorted so nothing further can start in the partition
+                    if (recordReferenceIndex != referenceIndex) {
+                        if (recordReferenceIndex < 0 || recordReferenceIndex > referenceIndex) {
+                            return;
+                        }
+                        continue;
+                    }
+                    if (alignmentStart > end) {
+                        return;
+                    }
+
+                    final int mappingQuality = buffer[9] & 0xFF;
+                    final int flags = shortValue(buffer, 14);
+                    if (alignmentStart >= start && mappingQuality >= minMappingQuality && (flags & EXCLUDED_FLAGS) == 0) {
+                        counts[(alignmentStart - start) / windowSize]++;
+                    }
+                }
+            }
+        }
+    }
+
+    @NotNull
+    String chromosome() {
+        return chromosome;
+    }
+
+    int windows() {
+        return counts.length;
+    }
+
+    long windowPosition(int index) {
+        return start + (long) index * windowSize;
+    }
+
+    int count(int index) {
+        return counts[index];
+    }
+
+    void addRecord(@NotNull SAMRecord record) {
+        final int alignmentStart = record.getAlignmentStart();
+        if (alignmentStart >= start && alignmentStart <= end && isEligible(record)) {
+            counts[(alignmentStart - start) / windowSize]++;
+        }
+    }
+
+    private boolean isEligible(@NotNull SAMRecord record) {
+        return record.getMappingQuality() >= minMappingQuality && !(record.getReadUnmappedFlag() || record.getDuplicateReadFlag()
+                || record.isSecondaryOrSupplementary());
+    }
+
+    private static void readFully(@NotNull final BlockCompressedInputStream stream, @NotNull final byte[] buffer, int length)
+            throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            final int read = stream.read(buffer, offset, length - offset);
+            if (read < 0) {
+                throw new EOFException("Premature end of BAM file " + stream.getFilePointer());
+            }
+            offset += read;
+        }
+    }
+
+    private static int intValue(@NotNull final byte[] buffer, int offset) {
+        return (buffer[offset] & 0xFF) | (buffer[offset + 1] & 0xFF) << 8 | (buffer[offset + 2] & 0xFF) << 16
+                | (buffer[offset + 3] & 0xFF) << 24;
+    }
+
+    private static int shortValue(@NotNull final byte[] buffer, int offset) {
+        return (buffer[offset] & 0xFF) | (buffer[offset + 1] & 0xFF) << 8;
+    }
+}
@@ -4,6 +4,7 @@ import java.io.IOException;
 
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimap;
+import com.hartwig.hmftools.cobalt.cohort.CohortBaseline;
 import com.hartwig.hmftools.common.cobalt.CobaltCount;
 import com.hartwig.hmftools.common.cobalt.CobaltRatio;
 import com.hartwig.hmftools.common.cobalt.CobaltRatioFactory;
@@ -15,6 +16,7 @@ import com.hartwig.hmftools.common.genome.gc.GCProfile;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public class RatioSupplier {
 
@@ -23,11 +25,15 @@ public class RatioSupplier {
     private final String tumor;
     private final String reference;
     private final String outputDirectory;
+    @Nullable
+    private final CohortBaseline baseline;
 
-    public RatioSupplier(final String reference, final String tumor, final String outputDirectory) {
+    public RatioSupplier(final String reference, final String tumor, final String outputDirectory,
+            @Nullable final CohortBaseline baseline) {
         this.tumor = tumor;
         this.reference = reference;
         this.outputDirectory = outputDirectory;
+        this.baseline = baseline;
     }
 
     @NotNull
@@ -35,8 +41,14 @@ public class RatioSupplier {
             @NotNull final Multimap<Chromosome, CobaltCount> readCounts) throws IOException {
         LOGGER.info("Applying ratio gc normalization");
         final GCRatioSupplier gcRatioSupplier = new GCRatioSupplier(gcProfiles, readCounts);
-        final ListMultimap<Chromosome, ReadRatio> tumorGCRatio = gcRatioSupplier.tumorRatios();
-        final ListMultimap<Chromosome, ReadRatio> referenceGCRatio = gcRatioSupplier.referenceRatios();
+        ListMultimap<Chromosome, ReadRatio> tumorGCRatio = gcRatioSupplier.tumorRatios();
+        ListMultimap<Chromosome, ReadRatio> referenceGCRatio = gcRatioSupplier.referenceRatios();
+
+        if (baseline != null) {
+            LOGGER.info("Applying ratio cohort baseline normalization");
+            tumorGCRatio = baseline.normalise(tumorGCRatio);
+            referenceGCRatio = baseline.normalise(referenceGCRatio);
+        }
 
         LOGGER.info("Applying ratio diploid normalization");
         final ListMultimap<Chromosome, ReadRatio> referenceGCDiploidRatio = new DiploidRatioSupplier(referenceGCRatio).result();
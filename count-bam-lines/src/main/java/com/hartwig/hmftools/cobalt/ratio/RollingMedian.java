@@ -1,12 +1,19 @@
 package com.hartwig.hmftools.cobalt.ratio;
 
-import java.util.Comparator;
-import java.util.PriorityQueue;
+import java.util.Arrays;
 
+/**
+ * Median of a sliding multiset of doubles held in two primitive heaps, the lower half in a max heap and the upper half in a min heap.
+ * Values are removed lazily once they reach the top of their heap so that add, remove and median are all O(log n) without boxing.
+ *
+ * Values are assigned to heaps exactly as the previous PriorityQueue implementation did, relative to the median rather than the heap
+ * tops, including that a removal is ignored if the value is not in the heap it is expected in. This keeps the medians, and hence the
+ * normalised ratios, bit-identical.
+ */
 class RollingMedian {
 
-    private final PriorityQueue<Double> minheap = new PriorityQueue<>(new MinHeapComparator());
-    private final PriorityQueue<Double> maxheap = new PriorityQueue<>(new MaxHeapComparator());
+    private final DoubleHeap minheap = new DoubleHeap(1);
+    private final DoubleHeap maxheap = new DoubleHeap(-1);
 
     void add(double n) {
         if (isEmpty()) {
@@ -65,18 +72,201 @@ class RollingMedian {
         }
     }
 
-    private static class MinHeapComparator implements Comparator<Double> {
-        @Override
-        public int compare(Double i, Double j) {
-            return Double.compare(i, j);
+    /**
+     * Binary heap of doubles with lazy removal. Removed values are counted as pending and only dropped once they reach the top.
+     */
+    private static class DoubleHeap {
+
+        private final int sign;
+        private final DoubleCounts counts = new DoubleCounts();
+        private final DoubleCounts pendingRemovals = new DoubleCounts();
+
+        private double[] values = new double[16];
+        private int heapSize;
+        private int size;
+
+        // A sign of 1 orders the heap as a min heap, -1 as a max heap
+        private DoubleHeap(int sign) {
+            this.sign = sign;
+        }
+
+        int size() {
+            return size;
+        }
+
+        double peek() {
+            return values[0];
+        }
+
+        void add(double value) {
+            counts.increment(value);
+            size++;
+            push(value);
+        }
+
+        double poll() {
+            final double result = pop();
+            counts.decrement(result);
+            size--;
+            prune();
+            return result;
+        }
+
+        /**
+         * Removes one occurrence of the value, if present, and returns whether it was.
+         */
+        boolean remove(double value) {
+            if (!counts.decrement(value)) {
+                return false;
+            }
+
+            size--;
+            pendingRemovals.increment(value);
+            prune();
+            return true;
+        }
+
+        private void prune() {
+            while (heapSize > 0 && pendingRemovals.decrement(values[0])) {
+                pop();
+            }
+        }
+
+        private void push(double value) {
+            if (heapSize == values.length) {
+                values = Arrays.copyOf(values, heapSize * 2);
+            }
+
+            int index = heapSize++;
+            while (index > 0) {
+                final int parent = (index - 1) >>> 1;
+                if (compare(value, values[parent]) >= 0) {
+                    break;
+                }
+                values[index] = values[parent];
+                index = parent;
+            }
+            values[index] = value;
+        }
+
+        private double pop() {
+            final double result = values[0];
+            final double last = values[--heapSize];
+
+            int index = 0;
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && compare(values[child + 1], values[child]) < 0) {
+                    child++;
+                }
+                if (compare(last, values[child]) <= 0) {
+                    break;
+                }
+                values[index] = values[child];
+                index = child;
+            }
+            if (heapSize > 0) {
+                values[index] = last;
+            }
+            return result;
+        }
+
+        private int compare(double first, double second) {
+            return sign * Double.compare(first, second);
         }
     }
 
-    private static class MaxHeapComparator implements Comparator<Double> {
-        // opposite to minHeapComparator, invert the return values
-        @Override
-        public int compare(Double i, Double j) {
-            return -1 * Double.compare(i, j);
+    /**
+     * Multiset counts of doubles keyed by their bits in an open addressing table with linear probing.
+     */
+    private static class DoubleCounts {
+
+        private long[] keys = new long[16];
+        private int[] counts = new int[16];
+        private int size;
+
+        void increment(double value) {
+            if (2 * (size + 1) > keys.length) {
+                resize();
+            }
+
+            final long key = Double.doubleToLongBits(value);
+            int index = index(key, keys.length);
+            while (counts[index] > 0 && keys[index] != key) {
+                index = (index + 1) & (keys.length - 1);
+            }
+            if (counts[index] == 0) {
+                keys[index] = key;
+                size++;
+            }
+            counts[index]++;
+        }
+
+        /**
+         * Decrements the count of the value and returns whether it was present.
+         */
+        boolean decrement(double value) {
+            if (size == 0) {
+                return false;
+            }
+
+            final long key = Double.doubleToLongBits(value);
+            final int mask = keys.length - 1;
+            int index = index(key, keys.length);
+            while (counts[index] > 0) {
+                if (keys[index] == key) {
+                    if (--counts[index] == 0) {
+                        size--;
+                        shiftBack(index);
+                    }
+                    return true;
+                }
+                index = (index + 1) & mask;
+            }
+            return false;
+        }
+
+        // Moves later entries of the probe sequence into the emptied slot so that lookups need no tombstones
+        private void shiftBack(int empty) {
+            final int mask = keys.length - 1;
+            int index = (empty + 1) & mask;
+            while (counts[index] > 0) {
+                final int home = index(keys[index], keys.length);
+                if (((index - home) & mask) >= ((index - empty) & mask)) {
+                    keys[empty] = keys[index];
+                    counts[empty] = counts[index];
+                    counts[index] = 0;
+                    empty = index;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        private void resize() {
+            final long[] oldKeys = keys;
+            final int[] oldCounts = counts;
+            keys = new long[oldKeys.length * 2];
+            counts = new int[oldKeys.length * 2];
+
+            final int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldCounts[i] > 0) {
+                    int index = index(oldKeys[i], keys.length);
+                    while (counts[index] > 0) {
+                        index = (index + 1) & mask;
+                    }
+                    keys[index] = oldKeys[i];
+                    counts[index] = oldCounts[i];
+                }
+            }
+        }
+
+        private static int index(long key, int length) {
+            final long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash >>> 32) & (length - 1);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,101 @@
+package com.hartwig.hmftools.cobalt.cohort;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.ListMultimap;
+import com.hartwig.hmftools.common.cobalt.CobaltRatio;
+import com.hartwig.hmftools.common.cobalt.CobaltRatioColumns;
+import com.hartwig.hmftools.common.cobalt.ImmutableCobaltRatio;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BaselinePartitionTest {
+
+    private static final double EPSILON = 1e-10;
+
+    @Rule
+    public final TemporaryFolder directory = new TemporaryFolder();
+
+    @Test
+    public void testMedianMatchesSort() {
+        final Random random = new Random(0);
+        for (int count = 1; count < 50; count++) {
+            final double[] values = new double[count + 5];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(10) / 4d;
+            }
+
+            final double[] sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+            final double expected = count % 2 == 1 ? sorted[count / 2] : (sorted[count / 2 - 1] + sorted[count / 2]) / 2;
+            assertEquals(expected, BaselinePartition.median(values, count), 0);
+        }
+    }
+
+    @Test
+    public void testWindowStatistics() throws IOException {
+        final List<CobaltRatioColumns> samples = Lists.newArrayList(
+                sample(new int[] { 1, 1001, 2001, 3001 }, new double[] { 1.0, 0.1, -1, 1.2 }),
+                sample(new int[] { 1, 1001, 2001, 3001 }, new double[] { 1.2, 0.2, -1, 0.6 }),
+                sample(new int[] { 1, 2001, 3001 }, new double[] { 0.9, 1.1, 1.4 }));
+
+        final BaselinePartition victim = new BaselinePartition(samples, samples.get(0), "1", 1, 4).call();
+        assertEquals(3, victim.windows());
+
+        assertEquals(1001, victim.position(0));
+        assertEquals(2, victim.sampleCount(0));
+        assertEquals(0.15, victim.median(0), EPSILON);
+        assertEquals(0.05, victim.mad(0), EPSILON);
+        assertFalse(victim.isUsable(0));
+
+        assertEquals(2001, victim.position(1));
+        assertEquals(1, victim.sampleCount(1));
+        assertEquals(1.1, victim.median(1), EPSILON);
+        assertFalse(victim.isUsable(1));
+
+        assertEquals(3001, victim.position(2));
+        assertEquals(3, victim.sampleCount(2));
+        assertEquals(1.2, victim.median(2), EPSILON);
+        assertEquals(0.2, victim.mad(2), EPSILON);
+        assertTrue(victim.isUsable(2));
+    }
+
+    @NotNull
+    private CobaltRatioColumns sample(@NotNull final int[] positions, @NotNull final double[] ratios) throws IOException {
+        final ListMultimap<Chromosome, CobaltRatio> result = ArrayListMultimap.create();
+        for (int i = 0; i < positions.length; i++) {
+            result.put(HumanChromosome._1, ratio(positions[i], ratios[i]));
+        }
+
+        final String file = directory.newFile().toString();
+        CobaltRatioColumns.write(file, result);
+        return CobaltRatioColumns.read(file);
+    }
+
+    @NotNull
+    static CobaltRatio ratio(int position, double referenceGCDiploidRatio) {
+        return ImmutableCobaltRatio.builder()
+                .chromosome("1")
+                .position(position)
+                .referenceReadCount(100)
+                .tumorReadCount(100)
+                .referenceGCRatio(referenceGCDiploidRatio)
+                .tumorGCRatio(referenceGCDiploidRatio)
+                .referenceGCDiploidRatio(referenceGCDiploidRatio)
+                .build();
+    }
+}
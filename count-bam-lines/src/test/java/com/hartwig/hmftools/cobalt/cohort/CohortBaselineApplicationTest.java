@@ -0,0 +1,96 @@
+package com.hartwig.hmftools.cobalt.cohort;
+
+import static com.hartwig.hmftools.cobalt.cohort.BaselinePartitionTest.ratio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.cobalt.CobaltRatio;
+import com.hartwig.hmftools.common.cobalt.CobaltRatioColumns;
+import com.hartwig.hmftools.common.cobalt.CobaltRatioFile;
+import com.hartwig.hmftools.common.cobalt.ImmutableCobaltRatio;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CohortBaselineApplicationTest {
+
+    private static final double EPSILON = 1e-10;
+    private static final int WINDOWS = 25_000;
+
+    @Rule
+    public final TemporaryFolder directory = new TemporaryFolder();
+
+    @Test
+    public void testBaseline() throws Exception {
+        final List<CobaltRatioColumns> samples = Lists.newArrayList();
+        for (int sample = 0; sample < 5; sample++) {
+            samples.add(sample(0.9 + sample * 0.05));
+        }
+
+        final String output = directory.newFile("cohort.baseline.tsv").toString();
+        CohortBaselineApplication.run(samples, output, 2);
+        assertEquals(WINDOWS + 1, Files.readAllLines(new File(output).toPath()).size());
+
+        final CohortBaseline victim = CohortBaselineFile.read(output);
+        assertEquals(1.1 / 1.2, victim.normalise("1", 1, 1.1), EPSILON);
+        assertEquals(1.1 / 1.0, victim.normalise("1", 1000L * (WINDOWS - 1) + 1, 1.1), EPSILON);
+        assertEquals(-1, victim.normalise("1", 1001, 1.1), EPSILON);
+        assertEquals(-1, victim.normalise("1", 1, -1), EPSILON);
+
+        // Windows the cohort has no baseline for are unchanged
+        assertEquals(1.1, victim.normalise("1", 1000L * WINDOWS + 1, 1.1), EPSILON);
+        assertEquals(1.1, victim.normalise("X", 1, 1.1), EPSILON);
+    }
+
+    @Test
+    public void testTsvIsConvertedBesideOutputAndReused() throws Exception {
+        final File inputDirectory = directory.newFolder("input");
+        final File outputDirectory = directory.newFolder("output");
+
+        final ListMultimap<Chromosome, CobaltRatio> ratios = ArrayListMultimap.create();
+        ratios.put(HumanChromosome._1, ratio(1, 1.1));
+        final String tsv = new File(inputDirectory, "SAMPLE.cobalt.ratio.tsv").toString();
+        CobaltRatioFile.write(tsv, ratios);
+
+        final File ratioFiles = directory.newFile("ratio_files.txt");
+        Files.write(ratioFiles.toPath(), Lists.newArrayList(tsv));
+
+        final File converted = new File(outputDirectory, "SAMPLE.cobalt.ratio.bin");
+        assertEquals(1, CohortBaselineApplication.samples(ratioFiles.toString(), outputDirectory).get(0).size());
+        assertTrue(converted.exists());
+
+        // A current converted file is reused rather than rewritten
+        assertTrue(converted.setLastModified(new File(tsv).lastModified() + 10_000));
+        final long lastModified = converted.lastModified();
+        assertEquals(1, CohortBaselineApplication.samples(ratioFiles.toString(), outputDirectory).get(0).size());
+        assertEquals(lastModified, converted.lastModified());
+    }
+
+    @NotNull
+    private CobaltRatioColumns sample(double ratio) throws IOException {
+        final ListMultimap<Chromosome, CobaltRatio> ratios = ArrayListMultimap.create();
+        for (int i = 0; i < WINDOWS; i++) {
+            // The first window is biased upward and the second is unmappable in every sample
+            final double windowRatio = i == 0 ? ratio + 0.2 : (i == 1 ? 0 : ratio);
+            ratios.put(HumanChromosome._1, ratio(1000 * i + 1, windowRatio));
+        }
+        ratios.put(HumanChromosome._X, ImmutableCobaltRatio.builder().from(ratio(1, ratio)).chromosome("X").build());
+
+        final String file = directory.newFile().toString();
+        CobaltRatioColumns.write(file, ratios);
+        return CobaltRatioColumns.read(file);
+    }
+}
@@ -0,0 +1,88 @@
+package com.hartwig.hmftools.cobalt.count;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.cobalt.ReadCount;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import htsjdk.samtools.SAMRecord;
+
+public class ChromosomeReadCountTest {
+
+    private static final String CHROMOSOME = "1";
+    private static final int WINDOW_SIZE = 1000;
+    private static final int LENGTH = 10500;
+    private static final int MIN_MAPPING_QUALITY = 10;
+
+    @Test
+    public void testReadsAtPartitionBoundary() {
+        final List<SAMRecord> records = Lists.newArrayList(record(2950, 60), record(3000, 60), record(3001, 60), record(3001, 5));
+
+        final List<ReadCount> victim = readCount(records, 3000);
+        assertEquals(4, victim.size());
+        assertReadCount(1, -1, victim.get(0));
+        assertReadCount(2001, 2, victim.get(1));
+        assertReadCount(3001, 1, victim.get(2));
+        assertReadCount(10001, -1, victim.get(3));
+    }
+
+    @Test
+    public void testPartitionedMatchesSinglePass() {
+        final Random random = new Random(0);
+        final List<SAMRecord> records = Lists.newArrayList();
+        for (int i = 0; i < 200; i++) {
+            records.add(record(1 + random.nextInt(LENGTH - 100), random.nextInt(60)));
+        }
+        records.sort((o1, o2) -> Integer.compare(o1.getAlignmentStart(), o2.getAlignmentStart()));
+
+        final List<ReadCount> expected = readCount(records, LENGTH);
+        for (int partitionSize : new int[] { 1000, 2000, 3000, 7000 }) {
+            final List<ReadCount> victim = readCount(records, partitionSize);
+            assertEquals(expected.size(), victim.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertReadCount(expected.get(i).position(), expected.get(i).readCount(), victim.get(i));
+            }
+        }
+    }
+
+    @NotNull
+    private static List<ReadCount> readCount(@NotNull final List<SAMRecord> records, int partitionSize) {
+        final ChromosomeReadCount victim = new ChromosomeReadCount(CHROMOSOME, LENGTH, WINDOW_SIZE);
+        for (int start = 1; start <= LENGTH; start += partitionSize) {
+            final int end = Math.min(LENGTH, start + partitionSize - 1);
+            final PartitionReadCount partition =
+                    new PartitionReadCount(null, null, CHROMOSOME, start, end, WINDOW_SIZE, MIN_MAPPING_QUALITY);
+
+            // Mimic an overlapping query of the partition
+            for (SAMRecord record : records) {
+                if (record.getAlignmentStart() <= end && record.getAlignmentEnd() >= start) {
+                    partition.addRecord(record);
+                }
+            }
+            victim.addPartition(partition);
+        }
+
+        return victim.readCount();
+    }
+
+    @NotNull
+    private static SAMRecord record(int alignmentStart, int mappingQuality) {
+        final SAMRecord record = new SAMRecord(null);
+        record.setReferenceName(CHROMOSOME);
+        record.setAlignmentStart(alignmentStart);
+        record.setCigarString("100M");
+        record.setMappingQuality(mappingQuality);
+        return record;
+    }
+
+    private static void assertReadCount(long position, int count, @NotNull final ReadCount victim) {
+        assertEquals(position, victim.position());
+        assertEquals(count, victim.readCount());
+    }
+}
@@ -0,0 +1,109 @@
+package com.hartwig.hmftools.cobalt.count;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMFlag;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.SamReaderFactory;
+
+public class PartitionReadCountTest {
+
+    private static final int WINDOW_SIZE = 1000;
+    private static final int MIN_MAPPING_QUALITY = 10;
+    private static final int[] FLAGS = { 0, SAMFlag.READ_REVERSE_STRAND.intValue(), SAMFlag.DUPLICATE_READ.intValue(),
+            SAMFlag.SECONDARY_ALIGNMENT.intValue(), SAMFlag.SUPPLEMENTARY_ALIGNMENT.intValue() };
+
+    @Rule
+    public final TemporaryFolder testFolder = new TemporaryFolder();
+
+    @Test
+    public void testRawScanMatchesRecords() throws Exception {
+        final SAMFileHeader header = new SAMFileHeader();
+        header.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+        header.setSequenceDictionary(new SAMSequenceDictionary(Lists.newArrayList(new SAMSequenceRecord("1", 100000),
+                new SAMSequenceRecord("2", 100000))));
+
+        final Random random = new Random(0);
+        final List<SAMRecord> records = Lists.newArrayList();
+        for (String contig : new String[] { "1", "2" }) {
+            final List<SAMRecord> contigRecords = Lists.newArrayList();
+            for (int i = 0; i < 5000; i++) {
+                final SAMRecord record = new SAMRecord(header);
+                record.setReadName("read" + contig + "_" + i);
+                record.setReferenceName(contig);
+                record.setAlignmentStart(1 + random.nextInt(99000));
+                record.setCigarString("100M");
+                record.setReadString(randomBases(random));
+                record.setBaseQualityString(randomQualities());
+                record.setMappingQuality(random.nextInt(60));
+                record.setFlags(FLAGS[random.nextInt(FLAGS.length)]);
+                contigRecords.add(record);
+            }
+            contigRecords.sort((o1, o2) -> Integer.compare(o1.getAlignmentStart(), o2.getAlignmentStart()));
+            records.addAll(contigRecords);
+        }
+
+        final File bam = testFolder.newFile("test.bam");
+        try (SAMFileWriter writer = new SAMFileWriterFactory().setCreateIndex(true).makeBAMWriter(header, true, bam)) {
+            records.forEach(writer::addAlignment);
+        }
+        assertTrue(SamReaderFactory.makeDefault().open(bam).hasIndex());
+
+        for (int[] range : new int[][] { { 1, 100000 }, { 20001, 40000 }, { 98001, 100000 } }) {
+            final PartitionReadCount victim =
+                    new PartitionReadCount(bam, SamReaderFactory.makeDefault(), "1", range[0], range[1], WINDOW_SIZE, MIN_MAPPING_QUALITY)
+                            .call();
+
+            final PartitionReadCount expected =
+                    new PartitionReadCount(null, null, "1", range[0], range[1], WINDOW_SIZE, MIN_MAPPING_QUALITY);
+            for (SAMRecord record : records) {
+                if (record.getContig().equals("1") && record.getAlignmentStart() <= range[1] && record.getAlignmentEnd() >= range[0]) {
+                    expected.addRecord(record);
+                }
+            }
+
+            assertEquals(expected.windows(), victim.windows());
+            int total = 0;
+            for (int i = 0; i < expected.windows(); i++) {
+                assertEquals(expected.count(i), victim.count(i));
+                total += victim.count(i);
+            }
+            assertTrue(total > 0);
+        }
+    }
+
+    @NotNull
+    private static String randomBases(@NotNull final Random random) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            builder.append("ACGT".charAt(random.nextInt(4)));
+        }
+        return builder.toString();
+    }
+
+    @NotNull
+    private static String randomQualities() {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            builder.append('I');
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,118 @@
+package com.hartwig.hmftools.cobalt.ratio;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Multimap;
+import com.hartwig.hmftools.cobalt.cohort.CohortBaseline;
+import com.hartwig.hmftools.cobalt.cohort.CohortBaselineFile;
+import com.hartwig.hmftools.common.cobalt.CobaltCount;
+import com.hartwig.hmftools.common.cobalt.CobaltRatio;
+import com.hartwig.hmftools.common.cobalt.ImmutableCobaltRatio;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.genome.gc.GCProfile;
+import com.hartwig.hmftools.common.genome.gc.ImmutableGCProfile;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RatioSupplierTest {
+
+    private static final double EPSILON = 1e-10;
+    private static final int WINDOWS = 100;
+
+    @Rule
+    public final TemporaryFolder directory = new TemporaryFolder();
+
+    @Test
+    public void testWithoutBaseline() throws IOException {
+        final List<CobaltRatio> ratios = generateRatios(null);
+        assertEquals(WINDOWS, ratios.size());
+        assertEquals(1, ratios.get(0).tumorGCRatio(), EPSILON);
+        assertEquals(1, ratios.get(1).referenceGCRatio(), EPSILON);
+    }
+
+    @Test
+    public void testBaselineNormalisesRatios() throws IOException {
+        final List<CobaltRatio> ratios = generateRatios(baseline("1", WINDOWS));
+        assertEquals(WINDOWS, ratios.size());
+
+        // The first window is unusable in the baseline
+        assertEquals(-1, ratios.get(0).tumorGCRatio(), EPSILON);
+        assertEquals(-1, ratios.get(0).referenceGCRatio(), EPSILON);
+        assertEquals(0.5, ratios.get(1).tumorGCRatio(), EPSILON);
+        assertEquals(0.5, ratios.get(1).referenceGCRatio(), EPSILON);
+    }
+
+    @Test
+    public void testBaselineMissingFewWindowsIsApplied() throws IOException {
+        final List<CobaltRatio> ratios = generateRatios(baseline("1", WINDOWS - 2));
+        assertEquals(0.5, ratios.get(1).tumorGCRatio(), EPSILON);
+        assertEquals(1, ratios.get(WINDOWS - 1).tumorGCRatio(), EPSILON);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBaselineOfOtherContigNamesFails() throws IOException {
+        generateRatios(baseline("chr1", WINDOWS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBaselineMissingManyWindowsFails() throws IOException {
+        generateRatios(baseline("1", WINDOWS / 2));
+    }
+
+    @NotNull
+    private List<CobaltRatio> generateRatios(@Nullable final CohortBaseline baseline) throws IOException {
+        final Multimap<Chromosome, GCProfile> gcProfiles = ArrayListMultimap.create();
+        final Multimap<Chromosome, CobaltCount> readCounts = ArrayListMultimap.create();
+        for (int i = 0; i < WINDOWS; i++) {
+            final int start = 1000 * i + 1;
+            gcProfiles.put(HumanChromosome._1,
+                    ImmutableGCProfile.builder()
+                            .chromosome("1")
+                            .start(start)
+                            .end(start + 999)
+                            .gcContent(0.4)
+                            .nonNPercentage(1)
+                            .mappablePercentage(1)
+                            .build());
+            readCounts.put(HumanChromosome._1,
+                    ImmutableCobaltRatio.builder()
+                            .chromosome("1")
+                            .position(start)
+                            .referenceReadCount(100)
+                            .tumorReadCount(100)
+                            .referenceGCRatio(0)
+                            .tumorGCRatio(0)
+                            .referenceGCDiploidRatio(0)
+                            .build());
+        }
+
+        final RatioSupplier victim = new RatioSupplier("REFERENCE", "TUMOR", directory.getRoot().toString(), baseline);
+        final ListMultimap<Chromosome, CobaltRatio> result = ArrayListMultimap.create(victim.generateRatios(gcProfiles, readCounts));
+        return result.get(HumanChromosome._1);
+    }
+
+    @NotNull
+    private CohortBaseline baseline(@NotNull final String contig, int windows) throws IOException {
+        final List<String> lines = Lists.newArrayList("chromosome\tposition\tsamples\tmedian\tmad\tusable");
+        for (int i = 0; i < windows; i++) {
+            lines.add(contig + "\t" + (1000 * i + 1) + "\t10\t2\t0.1\t" + (i > 0));
+        }
+
+        final File file = directory.newFile();
+        Files.write(file.toPath(), lines);
+        return CohortBaselineFile.read(file.toString());
+    }
+}
@@ -2,6 +2,12 @@ package com.hartwig.hmftools.cobalt.ratio;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.PriorityQueue;
+import java.util.Random;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -44,7 +50,89 @@ public class RollingMedianTest {
         assertMedian(5.5);
     }
 
+    @Test
+    public void testRemoveOfMedianHeldInOtherHeapIsIgnored() {
+        testThreeElements();
+        victim.remove(6);
+        assertEquals(3, victim.size());
+        assertMedian(6);
+    }
+
+    @Test
+    public void testSlidingWindowMatchesPriorityQueueMedian() {
+        final Random random = new Random(0);
+        for (int distinctValues : new int[] { 3, 20, 1000 }) {
+            victim = new RollingMedian();
+            final PriorityQueueMedian expected = new PriorityQueueMedian();
+            final Deque<Double> window = new ArrayDeque<>();
+            for (int i = 0; i < 20_000; i++) {
+                if (!window.isEmpty() && (window.size() > 50 || random.nextInt(3) == 0)) {
+                    final double value = window.poll();
+                    victim.remove(value);
+                    expected.remove(value);
+                } else {
+                    final double value = 0.5 + random.nextInt(distinctValues) / 100d;
+                    window.add(value);
+                    victim.add(value);
+                    expected.add(value);
+                }
+
+                assertEquals(expected.size(), victim.size());
+                assertEquals(Double.doubleToLongBits(expected.median()), Double.doubleToLongBits(victim.median()));
+            }
+        }
+    }
+
     private void assertMedian(double expected) {
         assertEquals(expected, victim.median(), EPSILON);
     }
+
+    // The boxed implementation that RollingMedian replaced
+    private static class PriorityQueueMedian {
+
+        private final PriorityQueue<Double> minheap = new PriorityQueue<>();
+        private final PriorityQueue<Double> maxheap = new PriorityQueue<>(Comparator.reverseOrder());
+
+        void add(double n) {
+            if (size() == 0 || Double.compare(n, median()) > 0) {
+                minheap.add(n);
+            } else {
+                maxheap.add(n);
+            }
+            balance();
+        }
+
+        void remove(double n) {
+            if (size() > 0) {
+                if (Double.compare(n, median()) <= 0) {
+                    maxheap.remove(n);
+                } else {
+                    minheap.remove(n);
+                }
+            }
+            balance();
+        }
+
+        int size() {
+            return maxheap.size() + minheap.size();
+        }
+
+        private void balance() {
+            if (maxheap.size() > minheap.size() + 1) {
+                minheap.add(maxheap.poll());
+            } else if (minheap.size() > maxheap.size() + 1) {
+                maxheap.add(minheap.poll());
+            }
+        }
+
+        double median() {
+            if (size() == 0) {
+                return 0;
+            }
+            if (maxheap.size() == minheap.size()) {
+                return (maxheap.peek() + minheap.peek()) / 2;
+            }
+            return maxheap.size() > minheap.size() ? maxheap.peek() : minheap.peek();
+        }
+    }
 }
@@ -41,8 +41,16 @@ public final class AmberSiteFactory {
                 .build();
     }
 
+    /**
+     * Loads the loci from either a vcf or a binary loci file written by {@link AmberSiteFile}.
+     */
     @NotNull
-    public static ListMultimap<Chromosome, AmberSite> sites(@NotNull final String vcfFile) throws IOException {
+    public static ListMultimap<Chromosome, AmberSite> sites(@NotNull final String lociFile) throws IOException {
+        return AmberSiteFile.isBinary(lociFile) ? AmberSiteFile.read(lociFile) : vcfSites(lociFile);
+    }
+
+    @NotNull
+    public static ListMultimap<Chromosome, AmberSite> vcfSites(@NotNull final String vcfFile) throws IOException {
         final ListMultimap<Chromosome, AmberSite> result = ArrayListMultimap.create();
 
         try (final AbstractFeatureReader<VariantContext, LineIterator> reader = getFeatureReader(vcfFile, new VCFCodec(), false)) {
@@ -0,0 +1,167 @@
+package com.hartwig.hmftools.common.amber;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Compact binary equivalent of the AMBER loci vcf. Each chromosome holds its sorted positions as ints, the ref and alt of each site as
+ * 2 bits each and a bitset of the snp check sites. The file is memory mapped when read so concurrent runs share the same page cache.
+ * Only single base substitutions can be stored, writing any other site fails.
+ */
+public final class AmberSiteFile {
+
+    private static final byte[] MAGIC = "AMBERLOC".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final String BASES = "ACGT";
+
+    private AmberSiteFile() {
+    }
+
+    public static boolean isBinary(@NotNull final String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(new File(filename).toPath(), StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(MAGIC.length);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the buffer is full or the file ends
+            }
+            buffer.flip();
+            return buffer.remaining() == MAGIC.length && ByteBuffer.wrap(MAGIC).equals(buffer);
+        }
+    }
+
+    public static void write(@NotNull final String filename, @NotNull final ListMultimap<Chromosome, AmberSite> sites) throws IOException {
+        final List<HumanChromosome> chromosomes = Lists.newArrayList();
+        for (HumanChromosome chromosome : HumanChromosome.values()) {
+            if (sites.containsKey(chromosome)) {
+                chromosomes.add(chromosome);
+            }
+        }
+
+        for (AmberSite site : sites.values()) {
+            if (!isSnv(site)) {
+                throw new IllegalArgumentException(
+                        "Site " + site.chromosome() + ":" + site.position() + " " + site.ref() + ">" + site.alt() + " is not a single base "
+                                + "substitution of A, C, G or T and can not be stored in an AMBER loci file");
+            }
+        }
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)))) {
+            output.write(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(chromosomes.size());
+
+            for (HumanChromosome chromosome : chromosomes) {
+                final List<AmberSite> chromosomeSites = Lists.newArrayList(sites.get(chromosome));
+                chromosomeSites.sort(Comparator.comparingLong(AmberSite::position));
+
+                final int count = chromosomeSites.size();
+                final byte[] contig = chromosomeSites.isEmpty()
+                        ? chromosome.toString().getBytes(StandardCharsets.UTF_8)
+                        : chromosomeSites.get(0).chromosome().getBytes(StandardCharsets.UTF_8);
+                output.writeShort(contig.length);
+                output.write(contig);
+                output.writeInt(count);
+
+                for (AmberSite site : chromosomeSites) {
+                    output.writeInt((int) site.position());
+                }
+
+                final byte[] alleles = new byte[alleleBytes(count)];
+                final byte[] snpCheck = new byte[snpCheckBytes(count)];
+                for (int i = 0; i < count; i++) {
+                    final AmberSite site = chromosomeSites.get(i);
+                    final int allele = BASES.indexOf(site.ref()) << 2 | BASES.indexOf(site.alt());
+                    alleles[i / 2] |= allele << ((i % 2) * 4);
+                    if (site.snpCheck()) {
+                        snpCheck[i / 8] |= 1 << (i % 8);
+                    }
+                }
+                output.write(alleles);
+                output.write(snpCheck);
+            }
+        }
+    }
+
+    @NotNull
+    public static ListMultimap<Chromosome, AmberSite> read(@NotNull final String filename) throws IOException {
+        final ListMultimap<Chromosome, AmberSite> result = ArrayListMultimap.create();
+
+        try (FileChannel channel = FileChannel.open(new File(filename).toPath(), StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+
+            final byte[] magic = new byte[MAGIC.length];
+            buffer.get(magic);
+            if (!ByteBuffer.wrap(MAGIC).equals(ByteBuffer.wrap(magic))) {
+                throw new IOException("File " + filename + " is not an AMBER loci file");
+            }
+
+            final int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported AMBER loci file version " + version + " in " + filename);
+            }
+
+            final int chromosomeCount = buffer.getInt();
+            for (int c = 0; c < chromosomeCount; c++) {
+                final byte[] contigBytes = new byte[buffer.getShort()];
+                buffer.get(contigBytes);
+                final String contig = new String(contigBytes, StandardCharsets.UTF_8);
+                final HumanChromosome chromosome = HumanChromosome.fromString(contig);
+                final int count = buffer.getInt();
+
+                final int positionOffset = buffer.position();
+                final int alleleOffset = positionOffset + 4 * count;
+                final int snpCheckOffset = alleleOffset + alleleBytes(count);
+
+                final List<AmberSite> chromosomeSites = Lists.newArrayListWithExpectedSize(count);
+                for (int i = 0; i < count; i++) {
+                    final int allele = (buffer.get(alleleOffset + i / 2) >> ((i % 2) * 4)) & 0xF;
+                    chromosomeSites.add(ImmutableAmberSite.builder()
+                            .chromosome(contig)
+                            .position(buffer.getInt(positionOffset + 4 * i))
+                            .ref(String.valueOf(BASES.charAt(allele >> 2)))
+                            .alt(String.valueOf(BASES.charAt(allele & 0x3)))
+                            .snpCheck((buffer.get(snpCheckOffset + i / 8) & (1 << (i % 8))) != 0)
+                            .build());
+                }
+                result.putAll(chromosome, chromosomeSites);
+                buffer.position(snpCheckOffset + snpCheckBytes(count));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Whether the site can be stored, ie it is a substitution of a single A, C, G or T base for another.
+     */
+    public static boolean isSnv(@NotNull final AmberSite site) {
+        return site.ref().length() == 1 && site.alt().length() == 1 && BASES.contains(site.ref()) && BASES.contains(site.alt());
+    }
+
+    private static int alleleBytes(int count) {
+        return (count + 1) / 2;
+    }
+
+    private static int snpCheckBytes(int count) {
+        return (count + 7) / 8;
+    }
+}
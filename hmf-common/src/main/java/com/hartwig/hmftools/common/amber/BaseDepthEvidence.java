@@ -6,16 +6,12 @@ import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
-import com.hartwig.hmftools.common.genome.position.GenomePositionSelector;
-import com.hartwig.hmftools.common.genome.position.GenomePositionSelectorFactory;
 import com.hartwig.hmftools.common.genome.region.GenomeRegion;
 import com.hartwig.hmftools.common.genome.region.GenomeRegions;
-import com.hartwig.hmftools.common.utils.collection.Multimaps;
 import com.hartwig.hmftools.common.variant.hotspot.SAMSlicer;
 
 import org.jetbrains.annotations.NotNull;
 
-import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
 
@@ -25,13 +21,11 @@ public class BaseDepthEvidence implements Callable<BaseDepthEvidence> {
     private final String bamFile;
     private final SamReaderFactory samReaderFactory;
     private final List<ModifiableBaseDepth> evidence;
-    private final GenomePositionSelector<ModifiableBaseDepth> selector;
-    private final BaseDepthFactory bafFactory;
+    private final SitePileup pileup;
     private final SAMSlicer supplier;
 
     public BaseDepthEvidence(int typicalReadDepth, int minMappingQuality, int minBaseQuality, final String contig, final String bamFile,
             final SamReaderFactory samReaderFactory, final List<AmberSite> bafRegions) {
-        this.bafFactory = new BaseDepthFactory(minBaseQuality);
         this.contig = contig;
         this.bamFile = bamFile;
         this.samReaderFactory = samReaderFactory;
@@ -40,7 +34,11 @@ public class BaseDepthEvidence implements Callable<BaseDepthEvidence> {
         final List<GenomeRegion> bafRegions1 = builder.build();
 
         this.evidence = bafRegions.stream().map(BaseDepthFactory::fromAmberSite).collect(Collectors.toList());
-        this.selector = GenomePositionSelectorFactory.create(Multimaps.fromPositions(evidence));
+        this.pileup = new SitePileup(minBaseQuality,
+                true,
+                evidence,
+                SitePileup.bases(evidence, BaseDepth::ref),
+                SitePileup.bases(evidence, BaseDepth::alt));
         this.supplier = new SAMSlicer(minMappingQuality, bafRegions1);
     }
 
@@ -51,24 +49,22 @@ public class BaseDepthEvidence implements Callable<BaseDepthEvidence> {
 
     @NotNull
     public List<BaseDepth> evidence() {
+        for (int i = 0; i < evidence.size(); i++) {
+            evidence.get(i)
+                    .setReadDepth(pileup.readDepth(i))
+                    .setRefSupport(pileup.refSupport(i))
+                    .setAltSupport(pileup.altSupport(i))
+                    .setIndelCount(pileup.indelCount(i));
+        }
         return new ArrayList<>(evidence);
     }
 
     @Override
     public BaseDepthEvidence call() throws Exception {
         try (SamReader reader = samReaderFactory.open(new File(bamFile))) {
-            supplier.slice(reader, this::record);
+            supplier.slice(reader, pileup::addEvidence);
         }
 
         return this;
     }
-
-    private void record(@NotNull final SAMRecord record) {
-        selector.select(asRegion(record), bafEvidence -> bafFactory.addEvidence(bafEvidence, record));
-    }
-
-    @NotNull
-    private static GenomeRegion asRegion(@NotNull final SAMRecord record) {
-        return GenomeRegions.create(record.getContig(), record.getAlignmentStart(), record.getAlignmentEnd());
-    }
 }
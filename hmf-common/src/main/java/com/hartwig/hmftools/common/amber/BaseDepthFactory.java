@@ -47,35 +47,6 @@ public class BaseDepthFactory {
                 .setReadDepth(0);
     }
 
-    private final int minBaseQuality;
-
-    BaseDepthFactory(final int minBaseQuality) {
-        this.minBaseQuality = minBaseQuality;
-    }
-
-    void addEvidence(@NotNull final ModifiableBaseDepth evidence, @NotNull final SAMRecord samRecord) {
-        int quality = getBaseQuality(evidence, samRecord);
-        if (quality >= minBaseQuality) {
-            evidence.setReadDepth(evidence.readDepth() + 1);
-
-            int bafPosition = (int) evidence.position();
-            int readPosition = samRecord.getReadPositionAtReferencePosition(bafPosition);
-            if (readPosition != 0) {
-                if (!indel(bafPosition, readPosition, samRecord)) {
-                    final char baseChar = samRecord.getReadString().charAt(readPosition - 1);
-                    final BaseDepth.Base base = BaseDepth.Base.valueOf(String.valueOf(baseChar).toUpperCase());
-                    if (base.equals(evidence.ref())) {
-                        evidence.setRefSupport(evidence.refSupport() + 1);
-                    } else if (base.equals(evidence.alt())) {
-                        evidence.setAltSupport(evidence.altSupport() + 1);
-                    }
-                } else {
-                    evidence.setIndelCount(evidence.indelCount() + 1);
-                }
-            }
-        }
-    }
-
     static boolean indel(int bafPosition, int readPosition, @NotNull final SAMRecord samRecord) {
         if (samRecord.getAlignmentEnd() > bafPosition) {
 
@@ -92,8 +63,12 @@ public class BaseDepthFactory {
     }
 
     static int getBaseQuality(@NotNull final GenomePosition position, @NotNull final SAMRecord samRecord) {
+        return getBaseQuality((int) position.position(), samRecord);
+    }
+
+    static int getBaseQuality(int position, @NotNull final SAMRecord samRecord) {
         // Get quality of base after del if necessary
-        for (int pos = (int) position.position(); pos <= samRecord.getAlignmentEnd(); pos++) {
+        for (int pos = position; pos <= samRecord.getAlignmentEnd(); pos++) {
             int readPosition = samRecord.getReadPositionAtReferencePosition(pos);
             if (readPosition != 0) {
                 return SAMRecords.getBaseQuality(samRecord, readPosition);
@@ -0,0 +1,153 @@
+package com.hartwig.hmftools.common.amber;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import com.hartwig.hmftools.common.genome.position.GenomePosition;
+
+import org.jetbrains.annotations.NotNull;
+
+import htsjdk.samtools.SAMRecord;
+
+/**
+ * Pileup of reads over a sorted set of sites of a single contig. Sites and their counts are held in primitive arrays and each record is
+ * matched to its sites with a cursor that advances with the (coordinate sorted) records, so no objects are created per record.
+ * Counts are indexed by the order the sites were supplied in.
+ */
+class SitePileup {
+
+    private final int minBaseQuality;
+    private final boolean ignoreCase;
+
+    private final int[] positions;
+    private final int[] siteIndexes;
+    private final byte[] ref;
+    private final byte[] alt;
+
+    private final int[] readDepth;
+    private final int[] refSupport;
+    private final int[] altSupport;
+    private final int[] altQuality;
+    private final int[] indelCount;
+
+    private int cursor;
+
+    /**
+     * @param ignoreCase whether read bases are upper cased before being compared to the ref and alt of the site
+     */
+    SitePileup(int minBaseQuality, boolean ignoreCase, @NotNull final List<? extends GenomePosition> sites, @NotNull final byte[] ref,
+            @NotNull final byte[] alt) {
+        this.minBaseQuality = minBaseQuality;
+        this.ignoreCase = ignoreCase;
+        this.ref = ref;
+        this.alt = alt;
+
+        final int size = sites.size();
+        final Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (o1, o2) -> Long.compare(sites.get(o1).position(), sites.get(o2).position()));
+
+        positions = new int[size];
+        siteIndexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            siteIndexes[i] = order[i];
+            positions[i] = (int) sites.get(order[i]).position();
+        }
+
+        readDepth = new int[size];
+        refSupport = new int[size];
+        altSupport = new int[size];
+        altQuality = new int[size];
+        indelCount = new int[size];
+    }
+
+    int readDepth(int site) {
+        return readDepth[site];
+    }
+
+    int refSupport(int site) {
+        return refSupport[site];
+    }
+
+    int altSupport(int site) {
+        return altSupport[site];
+    }
+
+    int altQuality(int site) {
+        return altQuality[site];
+    }
+
+    int indelCount(int site) {
+        return indelCount[site];
+    }
+
+    void addEvidence(@NotNull final SAMRecord record) {
+        final int start = record.getAlignmentStart();
+        final int end = record.getAlignmentEnd();
+
+        if (cursor > 0 && positions[cursor - 1] >= start) {
+            cursor = firstAtOrAfter(start);
+        }
+        while (cursor < positions.length && positions[cursor] < start) {
+            cursor++;
+        }
+
+        for (int i = cursor; i < positions.length && positions[i] <= end; i++) {
+            addEvidence(siteIndexes[i], positions[i], record);
+        }
+    }
+
+    private void addEvidence(int site, int position, @NotNull final SAMRecord record) {
+        final int quality = BaseDepthFactory.getBaseQuality(position, record);
+        if (quality < minBaseQuality) {
+            return;
+        }
+
+        readDepth[site]++;
+        final int readPosition = record.getReadPositionAtReferencePosition(position);
+        if (readPosition != 0) {
+            if (!BaseDepthFactory.indel(position, readPosition, record)) {
+                final byte readBase = record.getReadBases()[readPosition - 1];
+                final byte base = ignoreCase ? upperCase(readBase) : readBase;
+                if (base == ref[site]) {
+                    refSupport[site]++;
+                } else if (base == alt[site]) {
+                    altSupport[site]++;
+                    altQuality[site] += quality;
+                }
+            } else {
+                indelCount[site]++;
+            }
+        }
+    }
+
+    private int firstAtOrAfter(int position) {
+        int low = 0;
+        int high = positions.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (positions[mid] < position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @NotNull
+    static byte[] bases(@NotNull final List<? extends BaseDepth> sites, @NotNull final Function<BaseDepth, BaseDepth.Base> base) {
+        final byte[] result = new byte[sites.size()];
+        for (int i = 0; i < sites.size(); i++) {
+            result[i] = (byte) base.apply(sites.get(i)).name().charAt(0);
+        }
+        return result;
+    }
+
+    private static byte upperCase(byte base) {
+        return base >= 'a' && base <= 'z' ? (byte) (base - ('a' - 'A')) : base;
+    }
+}
@@ -1,20 +1,9 @@
 package com.hartwig.hmftools.common.amber;
 
-import static com.hartwig.hmftools.common.amber.BaseDepthFactory.getBaseQuality;
-import static com.hartwig.hmftools.common.amber.BaseDepthFactory.indel;
-
 import org.jetbrains.annotations.NotNull;
 
-import htsjdk.samtools.SAMRecord;
-
 class TumorBAFFactory {
 
-    private final int minBaseQuality;
-
-    TumorBAFFactory(final int minBaseQuality) {
-        this.minBaseQuality = minBaseQuality;
-    }
-
     @NotNull
     public static ModifiableTumorBAF create(@NotNull final BaseDepth normal) {
         return ModifiableTumorBAF.create()
@@ -30,26 +19,4 @@ class TumorBAFFactory {
                 .setTumorAltQuality(0)
                 .setTumorAltSupport(0);
     }
-
-    void addEvidence(@NotNull final ModifiableTumorBAF evidence, @NotNull final SAMRecord samRecord) {
-        int quality = getBaseQuality(evidence, samRecord);
-        if (quality >= minBaseQuality) {
-            evidence.setTumorReadDepth(evidence.tumorReadDepth() + 1);
-            int bafPosition = (int) evidence.position();
-            int readPosition = samRecord.getReadPositionAtReferencePosition(bafPosition);
-            if (readPosition != 0) {
-                if (!indel(bafPosition, readPosition, samRecord)) {
-                    final String base = String.valueOf(samRecord.getReadString().charAt(readPosition - 1));
-                    if (base.equals(evidence.ref())) {
-                        evidence.setTumorRefSupport(evidence.tumorRefSupport() + 1);
-                    } else if (base.equals(evidence.alt())) {
-                        evidence.setTumorAltSupport(evidence.tumorAltSupport() + 1);
-                        evidence.setTumorAltQuality(evidence.tumorAltQuality() + quality);
-                    }
-                } else {
-                    evidence.setTumorIndelCount(evidence.tumorIndelCount() + 1);
-                }
-            }
-        }
-    }
 }
@@ -0,0 +1,49 @@
+package com.hartwig.hmftools.common.amber;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.google.common.collect.Lists;
+
+import org.jetbrains.annotations.NotNull;
+
+import htsjdk.samtools.SAMRecord;
+
+/**
+ * Tumor BAF evidence at the heterozygous normal sites of the records it is given. Selecting the records is left to the caller so that
+ * a single pass of the tumor bam can feed more than one pileup.
+ */
+class TumorBAFPileup implements Consumer<SAMRecord> {
+
+    private final List<BaseDepth> normals;
+    private final SitePileup pileup;
+
+    TumorBAFPileup(int minBaseQuality, @NotNull final List<BaseDepth> normals) {
+        this.normals = normals;
+        this.pileup = new SitePileup(minBaseQuality,
+                false,
+                normals,
+                SitePileup.bases(normals, BaseDepth::ref),
+                SitePileup.bases(normals, BaseDepth::alt));
+    }
+
+    @NotNull
+    List<TumorBAF> evidence() {
+        final List<TumorBAF> result = Lists.newArrayList();
+        for (int i = 0; i < normals.size(); i++) {
+            if (pileup.indelCount(i) == 0) {
+                result.add(TumorBAFFactory.create(normals.get(i))
+                        .setTumorReadDepth(pileup.readDepth(i))
+                        .setTumorRefSupport(pileup.refSupport(i))
+                        .setTumorAltSupport(pileup.altSupport(i))
+                        .setTumorAltQuality(pileup.altQuality(i)));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void accept(@NotNull final SAMRecord record) {
+        pileup.addEvidence(record);
+    }
+}
@@ -0,0 +1,52 @@
+package com.hartwig.hmftools.common.amber;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.google.common.collect.Lists;
+
+import org.jetbrains.annotations.NotNull;
+
+import htsjdk.samtools.SAMRecord;
+
+/**
+ * Tumor contamination evidence at the homozygous normal sites of the records it is given. Selecting the records is left to the caller
+ * so that a single pass of the tumor bam can feed more than one pileup.
+ */
+class TumorContaminationPileup implements Consumer<SAMRecord> {
+
+    private final List<BaseDepth> normals;
+    private final SitePileup pileup;
+
+    TumorContaminationPileup(int minBaseQuality, @NotNull final List<BaseDepth> normals) {
+        this.normals = normals;
+        this.pileup = new SitePileup(minBaseQuality,
+                true,
+                normals,
+                SitePileup.bases(normals, BaseDepth::ref),
+                SitePileup.bases(normals, BaseDepth::alt));
+    }
+
+    @NotNull
+    List<TumorContamination> evidence() {
+        final List<TumorContamination> result = Lists.newArrayList();
+        for (int i = 0; i < normals.size(); i++) {
+            if (pileup.altSupport(i) != 0) {
+                final BaseDepth normal = normals.get(i);
+                final BaseDepth tumor = BaseDepthFactory.create(normal)
+                        .setReadDepth(pileup.readDepth(i))
+                        .setRefSupport(pileup.refSupport(i))
+                        .setAltSupport(pileup.altSupport(i))
+                        .setIndelCount(pileup.indelCount(i));
+                result.add(ImmutableTumorContamination.builder().from(normal).normal(normal).tumor(tumor).build());
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public void accept(@NotNull final SAMRecord record) {
+        pileup.addEvidence(record);
+    }
+}
@@ -0,0 +1,87 @@
+package com.hartwig.hmftools.common.amber;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import com.google.common.collect.Iterables;
+import com.hartwig.hmftools.common.genome.region.GenomeRegions;
+import com.hartwig.hmftools.common.variant.hotspot.SAMSlicer;
+
+import org.jetbrains.annotations.NotNull;
+
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+
+/**
+ * Collects tumor BAF evidence at the heterozygous normal sites and contamination evidence at the homozygous normal sites of a partition
+ * in a single pass of the tumor bam.
+ */
+public class TumorEvidence implements Callable<TumorEvidence> {
+
+    private final String contig;
+    private final String bamFile;
+    private final SamReaderFactory samReaderFactory;
+    private final TumorBAFPileup bafPileup;
+    private final TumorContaminationPileup contaminationPileup;
+    private final SAMSlicer supplier;
+
+    public TumorEvidence(int typicalReadDepth, int minMappingQuality, int minBaseQuality, final String contig, final String bamFile,
+            final SamReaderFactory samReaderFactory, final List<BaseDepth> hetSites, final List<BaseDepth> homSites) {
+        this(typicalReadDepth, minMappingQuality, minBaseQuality, contig, bamFile, samReaderFactory, hetSites, homSites,
+                Iterables.concat(hetSites, homSites));
+    }
+
+    /**
+     * Collects both BAF and contamination evidence at every site, for when the normal genotype of the sites is not yet known. The
+     * caller selects the evidence of the heterozygous and homozygous sites once it is.
+     */
+    public TumorEvidence(int typicalReadDepth, int minMappingQuality, int minBaseQuality, final String contig, final String bamFile,
+            final SamReaderFactory samReaderFactory, final List<BaseDepth> sites) {
+        this(typicalReadDepth, minMappingQuality, minBaseQuality, contig, bamFile, samReaderFactory, sites, sites, sites);
+    }
+
+    private TumorEvidence(int typicalReadDepth, int minMappingQuality, int minBaseQuality, final String contig, final String bamFile,
+            final SamReaderFactory samReaderFactory, final List<BaseDepth> hetSites, final List<BaseDepth> homSites,
+            final Iterable<BaseDepth> regionSites) {
+        this.contig = contig;
+        this.bamFile = bamFile;
+        this.samReaderFactory = samReaderFactory;
+        this.bafPileup = new TumorBAFPileup(minBaseQuality, hetSites);
+        this.contaminationPileup = new TumorContaminationPileup(minBaseQuality, homSites);
+
+        final GenomeRegions builder = new GenomeRegions(contig, typicalReadDepth);
+        regionSites.forEach(x -> builder.addPosition(x.position()));
+        this.supplier = new SAMSlicer(minMappingQuality, builder.build());
+    }
+
+    @NotNull
+    public String contig() {
+        return contig;
+    }
+
+    @NotNull
+    public List<TumorBAF> bafEvidence() {
+        return bafPileup.evidence();
+    }
+
+    @NotNull
+    public List<TumorContamination> contaminationEvidence() {
+        return contaminationPileup.evidence();
+    }
+
+    @Override
+    public TumorEvidence call() throws Exception {
+        try (SamReader reader = samReaderFactory.open(new File(bamFile))) {
+            supplier.slice(reader, this::record);
+        }
+
+        return this;
+    }
+
+    private void record(@NotNull final SAMRecord record) {
+        bafPileup.accept(record);
+        contaminationPileup.accept(record);
+    }
+}
@@ -0,0 +1,305 @@
+package com.hartwig.hmftools.common.cobalt;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.text.DecimalFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Memory mapped columnar equivalent of the COBALT ratio tsv. After a table of the contigs and the range of rows each occupies, the
+ * rows are stored as one int column per field. Ratios are stored as fixed point with the 4 decimal places of the tsv, so they read back
+ * exactly as parsing the tsv would. Nothing is parsed on load and each value is read from the mapped file when accessed.
+ */
+public final class CobaltRatioColumns {
+
+    private static final byte[] MAGIC = "COBALTRT".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final double RATIO_SCALE = 10_000;
+    private static final String TSV_FORMAT = "#.####";
+
+    private static final int POSITION = 0;
+    private static final int REFERENCE_READ_COUNT = 1;
+    private static final int TUMOR_READ_COUNT = 2;
+    private static final int REFERENCE_GC_RATIO = 3;
+    private static final int TUMOR_GC_RATIO = 4;
+    private static final int REFERENCE_GC_DIPLOID_RATIO = 5;
+
+    @NotNull
+    private final ByteBuffer buffer;
+    @NotNull
+    private final List<String> contigs;
+    // Row index at which each contig starts followed by the total number of rows
+    @NotNull
+    private final int[] contigStarts;
+    private final int dataOffset;
+
+    private CobaltRatioColumns(@NotNull final ByteBuffer buffer, @NotNull final List<String> contigs, @NotNull final int[] contigStarts,
+            int dataOffset) {
+        this.buffer = buffer;
+        this.contigs = contigs;
+        this.contigStarts = contigStarts;
+        this.dataOffset = dataOffset;
+    }
+
+    public static void write(@NotNull final String filename, @NotNull final Multimap<Chromosome, CobaltRatio> ratios) throws IOException {
+        final List<CobaltRatio> sorted = Lists.newArrayList(ratios.values());
+        Collections.sort(sorted);
+
+        final List<String> contigs = Lists.newArrayList();
+        final List<Integer> contigStarts = Lists.newArrayList();
+        for (int i = 0; i < sorted.size(); i++) {
+            final String contig = sorted.get(i).chromosome();
+            if (contigs.isEmpty() || !contigs.get(contigs.size() - 1).equals(contig)) {
+                contigs.add(contig);
+                contigStarts.add(i);
+            }
+        }
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)))) {
+            output.write(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(sorted.size());
+            output.writeInt(contigs.size());
+
+            int headerSize = MAGIC.length + 12;
+            for (int i = 0; i < contigs.size(); i++) {
+                final byte[] contig = contigs.get(i).getBytes(StandardCharsets.UTF_8);
+                output.writeShort(contig.length);
+                output.write(contig);
+                output.writeInt(contigStarts.get(i));
+                headerSize += 6 + contig.length;
+            }
+
+            // Align the columns to their int width
+            output.write(new byte[padding(headerSize)]);
+
+            for (CobaltRatio ratio : sorted) {
+                output.writeInt((int) ratio.position());
+            }
+            for (CobaltRatio ratio : sorted) {
+                output.writeInt(ratio.referenceReadCount());
+            }
+            for (CobaltRatio ratio : sorted) {
+                output.writeInt(ratio.tumorReadCount());
+            }
+            for (CobaltRatio ratio : sorted) {
+                output.writeInt(fixedPoint(ratio.referenceGCRatio()));
+            }
+            for (CobaltRatio ratio : sorted) {
+                output.writeInt(fixedPoint(ratio.tumorGCRatio()));
+            }
+            for (CobaltRatio ratio : sorted) {
+                output.writeInt(fixedPoint(ratio.referenceGCDiploidRatio()));
+            }
+        }
+    }
+
+    @NotNull
+    public static CobaltRatioColumns read(@NotNull final String filename) throws IOException {
+        final MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(new File(filename).toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.BIG_ENDIAN);
+
+        final byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(MAGIC, magic)) {
+            throw new IOException("File " + filename + " is not a COBALT ratio file");
+        }
+
+        final int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported COBALT ratio file version " + version + " in " + filename);
+        }
+
+        final int size = buffer.getInt();
+        final int contigCount = buffer.getInt();
+        final List<String> contigs = Lists.newArrayListWithExpectedSize(contigCount);
+        final int[] contigStarts = new int[contigCount + 1];
+        for (int i = 0; i < contigCount; i++) {
+            final byte[] contig = new byte[buffer.getShort()];
+            buffer.get(contig);
+            contigs.add(new String(contig, StandardCharsets.UTF_8));
+            contigStarts[i] = buffer.getInt();
+        }
+        contigStarts[contigCount] = size;
+
+        final int dataOffset = buffer.position() + padding(buffer.position());
+        return new CobaltRatioColumns(buffer, Collections.unmodifiableList(contigs), contigStarts, dataOffset);
+    }
+
+    /**
+     * Number of rows over all contigs.
+     */
+    public int size() {
+        return contigStarts[contigs.size()];
+    }
+
+    /**
+     * Contigs in the order their rows are stored.
+     */
+    @NotNull
+    public List<String> contigs() {
+        return contigs;
+    }
+
+    /**
+     * Index of the first row of the contig, or -1 if the contig has no rows.
+     */
+    public int startIndex(@NotNull final String contig) {
+        final int index = contigs.indexOf(contig);
+        return index < 0 ? -1 : contigStarts[index];
+    }
+
+    /**
+     * Exclusive index of the last row of the contig, or -1 if the contig has no rows.
+     */
+    public int endIndex(@NotNull final String contig) {
+        final int index = contigs.indexOf(contig);
+        return index < 0 ? -1 : contigStarts[index + 1];
+    }
+
+    @NotNull
+    public String chromosome(int row) {
+        final int index = Arrays.binarySearch(contigStarts, 0, contigs.size(), row);
+        return contigs.get(index < 0 ? -index - 2 : index);
+    }
+
+    public long position(int row) {
+        return value(POSITION, row);
+    }
+
+    public int referenceReadCount(int row) {
+        return value(REFERENCE_READ_COUNT, row);
+    }
+
+    public int tumorReadCount(int row) {
+        return value(TUMOR_READ_COUNT, row);
+    }
+
+    public double referenceGCRatio(int row) {
+        return value(REFERENCE_GC_RATIO, row) / RATIO_SCALE;
+    }
+
+    public double tumorGCRatio(int row) {
+        return value(TUMOR_GC_RATIO, row) / RATIO_SCALE;
+    }
+
+    public double referenceGCDiploidRatio(int row) {
+        return value(REFERENCE_GC_DIPLOID_RATIO, row) / RATIO_SCALE;
+    }
+
+    /**
+     * Ratios keyed by chromosome as read from the tsv. Each ratio is a view of its row so no values are copied onto the heap.
+     */
+    @NotNull
+    public ListMultimap<Chromosome, CobaltRatio> ratios() {
+        final ListMultimap<Chromosome, CobaltRatio> result = ArrayListMultimap.create();
+        for (int i = 0; i < contigs.size(); i++) {
+            final String contig = contigs.get(i);
+            final List<CobaltRatio> rows = Lists.newArrayListWithExpectedSize(contigStarts[i + 1] - contigStarts[i]);
+            for (int row = contigStarts[i]; row < contigStarts[i + 1]; row++) {
+                rows.add(new Row(contig, row));
+            }
+            result.putAll(HumanChromosome.fromString(contig), rows);
+        }
+        return result;
+    }
+
+    private int value(int column, int row) {
+        return buffer.getInt(dataOffset + 4 * (column * size() + row));
+    }
+
+    private static int padding(int offset) {
+        return (4 - offset % 4) % 4;
+    }
+
+    // Rounds as the tsv format does
+    private static int fixedPoint(double ratio) {
+        final double scaled = ratio * RATIO_SCALE;
+        if (!(Math.abs(scaled) < Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException("Ratio " + ratio + " cannot be stored in a COBALT ratio file");
+        }
+
+        // Only values close to half way between two fixed point values are formatted to find which way the tsv rounds them
+        final double fraction = scaled - Math.floor(scaled);
+        if (Math.abs(fraction - 0.5) > 1e-6) {
+            return (int) Math.round(scaled);
+        }
+        return new BigDecimal(new DecimalFormat(TSV_FORMAT).format(ratio)).movePointRight(4).intValueExact();
+    }
+
+    private class Row implements CobaltRatio {
+
+        private final String chromosome;
+        private final int row;
+
+        private Row(@NotNull final String chromosome, int row) {
+            this.chromosome = chromosome;
+            this.row = row;
+        }
+
+        @NotNull
+        @Override
+        public String chromosome() {
+            return chromosome;
+        }
+
+        @Override
+        public long position() {
+            return CobaltRatioColumns.this.position(row);
+        }
+
+        @Override
+        public int referenceReadCount() {
+            return CobaltRatioColumns.this.referenceReadCount(row);
+        }
+
+        @Override
+        public int tumorReadCount() {
+            return CobaltRatioColumns.this.tumorReadCount(row);
+        }
+
+        @Override
+        public double referenceGCRatio() {
+            return CobaltRatioColumns.this.referenceGCRatio(row);
+        }
+
+        @Override
+        public double referenceGCDiploidRatio() {
+            return CobaltRatioColumns.this.referenceGCDiploidRatio(row);
+        }
+
+        @Override
+        public double tumorGCRatio() {
+            return CobaltRatioColumns.this.tumorGCRatio(row);
+        }
+
+        @Override
+        public String toString() {
+            return "CobaltRatio{chromosome=" + chromosome + ", position=" + position() + "}";
+        }
+    }
+}
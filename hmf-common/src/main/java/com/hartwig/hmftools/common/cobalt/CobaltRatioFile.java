@@ -24,6 +24,7 @@ public final class CobaltRatioFile {
     private static final String DELIMITER = "\t";
     private static final String EXTENSION = ".cobalt.ratio.tsv";
     private static final String EXTENSION_OLD = ".cobalt";
+    private static final String EXTENSION_BINARY = ".cobalt.ratio.bin";
 
     private CobaltRatioFile() {
     }
@@ -39,6 +40,38 @@ public final class CobaltRatioFile {
         return (new File(filename).exists()) ? filename : basePath + File.separator + sample + EXTENSION_OLD;
     }
 
+    /**
+     * Filename of the memory mapped equivalent of the ratio file, see {@link CobaltRatioColumns}.
+     */
+    @NotNull
+    public static String generateBinaryFilename(@NotNull final String basePath, @NotNull final String sample) {
+        return basePath + File.separator + sample + EXTENSION_BINARY;
+    }
+
+    /**
+     * Filename of the memory mapped equivalent of the given ratio tsv, in the same directory.
+     */
+    @NotNull
+    public static String generateBinaryFilename(@NotNull final String tsvFilename) {
+        if (tsvFilename.endsWith(EXTENSION)) {
+            return tsvFilename.substring(0, tsvFilename.length() - EXTENSION.length()) + EXTENSION_BINARY;
+        }
+        if (tsvFilename.endsWith(EXTENSION_OLD)) {
+            return tsvFilename.substring(0, tsvFilename.length() - EXTENSION_OLD.length()) + EXTENSION_BINARY;
+        }
+        return tsvFilename + EXTENSION_BINARY;
+    }
+
+    /**
+     * Whether the binary ratio file exists and is no older than the tsv, so that a tsv rewritten or edited after the binary file was
+     * written takes precedence over it.
+     */
+    public static boolean isBinaryCurrent(@NotNull final String binaryFilename, @NotNull final String tsvFilename) {
+        final File binary = new File(binaryFilename);
+        final File tsv = new File(tsvFilename);
+        return binary.exists() && (!tsv.exists() || binary.lastModified() >= tsv.lastModified());
+    }
+
     @NotNull
     public static ListMultimap<Chromosome, CobaltRatio> read(@NotNull final String filename) throws IOException {
         return fromLines(Files.readAllLines(new File(filename).toPath()));
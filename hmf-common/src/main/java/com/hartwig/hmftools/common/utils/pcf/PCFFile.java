@@ -2,8 +2,10 @@ package com.hartwig.hmftools.common.utils.pcf;
 
 import java.io.File;
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.util.List;
+import java.util.StringJoiner;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
@@ -38,6 +40,37 @@ public final class PCFFile {
         return basePath + File.separator + sample + BAF_EXTENSION;
     }
 
+    public static void write(@NotNull final String filename, @NotNull final List<PCFSegment> segments) throws IOException {
+        final List<String> lines = Lists.newArrayList();
+        lines.add(header());
+        segments.stream().map(PCFFile::toString).forEach(lines::add);
+        Files.write(new File(filename).toPath(), lines);
+    }
+
+    @NotNull
+    private static String header() {
+        return new StringJoiner(DELIMITER, "", "").add(HEADER_PREFIX)
+                .add("chrom")
+                .add("arm")
+                .add("start.pos")
+                .add("end.pos")
+                .add("n.probes")
+                .add("mean")
+                .toString();
+    }
+
+    @NotNull
+    private static String toString(@NotNull final PCFSegment segment) {
+        return new StringJoiner(DELIMITER).add(segment.sampleId())
+                .add(segment.chromosome())
+                .add(segment.arm())
+                .add(String.valueOf(segment.start()))
+                .add(String.valueOf(segment.end()))
+                .add(String.valueOf(segment.probes()))
+                .add(BigDecimal.valueOf(segment.mean()).stripTrailingZeros().toPlainString())
+                .toString();
+    }
+
     @NotNull
     public static ListMultimap<Chromosome, PCFPosition> readPositions(int windowSize, @NotNull PCFSource source,
             @NotNull final String filename) throws IOException {
@@ -0,0 +1,185 @@
+package com.hartwig.hmftools.common.utils.pcf;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.ToDoubleFunction;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.genome.position.GenomePosition;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Segments observations by chromosome arm as the pcf function of the R copynumber package does with normalize = TRUE. The penalty of
+ * each arm is gamma scaled by the variance of the observations, estimated over the whole sample unless the sample has at least
+ * 100,000 observations in which case it is estimated per arm. Arms are fitted concurrently.
+ */
+public class PCFSegmentation {
+
+    public static final double DEFAULT_GAMMA = 100;
+    public static final int DEFAULT_KMIN = 1;
+
+    private static final int MIN_PROBES_FOR_ARM_VARIANCE = 100000;
+    private static final int MAD_HALF_WIDTH = 25;
+    private static final int DIGITS = 4;
+
+    // End of the p arm in the hg19 cytoband used by copynumber regardless of the assembly of the data
+    private static final Map<String, Long> P_ARM_END = ImmutableMap.<String, Long>builder().put("1", 125000000L)
+            .put("2", 93300000L)
+            .put("3", 91000000L)
+            .put("4", 50400000L)
+            .put("5", 48400000L)
+            .put("6", 61000000L)
+            .put("7", 59900000L)
+            .put("8", 45600000L)
+            .put("9", 49000000L)
+            .put("10", 40200000L)
+            .put("11", 53700000L)
+            .put("12", 35800000L)
+            .put("13", 17900000L)
+            .put("14", 17600000L)
+            .put("15", 19000000L)
+            .put("16", 36600000L)
+            .put("17", 24000000L)
+            .put("18", 17200000L)
+            .put("19", 26500000L)
+            .put("20", 27500000L)
+            .put("21", 13200000L)
+            .put("22", 14700000L)
+            .put("X", 60600000L)
+            .put("Y", 12500000L)
+            .build();
+
+    private final ExecutorService executorService;
+    private final double gamma;
+    private final int kmin;
+
+    public PCFSegmentation(@NotNull final ExecutorService executorService) {
+        this(executorService, DEFAULT_GAMMA, DEFAULT_KMIN);
+    }
+
+    public PCFSegmentation(@NotNull final ExecutorService executorService, double gamma, int kmin) {
+        this.executorService = executorService;
+        this.gamma = gamma;
+        this.kmin = kmin;
+    }
+
+    /**
+     * Segments the value of each probe. Probes without a finite value are excluded. Chromosomes are segmented in order of first
+     * appearance with the p arm ahead of the q arm. Contigs without a known centromere are segmented as a single p arm.
+     */
+    @NotNull
+    public <T extends GenomePosition> List<PCFSegment> segment(@NotNull final String sampleId, @NotNull final List<T> probes,
+            @NotNull final ToDoubleFunction<T> value) throws ExecutionException, InterruptedException {
+        final Map<String, Arm[]> chromosomes = Maps.newLinkedHashMap();
+        final Arm all = new Arm("", "");
+        for (T probe : probes) {
+            final double probeValue = value.applyAsDouble(probe);
+            if (!Double.isFinite(probeValue)) {
+                continue;
+            }
+
+            final String chromosome = probe.chromosome();
+            final Arm[] arms = chromosomes.computeIfAbsent(chromosome, x -> new Arm[] { new Arm(x, "p"), new Arm(x, "q") });
+            arms[isPArm(chromosome, probe.position()) ? 0 : 1].add(probe.position(), probeValue);
+            all.add(probe.position(), probeValue);
+        }
+
+        final boolean armVariance = all.size >= MIN_PROBES_FOR_ARM_VARIANCE;
+        final double sampleSd = armVariance ? Double.NaN : PiecewiseConstantFit.mad(all.values(), MAD_HALF_WIDTH);
+
+        final List<Future<List<PCFSegment>>> futures = Lists.newArrayList();
+        for (Arm[] arms : chromosomes.values()) {
+            for (Arm arm : arms) {
+                if (arm.size > 0) {
+                    futures.add(executorService.submit(() -> segment(sampleId, arm, sampleSd)));
+                }
+            }
+        }
+
+        final List<PCFSegment> result = Lists.newArrayList();
+        for (Future<List<PCFSegment>> future : futures) {
+            result.addAll(future.get());
+        }
+
+        return result;
+    }
+
+    @NotNull
+    private List<PCFSegment> segment(@NotNull final String sampleId, @NotNull final Arm arm, double sampleSd) {
+        // The variance is estimated per arm when no sample wide estimate is supplied
+        final double[] values = arm.values();
+        final double sd = Double.isNaN(sampleSd) ? PiecewiseConstantFit.mad(values, MAD_HALF_WIDTH) : sampleSd;
+        final int[] ends = PiecewiseConstantFit.fit(values, kmin, gamma * sd * sd);
+
+        final List<PCFSegment> result = Lists.newArrayListWithExpectedSize(ends.length);
+        int start = 0;
+        for (int end : ends) {
+            double sum = 0;
+            for (int i = start; i < end; i++) {
+                sum += values[i];
+            }
+
+            result.add(ImmutablePCFSegment.builder()
+                    .sampleId(sampleId)
+                    .chromosome(arm.chromosome)
+                    .arm(arm.arm)
+                    .start(arm.positions[start])
+                    .end(arm.positions[end - 1])
+                    .probes(end - start)
+                    .mean(round(sum / (end - start)))
+                    .build());
+            start = end;
+        }
+
+        return result;
+    }
+
+    private static boolean isPArm(@NotNull final String chromosome, long position) {
+        final String name = chromosome.toLowerCase().startsWith("chr") ? chromosome.substring(3) : chromosome;
+        final Long pArmEnd = P_ARM_END.get(name);
+        return pArmEnd == null || position <= pArmEnd;
+    }
+
+    private static double round(double value) {
+        return new BigDecimal(value).setScale(DIGITS, RoundingMode.HALF_EVEN).doubleValue();
+    }
+
+    private static class Arm {
+
+        private final String chromosome;
+        private final String arm;
+
+        private long[] positions = new long[16];
+        private double[] values = new double[16];
+        private int size;
+
+        private Arm(@NotNull final String chromosome, @NotNull final String arm) {
+            this.chromosome = chromosome;
+            this.arm = arm;
+        }
+
+        private void add(long position, double value) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            positions[size] = position;
+            values[size] = value;
+            size++;
+        }
+
+        @NotNull
+        private double[] values() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
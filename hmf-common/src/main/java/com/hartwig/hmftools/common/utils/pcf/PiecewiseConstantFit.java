@@ -0,0 +1,330 @@
+package com.hartwig.hmftools.common.utils.pcf;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Piecewise constant fit of a sequence of observations as implemented by the exactPcf function of the R copynumber package. The fit
+ * minimises the sum of squared deviations from the segment means plus a penalty of gamma for each additional segment.
+ *
+ * The optimal partition is found with the same dynamic programming recursion as exactPcf but, without a minimum segment length,
+ * candidate segment starts that can no longer be optimal are pruned which keeps the cost close to linear in the number of observations.
+ *
+ * The pcf function only uses exactPcf for arms of at most 400 observations. Larger arms are fitted by its heuristic fast pcf, which
+ * restricts breakpoints to candidates chosen by a filter and is not ported here, so breakpoints on larger arms can differ from R.
+ */
+public final class PiecewiseConstantFit {
+
+    private static final double MAD_SCALE = 1.4826;
+    private static final double PRUNING_TOLERANCE = 1e-9;
+
+    private PiecewiseConstantFit() {
+    }
+
+    /**
+     * Returns the exclusive end index of each segment in ascending order. As with exactPcf, ties between partitions resolve to the
+     * earliest segment start and a single segment is preferred only if strictly better than any split. A gamma of zero or NaN returns
+     * a single segment.
+     */
+    @NotNull
+    public static int[] fit(@NotNull final double[] values, int kmin, double gamma) {
+        final int n = values.length;
+        if (n == 0) {
+            return new int[0];
+        }
+
+        if (n < 2 * kmin || !(gamma > 0)) {
+            return new int[] { n };
+        }
+
+        final double[] sum = new double[n + 1];
+        final double[] squares = new double[n + 1];
+        for (int i = 0; i < n; i++) {
+            sum[i + 1] = sum[i] + values[i];
+            squares[i + 1] = squares[i] + values[i] * values[i];
+        }
+
+        // Functional pruning is only valid when any segment may be split, ie there is no minimum segment length
+        final int[] bestStart = kmin == 1 ? prunedStarts(values, sum, squares, gamma) : exhaustiveStarts(kmin, sum, squares, gamma);
+
+        int segments = 0;
+        for (int end = n; end > 0; end = bestStart[end]) {
+            segments++;
+        }
+
+        final int[] result = new int[segments];
+        for (int end = n, i = segments - 1; end > 0; end = bestStart[end], i--) {
+            result[i] = end;
+        }
+
+        return result;
+    }
+
+    @NotNull
+    private static int[] exhaustiveStarts(int kmin, @NotNull final double[] sum, @NotNull final double[] squares, double gamma) {
+        final int n = sum.length - 1;
+        final double[] bestCost = new double[n + 1];
+        final int[] bestStart = new int[n + 1];
+        for (int end = kmin; end <= n; end++) {
+            double minCost = Double.POSITIVE_INFINITY;
+            int minStart = 0;
+            for (int start = kmin; start <= end - kmin; start++) {
+                final double cost = bestCost[start] + gamma + cost(sum, squares, start, end);
+                if (cost < minCost) {
+                    minCost = cost;
+                    minStart = start;
+                }
+            }
+
+            final double singleSegmentCost = cost(sum, squares, 0, end);
+            if (singleSegmentCost < minCost) {
+                minCost = singleSegmentCost;
+                minStart = 0;
+            }
+
+            bestCost[end] = minCost;
+            bestStart[end] = minStart;
+        }
+
+        return bestStart;
+    }
+
+    /**
+     * Same recursion as the exhaustive search but each candidate segment start only keeps the range of segment means for which it is
+     * still competitive (FPOP). A start is dropped once a later start is better for every mean, which on a flat arm happens almost
+     * immediately, so only a handful of starts are evaluated at each position.
+     */
+    @NotNull
+    private static int[] prunedStarts(@NotNull final double[] values, @NotNull final double[] sum, @NotNull final double[] squares,
+            double gamma) {
+        final int n = values.length;
+        final double min = Arrays.stream(values).min().orElse(0);
+        final double max = Arrays.stream(values).max().orElse(0);
+
+        final int[] bestStart = new int[n + 1];
+        final List<Candidate> candidates = Lists.newArrayList(new Candidate(0, 0, min, max));
+
+        for (int end = 1; end <= n; end++) {
+            double minCost = Double.POSITIVE_INFINITY;
+            int minStart = 0;
+            double singleSegmentCost = Double.POSITIVE_INFINITY;
+            for (Candidate candidate : candidates) {
+                final double cost = candidate.minCost(sum, squares, end);
+                if (candidate.start == 0) {
+                    singleSegmentCost = cost;
+                } else if (cost < minCost) {
+                    minCost = cost;
+                    minStart = candidate.start;
+                }
+            }
+
+            if (singleSegmentCost < minCost) {
+                minCost = singleSegmentCost;
+                minStart = 0;
+            }
+            bestStart[end] = minStart;
+
+            // Tolerate rounding error so that no start that could still be optimal is dropped
+            final double threshold = minCost + gamma + PRUNING_TOLERANCE * Math.max(1, Math.abs(minCost + gamma));
+            final Iterator<Candidate> iterator = candidates.iterator();
+            while (iterator.hasNext()) {
+                if (!iterator.next().restrict(sum, squares, end, threshold)) {
+                    iterator.remove();
+                }
+            }
+            candidates.add(new Candidate(end, minCost + gamma, min, max));
+        }
+
+        return bestStart;
+    }
+
+    /**
+     * Robust estimate of the standard deviation of the observations as calculated by the getMad function of the R copynumber package,
+     * ie the scaled median absolute deviation of the observations from their running median. Observations of exactly zero are ignored.
+     */
+    public static double mad(@NotNull final double[] values, int halfWidth) {
+        final double[] nonZero = Arrays.stream(values).filter(x -> x != 0).toArray();
+        if (nonZero.length == 0) {
+            return Double.NaN;
+        }
+
+        final double[] runningMedian = medianFilter(nonZero, halfWidth);
+        final double[] difference = new double[nonZero.length];
+        for (int i = 0; i < nonZero.length; i++) {
+            difference[i] = nonZero[i] - runningMedian[i];
+        }
+
+        final double median = median(difference);
+        final double[] deviation = new double[difference.length];
+        for (int i = 0; i < difference.length; i++) {
+            deviation[i] = Math.abs(difference[i] - median);
+        }
+
+        return MAD_SCALE * median(deviation);
+    }
+
+    /**
+     * Running median of width 2 * halfWidth + 1, narrowed to fit short inputs, with the ends smoothed as by
+     * runmed(x, k, endrule = "median") in R.
+     */
+    @NotNull
+    static double[] medianFilter(@NotNull final double[] values, int halfWidth) {
+        final int n = values.length;
+        int width = 2 * halfWidth + 1;
+        if (width > n) {
+            width = n == 0 ? 1 : (n % 2 == 0 ? n - 1 : n);
+        }
+
+        return smoothEnds(runningMedian(values, width), width);
+    }
+
+    @NotNull
+    private static double[] runningMedian(@NotNull final double[] values, int width) {
+        final int n = values.length;
+        final int half = width / 2;
+        final double[] result = values.clone();
+        if (half == 0) {
+            return result;
+        }
+
+        final double[] window = Arrays.copyOf(values, width);
+        Arrays.sort(window);
+        result[half] = window[half];
+
+        for (int i = half + 1; i < n - half; i++) {
+            remove(window, values[i - half - 1]);
+            insert(window, values[i + half]);
+            result[i] = window[half];
+        }
+
+        return result;
+    }
+
+    private static void remove(@NotNull final double[] window, double value) {
+        final int index = Arrays.binarySearch(window, value);
+        System.arraycopy(window, index + 1, window, index, window.length - index - 1);
+    }
+
+    private static void insert(@NotNull final double[] window, double value) {
+        // The last slot is free after a removal
+        final int length = window.length - 1;
+        int index = Arrays.binarySearch(window, 0, length, value);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        System.arraycopy(window, index, window, index + 1, length - index);
+        window[index] = value;
+    }
+
+    @NotNull
+    private static double[] smoothEnds(@NotNull final double[] y, int width) {
+        final int k = width / 2;
+        if (k < 1) {
+            return y;
+        }
+
+        final int n = y.length;
+        final double[] result = y.clone();
+        if (k >= 2) {
+            result[1] = median3(y[0], y[1], y[2]);
+            result[n - 2] = median3(y[n - 1], y[n - 2], y[n - 3]);
+
+            for (int i = 3; i <= k; i++) {
+                final int endWidth = 2 * i - 1;
+                if (endWidth > n) {
+                    break;
+                }
+                result[i - 1] = median(Arrays.copyOfRange(y, 0, endWidth));
+                result[n - i] = median(Arrays.copyOfRange(y, n - endWidth, n));
+            }
+        }
+
+        // Tukey's end point rule
+        result[0] = median3(y[0], result[1], 3 * result[1] - 2 * result[2]);
+        result[n - 1] = median3(y[n - 1], result[n - 2], 3 * result[n - 2] - 2 * result[n - 3]);
+        return result;
+    }
+
+    private static double median3(double a, double b, double c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    private static double median(@NotNull final double[] values) {
+        final double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        final int n = sorted.length;
+        return n % 2 == 1 ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2;
+    }
+
+    private static class Candidate {
+
+        private final int start;
+        private final double cost;
+        // Ascending disjoint intervals of the segment mean where this start may still be optimal
+        private final double[] bounds;
+        private int intervals;
+
+        private Candidate(int start, double cost, double min, double max) {
+            this.start = start;
+            this.cost = cost;
+            this.bounds = new double[] { min, max };
+            this.intervals = 1;
+        }
+
+        private double minCost(@NotNull final double[] sum, @NotNull final double[] squares, int end) {
+            final double segmentSum = sum[end] - sum[start];
+            final double segmentSquares = squares[end] - squares[start];
+            final int length = end - start;
+            final double mean = segmentSum / length;
+
+            double result = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < intervals; i++) {
+                final double mu = Math.max(bounds[2 * i], Math.min(bounds[2 * i + 1], mean));
+                result = Math.min(result, mu == mean
+                        ? segmentSquares - segmentSum * segmentSum / length
+                        : segmentSquares - 2 * mu * segmentSum + length * mu * mu);
+            }
+            return cost + result;
+        }
+
+        /**
+         * Restricts the intervals to the means with a cost no greater than the threshold and returns whether any remain.
+         */
+        private boolean restrict(@NotNull final double[] sum, @NotNull final double[] squares, int end, double threshold) {
+            final double segmentSum = sum[end] - sum[start];
+            final int length = end - start;
+            final double discriminant = segmentSum * segmentSum - length * (cost + squares[end] - squares[start] - threshold);
+            if (discriminant < 0) {
+                return false;
+            }
+
+            final double root = Math.sqrt(discriminant);
+            final double lower = (segmentSum - root) / length;
+            final double upper = (segmentSum + root) / length;
+
+            int retained = 0;
+            for (int i = 0; i < intervals; i++) {
+                final double intervalLower = Math.max(lower, bounds[2 * i]);
+                final double intervalUpper = Math.min(upper, bounds[2 * i + 1]);
+                if (intervalLower <= intervalUpper) {
+                    bounds[2 * retained] = intervalLower;
+                    bounds[2 * retained + 1] = intervalUpper;
+                    retained++;
+                }
+            }
+
+            intervals = retained;
+            return retained > 0;
+        }
+    }
+
+    private static double cost(@NotNull final double[] sum, @NotNull final double[] squares, int start, int end) {
+        final double segmentSum = sum[end] - sum[start];
+        return squares[end] - squares[start] - segmentSum * segmentSum / (end - start);
+    }
+}
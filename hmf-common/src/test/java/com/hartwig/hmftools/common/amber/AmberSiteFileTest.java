@@ -0,0 +1,97 @@
+package com.hartwig.hmftools.common.amber;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AmberSiteFileTest {
+
+    @Rule
+    public final TemporaryFolder directory = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final ListMultimap<Chromosome, AmberSite> sites = ArrayListMultimap.create();
+        sites.put(HumanChromosome._1, site("1", 100, "A", "C", false));
+        sites.put(HumanChromosome._1, site("1", 200, "G", "T", true));
+        sites.put(HumanChromosome._1, site("1", 300, "T", "A", false));
+        sites.put(HumanChromosome._2, site("2", 50, "C", "G", false));
+        for (int i = 0; i < 20; i++) {
+            final String ref = String.valueOf("ACGT".charAt(i % 4));
+            final String alt = String.valueOf("TGCA".charAt(i % 4));
+            sites.put(HumanChromosome._X, site("X", 1000 + i, ref, alt, i % 3 == 0));
+        }
+
+        final String file = directory.newFile("sites.amber.loci").toString();
+        AmberSiteFile.write(file, sites);
+        assertTrue(AmberSiteFile.isBinary(file));
+
+        final ListMultimap<Chromosome, AmberSite> victim = AmberSiteFile.read(file);
+        assertEquals(sites.keySet(), victim.keySet());
+        for (Chromosome chromosome : sites.keySet()) {
+            assertEquals(sites.get(chromosome), victim.get(chromosome));
+        }
+
+        assertEquals(sites.get(HumanChromosome._X), AmberSiteFactory.sites(file).get(HumanChromosome._X));
+    }
+
+    @Test
+    public void testPositionsAreSorted() throws IOException {
+        final ListMultimap<Chromosome, AmberSite> sites = ArrayListMultimap.create();
+        sites.put(HumanChromosome._1, site("chr1", 300, "T", "A", false));
+        sites.put(HumanChromosome._1, site("chr1", 100, "A", "C", true));
+
+        final String file = directory.newFile("sites.amber.loci").toString();
+        AmberSiteFile.write(file, sites);
+
+        final ListMultimap<Chromosome, AmberSite> victim = AmberSiteFile.read(file);
+        assertEquals(2, victim.size());
+        assertEquals(site("chr1", 100, "A", "C", true), victim.get(HumanChromosome._1).get(0));
+        assertEquals(site("chr1", 300, "T", "A", false), victim.get(HumanChromosome._1).get(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonSnvSitesAreRejected() throws IOException {
+        final ListMultimap<Chromosome, AmberSite> sites = ArrayListMultimap.create();
+        sites.put(HumanChromosome._1, site("chr1", 100, "A", "C", true));
+        sites.put(HumanChromosome._1, site("chr1", 200, "G", "N", false));
+
+        AmberSiteFile.write(directory.newFile("sites.amber.loci").toString(), sites);
+    }
+
+    @Test
+    public void testIsSnv() {
+        assertTrue(AmberSiteFile.isSnv(site("1", 100, "A", "C", false)));
+        assertFalse(AmberSiteFile.isSnv(site("1", 100, "G", "N", false)));
+        assertFalse(AmberSiteFile.isSnv(site("1", 100, "AT", "A", false)));
+        assertFalse(AmberSiteFile.isSnv(site("1", 100, "A", "AT", false)));
+    }
+
+    @Test
+    public void testVcfIsNotBinary() throws IOException {
+        final File file = directory.newFile("sites.vcf");
+        Files.write(file.toPath(), Collections.singletonList("##fileformat=VCFv4.2"));
+        assertFalse(AmberSiteFile.isBinary(file.toString()));
+    }
+
+    @NotNull
+    private static AmberSite site(@NotNull final String contig, long position, @NotNull final String ref, @NotNull final String alt,
+            boolean snpCheck) {
+        return ImmutableAmberSite.builder().chromosome(contig).position(position).ref(ref).alt(alt).snpCheck(snpCheck).build();
+    }
+}
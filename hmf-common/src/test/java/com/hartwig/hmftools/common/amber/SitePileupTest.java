@@ -0,0 +1,211 @@
+package com.hartwig.hmftools.common.amber;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.utils.sam.SAMRecords;
+import com.hartwig.hmftools.common.utils.sam.SAMRecordsTest;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.TextCigarCodec;
+
+public class SitePileupTest {
+
+    private static final int MIN_BASE_QUALITY = 13;
+    private static final String BASES = "ACGTacgtN";
+    private static final String[] CIGARS = { "20M", "5S15M", "8M2D12M", "8M2I10M", "10M1D1M1I8M", "1M1D19M", "15M5S", "4M3N16M" };
+
+    @Test
+    public void testMatchesBaseDepthFactory() {
+        final Random random = new Random(0);
+        final List<ModifiableBaseDepth> expected = sites(random);
+        final List<ModifiableBaseDepth> sites = Lists.newArrayList();
+        expected.forEach(x -> sites.add(BaseDepthFactory.create(x)));
+
+        final SitePileup victim = new SitePileup(MIN_BASE_QUALITY,
+                true,
+                sites,
+                SitePileup.bases(sites, BaseDepth::ref),
+                SitePileup.bases(sites, BaseDepth::alt));
+
+        for (SAMRecord record : records(random, false)) {
+            victim.addEvidence(record);
+            for (ModifiableBaseDepth site : expected) {
+                if (overlaps(site, record)) {
+                    addEvidence(site, record);
+                }
+            }
+        }
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).readDepth(), victim.readDepth(i));
+            assertEquals(expected.get(i).refSupport(), victim.refSupport(i));
+            assertEquals(expected.get(i).altSupport(), victim.altSupport(i));
+            assertEquals(expected.get(i).indelCount(), victim.indelCount(i));
+        }
+    }
+
+    @Test
+    public void testMatchesTumorBAFFactoryWithUnsortedRecords() {
+        final Random random = new Random(1);
+        final List<ModifiableBaseDepth> sites = sites(random);
+        final List<ModifiableTumorBAF> expected = Lists.newArrayList();
+        sites.forEach(x -> expected.add(TumorBAFFactory.create(x)));
+
+        final SitePileup victim = new SitePileup(MIN_BASE_QUALITY,
+                false,
+                sites,
+                SitePileup.bases(sites, BaseDepth::ref),
+                SitePileup.bases(sites, BaseDepth::alt));
+
+        for (SAMRecord record : records(random, true)) {
+            victim.addEvidence(record);
+            for (ModifiableTumorBAF site : expected) {
+                if (overlaps(site, record)) {
+                    addEvidence(site, record);
+                }
+            }
+        }
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).tumorReadDepth(), victim.readDepth(i));
+            assertEquals(expected.get(i).tumorRefSupport(), victim.refSupport(i));
+            assertEquals(expected.get(i).tumorAltSupport(), victim.altSupport(i));
+            assertEquals(expected.get(i).tumorAltQuality(), victim.altQuality(i));
+            assertEquals(expected.get(i).tumorIndelCount(), victim.indelCount(i));
+        }
+    }
+
+    @Test
+    public void testUseQualityOfBaseAfterDel() {
+        int minQuality = SAMRecords.getBaseQuality('J');
+        final List<BaseDepth> sites = Lists.newArrayList(ModifiableBaseDepth.create()
+                .setChromosome("5")
+                .setPosition(1001)
+                .setRef(BaseDepth.Base.A)
+                .setAlt(BaseDepth.Base.T)
+                .setReadDepth(0)
+                .setRefSupport(0)
+                .setAltSupport(0)
+                .setIndelCount(0));
+
+        final SitePileup victim =
+                new SitePileup(minQuality, false, sites, SitePileup.bases(sites, BaseDepth::ref), SitePileup.bases(sites, BaseDepth::alt));
+
+        victim.addEvidence(SAMRecordsTest.buildSamRecord(1000, "1M1D1M", "CT", "FI"));
+        assertEquals(0, victim.readDepth(0));
+
+        victim.addEvidence(SAMRecordsTest.buildSamRecord(1000, "1M1D1M", "CT", "FJ"));
+        assertEquals(1, victim.readDepth(0));
+    }
+
+    /**
+     * Reference implementation of the normal evidence at a single site that SitePileup replaces.
+     */
+    private static void addEvidence(@NotNull final ModifiableBaseDepth evidence, @NotNull final SAMRecord samRecord) {
+        int quality = BaseDepthFactory.getBaseQuality(evidence, samRecord);
+        if (quality >= MIN_BASE_QUALITY) {
+            evidence.setReadDepth(evidence.readDepth() + 1);
+
+            int bafPosition = (int) evidence.position();
+            int readPosition = samRecord.getReadPositionAtReferencePosition(bafPosition);
+            if (readPosition != 0) {
+                if (!BaseDepthFactory.indel(bafPosition, readPosition, samRecord)) {
+                    final char baseChar = samRecord.getReadString().charAt(readPosition - 1);
+                    final BaseDepth.Base base = BaseDepth.Base.valueOf(String.valueOf(baseChar).toUpperCase());
+                    if (base.equals(evidence.ref())) {
+                        evidence.setRefSupport(evidence.refSupport() + 1);
+                    } else if (base.equals(evidence.alt())) {
+                        evidence.setAltSupport(evidence.altSupport() + 1);
+                    }
+                } else {
+                    evidence.setIndelCount(evidence.indelCount() + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reference implementation of the tumor BAF evidence at a single site that SitePileup replaces.
+     */
+    private static void addEvidence(@NotNull final ModifiableTumorBAF evidence, @NotNull final SAMRecord samRecord) {
+        int quality = BaseDepthFactory.getBaseQuality(evidence, samRecord);
+        if (quality >= MIN_BASE_QUALITY) {
+            evidence.setTumorReadDepth(evidence.tumorReadDepth() + 1);
+            int bafPosition = (int) evidence.position();
+            int readPosition = samRecord.getReadPositionAtReferencePosition(bafPosition);
+            if (readPosition != 0) {
+                if (!BaseDepthFactory.indel(bafPosition, readPosition, samRecord)) {
+                    final String base = String.valueOf(samRecord.getReadString().charAt(readPosition - 1));
+                    if (base.equals(evidence.ref())) {
+                        evidence.setTumorRefSupport(evidence.tumorRefSupport() + 1);
+                    } else if (base.equals(evidence.alt())) {
+                        evidence.setTumorAltSupport(evidence.tumorAltSupport() + 1);
+                        evidence.setTumorAltQuality(evidence.tumorAltQuality() + quality);
+                    }
+                } else {
+                    evidence.setTumorIndelCount(evidence.tumorIndelCount() + 1);
+                }
+            }
+        }
+    }
+
+    private static boolean overlaps(@NotNull final BaseDepth site, @NotNull final SAMRecord record) {
+        return site.position() >= record.getAlignmentStart() && site.position() <= record.getAlignmentEnd();
+    }
+
+    private static boolean overlaps(@NotNull final TumorBAF site, @NotNull final SAMRecord record) {
+        return site.position() >= record.getAlignmentStart() && site.position() <= record.getAlignmentEnd();
+    }
+
+    @NotNull
+    private static List<ModifiableBaseDepth> sites(@NotNull final Random random) {
+        final List<ModifiableBaseDepth> result = Lists.newArrayList();
+        int position = 1000;
+        for (int i = 0; i < 40; i++) {
+            // Occasionally repeat a position to cover multiple alts at the same site
+            position += i % 10 == 9 ? 0 : 1 + random.nextInt(8);
+            result.add(ModifiableBaseDepth.create()
+                    .setChromosome("1")
+                    .setPosition(position)
+                    .setRef(BaseDepth.Base.values()[random.nextInt(4)])
+                    .setAlt(BaseDepth.Base.values()[random.nextInt(4)])
+                    .setReadDepth(0)
+                    .setRefSupport(0)
+                    .setAltSupport(0)
+                    .setIndelCount(0));
+        }
+        return result;
+    }
+
+    @NotNull
+    private static List<SAMRecord> records(@NotNull final Random random, boolean shuffle) {
+        final List<SAMRecord> result = Lists.newArrayList();
+        int start = 980;
+        for (int i = 0; i < 500; i++) {
+            start += random.nextInt(2);
+            final String cigar = CIGARS[random.nextInt(CIGARS.length)];
+            final int length = TextCigarCodec.decode(cigar).getReadLength();
+
+            final StringBuilder bases = new StringBuilder();
+            final StringBuilder qualities = new StringBuilder();
+            for (int j = 0; j < length; j++) {
+                bases.append(BASES.charAt(random.nextInt(BASES.length())));
+                qualities.append((char) ('!' + random.nextInt(40)));
+            }
+            result.add(SAMRecordsTest.buildSamRecord(start, cigar, bases.toString(), qualities.toString()));
+        }
+
+        if (shuffle) {
+            Collections.shuffle(result, random);
+        }
+        return result;
+    }
+}
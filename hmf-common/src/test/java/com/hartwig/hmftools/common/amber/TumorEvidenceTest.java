@@ -0,0 +1,126 @@
+package com.hartwig.hmftools.common.amber;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.TextCigarCodec;
+
+public class TumorEvidenceTest {
+
+    private static final String CONTIG = "1";
+    private static final int TYPICAL_READ_DEPTH = 20;
+    private static final int MIN_MAPPING_QUALITY = 1;
+    private static final int MIN_BASE_QUALITY = 13;
+    private static final String BASES = "ACGT";
+    private static final String[] CIGARS = { "30M", "5S25M", "12M2D18M", "12M2I16M", "25M5S" };
+
+    @Rule
+    public final TemporaryFolder directory = new TemporaryFolder();
+
+    @Test
+    public void testSinglePassMatchesSeparatePasses() throws Exception {
+        final Random random = new Random(0);
+        final List<BaseDepth> hetSites = Lists.newArrayList();
+        final List<BaseDepth> homSites = Lists.newArrayList();
+        int position = 1000;
+        for (int i = 0; i < 200; i++) {
+            position += 1 + random.nextInt(40);
+            (i % 3 == 0 ? homSites : hetSites).add(site(random, position));
+        }
+
+        final String bamFile = writeBam(random).toString();
+        final SamReaderFactory readerFactory = SamReaderFactory.makeDefault();
+
+        final TumorEvidence victim = new TumorEvidence(TYPICAL_READ_DEPTH,
+                MIN_MAPPING_QUALITY,
+                MIN_BASE_QUALITY,
+                CONTIG,
+                bamFile,
+                readerFactory,
+                hetSites,
+                homSites).call();
+        final TumorBAFEvidence bafEvidence =
+                new TumorBAFEvidence(TYPICAL_READ_DEPTH, MIN_MAPPING_QUALITY, MIN_BASE_QUALITY, CONTIG, bamFile, readerFactory, hetSites)
+                        .call();
+        final TumorContaminationEvidence contaminationEvidence = new TumorContaminationEvidence(TYPICAL_READ_DEPTH,
+                MIN_MAPPING_QUALITY,
+                MIN_BASE_QUALITY,
+                CONTIG,
+                bamFile,
+                readerFactory,
+                homSites).call();
+
+        assertFalse(bafEvidence.evidence().isEmpty());
+        assertFalse(contaminationEvidence.evidence().isEmpty());
+        assertEquals(bafEvidence.evidence(), victim.bafEvidence());
+        assertEquals(contaminationEvidence.evidence(), victim.contaminationEvidence());
+    }
+
+    @NotNull
+    private static BaseDepth site(@NotNull final Random random, int position) {
+        final int ref = random.nextInt(4);
+        return ModifiableBaseDepth.create()
+                .setChromosome(CONTIG)
+                .setPosition(position)
+                .setRef(BaseDepth.Base.values()[ref])
+                .setAlt(BaseDepth.Base.values()[(ref + 1 + random.nextInt(3)) % 4])
+                .setReadDepth(0)
+                .setRefSupport(0)
+                .setAltSupport(0)
+                .setIndelCount(0);
+    }
+
+    @NotNull
+    private File writeBam(@NotNull final Random random) {
+        final SAMSequenceDictionary dictionary = new SAMSequenceDictionary();
+        dictionary.addSequence(new SAMSequenceRecord(CONTIG, 100_000));
+        final SAMFileHeader header = new SAMFileHeader(dictionary);
+        header.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+
+        final File file = new File(directory.getRoot(), "tumor.bam");
+        try (SAMFileWriter writer = new SAMFileWriterFactory().setCreateIndex(true).makeBAMWriter(header, false, file)) {
+            int start = 990;
+            for (int i = 0; i < 3000; i++) {
+                start += random.nextInt(3);
+                final String cigar = CIGARS[random.nextInt(CIGARS.length)];
+                final int length = TextCigarCodec.decode(cigar).getReadLength();
+
+                final StringBuilder bases = new StringBuilder();
+                final StringBuilder qualities = new StringBuilder();
+                for (int j = 0; j < length; j++) {
+                    bases.append(BASES.charAt(random.nextInt(BASES.length())));
+                    qualities.append((char) ('!' + random.nextInt(40)));
+                }
+
+                final SAMRecord record = new SAMRecord(header);
+                record.setReadName("READ" + i);
+                record.setReferenceName(CONTIG);
+                record.setAlignmentStart(start);
+                record.setCigarString(cigar);
+                record.setMappingQuality(random.nextInt(10));
+                record.setReadString(bases.toString());
+                record.setBaseQualityString(qualities.toString());
+                writer.addAlignment(record);
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,103 @@
+package com.hartwig.hmftools.common.cobalt;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.io.Resources;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CobaltRatioColumnsTest {
+
+    private static final String HG19_PATH = Resources.getResource("cobalt/hg19.cobalt.tsv").getPath();
+
+    @Rule
+    public final TemporaryFolder directory = new TemporaryFolder();
+
+    @Test
+    public void testMatchesTsv() throws IOException {
+        final ListMultimap<Chromosome, CobaltRatio> ratios = ArrayListMultimap.create();
+        final Random random = new Random(0);
+        for (HumanChromosome chromosome : new HumanChromosome[] { HumanChromosome._10, HumanChromosome._2, HumanChromosome._X }) {
+            for (int i = 0; i < 1000; i++) {
+                ratios.put(chromosome, ratio(chromosome.toString(), 1000 * i + 1, random));
+            }
+        }
+        ratios.put(HumanChromosome._2, ratio("2", 500_001, 0.00005, 1.00015, -1));
+
+        final String tsv = directory.newFile("sample.cobalt.ratio.tsv").toString();
+        final String binary = directory.newFile("sample.cobalt.ratio.bin").toString();
+        CobaltRatioFile.write(tsv, ratios);
+        CobaltRatioColumns.write(binary, ratios);
+
+        assertRatios(CobaltRatioFile.read(tsv), CobaltRatioColumns.read(binary).ratios());
+    }
+
+    @Test
+    public void testPrimitiveAccessors() throws IOException {
+        final String binary = directory.newFile("sample.cobalt.ratio.bin").toString();
+        CobaltRatioColumns.write(binary, CobaltRatioFile.read(HG19_PATH));
+
+        final CobaltRatioColumns victim = CobaltRatioColumns.read(binary);
+        assertEquals(4, victim.size());
+        assertEquals(Lists.newArrayList("1"), victim.contigs());
+        assertEquals(0, victim.startIndex("1"));
+        assertEquals(4, victim.endIndex("1"));
+        assertEquals(-1, victim.startIndex("2"));
+
+        assertEquals("1", victim.chromosome(2));
+        assertEquals(757001, victim.position(2));
+        assertEquals(300, victim.referenceReadCount(2));
+        assertEquals(596, victim.tumorReadCount(2));
+        assertEquals(1.2834, victim.referenceGCRatio(2), 0);
+        assertEquals(1.0025, victim.tumorGCRatio(2), 0);
+        assertEquals(1.3255, victim.referenceGCDiploidRatio(2), 0);
+    }
+
+    // Compares ratios by value as the rows of the binary file are not immutables
+    private static void assertRatios(@NotNull final ListMultimap<Chromosome, CobaltRatio> expected,
+            @NotNull final ListMultimap<Chromosome, CobaltRatio> victim) {
+        assertEquals(expected.keySet(), victim.keySet());
+        for (Chromosome chromosome : expected.keySet()) {
+            final List<CobaltRatio> expectedRatios = expected.get(chromosome);
+            final List<CobaltRatio> victimRatios = victim.get(chromosome);
+            assertEquals(expectedRatios.size(), victimRatios.size());
+            for (int i = 0; i < expectedRatios.size(); i++) {
+                assertEquals(expectedRatios.get(i), ImmutableCobaltRatio.copyOf(victimRatios.get(i)));
+            }
+        }
+    }
+
+    @NotNull
+    private static CobaltRatio ratio(@NotNull final String chromosome, long position, @NotNull final Random random) {
+        final double referenceGCDiploidRatio = random.nextInt(10) == 0 ? -1 : random.nextDouble();
+        // Five decimal places puts many ratios half way between the four decimal places of the tsv
+        final double tumorGCRatio = random.nextInt(300_000) / 100_000d;
+        return ratio(chromosome, position, random.nextDouble() * 3, tumorGCRatio, referenceGCDiploidRatio);
+    }
+
+    @NotNull
+    private static CobaltRatio ratio(@NotNull final String chromosome, long position, double referenceGCRatio, double tumorGCRatio,
+            double referenceGCDiploidRatio) {
+        return ImmutableCobaltRatio.builder()
+                .chromosome(chromosome)
+                .position(position)
+                .referenceReadCount((int) position % 500)
+                .tumorReadCount((int) position % 700)
+                .referenceGCRatio(referenceGCRatio)
+                .tumorGCRatio(tumorGCRatio)
+                .referenceGCDiploidRatio(referenceGCDiploidRatio)
+                .build();
+    }
+}
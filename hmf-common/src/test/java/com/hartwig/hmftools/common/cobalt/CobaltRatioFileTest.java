@@ -1,7 +1,10 @@
 package com.hartwig.hmftools.common.cobalt;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
 
@@ -9,13 +12,42 @@ import com.google.common.collect.Lists;
 import com.google.common.io.Resources;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class CobaltRatioFileTest {
 
     private static final String HG19_PATH = Resources.getResource("cobalt/hg19.cobalt.tsv").getPath();
     private static final String HG38_PATH = Resources.getResource("cobalt/hg38.cobalt.tsv").getPath();
 
+    @Rule
+    public final TemporaryFolder directory = new TemporaryFolder();
+
+    @Test
+    public void testBinaryIsCurrentUnlessTsvIsNewer() throws IOException {
+        final File tsv = new File(directory.getRoot(), "sample.cobalt.ratio.tsv");
+        final File binary = new File(directory.getRoot(), "sample.cobalt.ratio.bin");
+        assertFalse(CobaltRatioFile.isBinaryCurrent(binary.toString(), tsv.toString()));
+
+        assertTrue(binary.createNewFile());
+        assertTrue(CobaltRatioFile.isBinaryCurrent(binary.toString(), tsv.toString()));
+
+        assertTrue(tsv.createNewFile());
+        assertTrue(tsv.setLastModified(100_000));
+        assertTrue(binary.setLastModified(100_000));
+        assertTrue(CobaltRatioFile.isBinaryCurrent(binary.toString(), tsv.toString()));
+
+        assertTrue(tsv.setLastModified(200_000));
+        assertFalse(CobaltRatioFile.isBinaryCurrent(binary.toString(), tsv.toString()));
+    }
+
+    @Test
+    public void testBinaryFilenameOfTsv() {
+        assertEquals("/dir/TUMOR.cobalt.ratio.bin", CobaltRatioFile.generateBinaryFilename("/dir/TUMOR.cobalt.ratio.tsv"));
+        assertEquals("/dir/TUMOR.cobalt.ratio.bin", CobaltRatioFile.generateBinaryFilename("/dir/TUMOR.cobalt"));
+    }
+
     @Test
     public void testHG38() throws IOException {
         final List<CobaltRatio> hg38 = Lists.newArrayList(CobaltRatioFile.read(HG38_PATH).get(HumanChromosome._1));
@@ -4,21 +4,28 @@ import static org.junit.Assert.assertEquals;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.List;
 
 import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
 import com.google.common.io.Resources;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 
 import org.jetbrains.annotations.NotNull;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class PCFFileTest {
 
     private static final int WINDOW = 1000;
     private static final String BASE_PATH = Resources.getResource("pcf").getPath() + File.separator;
 
+    @Rule
+    public final TemporaryFolder testFolder = new TemporaryFolder();
+
     @Test
     public void testBafFile() throws IOException {
         final ListMultimap<Chromosome, PCFPosition> resultMap =
@@ -64,6 +71,30 @@ public class PCFFileTest {
         assertPosition(90458001, 90458001, 90458001, chromosomeThreeResults.get(4));
     }
 
+    @Test
+    public void testWriteMatchesExistingFiles() throws IOException {
+        for (String file : new String[] { "baf.pcf", "ratio.pcf" }) {
+            final List<String> expected = Files.readAllLines(new File(BASE_PATH + file).toPath());
+            final List<PCFSegment> segments = Lists.newArrayList();
+            for (String line : expected.subList(1, expected.size())) {
+                final String[] values = line.split("\t");
+                segments.add(ImmutablePCFSegment.builder()
+                        .sampleId(values[0])
+                        .chromosome(values[1])
+                        .arm(values[2])
+                        .start(Long.parseLong(values[3]))
+                        .end(Long.parseLong(values[4]))
+                        .probes(Integer.parseInt(values[5]))
+                        .mean(Double.parseDouble(values[6]))
+                        .build());
+            }
+
+            final File output = testFolder.newFile(file);
+            PCFFile.write(output.getPath(), segments);
+            assertEquals(expected, Files.readAllLines(output.toPath()));
+        }
+    }
+
     private static void assertPosition(long position, long min, long max, @NotNull final PCFPosition victim) {
         assertEquals(position, victim.position());
         assertEquals(min, victim.minPosition());
@@ -0,0 +1,123 @@
+package com.hartwig.hmftools.common.utils.pcf;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.genome.position.GenomePosition;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Test;
+
+public class PCFSegmentationTest {
+
+    private final ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+    @After
+    public void tearDown() {
+        executorService.shutdown();
+    }
+
+    @Test
+    public void testSegmentsByArm() throws ExecutionException, InterruptedException {
+        final Random random = new Random(0);
+        final List<Probe> probes = Lists.newArrayList();
+        addProbes(probes, random, "chr1", 124900001, 100, 0);
+        addProbes(probes, random, "chr1", 125000001, 100, 0);
+        addProbes(probes, random, "chr1", 125100001, 50, 1);
+        addProbes(probes, random, "chr2", 1000001, 20, 0.5);
+
+        final List<PCFSegment> victim = new PCFSegmentation(executorService).segment("S1", probes, x -> x.value);
+        assertEquals(4, victim.size());
+
+        assertSegment("chr1", "p", 124900001, 124999001, 100, 0, victim.get(0));
+        assertSegment("chr1", "q", 125000001, 125099001, 100, 0, victim.get(1));
+        assertSegment("chr1", "q", 125100001, 125149001, 50, 1, victim.get(2));
+        assertSegment("chr2", "p", 1000001, 1019001, 20, 0.5, victim.get(3));
+    }
+
+    @Test
+    public void testExcludesNonFiniteValues() throws ExecutionException, InterruptedException {
+        final List<Probe> probes = Lists.newArrayList();
+        addProbes(probes, new Random(1), "1", 1001, 10, 0.5);
+        probes.add(5, new Probe("1", 5500, Double.NaN));
+        probes.add(new Probe("1", 20001, Double.NEGATIVE_INFINITY));
+
+        final List<PCFSegment> victim = new PCFSegmentation(executorService).segment("S1", probes, x -> x.value);
+        assertEquals(1, victim.size());
+        assertSegment("1", "p", 1001, 10001, 10, 0.5, victim.get(0));
+    }
+
+    @Test
+    public void testPenaltyIsScaledByVariance() throws ExecutionException, InterruptedException {
+        final Random random = new Random(2);
+        final List<Probe> probes = Lists.newArrayList();
+        addProbes(probes, random, "3", 1001, 200, 0);
+        addProbes(probes, random, "3", 201001, 200, 0.3);
+
+        final PCFSegmentation segmentation = new PCFSegmentation(executorService);
+        final List<PCFSegment> victim = segmentation.segment("S1", probes, x -> x.value);
+        final List<PCFSegment> scaled = segmentation.segment("S1", probes, x -> 10 * x.value);
+
+        assertEquals(victim.size(), scaled.size());
+        for (int i = 0; i < victim.size(); i++) {
+            assertEquals(victim.get(i).start(), scaled.get(i).start());
+            assertEquals(victim.get(i).end(), scaled.get(i).end());
+        }
+    }
+
+    @Test
+    public void testMeanIsRoundedToFourDigits() throws ExecutionException, InterruptedException {
+        final List<Probe> probes = Lists.newArrayList(new Probe("1", 1001, 0.12344), new Probe("1", 2001, 0.12346));
+        final List<PCFSegment> victim = new PCFSegmentation(executorService).segment("S1", probes, x -> x.value);
+        assertEquals(1, victim.size());
+        assertEquals(0.1235, victim.get(0).mean(), 1e-10);
+    }
+
+    private static void addProbes(@NotNull final List<Probe> probes, @NotNull final Random random, @NotNull final String chromosome,
+            long start, int count, double mean) {
+        for (int i = 0; i < count; i++) {
+            probes.add(new Probe(chromosome, start + i * 1000L, mean + (random.nextDouble() - 0.5) * 0.0001));
+        }
+    }
+
+    private static void assertSegment(@NotNull final String chromosome, @NotNull final String arm, long start, long end, int probes,
+            double mean, @NotNull final PCFSegment victim) {
+        assertEquals(chromosome, victim.chromosome());
+        assertEquals(arm, victim.arm());
+        assertEquals(start, victim.start());
+        assertEquals(end, victim.end());
+        assertEquals(probes, victim.probes());
+        assertEquals(mean, victim.mean(), 1e-10);
+    }
+
+    private static class Probe implements GenomePosition {
+
+        private final String chromosome;
+        private final long position;
+        private final double value;
+
+        private Probe(@NotNull final String chromosome, long position, double value) {
+            this.chromosome = chromosome;
+            this.position = position;
+            this.value = value;
+        }
+
+        @NotNull
+        @Override
+        public String chromosome() {
+            return chromosome;
+        }
+
+        @Override
+        public long position() {
+            return position;
+        }
+    }
+}
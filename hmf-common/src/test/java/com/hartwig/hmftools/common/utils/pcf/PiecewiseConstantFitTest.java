@@ -0,0 +1,141 @@
+package com.hartwig.hmftools.common.utils.pcf;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Ints;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+public class PiecewiseConstantFitTest {
+
+    private static final double EPSILON = 1e-10;
+
+    @Test
+    public void testSingleStep() {
+        final double[] values = { 0.1, -0.1, 0.05, -0.05, 0, 2.1, 1.9, 2.05, 1.95, 2 };
+        assertArrayEquals(new int[] { 5, 10 }, PiecewiseConstantFit.fit(values, 1, 1));
+        assertArrayEquals(new int[] { 10 }, PiecewiseConstantFit.fit(values, 1, 100));
+    }
+
+    @Test
+    public void testSingleSegmentWithoutPenalty() {
+        final double[] values = { 1, 2, 3 };
+        assertArrayEquals(new int[] { 3 }, PiecewiseConstantFit.fit(values, 1, 0));
+        assertArrayEquals(new int[] { 3 }, PiecewiseConstantFit.fit(values, 1, Double.NaN));
+        assertArrayEquals(new int[0], PiecewiseConstantFit.fit(new double[0], 1, 1));
+    }
+
+    @Test
+    public void testOutlierIsOwnSegment() {
+        final double[] values = { 0, 0, 0, 0, 5, 0, 0, 0 };
+        assertArrayEquals(new int[] { 4, 5, 8 }, PiecewiseConstantFit.fit(values, 1, 1));
+
+        // Equally good fits resolve to the earliest segment start
+        assertArrayEquals(new int[] { 3, 5, 8 }, PiecewiseConstantFit.fit(values, 2, 1));
+    }
+
+    @Test
+    public void testMatchesExhaustiveSearch() {
+        final Random random = new Random(0);
+        for (int iteration = 0; iteration < 200; iteration++) {
+            final double[] values = new double[5 + random.nextInt(60)];
+            double level = 0;
+            for (int i = 0; i < values.length; i++) {
+                if (random.nextInt(10) == 0) {
+                    level = random.nextInt(4);
+                }
+                values[i] = level + random.nextGaussian() * 0.3;
+            }
+
+            final int kmin = 1 + random.nextInt(3);
+            final double gamma = 0.1 + random.nextDouble() * 3;
+            assertArrayEquals(exactPcf(values, kmin, gamma), PiecewiseConstantFit.fit(values, kmin, gamma));
+        }
+    }
+
+    @Test
+    public void testMedianFilterMatchesRunmed() {
+        // runmed(c(3, 1, 4, 1, 5, 9, 2, 6, 5, 3), 5, endrule = "median")
+        final double[] values = { 3, 1, 4, 1, 5, 9, 2, 6, 5, 3 };
+        assertArrayEquals(new double[] { 3, 3, 3, 4, 4, 5, 5, 5, 5, 5 }, PiecewiseConstantFit.medianFilter(values, 2), EPSILON);
+
+        // runmed(c(1, 5, 2, 8, 3, 9, 4), 3, endrule = "median")
+        final double[] shortValues = { 1, 5, 2, 8, 3, 9, 4 };
+        assertArrayEquals(new double[] { 1, 2, 5, 3, 8, 4, 4 }, PiecewiseConstantFit.medianFilter(shortValues, 1), EPSILON);
+    }
+
+    @Test
+    public void testMedianFilterNarrowsToInputLength() {
+        // Width of 51 narrows to 3 for an input of length 4
+        final double[] values = { 4, 1, 3, 2 };
+        assertArrayEquals(PiecewiseConstantFit.medianFilter(values, 1), PiecewiseConstantFit.medianFilter(values, 25), EPSILON);
+    }
+
+    @Test
+    public void testMadIgnoresZeros() {
+        final double[] values = { 0.3, -0.2, 0.1, 0.5, -0.4, 0.2, 0.0, -0.1, 0.4, 0.0, -0.3 };
+        final double[] nonZero = { 0.3, -0.2, 0.1, 0.5, -0.4, 0.2, -0.1, 0.4, -0.3 };
+        assertEquals(PiecewiseConstantFit.mad(nonZero, 25), PiecewiseConstantFit.mad(values, 25), EPSILON);
+        assertEquals(Double.NaN, PiecewiseConstantFit.mad(new double[] { 0, 0 }, 25), EPSILON);
+    }
+
+    @Test
+    public void testMadOfConstantSteps() {
+        // Residuals from the running median are all zero
+        final double[] values = { 1, 1, 1, 1, 1, 1, 2, 2, 2, 2, 2, 2 };
+        assertEquals(0, PiecewiseConstantFit.mad(values, 1), EPSILON);
+    }
+
+    // Direct port of the unpruned recursion of exactPcf
+    @NotNull
+    private static int[] exactPcf(@NotNull final double[] values, int kmin, double gamma) {
+        final int n = values.length;
+        if (n < 2 * kmin) {
+            return new int[] { n };
+        }
+
+        final double[] bestCost = new double[n + 1];
+        final int[] bestStart = new int[n + 1];
+        for (int end = kmin; end <= n; end++) {
+            double minCost = Double.POSITIVE_INFINITY;
+            int minStart = 0;
+            for (int start = kmin; start <= end - kmin; start++) {
+                final double cost = bestCost[start] + gamma + cost(values, start, end);
+                if (cost < minCost) {
+                    minCost = cost;
+                    minStart = start;
+                }
+            }
+
+            final double totalCost = cost(values, 0, end);
+            if (totalCost < minCost) {
+                minCost = totalCost;
+                minStart = 0;
+            }
+            bestCost[end] = minCost;
+            bestStart[end] = minStart;
+        }
+
+        final List<Integer> result = Lists.newArrayList();
+        for (int end = n; end > 0; end = bestStart[end]) {
+            result.add(0, end);
+        }
+        return Ints.toArray(result);
+    }
+
+    private static double cost(@NotNull final double[] values, int start, int end) {
+        double sum = 0;
+        double squares = 0;
+        for (int i = start; i < end; i++) {
+            sum += values[i];
+            squares += values[i] * values[i];
+        }
+        return squares - sum * sum / (end - start);
+    }
+}
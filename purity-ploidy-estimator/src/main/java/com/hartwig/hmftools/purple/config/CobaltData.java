@@ -6,6 +6,7 @@ import java.io.IOException;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimap;
 import com.hartwig.hmftools.common.cobalt.CobaltRatio;
+import com.hartwig.hmftools.common.cobalt.CobaltRatioColumns;
 import com.hartwig.hmftools.common.cobalt.CobaltRatioFile;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.purple.gender.Gender;
@@ -42,7 +43,12 @@ public interface CobaltData {
     static CobaltData createCobaltData(@NotNull final CommonConfig commonConfig) throws ParseException, IOException {
         final String cobaltDirectory = commonConfig.cobaltDirectory();
         final String cobaltFilename = CobaltRatioFile.generateFilenameForReading(cobaltDirectory, commonConfig.tumorSample());
-        if (!new File(cobaltFilename).exists()) {
+        final String cobaltBinaryFilename = CobaltRatioFile.generateBinaryFilename(cobaltDirectory, commonConfig.tumorSample());
+        final boolean isBinary = CobaltRatioFile.isBinaryCurrent(cobaltBinaryFilename, cobaltFilename);
+        if (!isBinary && new File(cobaltBinaryFilename).exists()) {
+            LOGGER.warn("Ignoring cobalt ratio file {} as it is older than {}", cobaltBinaryFilename, cobaltFilename);
+        }
+        if (!isBinary && !new File(cobaltFilename).exists()) {
             throw new ParseException("Unable to open cobalt ratio file: " + cobaltFilename);
         }
 
@@ -56,8 +62,14 @@ public interface CobaltData {
             throw new ParseException("Unable to open cobalt tumor pcf file: " + tumorSegmentFile);
         }
 
-        LOGGER.info("Reading cobalt ratios from {}", cobaltFilename);
-        final ListMultimap<Chromosome, CobaltRatio> ratios = CobaltRatioFile.read(cobaltFilename);
+        final ListMultimap<Chromosome, CobaltRatio> ratios;
+        if (isBinary) {
+            LOGGER.info("Reading cobalt ratios from {}", cobaltBinaryFilename);
+            ratios = CobaltRatioColumns.read(cobaltBinaryFilename).ratios();
+        } else {
+            LOGGER.info("Reading cobalt ratios from {}", cobaltFilename);
+            ratios = CobaltRatioFile.read(cobaltFilename);
+        }
         final Gender gender = Gender.fromCobalt(ratios);
 
         LOGGER.info("Reading cobalt reference segments from {}", referenceSegmentFile);
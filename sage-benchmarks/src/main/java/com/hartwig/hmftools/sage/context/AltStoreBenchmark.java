@@ -0,0 +1,93 @@
+package com.hartwig.hmftools.sage.context;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Maps;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Alt lookup of each read at a position. Both arms are fed the same alleles and do the same work per read, only the alt store differs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AltStoreBenchmark {
+
+    private static final String[] BASES = { "A", "C", "G", "T" };
+    private static final String[] INSERTS = { "AT", "ATT", "AGGT" };
+    private static final int POSITIONS = 256;
+
+    @Param({ "100", "1000" })
+    public int depth;
+
+    private String[] refs;
+    private String[][] alts;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(0);
+        refs = new String[POSITIONS];
+        alts = new String[POSITIONS][];
+        for (int position = 0; position < POSITIONS; position++) {
+            final String ref = BASES[random.nextInt(4)];
+            refs[position] = ref;
+            alts[position] = new String[depth];
+            for (int read = 0; read < depth; read++) {
+                final int alt = random.nextInt(10);
+                // Alleles are created per read in RefContextConsumer so are deliberately not shared
+                alts[position][read] = alt < 7 ? new String(BASES[alt % 4]) : new String(INSERTS[alt - 7]);
+            }
+        }
+    }
+
+    @Benchmark
+    public int altStore() {
+        int result = 0;
+        for (int position = 0; position < POSITIONS; position++) {
+            final RefContext refContext = new RefContext("SAMPLE", "1", position, Integer.MAX_VALUE);
+            final AltStore store = new AltStore();
+            for (int read = 0; read < depth; read++) {
+                final String ref = new String(refs[position]);
+                final String alt = alts[position][read];
+                store.computeIfAbsent(refContext, ref, alt).incrementAltRead(30);
+            }
+            result += store.size();
+        }
+        return result;
+    }
+
+    /**
+     * The previous alt lookup of RefContext, keyed by the concatenated alleles.
+     */
+    @Benchmark
+    public int stringKeyedMap() {
+        int result = 0;
+        for (int position = 0; position < POSITIONS; position++) {
+            final RefContext refContext = new RefContext("SAMPLE", "1", position, Integer.MAX_VALUE);
+            final Map<String, AltContext> map = Maps.newHashMap();
+            for (int read = 0; read < depth; read++) {
+                final String ref = new String(refs[position]);
+                final String alt = alts[position][read];
+                map.computeIfAbsent(ref + "|" + alt, key -> new AltContext(refContext, ref, alt)).incrementAltRead(30);
+            }
+            result += map.size();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,37 @@
+package com.hartwig.hmftools.sage.context;
+
+import java.util.concurrent.TimeUnit;
+
+import com.hartwig.hmftools.sage.fixture.ReadFixture;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import htsjdk.samtools.SAMRecord;
+
+/**
+ * Candidate discovery over every read of the fixture region.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RefContextConsumerBenchmark {
+
+    @Benchmark
+    public int accept(final ReadFixture fixture) {
+        final RefContextFactory refContextFactory = fixture.newRefContextFactory();
+        final RefContextConsumer consumer = fixture.newRefContextConsumer(refContextFactory);
+        for (SAMRecord record : fixture.reads()) {
+            consumer.accept(record);
+        }
+
+        return refContextFactory.altContexts().size();
+    }
+}
@@ -0,0 +1,42 @@
+package com.hartwig.hmftools.sage.count;
+
+import java.util.concurrent.TimeUnit;
+
+import com.hartwig.hmftools.sage.fixture.ReadFixture;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import htsjdk.samtools.SAMRecord;
+
+/**
+ * Rolling lookup of a per position element for every aligned base of every read, as RefContextFactory does during candidate discovery.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvictingArrayBenchmark {
+
+    private static final int CAPACITY = 256;
+
+    @Benchmark
+    public long computeIfAbsent(final ReadFixture fixture) {
+        final long[] evicted = new long[1];
+        final EvictingArray<long[]> array = new EvictingArray<>(CAPACITY, x -> evicted[0] += x[0]);
+        for (SAMRecord record : fixture.reads()) {
+            for (int position = record.getAlignmentStart(); position <= record.getAlignmentEnd(); position++) {
+                array.computeIfAbsent(position, x -> new long[1])[0]++;
+            }
+        }
+
+        array.evictAll();
+        return evicted[0];
+    }
+}
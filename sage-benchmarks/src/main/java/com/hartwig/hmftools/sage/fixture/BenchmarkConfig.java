@@ -0,0 +1,108 @@
+package com.hartwig.hmftools.sage.fixture;
+
+import static com.hartwig.hmftools.sage.config.BaseQualityRecalibrationConfig.DEFAULT_BQR_MAX_ALT_COUNT;
+import static com.hartwig.hmftools.sage.config.BaseQualityRecalibrationConfig.DEFAULT_BQR_MIN_MAP_QUAL;
+import static com.hartwig.hmftools.sage.config.BaseQualityRecalibrationConfig.DEFAULT_BQR_SAMPLE_SIZE;
+import static com.hartwig.hmftools.sage.config.FilterConfig.DEFAULT_HARD_MIN_TUMOR_ALT_SUPPORT;
+import static com.hartwig.hmftools.sage.config.FilterConfig.DEFAULT_HARD_MIN_TUMOR_BASE_QUALITY;
+import static com.hartwig.hmftools.sage.config.FilterConfig.DEFAULT_HARD_MIN_TUMOR_QUAL;
+import static com.hartwig.hmftools.sage.config.FilterConfig.DEFAULT_HIGH_CONFIDENCE_FILTER;
+import static com.hartwig.hmftools.sage.config.FilterConfig.DEFAULT_HOTSPOT_FILTER;
+import static com.hartwig.hmftools.sage.config.FilterConfig.DEFAULT_LOW_CONFIDENCE_FILTER;
+import static com.hartwig.hmftools.sage.config.FilterConfig.DEFAULT_PANEL_FILTER;
+import static com.hartwig.hmftools.sage.config.QualityConfig.DEFAULT_BASE_QUAL_FIXED_PENALTY;
+import static com.hartwig.hmftools.sage.config.QualityConfig.DEFAULT_JITTER_MIN_REPEAT_COUNT;
+import static com.hartwig.hmftools.sage.config.QualityConfig.DEFAULT_JITTER_PENALTY;
+import static com.hartwig.hmftools.sage.config.QualityConfig.DEFAULT_MAP_QUAL_FIXED_PENALTY;
+import static com.hartwig.hmftools.sage.config.QualityConfig.DEFAULT_MAP_QUAL_IMPROPER_PAIR_PENALTY;
+import static com.hartwig.hmftools.sage.config.QualityConfig.DEFAULT_MAP_QUAL_READ_EVENTS_PENALTY;
+import static com.hartwig.hmftools.sage.config.QualityConfig.DEFAULT_READ_EDGE_FIXED_PENALTY;
+import static com.hartwig.hmftools.sage.config.SageConfig.DEFAULT_MAX_BUFFERED_BASES;
+import static com.hartwig.hmftools.sage.config.SageConfig.DEFAULT_MAX_READ_DEPTH;
+import static com.hartwig.hmftools.sage.config.SageConfig.DEFAULT_MAX_READ_DEPTH_PANEL;
+import static com.hartwig.hmftools.sage.config.SageConfig.DEFAULT_MAX_REALIGNMENT_DEPTH;
+import static com.hartwig.hmftools.sage.config.SageConfig.DEFAULT_MIN_MAP_QUALITY;
+import static com.hartwig.hmftools.sage.config.SageConfig.DEFAULT_MNV;
+import static com.hartwig.hmftools.sage.config.SageConfig.DEFAULT_READ_CONTEXT_FLANK_SIZE;
+import static com.hartwig.hmftools.sage.config.SageConfig.DEFAULT_THREADS;
+
+import java.util.Collections;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.sage.config.ImmutableBaseQualityRecalibrationConfig;
+import com.hartwig.hmftools.sage.config.ImmutableFilterConfig;
+import com.hartwig.hmftools.sage.config.ImmutableQualityConfig;
+import com.hartwig.hmftools.sage.config.ImmutableSageConfig;
+import com.hartwig.hmftools.sage.config.SageConfig;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Default SAGE configuration without any resource files.
+ */
+public final class BenchmarkConfig {
+
+    private BenchmarkConfig() {
+    }
+
+    @NotNull
+    public static SageConfig config() {
+        return ImmutableSageConfig.builder()
+                .panelOnly(false)
+                .version("benchmark")
+                .outputFile("out.vcf")
+                .transcriptRegions(Collections.emptyList())
+                .reference(Lists.newArrayList("REFERENCE"))
+                .referenceBam(Lists.newArrayList("reference.bam"))
+                .tumor(Lists.newArrayList("TUMOR"))
+                .tumorBam(Lists.newArrayList("tumor.bam"))
+                .refGenome("ref.fasta")
+                .panelBed("")
+                .highConfidenceBed("")
+                .hotspots("")
+                .mnvEnabled(DEFAULT_MNV)
+                .threads(DEFAULT_THREADS)
+                .minMapQuality(DEFAULT_MIN_MAP_QUALITY)
+                .maxRealignmentDepth(DEFAULT_MAX_REALIGNMENT_DEPTH)
+                .maxBufferedBases(DEFAULT_MAX_BUFFERED_BASES)
+                .maxReadDepth(DEFAULT_MAX_READ_DEPTH)
+                .maxReadDepthPanel(DEFAULT_MAX_READ_DEPTH_PANEL)
+                .qualityConfig(ImmutableQualityConfig.builder()
+                        .highlyPolymorphicGenes(Lists.newArrayList())
+                        .jitterPenalty(DEFAULT_JITTER_PENALTY)
+                        .jitterMinRepeatCount(DEFAULT_JITTER_MIN_REPEAT_COUNT)
+                        .baseQualityFixedPenalty(DEFAULT_BASE_QUAL_FIXED_PENALTY)
+                        .distanceFromReadEdgeFixedPenalty(DEFAULT_READ_EDGE_FIXED_PENALTY)
+                        .mapQualityFixedPenalty(DEFAULT_MAP_QUAL_FIXED_PENALTY)
+                        .mapQualityReadEventsPenalty(DEFAULT_MAP_QUAL_READ_EVENTS_PENALTY)
+                        .mapQualityImproperPairPenalty(DEFAULT_MAP_QUAL_IMPROPER_PAIR_PENALTY)
+                        .build())
+                .regionSliceSize(500_000)
+                .adaptiveSlicing(false)
+                .maxPendingSlices(SageConfig.DEFAULT_PENDING_SLICES_PER_THREAD * DEFAULT_THREADS)
+                .filter(ImmutableFilterConfig.builder()
+                        .hardFilter(false)
+                        .softFilter(true)
+                        .hardMinTumorQual(DEFAULT_HARD_MIN_TUMOR_QUAL)
+                        .hardMinTumorRawAltSupport(DEFAULT_HARD_MIN_TUMOR_ALT_SUPPORT)
+                        .hardMinTumorRawBaseQuality(DEFAULT_HARD_MIN_TUMOR_BASE_QUALITY)
+                        .softHotspotFilter(DEFAULT_HOTSPOT_FILTER)
+                        .softPanelFilter(DEFAULT_PANEL_FILTER)
+                        .softHighConfidenceFilter(DEFAULT_HIGH_CONFIDENCE_FILTER)
+                        .softLowConfidenceFilter(DEFAULT_LOW_CONFIDENCE_FILTER)
+                        .build())
+                .readContextFlankSize(DEFAULT_READ_CONTEXT_FLANK_SIZE)
+                .baseQualityRecalibrationConfig(ImmutableBaseQualityRecalibrationConfig.builder()
+                        .enabled(false)
+                        .plot(false)
+                        .maxAltCount(DEFAULT_BQR_MAX_ALT_COUNT)
+                        .sampleSize(DEFAULT_BQR_SAMPLE_SIZE)
+                        .minMapQuality(DEFAULT_BQR_MIN_MAP_QUAL)
+                        .cache(false)
+                        .cacheDir("")
+                        .build())
+                .inputVcf("")
+                .metricsJmx(false)
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.hartwig.hmftools.sage.fixture;
+
+import java.util.Arrays;
+
+import org.jetbrains.annotations.NotNull;
+
+import htsjdk.samtools.SAMException;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.reference.ReferenceSequence;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
+
+/**
+ * Single contig reference held in memory so benchmarks do not depend on a local fasta.
+ */
+public class InMemoryReferenceSequenceFile implements ReferenceSequenceFile {
+
+    private final String contig;
+    private final byte[] bases;
+    private final SAMSequenceDictionary dictionary;
+
+    public InMemoryReferenceSequenceFile(@NotNull final String contig, @NotNull final byte[] bases) {
+        this.contig = contig;
+        this.bases = bases;
+        this.dictionary = new SAMSequenceDictionary();
+        this.dictionary.addSequence(new SAMSequenceRecord(contig, bases.length));
+    }
+
+    @NotNull
+    public byte[] bases() {
+        return bases;
+    }
+
+    @Override
+    public SAMSequenceDictionary getSequenceDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public ReferenceSequence nextSequence() {
+        return null;
+    }
+
+    @Override
+    public void reset() {
+    }
+
+    @Override
+    public boolean isIndexed() {
+        return true;
+    }
+
+    @Override
+    public ReferenceSequence getSequence(@NotNull final String contig) {
+        return getSubsequenceAt(contig, 1, bases.length);
+    }
+
+    @Override
+    public ReferenceSequence getSubsequenceAt(@NotNull final String contig, long start, long stop) {
+        if (!this.contig.equals(contig) || start < 1 || stop > bases.length) {
+            throw new SAMException("Unable to find " + contig + ":" + start + "-" + stop);
+        }
+
+        return new ReferenceSequence(contig, 0, Arrays.copyOfRange(bases, (int) start - 1, (int) stop));
+    }
+
+    @Override
+    public void close() {
+    }
+}
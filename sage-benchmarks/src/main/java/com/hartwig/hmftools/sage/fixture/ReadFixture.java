@@ -0,0 +1,194 @@
+package com.hartwig.hmftools.sage.fixture;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.genome.region.GenomeRegion;
+import com.hartwig.hmftools.common.genome.region.GenomeRegions;
+import com.hartwig.hmftools.sage.config.SageConfig;
+import com.hartwig.hmftools.sage.context.AltContext;
+import com.hartwig.hmftools.sage.context.RefContextConsumer;
+import com.hartwig.hmftools.sage.context.RefContextFactory;
+import com.hartwig.hmftools.sage.read.RawContext;
+import com.hartwig.hmftools.sage.read.RawContextFactory;
+import com.hartwig.hmftools.sage.read.ReadAlignmentMap;
+import com.hartwig.hmftools.sage.ref.RefSequence;
+import com.hartwig.hmftools.sage.select.SamRecordSelector;
+
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
+
+/**
+ * Reads, reference and candidates of a single region shared by the read context benchmarks. SYNTHETIC reads are generated over a
+ * random reference, RECORDED reads come from a real bam as described in {@link RecordedReads}.
+ */
+@State(Scope.Benchmark)
+public class ReadFixture {
+
+    public static final String SAMPLE = "TUMOR";
+
+    private static final int SYNTHETIC_REFERENCE_LENGTH = 20_000;
+    private static final GenomeRegion SYNTHETIC_REGION = GenomeRegions.create(SyntheticReads.CHROMOSOME, 5_001, 15_000);
+
+    @Param({ "30", "100", "500" })
+    public int depth;
+
+    @Param({ "SYNTHETIC" })
+    public String source;
+
+    private SageConfig config;
+    private ReferenceSequenceFile refGenome;
+    private GenomeRegion region;
+    private RefSequence refSequence;
+    private List<SAMRecord> reads;
+    private List<AltContext> candidates;
+    private List<SAMRecord[]> candidateReads;
+    private List<ReadAlignmentMap[]> candidateReadAlignments;
+    private List<SAMRecord[]> alignedCandidateReads;
+    private List<int[]> candidateReadIndexes;
+
+    @Setup
+    public void setup() throws IOException {
+        config = BenchmarkConfig.config();
+        switch (source) {
+            case "SYNTHETIC":
+                final InMemoryReferenceSequenceFile syntheticReference = SyntheticReads.reference(SYNTHETIC_REFERENCE_LENGTH, 0);
+                refGenome = syntheticReference;
+                region = SYNTHETIC_REGION;
+                reads = SyntheticReads.reads(syntheticReference, (int) region.start(), (int) region.end(), depth, depth);
+                break;
+            case "RECORDED":
+                refGenome = RecordedReads.reference();
+                region = RecordedReads.region();
+                reads = RecordedReads.reads(region, depth);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown fixture source: " + source);
+        }
+
+        refSequence = new RefSequence(region, refGenome);
+        final RefContextFactory candidateFactory = newRefContextFactory();
+        final RefContextConsumer consumer = newRefContextConsumer(candidateFactory);
+        reads.forEach(consumer);
+        candidates = Lists.newArrayList(candidateFactory.altContexts());
+
+        final Map<AltContext, Integer> candidateIndex = new IdentityHashMap<>();
+        final List<List<SAMRecord>> overlapping = Lists.newArrayList();
+        for (AltContext candidate : candidates) {
+            candidateIndex.put(candidate, overlapping.size());
+            overlapping.add(Lists.newArrayList());
+        }
+
+        final SamRecordSelector<AltContext> selector = new SamRecordSelector<>(candidates);
+        for (SAMRecord read : reads) {
+            selector.select(read, x -> overlapping.get(candidateIndex.get(x)).add(read));
+        }
+
+        final Map<SAMRecord, ReadAlignmentMap> alignments = new IdentityHashMap<>();
+        candidateReads = Lists.newArrayList();
+        candidateReadAlignments = Lists.newArrayList();
+        alignedCandidateReads = Lists.newArrayList();
+        candidateReadIndexes = Lists.newArrayList();
+        for (int i = 0; i < candidates.size(); i++) {
+            final RawContextFactory rawContextFactory = new RawContextFactory(candidates.get(i));
+            final List<SAMRecord> aligned = Lists.newArrayList();
+            final List<Integer> alignedIndexes = Lists.newArrayList();
+            for (SAMRecord record : overlapping.get(i)) {
+                final RawContext rawContext = rawContextFactory.create(config.maxSkippedReferenceRegions(), record);
+                if (rawContext.readIndex() >= 0 && !rawContext.isReadIndexInDelete() && !rawContext.isReadIndexInSkipped()) {
+                    aligned.add(record);
+                    alignedIndexes.add(rawContext.readIndex());
+                }
+            }
+
+            candidateReads.add(overlapping.get(i).toArray(new SAMRecord[0]));
+            candidateReadAlignments.add(overlapping.get(i)
+                    .stream()
+                    .map(x -> alignments.computeIfAbsent(x, ReadAlignmentMap::new))
+                    .toArray(ReadAlignmentMap[]::new));
+            alignedCandidateReads.add(aligned.toArray(new SAMRecord[0]));
+            candidateReadIndexes.add(alignedIndexes.stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        refGenome.close();
+    }
+
+    @NotNull
+    public SageConfig config() {
+        return config;
+    }
+
+    @NotNull
+    public GenomeRegion region() {
+        return region;
+    }
+
+    @NotNull
+    public List<SAMRecord> reads() {
+        return reads;
+    }
+
+    /**
+     * Candidates found by a RefContextConsumer over all reads, sorted by position.
+     */
+    @NotNull
+    public List<AltContext> candidates() {
+        return candidates;
+    }
+
+    /**
+     * Reads that overlap each candidate, including soft clips.
+     */
+    @NotNull
+    public List<SAMRecord[]> candidateReads() {
+        return candidateReads;
+    }
+
+    /**
+     * Alignment map of each of {@link #candidateReads()}, shared between candidates that overlap the same read.
+     */
+    @NotNull
+    public List<ReadAlignmentMap[]> candidateReadAlignments() {
+        return candidateReadAlignments;
+    }
+
+    /**
+     * Reads with a base aligned to each candidate, paired with {@link #candidateReadIndexes()}.
+     */
+    @NotNull
+    public List<SAMRecord[]> alignedCandidateReads() {
+        return alignedCandidateReads;
+    }
+
+    /**
+     * Read index of the candidate position in each of {@link #alignedCandidateReads()}.
+     */
+    @NotNull
+    public List<int[]> candidateReadIndexes() {
+        return candidateReadIndexes;
+    }
+
+    @NotNull
+    public RefContextFactory newRefContextFactory() {
+        return new RefContextFactory(config, SAMPLE, Collections.emptyList(), Collections.emptyList());
+    }
+
+    @NotNull
+    public RefContextConsumer newRefContextConsumer(@NotNull final RefContextFactory refContextFactory) {
+        return new RefContextConsumer(config, region, refSequence, refContextFactory);
+    }
+}
@@ -0,0 +1,91 @@
+package com.hartwig.hmftools.sage.fixture;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.genome.region.GenomeRegion;
+import com.hartwig.hmftools.common.genome.region.GenomeRegions;
+
+import org.jetbrains.annotations.NotNull;
+
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMRecordIterator;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.ValidationStringency;
+import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+
+/**
+ * Reads recorded from a real bam, configured with system properties:
+ * <ul>
+ * <li>sage.benchmark.bam: indexed bam or cram</li>
+ * <li>sage.benchmark.ref_genome: indexed fasta</li>
+ * <li>sage.benchmark.region: region in chromosome:start-end form</li>
+ * </ul>
+ * Records are held in memory and deterministically down sampled to the requested depth.
+ */
+public final class RecordedReads {
+
+    public static final String BAM = "sage.benchmark.bam";
+    public static final String REF_GENOME = "sage.benchmark.ref_genome";
+    public static final String REGION = "sage.benchmark.region";
+
+    private RecordedReads() {
+    }
+
+    @NotNull
+    public static IndexedFastaSequenceFile reference() throws IOException {
+        return new IndexedFastaSequenceFile(new File(property(REF_GENOME)));
+    }
+
+    @NotNull
+    public static GenomeRegion region() {
+        final String region = property(REGION);
+        final String[] chromosomeAndRange = region.split(":");
+        final String[] range = chromosomeAndRange[1].replace(",", "").split("-");
+        return GenomeRegions.create(chromosomeAndRange[0], Long.parseLong(range[0]), Long.parseLong(range[1]));
+    }
+
+    @NotNull
+    public static List<SAMRecord> reads(@NotNull final GenomeRegion region, int depth) throws IOException {
+        final List<SAMRecord> all = Lists.newArrayList();
+        long alignedBases = 0;
+        try (SamReader reader = SamReaderFactory.makeDefault()
+                .validationStringency(ValidationStringency.SILENT)
+                .referenceSequence(new File(property(REF_GENOME)))
+                .open(new File(property(BAM)));
+                SAMRecordIterator iterator = reader.queryOverlapping(region.chromosome(), (int) region.start(), (int) region.end())) {
+            while (iterator.hasNext()) {
+                final SAMRecord record = iterator.next();
+                if (!record.getReadUnmappedFlag() && !record.getDuplicateReadFlag() && !record.isSecondaryOrSupplementary()) {
+                    all.add(record);
+                    alignedBases += record.getAlignmentEnd() - record.getAlignmentStart() + 1;
+                }
+            }
+        }
+
+        final double observedDepth = (double) alignedBases / (region.end() - region.start() + 1);
+        final double keepRate = Math.min(1, depth / Math.max(1, observedDepth));
+        final Random random = new Random(0);
+        final List<SAMRecord> result = Lists.newArrayList();
+        for (SAMRecord record : all) {
+            if (random.nextDouble() < keepRate) {
+                result.add(record);
+            }
+        }
+
+        return result;
+    }
+
+    @NotNull
+    private static String property(@NotNull final String name) {
+        final String value = System.getProperty(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalStateException("Recorded fixtures require system property " + name);
+        }
+        return value;
+    }
+}
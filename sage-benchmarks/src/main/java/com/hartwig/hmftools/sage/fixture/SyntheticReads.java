@@ -0,0 +1,169 @@
+package com.hartwig.hmftools.sage.fixture;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+
+import org.jetbrains.annotations.NotNull;
+
+import htsjdk.samtools.Cigar;
+import htsjdk.samtools.CigarElement;
+import htsjdk.samtools.CigarOperator;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+
+/**
+ * Generates reads over a random reference with a somatic variant (SNV, MNV, insert or delete) every VARIANT_SPACING bases. Each read
+ * carries an overlapping variant with probability VAF and has sporadic sequencing errors, low base qualities and soft clips.
+ */
+public class SyntheticReads {
+
+    public static final String CHROMOSOME = "1";
+    public static final int READ_LENGTH = 151;
+
+    static final int VARIANT_SPACING = 50;
+
+    private static final byte[] BASES = { 'A', 'C', 'G', 'T' };
+    private static final double VAF = 0.2;
+    private static final double ERROR_RATE = 0.002;
+    private static final double LOW_QUALITY_RATE = 0.02;
+    private static final double SOFT_CLIP_RATE = 0.05;
+    private static final int SOFT_CLIP_LENGTH = 10;
+
+    @NotNull
+    public static InMemoryReferenceSequenceFile reference(int length, long seed) {
+        final Random random = new Random(seed);
+        final byte[] bases = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bases[i] = BASES[random.nextInt(4)];
+        }
+
+        return new InMemoryReferenceSequenceFile(CHROMOSOME, bases);
+    }
+
+    /**
+     * Reads sorted by alignment start that cover [start, end] of the reference at the given average depth.
+     */
+    @NotNull
+    public static List<SAMRecord> reads(@NotNull final InMemoryReferenceSequenceFile reference, int start, int end, int depth,
+            long seed) {
+        final SAMFileHeader header = new SAMFileHeader();
+        header.setSequenceDictionary(reference.getSequenceDictionary());
+
+        final Random random = new Random(seed);
+        final byte[] ref = reference.bases();
+        final int minReadStart = Math.max(1, start - READ_LENGTH);
+        final int maxReadStart = Math.min(ref.length - 2 * READ_LENGTH, end);
+        final int readCount = (int) ((long) depth * (maxReadStart - minReadStart + 1) / READ_LENGTH);
+
+        final List<SAMRecord> result = Lists.newArrayListWithExpectedSize(readCount);
+        for (int i = 0; i < readCount; i++) {
+            final int readStart = minReadStart + random.nextInt(maxReadStart - minReadStart + 1);
+            result.add(read(header, "READ_" + i, ref, readStart, random));
+        }
+
+        result.sort(Comparator.comparingInt(SAMRecord::getAlignmentStart));
+        return result;
+    }
+
+    @NotNull
+    private static SAMRecord read(@NotNull final SAMFileHeader header, @NotNull final String name, @NotNull final byte[] ref,
+            int alignmentStart, @NotNull final Random random) {
+        final byte[] bases = new byte[READ_LENGTH];
+        final byte[] quals = new byte[READ_LENGTH];
+        final List<CigarElement> elements = Lists.newArrayList();
+        int readIndex = 0;
+        int editDistance = 0;
+
+        if (random.nextDouble() < SOFT_CLIP_RATE) {
+            for (; readIndex < SOFT_CLIP_LENGTH; readIndex++) {
+                bases[readIndex] = BASES[random.nextInt(4)];
+            }
+            add(elements, CigarOperator.S, SOFT_CLIP_LENGTH);
+        }
+
+        int refIndex = alignmentStart - 1;
+        while (readIndex < READ_LENGTH) {
+            final int position = refIndex + 1;
+            final int remaining = READ_LENGTH - readIndex;
+            final boolean variant = position % VARIANT_SPACING == 0 && random.nextDouble() < VAF;
+            final int variantType = (position / VARIANT_SPACING) % 4;
+
+            if (variant && variantType == 1 && remaining > 2) {
+                // MNV
+                bases[readIndex++] = alternative(ref[refIndex++]);
+                bases[readIndex++] = alternative(ref[refIndex++]);
+                add(elements, CigarOperator.M, 2);
+                editDistance += 2;
+            } else if (variant && variantType == 2 && remaining > 4) {
+                // Insert
+                bases[readIndex++] = ref[refIndex++];
+                bases[readIndex++] = 'T';
+                bases[readIndex++] = 'G';
+                add(elements, CigarOperator.M, 1);
+                add(elements, CigarOperator.I, 2);
+                editDistance += 2;
+            } else if (variant && variantType == 3 && remaining > 1) {
+                // Delete
+                bases[readIndex++] = ref[refIndex];
+                refIndex += 4;
+                add(elements, CigarOperator.M, 1);
+                add(elements, CigarOperator.D, 3);
+                editDistance += 3;
+            } else if (variant || random.nextDouble() < ERROR_RATE) {
+                // SNV or sequencing error
+                bases[readIndex++] = alternative(ref[refIndex++]);
+                add(elements, CigarOperator.M, 1);
+                editDistance++;
+            } else {
+                bases[readIndex++] = ref[refIndex++];
+                add(elements, CigarOperator.M, 1);
+            }
+        }
+
+        for (int i = 0; i < READ_LENGTH; i++) {
+            quals[i] = (byte) (random.nextDouble() < LOW_QUALITY_RATE ? 2 + random.nextInt(20) : 37);
+        }
+
+        final SAMRecord record = new SAMRecord(header);
+        record.setReadName(name);
+        record.setReferenceName(CHROMOSOME);
+        record.setAlignmentStart(alignmentStart);
+        record.setCigar(new Cigar(elements));
+        record.setReadBases(bases);
+        record.setBaseQualities(quals);
+        record.setMappingQuality(60);
+        record.setReadPairedFlag(true);
+        record.setProperPairFlag(random.nextDouble() > 0.01);
+        record.setFirstOfPairFlag(random.nextBoolean());
+        record.setSecondOfPairFlag(!record.getFirstOfPairFlag());
+        record.setReadNegativeStrandFlag(random.nextBoolean());
+        record.setMateReferenceName(CHROMOSOME);
+        record.setMateAlignmentStart(alignmentStart + 200);
+        record.setAttribute("NM", editDistance);
+        return record;
+    }
+
+    private static byte alternative(byte base) {
+        for (int i = 0; i < BASES.length; i++) {
+            if (BASES[i] == base) {
+                return BASES[(i + 1) % BASES.length];
+            }
+        }
+        return 'A';
+    }
+
+    private static void add(@NotNull final List<CigarElement> elements, @NotNull final CigarOperator operator, int length) {
+        if (!elements.isEmpty()) {
+            final CigarElement last = elements.get(elements.size() - 1);
+            if (last.getOperator() == operator) {
+                elements.set(elements.size() - 1, new CigarElement(last.getLength() + length, operator));
+                return;
+            }
+        }
+
+        elements.add(new CigarElement(length, operator));
+    }
+}
@@ -0,0 +1,121 @@
+package com.hartwig.hmftools.sage.quality;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QualityRecalibrationMapBenchmark {
+
+    private static final byte[] BASES = { 'A', 'C', 'G', 'T' };
+    private static final int LOOKUPS = 1024;
+
+    private QualityRecalibrationMap table;
+    private HashMapRecalibration hashMap;
+
+    private byte[] refs;
+    private byte[] alts;
+    private byte[][] contexts;
+    private byte[] quals;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(0);
+        final List<QualityRecalibrationRecord> records = Lists.newArrayList();
+        for (byte ref : BASES) {
+            for (byte alt : BASES) {
+                for (byte before : BASES) {
+                    for (byte after : BASES) {
+                        for (int qual = 0; qual < 45; qual++) {
+                            final QualityRecalibrationKey key = ImmutableQualityRecalibrationKey.builder()
+                                    .ref(ref)
+                                    .alt(alt)
+                                    .trinucleotideContext(new byte[] { before, ref, after })
+                                    .qual((byte) qual)
+                                    .build();
+                            records.add(ImmutableQualityRecalibrationRecord.builder()
+                                    .key(key)
+                                    .count(1)
+                                    .recalibratedQual(random.nextDouble() * qual)
+                                    .build());
+                        }
+                    }
+                }
+            }
+        }
+
+        table = new QualityRecalibrationMap(records);
+        hashMap = new HashMapRecalibration(records);
+
+        refs = new byte[LOOKUPS];
+        alts = new byte[LOOKUPS];
+        contexts = new byte[LOOKUPS][];
+        quals = new byte[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            refs[i] = BASES[random.nextInt(4)];
+            alts[i] = BASES[random.nextInt(4)];
+            contexts[i] = new byte[] { BASES[random.nextInt(4)], refs[i], BASES[random.nextInt(4)] };
+            quals[i] = (byte) random.nextInt(45);
+        }
+    }
+
+    @Benchmark
+    public double table() {
+        double result = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            result += table.quality(refs[i], alts[i], contexts[i], quals[i]);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public double hashMap() {
+        double result = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            result += hashMap.quality(refs[i], alts[i], contexts[i], quals[i]);
+        }
+        return result;
+    }
+
+    private static class HashMapRecalibration {
+
+        private final Map<QualityRecalibrationKey, QualityRecalibrationRecord> map;
+
+        private HashMapRecalibration(@NotNull final List<QualityRecalibrationRecord> records) {
+            this.map = records.stream().collect(Collectors.toMap(QualityRecalibrationRecord::key, x -> x));
+        }
+
+        private double quality(byte ref, byte alt, byte[] trinucleotideContext, byte qual) {
+            final QualityRecalibrationKey key = ImmutableQualityRecalibrationKey.builder()
+                    .ref(ref)
+                    .alt(alt)
+                    .qual(qual)
+                    .trinucleotideContext(trinucleotideContext)
+                    .build();
+
+            return Optional.ofNullable(map.get(key)).map(QualityRecalibrationRecord::recalibratedQual).orElse(qual * 1d);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.hartwig.hmftools.sage.read;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.hartwig.hmftools.sage.context.AltContext;
+import com.hartwig.hmftools.sage.fixture.ReadFixture;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import htsjdk.samtools.SAMRecord;
+
+/**
+ * Read context matching of every candidate against each read with a base aligned to the candidate. ReadContext.matchAtPosition
+ * delegates directly to the IndexedBases of the read context.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexedBasesBenchmark {
+
+    @Benchmark
+    public int matchAtPosition(final ReadFixture fixture) {
+        final List<AltContext> candidates = fixture.candidates();
+
+        int result = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            final ReadContext readContext = candidates.get(i).readContext();
+            final SAMRecord[] records = fixture.alignedCandidateReads().get(i);
+            final int[] readIndexes = fixture.candidateReadIndexes().get(i);
+            for (int j = 0; j < records.length; j++) {
+                result += readContext.matchAtPosition(readIndexes[j], records[j].getReadBases()).ordinal();
+            }
+        }
+
+        return result;
+    }
+}
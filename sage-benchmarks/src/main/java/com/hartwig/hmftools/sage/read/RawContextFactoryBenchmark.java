@@ -0,0 +1,62 @@
+package com.hartwig.hmftools.sage.read;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.hartwig.hmftools.sage.context.AltContext;
+import com.hartwig.hmftools.sage.fixture.ReadFixture;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import htsjdk.samtools.SAMRecord;
+
+/**
+ * Cigar traversal of each read overlapping a candidate to locate the candidate within the read. The alignment map variant replays
+ * the traversal recorded once per read, as shared by all candidates a read overlaps.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RawContextFactoryBenchmark {
+
+    @Benchmark
+    public int create(final ReadFixture fixture) {
+        final int maxSkippedReferenceRegions = fixture.config().maxSkippedReferenceRegions();
+        final List<AltContext> candidates = fixture.candidates();
+
+        int result = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            final RawContextFactory factory = new RawContextFactory(candidates.get(i));
+            for (SAMRecord record : fixture.candidateReads().get(i)) {
+                result += factory.create(maxSkippedReferenceRegions, record).readIndex();
+            }
+        }
+
+        return result;
+    }
+
+    @Benchmark
+    public int createFromAlignmentMap(final ReadFixture fixture) {
+        final int maxSkippedReferenceRegions = fixture.config().maxSkippedReferenceRegions();
+        final List<AltContext> candidates = fixture.candidates();
+
+        int result = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            final RawContextFactory factory = new RawContextFactory(candidates.get(i));
+            final ReadAlignmentMap[] alignments = fixture.candidateReadAlignments().get(i);
+            for (ReadAlignmentMap alignment : alignments) {
+                result += factory.create(maxSkippedReferenceRegions, alignment).readIndex();
+            }
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,106 @@
+package com.hartwig.hmftools.sage.read;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.hartwig.hmftools.sage.config.SageConfig;
+import com.hartwig.hmftools.sage.fixture.ReadFixture;
+import com.hartwig.hmftools.sage.quality.QualityRecalibrationMap;
+import com.hartwig.hmftools.sage.samtools.NumberEvents;
+import com.hartwig.hmftools.sage.select.SamRecordSelector;
+import com.hartwig.hmftools.sage.variant.SageVariantTier;
+
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import htsjdk.samtools.SAMRecord;
+
+/**
+ * Evidence collection of every candidate in the fixture region, i.e. ReadContextCounter.accept of each read overlapping a candidate.
+ * Both arms select the counters of each read and count its events the same way so that they only differ in how the read is aligned.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadContextCounterBenchmark {
+
+    private QualityRecalibrationMap recalibrationMap;
+
+    @Setup
+    public void setup() {
+        recalibrationMap = new QualityRecalibrationMap(Collections.emptyList());
+    }
+
+    /**
+     * Dispatch as in ReadContextEvidence but with each counter building its own alignment map of the read.
+     */
+    @Benchmark
+    public int accept(final ReadFixture fixture) {
+        final SageConfig config = fixture.config();
+        final List<ReadContextCounter> counters = counters(fixture);
+        final SamRecordSelector<ReadContextCounter> selector = new SamRecordSelector<>(counters);
+
+        for (SAMRecord record : fixture.reads()) {
+            final int numberOfEvents = NumberEvents.numberOfEvents(record);
+            selector.select(record, x -> x.accept(record, config, numberOfEvents));
+        }
+
+        return altSupport(counters);
+    }
+
+    /**
+     * Dispatch as in ReadContextEvidence, with one alignment map per read shared by every counter it overlaps.
+     */
+    @Benchmark
+    public int acceptSharedAlignment(final ReadFixture fixture) {
+        final SageConfig config = fixture.config();
+        final List<ReadContextCounter> counters = counters(fixture);
+        final SamRecordSelector<ReadContextCounter> selector = new SamRecordSelector<>(counters);
+
+        for (SAMRecord record : fixture.reads()) {
+            final int numberOfEvents = NumberEvents.numberOfEvents(record);
+            final ReadAlignmentMap alignment = new ReadAlignmentMap(record);
+            selector.select(record, x -> x.accept(alignment, config, numberOfEvents));
+        }
+
+        return altSupport(counters);
+    }
+
+    private static int altSupport(@NotNull final List<ReadContextCounter> counters) {
+        int result = 0;
+        for (ReadContextCounter counter : counters) {
+            result += counter.altSupport();
+        }
+        return result;
+    }
+
+    @NotNull
+    private List<ReadContextCounter> counters(@NotNull final ReadFixture fixture) {
+        final SageConfig config = fixture.config();
+        return fixture.candidates()
+                .stream()
+                .map(x -> new ReadContextCounter(ReadFixture.SAMPLE,
+                        x,
+                        x.readContext(),
+                        recalibrationMap,
+                        SageVariantTier.LOW_CONFIDENCE,
+                        config.maxReadDepth(),
+                        x.minNumberOfEvents(),
+                        true))
+                .collect(Collectors.toList());
+    }
+}
@@ -5,15 +5,18 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
 import java.util.function.BiFunction;
 
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -31,10 +34,18 @@ import com.hartwig.hmftools.common.variant.hotspot.VariantHotspot;
 import com.hartwig.hmftools.common.variant.hotspot.VariantHotspotFile;
 import com.hartwig.hmftools.sage.config.BaseQualityRecalibrationConfig;
 import com.hartwig.hmftools.sage.config.SageConfig;
+import com.hartwig.hmftools.sage.metrics.SageMetrics;
+import com.hartwig.hmftools.sage.metrics.SageMetricsFile;
+import com.hartwig.hmftools.sage.pipeline.AppendPipeline;
 import com.hartwig.hmftools.sage.pipeline.ChromosomePipeline;
+import com.hartwig.hmftools.sage.pipeline.OrderedChromosomeConsumer;
 import com.hartwig.hmftools.sage.quality.QualityRecalibration;
+import com.hartwig.hmftools.sage.quality.QualityRecalibrationCache;
 import com.hartwig.hmftools.sage.quality.QualityRecalibrationFile;
 import com.hartwig.hmftools.sage.quality.QualityRecalibrationMap;
+import com.hartwig.hmftools.sage.quality.QualityRecalibrationRecord;
+import com.hartwig.hmftools.sage.sam.SamReaderPool;
+import com.hartwig.hmftools.sage.sam.SamRecordBudget;
 import com.hartwig.hmftools.sage.vcf.SageVCF;
 
 import org.apache.commons.cli.CommandLine;
@@ -53,6 +64,8 @@ import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
 import htsjdk.samtools.cram.ref.ReferenceSource;
 import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+import htsjdk.variant.vcf.VCFFileReader;
+import htsjdk.variant.vcf.VCFHeader;
 
 public class SageApplication implements AutoCloseable {
 
@@ -62,6 +75,8 @@ public class SageApplication implements AutoCloseable {
     private final SageConfig config;
     private final ExecutorService executorService;
     private final IndexedFastaSequenceFile refGenome;
+    private final SamReaderPool readerPool;
+    private final SageMetrics metrics = new SageMetrics();
 
     private final ListMultimap<Chromosome, GenomeRegion> panel;
     private final ListMultimap<Chromosome, VariantHotspot> hotspots;
@@ -86,15 +101,30 @@ public class SageApplication implements AutoCloseable {
         final CommandLine cmd = createCommandLine(args, options);
         this.config = SageConfig.createConfig(version.version(), cmd);
 
-        hotspots = readHotspots();
-        panel = panelWithHotspots(hotspots);
-        highConfidence = readPanel(config.highConfidenceBed());
+        if (config.appendMode()) {
+            // Candidates, and so their tiers, come from the input vcf
+            hotspots = ArrayListMultimap.create();
+            panel = ArrayListMultimap.create();
+            highConfidence = ArrayListMultimap.create();
+        } else {
+            hotspots = readHotspots();
+            panel = panelWithHotspots(hotspots);
+            highConfidence = readPanel(config.highConfidenceBed());
+        }
 
         final ThreadFactory namedThreadFactory = new ThreadFactoryBuilder().setNameFormat("SAGE-%d").build();
         executorService = Executors.newFixedThreadPool(config.threads(), namedThreadFactory);
         refGenome = new IndexedFastaSequenceFile(new File(config.refGenome()));
+        readerPool = new SamReaderPool(config.refGenome());
+        if (config.metricsJmx()) {
+            metrics.registerMBean();
+        }
 
-        vcf = new SageVCF(refGenome, config);
+        if (config.appendMode()) {
+            vcf = new SageVCF(refGenome, config, appendHeader());
+        } else {
+            vcf = new SageVCF(refGenome, config);
+        }
         LOGGER.info("Writing to file: {}", config.outputFile());
     }
 
@@ -103,25 +133,68 @@ public class SageApplication implements AutoCloseable {
         long timeStamp = System.currentTimeMillis();
 
         final Map<String, QualityRecalibrationMap> recalibrationMap = qualityRecalibration();
+        if (config.appendMode()) {
+            append(recalibrationMap);
+            writeMetrics();
+            LOGGER.info("Completed in {} seconds", (System.currentTimeMillis() - timeStamp) / 1000);
+            return;
+        }
+
         final SAMSequenceDictionary dictionary = dictionary();
+
+        // Chromosomes share the executor and are limited only by the number of pending slices.
+        // Output is reordered so that the vcf is still written in dictionary order.
+        final Semaphore regionPermits = new Semaphore(config.maxPendingSlices());
+        final OrderedChromosomeConsumer orderedConsumer = new OrderedChromosomeConsumer(vcf::write);
+        final SamRecordBudget readBudget = new SamRecordBudget(config.maxBufferedBases());
+        final List<CompletableFuture<ChromosomePipeline>> chromosomes = Lists.newArrayList();
+
         for (final SAMSequenceRecord samSequenceRecord : dictionary.getSequences()) {
             final String contig = samSequenceRecord.getSequenceName();
             if (config.chromosomes().isEmpty() || config.chromosomes().contains(contig)) {
                 if (HumanChromosome.contains(contig) || MitochondrialChromosome.contains(contig)) {
-                    try (final ChromosomePipeline pipeline = createChromosomePipeline(contig, recalibrationMap)) {
-                        pipeline.process();
-                    }
-                    System.gc();
+                    final OrderedChromosomeConsumer.ChromosomeBuffer consumer = orderedConsumer.register(contig);
+                    final ChromosomePipeline pipeline =
+                            createChromosomePipeline(contig, recalibrationMap, regionPermits, consumer, readBudget);
+                    // A failed chromosome is completed too so that later chromosomes still return their permits
+                    chromosomes.add(pipeline.submit().whenComplete((completed, throwable) -> consumer.complete()));
                 }
             }
         }
 
-//                createChromosomePipeline("10", recalibrationMap).process(130404941, 130405950);
+        CompletableFuture.allOf(chromosomes.toArray(new CompletableFuture[0])).get();
+        writeMetrics();
 
         long timeTaken = System.currentTimeMillis() - timeStamp;
         LOGGER.info("Completed in {} seconds", timeTaken / 1000);
     }
 
+    private void writeMetrics() throws IOException {
+        LOGGER.info("Writing metrics file: {}", config.metricsFile());
+        SageMetricsFile.write(config.metricsFile(), metrics);
+    }
+
+    private void append(@NotNull final Map<String, QualityRecalibrationMap> recalibrationMap) {
+        LOGGER.info("Appending to existing variants of {}", config.inputVcf());
+        final AppendPipeline pipeline = new AppendPipeline(config, executorService, readerPool, recalibrationMap, vcf::write, metrics);
+        try (VCFFileReader reader = new VCFFileReader(new File(config.inputVcf()), false)) {
+            pipeline.append(reader);
+        }
+    }
+
+    @NotNull
+    private VCFHeader appendHeader() throws ParseException {
+        try (VCFFileReader reader = new VCFFileReader(new File(config.inputVcf()), false)) {
+            final VCFHeader header = reader.getFileHeader();
+            for (String sample : Iterables.concat(config.reference(), config.tumor())) {
+                if (header.getGenotypeSamples().contains(sample)) {
+                    throw new ParseException("Sample " + sample + " already exists in input vcf " + config.inputVcf());
+                }
+            }
+            return header;
+        }
+    }
+
     private SAMSequenceDictionary dictionary() throws IOException {
         final String bam = config.referenceBam().isEmpty() ? config.tumorBam().get(0) : config.referenceBam().get(0);
         SamReader tumorReader = SamReaderFactory.makeDefault().referenceSource(new ReferenceSource(refGenome)).open(new File(bam));
@@ -131,7 +204,8 @@ public class SageApplication implements AutoCloseable {
     }
 
     private ChromosomePipeline createChromosomePipeline(@NotNull final String contig,
-            Map<String, QualityRecalibrationMap> qualityRecalibrationMap) throws IOException {
+            @NotNull final Map<String, QualityRecalibrationMap> qualityRecalibrationMap, @NotNull final Semaphore regionPermits,
+            @NotNull final OrderedChromosomeConsumer.ChromosomeBuffer consumer, @NotNull final SamRecordBudget readBudget) {
         final Chromosome chromosome =
                 HumanChromosome.contains(contig) ? HumanChromosome.fromString(contig) : MitochondrialChromosome.fromString(contig);
         return new ChromosomePipeline(contig,
@@ -141,7 +215,11 @@ public class SageApplication implements AutoCloseable {
                 panel.get(chromosome),
                 highConfidence.get(chromosome),
                 qualityRecalibrationMap,
-                vcf::write);
+                readerPool,
+                regionPermits,
+                consumer,
+                readBudget,
+                metrics);
     }
 
     @Override
@@ -149,6 +227,7 @@ public class SageApplication implements AutoCloseable {
         vcf.close();
         refGenome.close();
         executorService.shutdown();
+        readerPool.close();
     }
 
     @NotNull
@@ -215,11 +294,12 @@ public class SageApplication implements AutoCloseable {
         final Map<String, QualityRecalibrationMap> result = Maps.newHashMap();
         LOGGER.info("Beginning quality recalibration");
 
-        final QualityRecalibration qualityRecalibration = new QualityRecalibration(bqrConfig, executorService, refGenome);
+        final QualityRecalibration qualityRecalibration = new QualityRecalibration(bqrConfig, executorService, readerPool);
+        final QualityRecalibrationCache cache = new QualityRecalibrationCache(bqrConfig, config.refGenome(), config.version());
         final List<CompletableFuture<Void>> done = Lists.newArrayList();
 
         final BiFunction<String, String, CompletableFuture<Void>> processSample =
-                (sample, sampleBam) -> qualityRecalibration.qualityRecalibrationRecords(sampleBam).thenAccept(records -> {
+                (sample, sampleBam) -> qualityRecalibrationRecords(qualityRecalibration, cache, sampleBam).thenAccept(records -> {
                     try {
 
                         final String tsvFile = config.baseQualityRecalibrationFile(sample);
@@ -248,6 +328,21 @@ public class SageApplication implements AutoCloseable {
         return result;
     }
 
+    @NotNull
+    private static CompletableFuture<List<QualityRecalibrationRecord>> qualityRecalibrationRecords(
+            @NotNull final QualityRecalibration qualityRecalibration, @NotNull final QualityRecalibrationCache cache,
+            @NotNull final String bam) {
+        final Optional<List<QualityRecalibrationRecord>> cached = cache.read(bam);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+
+        return qualityRecalibration.qualityRecalibrationRecords(bam).thenApply(records -> {
+            cache.write(bam, records);
+            return records;
+        });
+    }
+
     private Map<String, QualityRecalibrationMap> disableQualityRecalibration() {
         final Map<String, QualityRecalibrationMap> result = Maps.newHashMap();
 
@@ -1,16 +1,25 @@
 package com.hartwig.hmftools.sage;
 
-import java.io.File;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.hartwig.hmftools.common.genome.region.BEDFileLoader;
 import com.hartwig.hmftools.common.genome.region.GenomeRegion;
 import com.hartwig.hmftools.common.variant.hotspot.HotspotEvidence;
@@ -23,6 +32,7 @@ import com.hartwig.hmftools.common.variant.hotspot.VariantHotspot;
 import com.hartwig.hmftools.common.variant.hotspot.VariantHotspotEvidence;
 import com.hartwig.hmftools.common.variant.hotspot.VariantHotspotEvidenceFactory;
 import com.hartwig.hmftools.common.variant.hotspot.VariantHotspotFile;
+import com.hartwig.hmftools.sage.sam.SamReaderPool;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -35,8 +45,6 @@ import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import htsjdk.samtools.SamReader;
-import htsjdk.samtools.SamReaderFactory;
 import htsjdk.samtools.reference.IndexedFastaSequenceFile;
 
 public class SageHotspotApplication implements AutoCloseable {
@@ -55,17 +63,17 @@ public class SageHotspotApplication implements AutoCloseable {
         }
     }
 
-    private final SamReader tumorReader;
-    private final SamReader referenceReader;
     private final SageHotspotApplicationConfig config;
+    private final ExecutorService executorService;
+    private final SamReaderPool readerPool;
 
     private SageHotspotApplication(final Options options, final String... args) throws ParseException {
         final CommandLine cmd = createCommandLine(args, options);
         config = SageHotspotApplicationConfig.createConfig(cmd);
 
-        final File refGenomeFile = new File(config.refGenomePath());
-        tumorReader = SamReaderFactory.makeDefault().referenceSequence(refGenomeFile).open(new File(config.tumorBamPath()));
-        referenceReader = SamReaderFactory.makeDefault().referenceSequence(refGenomeFile).open(new File(config.referenceBamPath()));
+        final ThreadFactory namedThreadFactory = new ThreadFactoryBuilder().setNameFormat("SAGE-HOTSPOT-%d").build();
+        executorService = Executors.newFixedThreadPool(config.threads(), namedThreadFactory);
+        readerPool = new SamReaderPool(config.refGenomePath());
     }
 
     private void run() throws IOException {
@@ -79,36 +87,51 @@ public class SageHotspotApplication implements AutoCloseable {
         final int minMappingQuality = config.minMappingQuality();
         final int minBaseQuality = config.minBaseQuality();
 
-        final File refGenomeFile = new File(config.refGenomePath());
-        final IndexedFastaSequenceFile refSequence = new IndexedFastaSequenceFile(refGenomeFile);
-
         LOGGER.info("Loading coding regions from {}", codingRegionBedFile);
         final Collection<GenomeRegion> codingRegions = BEDFileLoader.fromBedFile(codingRegionBedFile).values();
 
         LOGGER.info("Loading known hotspots from {}", hotspotPath);
         final Set<VariantHotspot> knownHotspots = Sets.newHashSet(VariantHotspotFile.read(hotspotPath).values());
 
-        LOGGER.info("Looking for potential inframe indel locations ");
+        LOGGER.info("Looking for potential inframe indel locations in tumor bam {}", tumorBam);
+        final List<CompletableFuture<Set<VariantHotspot>>> inframeFutures = Lists.newArrayList();
+        for (List<GenomeRegion> batch : batches(codingRegions, GenomeRegion::chromosome, GenomeRegion::start)) {
+            inframeFutures.add(supplyAsync(() -> new InframeIndelHotspots(minMappingQuality,
+                    batch,
+                    readerPool.refGenome()).findInframeIndels(readerPool.reader(tumorBam)), executorService));
+        }
+
         final Set<VariantHotspot> allHotspots = Sets.newHashSet();
         allHotspots.addAll(knownHotspots);
-        allHotspots.addAll(new InframeIndelHotspots(minMappingQuality, codingRegions, refSequence).findInframeIndels(tumorReader));
-
-        LOGGER.info("Looking for evidence of hotspots in tumor bam {}", tumorBam);
-        final VariantHotspotEvidenceFactory hotspotEvidenceFactory =
-                new VariantHotspotEvidenceFactory(minMappingQuality, minBaseQuality, allHotspots);
-        final Map<VariantHotspot, VariantHotspotEvidence> tumorEvidence = asMap(hotspotEvidenceFactory.evidence(refSequence, tumorReader));
-
-        LOGGER.info("Looking for evidence of hotspots in reference bam {}", referenceBam);
-        final Map<VariantHotspot, VariantHotspotEvidence> referenceEvidence =
-                asMap(hotspotEvidenceFactory.evidence(refSequence, referenceReader));
+        inframeFutures.forEach(x -> allHotspots.addAll(x.join()));
+
+        LOGGER.info("Looking for evidence of {} hotspots in tumor bam {} and reference bam {}", allHotspots.size(), tumorBam, referenceBam);
+        final List<CompletableFuture<List<HotspotEvidence>>> evidenceFutures = Lists.newArrayList();
+        for (List<VariantHotspot> batch : batches(allHotspots, VariantHotspot::chromosome, VariantHotspot::position)) {
+            evidenceFutures.add(supplyAsync(() -> {
+                final IndexedFastaSequenceFile refSequence = readerPool.refGenome();
+                final VariantHotspotEvidenceFactory hotspotEvidenceFactory =
+                        new VariantHotspotEvidenceFactory(minMappingQuality, minBaseQuality, Sets.newHashSet(batch));
+                final Map<VariantHotspot, VariantHotspotEvidence> tumorEvidence =
+                        asMap(hotspotEvidenceFactory.evidence(refSequence, readerPool.reader(tumorBam)));
+                final Map<VariantHotspot, VariantHotspotEvidence> referenceEvidence =
+                        asMap(hotspotEvidenceFactory.evidence(refSequence, readerPool.reader(referenceBam)));
+
+                final List<HotspotEvidence> evidence = Lists.newArrayList();
+                for (Map.Entry<VariantHotspot, VariantHotspotEvidence> entry : tumorEvidence.entrySet()) {
+                    final VariantHotspot variant = entry.getKey();
+                    final VariantHotspotEvidence tumor = entry.getValue();
+                    final VariantHotspotEvidence normal = referenceEvidence.get(variant);
+                    evidence.add(createEvidence(knownHotspots.contains(variant), tumor, normal));
+                }
+                Collections.sort(evidence);
+                return evidence;
+            }, executorService));
+        }
 
+        // Each hotspot belongs to exactly one batch so the batches only need to be merged back into sorted order
         final List<HotspotEvidence> evidence = Lists.newArrayList();
-        for (Map.Entry<VariantHotspot, VariantHotspotEvidence> entry : tumorEvidence.entrySet()) {
-            final VariantHotspot variant = entry.getKey();
-            final VariantHotspotEvidence tumor = entry.getValue();
-            final VariantHotspotEvidence normal = referenceEvidence.get(variant);
-            evidence.add(createEvidence(knownHotspots.contains(variant), tumor, normal));
-        }
+        evidenceFutures.forEach(x -> evidence.addAll(x.join()));
 
         LOGGER.info("Writing output to {}", outputVCF);
         Collections.sort(evidence);
@@ -122,6 +145,23 @@ public class SageHotspotApplication implements AutoCloseable {
                 config.minIndelQuality()).write(outputVCF, evidence);
     }
 
+    /**
+     * Groups items of each chromosome into buckets of (position - 1) / batch size. As the batch size is a multiple of the bam index
+     * window the bucket boundaries fall on window boundaries, but reads and compressed blocks spanning a boundary are still read by the
+     * batches either side of it.
+     */
+    @NotNull
+    private <T> Collection<List<T>> batches(@NotNull final Collection<T> items, @NotNull final Function<T, String> chromosome,
+            @NotNull final ToLongFunction<T> position) {
+        final Map<String, List<T>> result = Maps.newLinkedHashMap();
+        for (T item : items) {
+            final long batch = (position.applyAsLong(item) - 1) / config.batchSize();
+            result.computeIfAbsent(chromosome.apply(item) + ":" + batch, key -> Lists.newArrayList()).add(item);
+        }
+
+        return result.values();
+    }
+
     @NotNull
     private static Map<VariantHotspot, VariantHotspotEvidence> asMap(@NotNull final List<VariantHotspotEvidence> evidence) {
         return evidence.stream().collect(Collectors.toMap(x -> ImmutableVariantHotspotImpl.builder().from(x).build(), x -> x));
@@ -153,8 +193,8 @@ public class SageHotspotApplication implements AutoCloseable {
 
     @Override
     public void close() throws IOException {
-        tumorReader.close();
-        referenceReader.close();
+        executorService.shutdown();
+        readerPool.close();
         LOGGER.info("Complete");
     }
 }
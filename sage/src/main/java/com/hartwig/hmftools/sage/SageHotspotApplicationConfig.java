@@ -27,6 +27,8 @@ public interface SageHotspotApplicationConfig {
     String REFERENCE_BAM = "reference_bam";
     String CODING_REGIONS = "coding_regions";
     String KNOWN_HOTSPOTS = "known_hotspots";
+    String THREADS = "threads";
+    String BATCH_SIZE = "batch_size";
 
     String MIN_SNV_VAF = "min_snv_vaf";
     String MIN_INDEL_VAF = "min_indel_vaf";
@@ -44,6 +46,11 @@ public interface SageHotspotApplicationConfig {
     int DEFAULT_MIN_SNV_QUALITY = 100;
     int DEFAULT_MIN_INDEL_QUALITY = 150;
     int DEFAULT_TYPICAL_READ_LENGTH = 151;
+    int DEFAULT_THREADS = 1;
+
+    // BAM index linear bins are 16kb so batch boundaries are kept aligned to them
+    int BAM_INDEX_WINDOW = 16384;
+    int DEFAULT_BATCH_SIZE = 64 * BAM_INDEX_WINDOW;
 
     double DEFAULT_MIN_SNV_VAF = 0.005;
     double DEFAULT_MIN_INDEL_VAF = 0.02;
@@ -61,6 +68,11 @@ public interface SageHotspotApplicationConfig {
         options.addOption(CODING_REGIONS, true, "Coding regions bed file to search for inframe indels");
         options.addOption(MIN_BASE_QUALITY, true, "Minimum quality for a base to be considered [" + DEFAULT_MIN_BASE_QUALITY + "]");
         options.addOption(REF_GENOME, true, "Path to the ref genome fasta file");
+        options.addOption(THREADS, true, "Number of threads [" + DEFAULT_THREADS + "]");
+        options.addOption(BATCH_SIZE,
+                true,
+                "Size in bases of the regions hotspots are batched into, rounded up to a multiple of " + BAM_INDEX_WINDOW + " ["
+                        + DEFAULT_BATCH_SIZE + "]");
 
         options.addOption(MAX_HET_BINOMIAL_LIKELIHOOD,
                 true,
@@ -128,6 +140,10 @@ public interface SageHotspotApplicationConfig {
 
     double minIndelVAF();
 
+    int threads();
+
+    int batchSize();
+
     @NotNull
     static SageHotspotApplicationConfig createConfig(@NotNull final CommandLine cmd) throws ParseException {
         final StringJoiner missingJoiner = new StringJoiner(", ");
@@ -140,6 +156,15 @@ public interface SageHotspotApplicationConfig {
         final String tumor = parameter(cmd, TUMOR, missingJoiner);
         final String knownHotspotPath = parameter(cmd, KNOWN_HOTSPOTS, missingJoiner);
         final String missing = missingJoiner.toString();
+        final int threads = defaultIntValue(cmd, THREADS, DEFAULT_THREADS);
+        if (threads < 1) {
+            throw new ParseException(THREADS + " must be at least 1");
+        }
+
+        final int batchSize = defaultIntValue(cmd, BATCH_SIZE, DEFAULT_BATCH_SIZE);
+        if (batchSize < 1) {
+            throw new ParseException(BATCH_SIZE + " must be at least 1");
+        }
 
         if (!missing.isEmpty()) {
             throw new ParseException("Missing the following parameters: " + missing);
@@ -162,6 +187,8 @@ public interface SageHotspotApplicationConfig {
                 .minSnvQuality(defaultIntValue(cmd, MIN_SNV_QUALITY, DEFAULT_MIN_SNV_QUALITY))
                 .minIndelQuality(defaultIntValue(cmd, MIN_INDEL_QUALITY, DEFAULT_MIN_INDEL_QUALITY))
                 .maxHetBinomialLikelihood(defaultDoubleValue(cmd, MAX_HET_BINOMIAL_LIKELIHOOD, DEFAULT_MAX_HET_BINOMIAL_LIKELIHOOD))
+                .threads(threads)
+                .batchSize((batchSize + BAM_INDEX_WINDOW - 1) / BAM_INDEX_WINDOW * BAM_INDEX_WINDOW)
                 .build();
     }
 
@@ -28,6 +28,16 @@ public class Candidate implements GenomePosition {
         this.minNumberOfEvents = altContext.minNumberOfEvents();
     }
 
+    public Candidate(final SageVariantTier tier, final VariantHotspot variant, final ReadContext readContext, int maxDepth,
+            int minNumberOfEvents) {
+        this.tier = tier;
+        this.variant = variant;
+        this.maxDepth = maxDepth;
+        this.readContext = readContext;
+        this.readContextSupport = 0;
+        this.minNumberOfEvents = minNumberOfEvents;
+    }
+
     public void update(final AltContext altContext) {
         int altContextSupport = altContext.readContextSupport();
         if (altContextSupport > readContextSupport) {
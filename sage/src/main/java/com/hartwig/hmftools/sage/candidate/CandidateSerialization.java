@@ -0,0 +1,134 @@
+package com.hartwig.hmftools.sage.candidate;
+
+import static com.hartwig.hmftools.common.sage.SageMetaData.TIER;
+import static com.hartwig.hmftools.sage.vcf.SageVCF.RAW_DEPTH;
+import static com.hartwig.hmftools.sage.vcf.SageVCF.READ_CONTEXT;
+import static com.hartwig.hmftools.sage.vcf.SageVCF.READ_CONTEXT_EVENTS;
+
+import java.nio.charset.StandardCharsets;
+
+import com.hartwig.hmftools.common.variant.hotspot.ImmutableVariantHotspotImpl;
+import com.hartwig.hmftools.common.variant.hotspot.VariantHotspot;
+import com.hartwig.hmftools.sage.read.IndexedBases;
+import com.hartwig.hmftools.sage.read.ReadContext;
+import com.hartwig.hmftools.sage.read.ReadContextFactory;
+import com.hartwig.hmftools.sage.ref.RefSequence;
+import com.hartwig.hmftools.sage.variant.SageVariantTier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import htsjdk.samtools.SAMRecord;
+import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFConstants;
+
+/**
+ * Recreates candidates from the records of an existing SAGE vcf. Only the core of each read context is written to the vcf (RC), so the
+ * read context is rebuilt from a read of the reference with the variant applied and the core then replaced with the recorded one.
+ */
+public final class CandidateSerialization {
+
+    private static final Logger LOGGER = LogManager.getLogger(CandidateSerialization.class);
+
+    // Must exceed the read context flank plus any repeat or microhomology the core is extended over
+    private static final int HAPLOTYPE_FLANK = 100;
+
+    private CandidateSerialization() {
+    }
+
+    @NotNull
+    public static Candidate toCandidate(@NotNull final VariantContext context, @NotNull final RefSequence refSequence,
+            @NotNull final ReadContextFactory readContextFactory) {
+        final VariantHotspot variant = ImmutableVariantHotspotImpl.builder()
+                .chromosome(context.getContig())
+                .position(context.getStart())
+                .ref(context.getReference().getBaseString())
+                .alt(context.getAlternateAllele(0).getBaseString())
+                .build();
+
+        final SageVariantTier tier = SageVariantTier.valueOf(context.getAttributeAsString(TIER, SageVariantTier.LOW_CONFIDENCE.name()));
+        final int minNumberOfEvents = context.getAttributeAsInt(READ_CONTEXT_EVENTS, 0);
+
+        int maxDepth = 0;
+        for (Genotype genotype : context.getGenotypes()) {
+            maxDepth = Math.max(maxDepth, rawDepth(genotype));
+        }
+
+        final String core = context.getAttributeAsString(READ_CONTEXT, "");
+        final ReadContext readContext = readContext(variant, core, refSequence.alignment(), readContextFactory);
+        return new Candidate(tier, variant, readContext.minimiseFootprint(), maxDepth, minNumberOfEvents);
+    }
+
+    /**
+     * Whether the read context of the candidate has the core recorded in the vcf record it was created from.
+     */
+    public static boolean isCoreRestored(@NotNull final Candidate candidate, @NotNull final VariantContext context) {
+        return candidate.readContext().toString().equals(context.getAttributeAsString(READ_CONTEXT, ""));
+    }
+
+    static int rawDepth(@NotNull final Genotype genotype) {
+        // Missing values are written as "." by other tools that touch the vcf
+        final String value = genotype.getExtendedAttribute(RAW_DEPTH, VCFConstants.MISSING_VALUE_v4).toString();
+        try {
+            return VCFConstants.MISSING_VALUE_v4.equals(value) ? 0 : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            LOGGER.debug("Ignoring invalid {} of {}: {}", RAW_DEPTH, genotype.getSampleName(), value);
+            return 0;
+        }
+    }
+
+    @NotNull
+    static ReadContext readContext(@NotNull final VariantHotspot variant, @NotNull final String core,
+            @NotNull final IndexedBases refBases, @NotNull final ReadContextFactory readContextFactory) {
+        final byte[] ref = refBases.bases();
+        final int refIndex = refBases.index((int) variant.position());
+        final int leftFlank = Math.min(HAPLOTYPE_FLANK, refIndex);
+        final int rightStart = refIndex + variant.ref().length();
+        final int rightFlank = Math.max(0, Math.min(HAPLOTYPE_FLANK, ref.length - rightStart));
+
+        final byte[] alt = variant.alt().getBytes(StandardCharsets.UTF_8);
+        final byte[] haplotype = new byte[leftFlank + alt.length + rightFlank];
+        System.arraycopy(ref, refIndex - leftFlank, haplotype, 0, leftFlank);
+        System.arraycopy(alt, 0, haplotype, leftFlank, alt.length);
+        System.arraycopy(ref, rightStart, haplotype, leftFlank + alt.length, rightFlank);
+
+        final ReadContext result = readContext(variant, leftFlank, haplotype, refBases, readContextFactory);
+        if (result.toString().equals(core)) {
+            return result;
+        }
+
+        if (core.length() != result.coreLength()) {
+            LOGGER.debug("Recorded core {} of {}:{} {}>{} does not fit rebuilt core {}, using rebuilt core",
+                    core,
+                    variant.chromosome(),
+                    variant.position(),
+                    variant.ref(),
+                    variant.alt(),
+                    result);
+            return result;
+        }
+
+        // The read the candidate was found in differs from the reference within the core, eg a nearby phased variant
+        final byte[] recorded = core.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(recorded, 0, haplotype, result.readBasesLeftCentreIndex(), recorded.length);
+        return readContext(variant, leftFlank, haplotype, refBases, readContextFactory);
+    }
+
+    @NotNull
+    private static ReadContext readContext(@NotNull final VariantHotspot variant, int readIndex, @NotNull final byte[] haplotype,
+            @NotNull final IndexedBases refBases, @NotNull final ReadContextFactory readContextFactory) {
+        final SAMRecord record = new SAMRecord(null);
+        record.setReadBases(haplotype);
+
+        final int position = (int) variant.position();
+        if (variant.ref().length() == variant.alt().length()) {
+            return readContextFactory.createMNVContext(position, readIndex, variant.alt().length(), record, refBases);
+        } else if (variant.ref().length() > variant.alt().length()) {
+            return readContextFactory.createDelContext(variant.ref(), position, readIndex, record, refBases);
+        } else {
+            return readContextFactory.createInsertContext(variant.alt(), position, readIndex, record, refBases);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.hartwig.hmftools.sage.config;
 
 import static com.hartwig.hmftools.common.cli.Configs.defaultBooleanValue;
 import static com.hartwig.hmftools.common.cli.Configs.defaultIntValue;
+import static com.hartwig.hmftools.common.cli.Configs.defaultStringValue;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.Options;
@@ -18,12 +19,15 @@ public interface BaseQualityRecalibrationConfig {
     String BQR_SAMPLE_SIZE = "bqr_sample_size";
     String BQR_MAX_ALT_COUNT = "bqr_max_alt_count";
     String BQR_MIN_MAP_QUAL = "bqr_min_map_qual";
+    String BQR_CACHE = "bqr_cache";
+    String BQR_CACHE_DIR = "bqr_cache_dir";
 
     boolean DEFAULT_BQR_PLOT = true;
     boolean DEFAULT_BQR_ENABLED = true;
     int DEFAULT_BQR_MAX_ALT_COUNT = 3;
     int DEFAULT_BQR_SAMPLE_SIZE = 2_000_000;
     int DEFAULT_BQR_MIN_MAP_QUAL = 10;
+    boolean DEFAULT_BQR_CACHE = false;
 
     boolean enabled();
 
@@ -35,6 +39,14 @@ public interface BaseQualityRecalibrationConfig {
 
     int minMapQuality();
 
+    boolean cache();
+
+    /**
+     * Directory of cached recalibration files. If empty, cache files are written alongside the bam.
+     */
+    @NotNull
+    String cacheDir();
+
     @NotNull
     static Options createOptions() {
         final Options options = new Options();
@@ -43,6 +55,8 @@ public interface BaseQualityRecalibrationConfig {
         options.addOption(BQR_MAX_ALT_COUNT, true, "BQR maximum alt count to be an error [" + DEFAULT_BQR_MAX_ALT_COUNT + "]");
         options.addOption(BQR_SAMPLE_SIZE, true, "BQR sampling size per autosome [" + DEFAULT_BQR_SAMPLE_SIZE + "]");
         options.addOption(BQR_MIN_MAP_QUAL, true, "BQR min base quality remap qual [" + DEFAULT_BQR_MIN_MAP_QUAL + "]");
+        options.addOption(BQR_CACHE, true, "BQR cache results keyed by bam fingerprint [" + DEFAULT_BQR_CACHE + "]");
+        options.addOption(BQR_CACHE_DIR, true, "BQR cache directory [alongside bam]");
         return options;
     }
 
@@ -54,6 +68,8 @@ public interface BaseQualityRecalibrationConfig {
                 .maxAltCount(defaultIntValue(cmd, BQR_MAX_ALT_COUNT, DEFAULT_BQR_MAX_ALT_COUNT))
                 .sampleSize(defaultIntValue(cmd, BQR_SAMPLE_SIZE, DEFAULT_BQR_SAMPLE_SIZE))
                 .minMapQuality(defaultIntValue(cmd, BQR_MIN_MAP_QUAL, DEFAULT_BQR_MIN_MAP_QUAL))
+                .cache(defaultBooleanValue(cmd, BQR_CACHE, DEFAULT_BQR_CACHE))
+                .cacheDir(defaultStringValue(cmd, BQR_CACHE_DIR, ""))
                 .build();
     }
 }
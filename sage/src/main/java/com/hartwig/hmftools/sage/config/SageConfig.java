@@ -49,8 +49,13 @@ public interface SageConfig {
     String ASSEMBLY = "assembly";
     String CHR = "chr";
     String SLICE_SIZE = "slice_size";
+    String ADAPTIVE_SLICING = "adaptive_slicing";
     String MNV = "mnv_enabled";
     String READ_CONTEXT_FLANK_SIZE = "read_context_flank_size";
+    String MAX_BUFFERED_BASES = "max_buffered_bases";
+    String MAX_PENDING_SLICES = "max_pending_slices";
+    String INPUT_VCF = "input_vcf";
+    String METRICS_JMX = "metrics_jmx";
 
     int DEFAULT_THREADS = 2;
     int DEFAULT_MIN_MAP_QUALITY = 10;
@@ -59,7 +64,10 @@ public interface SageConfig {
     int DEFAULT_MAX_REALIGNMENT_DEPTH = 1000;
     int DEFAULT_SLICE_SIZE = 100_000;
     int DEFAULT_READ_CONTEXT_FLANK_SIZE = 10;
+    int DEFAULT_MAX_BUFFERED_BASES = 100_000_000;
+    int DEFAULT_PENDING_SLICES_PER_THREAD = 4;
     boolean DEFAULT_MNV = true;
+    boolean DEFAULT_ADAPTIVE_SLICING = true;
 
     @NotNull
     static Options createOptions() {
@@ -76,15 +84,25 @@ public interface SageConfig {
         options.addOption(MIN_MAP_QUALITY, true, "Min map quality to apply to non-hotspot variants [" + DEFAULT_MIN_MAP_QUALITY + "]");
         options.addOption(CHR, true, "Run for single chromosome");
         options.addOption(SLICE_SIZE, true, "Slice size [" + DEFAULT_SLICE_SIZE + "]");
+        options.addOption(ADAPTIVE_SLICING, true, "Size slices by bam index density [" + DEFAULT_ADAPTIVE_SLICING + "]");
+        options.addOption(MAX_PENDING_SLICES,
+                true,
+                "Max slices held in memory across concurrently processed chromosomes [" + DEFAULT_PENDING_SLICES_PER_THREAD + " x threads]");
         options.addOption(READ_CONTEXT_FLANK_SIZE, true, "Size of read context flank [" + DEFAULT_READ_CONTEXT_FLANK_SIZE + "]");
 
         options.addOption(MAX_READ_DEPTH, true, "Max depth to look for evidence [" + DEFAULT_MAX_READ_DEPTH + "]");
         options.addOption(MAX_READ_DEPTH_PANEL, true, "Max depth to look for evidence [" + DEFAULT_MAX_READ_DEPTH_PANEL + "]");
         options.addOption(MAX_REALIGNMENT_DEPTH, true, "Max depth to check for realignment [" + DEFAULT_MAX_REALIGNMENT_DEPTH + "]");
+        options.addOption(MAX_BUFFERED_BASES,
+                true,
+                "Max tumor read bases kept across all pending slices from candidate pass to collect evidence, 0 to disable ["
+                        + DEFAULT_MAX_BUFFERED_BASES + "]");
         options.addOption(HIGH_CONFIDENCE_BED, true, "High confidence regions bed file");
         options.addOption(PANEL_BED, true, "Panel regions bed file");
         options.addOption(PANEL_ONLY, false, "Only examine panel for variants");
         options.addOption(HOTSPOTS, true, "Hotspots");
+        options.addOption(METRICS_JMX, false, "Expose live stage metrics as a JMX bean");
+        options.addOption(INPUT_VCF, true, "Existing SAGE vcf to append the supplied samples to instead of finding new candidates");
         FilterConfig.createOptions().getOptions().forEach(options::addOption);
         QualityConfig.createOptions().getOptions().forEach(options::addOption);
         BaseQualityRecalibrationConfig.createOptions().getOptions().forEach(options::addOption);
@@ -127,6 +145,20 @@ public interface SageConfig {
         return parent == null ? sample + ".sage.bqr.tsv" : parent + File.separator + sample + ".sage.bqr.tsv";
     }
 
+    @NotNull
+    default String metricsFile() {
+        String base = outputFile();
+        if (base.endsWith(".gz")) {
+            base = base.substring(0, base.length() - 3);
+        }
+        if (base.endsWith(".vcf")) {
+            base = base.substring(0, base.length() - 4);
+        }
+        return base + ".metrics.tsv";
+    }
+
+    boolean metricsJmx();
+
     @NotNull
     String panelBed();
 
@@ -155,6 +187,10 @@ public interface SageConfig {
 
     int regionSliceSize();
 
+    boolean adaptiveSlicing();
+
+    int maxPendingSlices();
+
     int minMapQuality();
 
     int maxRealignmentDepth();
@@ -169,6 +205,15 @@ public interface SageConfig {
 
     int readContextFlankSize();
 
+    int maxBufferedBases();
+
+    @NotNull
+    String inputVcf();
+
+    default boolean appendMode() {
+        return !inputVcf().isEmpty();
+    }
+
     @NotNull
     static SageConfig createConfig(@NotNull final String version, @NotNull final CommandLine cmd) throws ParseException {
         final int threads = defaultIntValue(cmd, THREADS, DEFAULT_THREADS);
@@ -225,10 +270,24 @@ public interface SageConfig {
             }
         }
 
-        if (tumorList.isEmpty()) {
+        final String inputVcf = cmd.getOptionValue(INPUT_VCF, Strings.EMPTY);
+        if (!inputVcf.isEmpty() && !new File(inputVcf).exists()) {
+            throw new ParseException("Unable to locate input vcf " + inputVcf);
+        }
+
+        if (inputVcf.isEmpty() && tumorList.isEmpty()) {
             throw new ParseException("At least one tumor must be supplied");
         }
 
+        if (tumorList.isEmpty() && referenceList.isEmpty()) {
+            throw new ParseException("At least one sample must be supplied to append to " + inputVcf);
+        }
+
+        final int maxPendingSlices = defaultIntValue(cmd, MAX_PENDING_SLICES, DEFAULT_PENDING_SLICES_PER_THREAD * threads);
+        if (maxPendingSlices < 1) {
+            throw new ParseException(MAX_PENDING_SLICES + " must be at least 1");
+        }
+
         final List<HmfTranscriptRegion> transcripts =
                 assembly.equals("hg19") ? HmfGenePanelSupplier.allGeneList37() : HmfGenePanelSupplier.allGeneList38();
 
@@ -251,11 +310,14 @@ public interface SageConfig {
                 .mnvEnabled(defaultBooleanValue(cmd, MNV, DEFAULT_MNV))
                 .refGenome(cmd.getOptionValue(REF_GENOME))
                 .regionSliceSize(defaultIntValue(cmd, SLICE_SIZE, DEFAULT_SLICE_SIZE))
+                .adaptiveSlicing(defaultBooleanValue(cmd, ADAPTIVE_SLICING, DEFAULT_ADAPTIVE_SLICING))
+                .maxPendingSlices(maxPendingSlices)
                 .readContextFlankSize(defaultIntValue(cmd, READ_CONTEXT_FLANK_SIZE, DEFAULT_READ_CONTEXT_FLANK_SIZE))
                 .minMapQuality(defaultIntValue(cmd, MIN_MAP_QUALITY, DEFAULT_MIN_MAP_QUALITY))
                 .maxReadDepth(defaultIntValue(cmd, MAX_READ_DEPTH, DEFAULT_MAX_READ_DEPTH))
                 .maxReadDepthPanel(defaultIntValue(cmd, MAX_READ_DEPTH_PANEL, DEFAULT_MAX_READ_DEPTH_PANEL))
                 .maxRealignmentDepth(defaultIntValue(cmd, MAX_REALIGNMENT_DEPTH, DEFAULT_MAX_REALIGNMENT_DEPTH))
+                .maxBufferedBases(defaultIntValue(cmd, MAX_BUFFERED_BASES, DEFAULT_MAX_BUFFERED_BASES))
                 .filter(FilterConfig.createConfig(cmd))
                 .panelBed(cmd.getOptionValue(PANEL_BED, Strings.EMPTY))
                 .highConfidenceBed(cmd.getOptionValue(HIGH_CONFIDENCE_BED, Strings.EMPTY))
@@ -263,6 +325,8 @@ public interface SageConfig {
                 .qualityConfig(QualityConfig.createConfig(cmd, transcripts))
                 .baseQualityRecalibrationConfig(BaseQualityRecalibrationConfig.createConfig(cmd))
                 .panelOnly(Configs.containsFlag(cmd, PANEL_ONLY))
+                .inputVcf(inputVcf)
+                .metricsJmx(Configs.containsFlag(cmd, METRICS_JMX))
                 .build();
     }
 }
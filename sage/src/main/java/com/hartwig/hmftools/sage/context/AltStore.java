@@ -0,0 +1,175 @@
+package com.hartwig.hmftools.sage.context;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Alt contexts of a single position held in a small open addressed table. Ref and alt alleles made only of ACGT bases are encoded
+ * into a primitive key (2 bits per base plus the length of each allele) so that lookups do not build any strings. Alleles that can
+ * not be encoded, ie long indels or non ACGT bases, are kept in the same table under the NO_KEY marker and compared by value.
+ */
+class AltStore {
+
+    private static final int INITIAL_CAPACITY = 4;
+    private static final int MAX_ENCODED_BASES = 26;
+    private static final int LENGTH_BITS = 6;
+    private static final long EMPTY = 0;
+    private static final long NO_KEY = -1;
+
+    private static final long[] NO_KEYS = new long[0];
+    private static final AltContext[] NO_VALUES = new AltContext[0];
+
+    // Most positions have no alts so the table is only allocated on first use
+    private long[] keys = NO_KEYS;
+    private AltContext[] values = NO_VALUES;
+    private int size;
+
+    @NotNull
+    AltContext computeIfAbsent(@NotNull final RefContext refContext, @NotNull final String ref, @NotNull final String alt) {
+        if (keys.length == 0) {
+            keys = new long[INITIAL_CAPACITY];
+            values = new AltContext[INITIAL_CAPACITY];
+        }
+
+        final long key = key(ref, alt);
+        final int mask = keys.length - 1;
+
+        int index = hash(key) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                final AltContext existing = values[index];
+                if (key != NO_KEY || (existing.ref().equals(ref) && existing.alt().equals(alt))) {
+                    return existing;
+                }
+            }
+            index = (index + 1) & mask;
+        }
+
+        final AltContext result = new AltContext(refContext, ref, alt);
+        keys[index] = key;
+        values[index] = result;
+        if (++size * 2 > keys.length) {
+            resize();
+        }
+
+        return result;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @NotNull
+    Collection<AltContext> values() {
+        return new AbstractCollection<AltContext>() {
+            @NotNull
+            @Override
+            public Iterator<AltContext> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private void resize() {
+        final long[] oldKeys = keys;
+        final AltContext[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new AltContext[oldKeys.length * 2];
+
+        final int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = hash(oldKeys[i]) & mask;
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    static long key(@NotNull final String ref, @NotNull final String alt) {
+        final int refLength = ref.length();
+        final int altLength = alt.length();
+        if (refLength == 0 || refLength + altLength > MAX_ENCODED_BASES) {
+            return NO_KEY;
+        }
+
+        long key = ((long) refLength << LENGTH_BITS) | altLength;
+        for (int i = 0; i < refLength; i++) {
+            final int base = baseIndex(ref.charAt(i));
+            if (base < 0) {
+                return NO_KEY;
+            }
+            key = (key << 2) | base;
+        }
+
+        for (int i = 0; i < altLength; i++) {
+            final int base = baseIndex(alt.charAt(i));
+            if (base < 0) {
+                return NO_KEY;
+            }
+            key = (key << 2) | base;
+        }
+
+        return key;
+    }
+
+    private static int hash(long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int baseIndex(char base) {
+        switch (base) {
+            case 'A':
+                return 0;
+            case 'C':
+                return 1;
+            case 'G':
+                return 2;
+            case 'T':
+                return 3;
+            default:
+                return -1;
+        }
+    }
+
+    private class ValueIterator implements Iterator<AltContext> {
+
+        private int index = next(0);
+
+        @Override
+        public boolean hasNext() {
+            return index < values.length;
+        }
+
+        @Override
+        public AltContext next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final AltContext result = values[index];
+            index = next(index + 1);
+            return result;
+        }
+
+        private int next(int from) {
+            int i = from;
+            while (i < values.length && values[i] == null) {
+                i++;
+            }
+            return i;
+        }
+    }
+}
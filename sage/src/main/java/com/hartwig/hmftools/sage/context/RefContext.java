@@ -1,8 +1,6 @@
 package com.hartwig.hmftools.sage.context;
 
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
 
 import javax.annotation.Nullable;
 
@@ -18,7 +16,7 @@ public class RefContext implements GenomePosition {
     private final String chromosome;
     private final int maxDepth;
     private final long position;
-    private final Map<String, AltContext> alts;
+    private final AltStore alts;
 
     private int rawDepth;
 
@@ -27,7 +25,7 @@ public class RefContext implements GenomePosition {
         this.chromosome = chromosome;
         this.position = position;
         this.maxDepth = maxDepth;
-        this.alts = new HashMap<>();
+        this.alts = new AltStore();
     }
 
     @NotNull
@@ -96,7 +94,6 @@ public class RefContext implements GenomePosition {
 
     @NotNull
     private AltContext altContext(@NotNull final String ref, @NotNull final String alt) {
-        final String refAltKey = ref + "|" + alt;
-        return alts.computeIfAbsent(refAltKey, key -> new AltContext(this, ref, alt));
+        return alts.computeIfAbsent(this, ref, alt);
     }
 }
@@ -1,6 +1,5 @@
 package com.hartwig.hmftools.sage.evidence;
 
-import java.io.File;
 import java.util.List;
 import java.util.concurrent.CompletionException;
 import java.util.function.Consumer;
@@ -12,19 +11,20 @@ import com.hartwig.hmftools.sage.config.SageConfig;
 import com.hartwig.hmftools.sage.context.AltContext;
 import com.hartwig.hmftools.sage.context.RefContextConsumer;
 import com.hartwig.hmftools.sage.context.RefContextFactory;
+import com.hartwig.hmftools.sage.metrics.SageMetrics;
 import com.hartwig.hmftools.sage.ref.RefSequence;
+import com.hartwig.hmftools.sage.sam.SamReaderPool;
+import com.hartwig.hmftools.sage.sam.SamRecordBuffer;
 import com.hartwig.hmftools.sage.sam.SamSlicer;
 import com.hartwig.hmftools.sage.sam.SamSlicerFactory;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SamReader;
-import htsjdk.samtools.SamReaderFactory;
-import htsjdk.samtools.cram.ref.ReferenceSource;
-import htsjdk.samtools.reference.ReferenceSequenceFile;
 
 public class CandidateEvidence {
 
@@ -33,44 +33,75 @@ public class CandidateEvidence {
     private final SageConfig config;
     private final List<VariantHotspot> hotspots;
     private final List<GenomeRegion> panel;
-    private final ReferenceSequenceFile refGenome;
+    private final SamReaderPool readerPool;
     private final SamSlicerFactory samSlicerFactory;
+    private final SageMetrics metrics;
 
     public CandidateEvidence(@NotNull final SageConfig config, @NotNull final List<VariantHotspot> hotspots, final List<GenomeRegion> panel,
-            @NotNull final SamSlicerFactory samSlicerFactory, @NotNull final ReferenceSequenceFile refGenome) {
+            @NotNull final SamSlicerFactory samSlicerFactory, @NotNull final SamReaderPool readerPool, @NotNull final SageMetrics metrics) {
         this.config = config;
+        this.metrics = metrics;
         this.panel = panel;
         this.samSlicerFactory = samSlicerFactory;
         this.hotspots = hotspots;
-        this.refGenome = refGenome;
+        this.readerPool = readerPool;
     }
 
     @NotNull
     public List<AltContext> get(@NotNull final String sample, @NotNull final String bamFile, @NotNull final RefSequence refSequence,
             @NotNull final GenomeRegion bounds) {
+        return get(sample, bamFile, refSequence, bounds, null);
+    }
+
+    /**
+     * If a buffer is supplied, every record overlapping the buffer bounds is retained for later evidence collection.
+     */
+    @NotNull
+    public List<AltContext> get(@NotNull final String sample, @NotNull final String bamFile, @NotNull final RefSequence refSequence,
+            @NotNull final GenomeRegion bounds, @Nullable final SamRecordBuffer buffer) {
         LOGGER.debug("Variant candidates {} position {}:{}", sample, bounds.chromosome(), bounds.start());
+        final long startTime = System.nanoTime();
         final RefContextFactory candidates = new RefContextFactory(config, sample, hotspots, panel);
         final RefContextConsumer refContextConsumer = new RefContextConsumer(config, bounds, refSequence, candidates);
-        return get(bamFile, bounds, refContextConsumer, candidates);
+        try {
+            final List<AltContext> result = get(sample, bamFile, bounds, refContextConsumer, candidates, buffer);
+            metrics.record(SageMetrics.Stage.CANDIDATES, sample, SageMetrics.Metric.CANDIDATES, result.size());
+            return result;
+        } finally {
+            metrics.recordNanos(SageMetrics.Stage.CANDIDATES, sample, startTime);
+        }
     }
 
     @NotNull
-    private List<AltContext> get(@NotNull final String bamFile, @NotNull final GenomeRegion bounds,
-            @NotNull final Consumer<SAMRecord> recordConsumer, @NotNull final RefContextFactory candidates) {
+    private List<AltContext> get(@NotNull final String sample, @NotNull final String bamFile, @NotNull final GenomeRegion bounds,
+            @NotNull final Consumer<SAMRecord> recordConsumer, @NotNull final RefContextFactory candidates,
+            @Nullable final SamRecordBuffer buffer) {
         final List<AltContext> altContexts = Lists.newArrayList();
 
         final SamSlicer slicer = samSlicerFactory.create(bounds);
-        try (final SamReader tumorReader = SamReaderFactory.makeDefault()
-                .referenceSource(new ReferenceSource(refGenome))
-                .open(new File(bamFile))) {
+        final SamSlicer readSlicer = buffer == null ? slicer : samSlicerFactory.create(buffer.bounds());
+        try {
+            final SamReader tumorReader = readerPool.reader(bamFile);
 
             // First parse
-            slicer.slice(tumorReader, recordConsumer);
+            if (buffer == null) {
+                slicer.slice(tumorReader, recordConsumer);
+            } else {
+                readSlicer.slice(tumorReader, record -> {
+                    buffer.accept(record);
+                    if (slicer.overlaps(record)) {
+                        recordConsumer.accept(record);
+                    }
+                });
+            }
 
             // Add all valid alt contexts
             altContexts.addAll(candidates.altContexts());
         } catch (Exception e) {
             throw new CompletionException(e);
+        } finally {
+            metrics.record(SageMetrics.Stage.CANDIDATES, sample, SageMetrics.Metric.RECORDS_READ, readSlicer.recordsRead());
+            metrics.record(SageMetrics.Stage.CANDIDATES, sample, SageMetrics.Metric.RECORDS_SELECTED, readSlicer.recordsSelected());
         }
 
         return altContexts;
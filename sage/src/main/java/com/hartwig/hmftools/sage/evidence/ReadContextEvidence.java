@@ -1,50 +1,67 @@
 package com.hartwig.hmftools.sage.evidence;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 import com.hartwig.hmftools.common.genome.region.GenomeRegion;
 import com.hartwig.hmftools.common.genome.region.GenomeRegions;
 import com.hartwig.hmftools.sage.candidate.Candidate;
 import com.hartwig.hmftools.sage.config.SageConfig;
+import com.hartwig.hmftools.sage.metrics.SageMetrics;
 import com.hartwig.hmftools.sage.quality.QualityRecalibrationMap;
+import com.hartwig.hmftools.sage.read.ReadAlignmentMap;
 import com.hartwig.hmftools.sage.read.ReadContextCounter;
 import com.hartwig.hmftools.sage.read.ReadContextCounterFactory;
+import com.hartwig.hmftools.sage.sam.SamReaderPool;
+import com.hartwig.hmftools.sage.sam.SamRecordBuffer;
 import com.hartwig.hmftools.sage.sam.SamSlicer;
 import com.hartwig.hmftools.sage.sam.SamSlicerFactory;
 import com.hartwig.hmftools.sage.samtools.NumberEvents;
 import com.hartwig.hmftools.sage.select.SamRecordSelector;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import htsjdk.samtools.SamReader;
-import htsjdk.samtools.SamReaderFactory;
-import htsjdk.samtools.cram.ref.ReferenceSource;
-import htsjdk.samtools.reference.ReferenceSequenceFile;
+import htsjdk.samtools.SAMRecord;
 
 public class ReadContextEvidence {
 
+    private static final Logger LOGGER = LogManager.getLogger(ReadContextEvidence.class);
+
     private final int typicalReadLength;
     private final SageConfig sageConfig;
     private final SamSlicerFactory samSlicerFactory;
-    private final ReferenceSequenceFile refGenome;
+    private final SamReaderPool readerPool;
     private final ReadContextCounterFactory factory;
+    private final SageMetrics metrics;
 
     public ReadContextEvidence(@NotNull final SageConfig config, @NotNull final SamSlicerFactory samSlicerFactory,
-            @NotNull final ReferenceSequenceFile refGenome, final Map<String, QualityRecalibrationMap> qualityRecalibrationMap) {
+            @NotNull final SamReaderPool readerPool, final Map<String, QualityRecalibrationMap> qualityRecalibrationMap,
+            @NotNull final SageMetrics metrics) {
         this.sageConfig = config;
+        this.metrics = metrics;
         this.samSlicerFactory = samSlicerFactory;
-        this.refGenome = refGenome;
+        this.readerPool = readerPool;
         this.factory = new ReadContextCounterFactory(config, qualityRecalibrationMap);
         this.typicalReadLength = config.typicalReadLength();
     }
 
     @NotNull
-    public List<ReadContextCounter> get(@NotNull final List<Candidate> candidates, @NotNull final String sample,
-            @NotNull final String bam) {
+    public List<ReadContextCounter> get(@NotNull final SageMetrics.Stage stage, @NotNull final List<Candidate> candidates,
+            @NotNull final String sample, @NotNull final String bam) {
+        return get(stage, candidates, sample, bam, null);
+    }
+
+    /**
+     * Records are replayed from the buffer if it is complete and covers the candidates, otherwise the bam is re-read.
+     */
+    @NotNull
+    public List<ReadContextCounter> get(@NotNull final SageMetrics.Stage stage, @NotNull final List<Candidate> candidates,
+            @NotNull final String sample, @NotNull final String bam, @Nullable final SamRecordBuffer buffer) {
+        final long startTime = System.nanoTime();
         final List<ReadContextCounter> counters = factory.create(sample, candidates);
         if (candidates.isEmpty()) {
             return counters;
@@ -59,20 +76,29 @@ public class ReadContextEvidence {
         final SamSlicer slicer = samSlicerFactory.create(bounds);
 
         final SamRecordSelector<ReadContextCounter> consumerSelector = new SamRecordSelector<>(counters);
+        final Consumer<SAMRecord> consumer = samRecord -> {
+            int numberOfEvents = NumberEvents.numberOfEvents(samRecord);
+            // Shared by every counter the record overlaps so the cigar is only traversed once
+            final ReadAlignmentMap alignment = new ReadAlignmentMap(samRecord);
+            consumerSelector.select(samRecord, x -> x.accept(alignment, sageConfig, numberOfEvents));
+        };
 
-        try (final SamReader tumorReader = SamReaderFactory.makeDefault()
-                .referenceSource(new ReferenceSource(refGenome))
-                .open(new File(bam))) {
-            slicer.slice(tumorReader, samRecord -> {
-
-                int numberOfEvents = NumberEvents.numberOfEvents(samRecord);
-                consumerSelector.select(samRecord, x -> x.accept(samRecord, sageConfig, numberOfEvents));
-
-            });
-        } catch (IOException e) {
-            throw new CompletionException(e);
+        try {
+            if (buffer != null && buffer.isComplete() && buffer.contains(bounds)) {
+                slicer.slice(buffer, consumer);
+            } else {
+                if (buffer != null) {
+                    LOGGER.debug("Read buffer exceeded, re-reading {} evidence in {}:{}", sample, bounds.chromosome(), bounds.start());
+                }
+                slicer.slice(readerPool.reader(bam), consumer);
+            }
+            return counters;
+        } finally {
+            // Recorded even if slicing fails so the metrics account for the work done before the failure
+            metrics.record(stage, sample, SageMetrics.Metric.RECORDS_READ, slicer.recordsRead());
+            metrics.record(stage, sample, SageMetrics.Metric.RECORDS_SELECTED, slicer.recordsSelected());
+            metrics.record(stage, sample, SageMetrics.Metric.READ_CONTEXT_COUNTERS, counters.size());
+            metrics.recordNanos(stage, sample, startTime);
         }
-
-        return counters;
     }
 }
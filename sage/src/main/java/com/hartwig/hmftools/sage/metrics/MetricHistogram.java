@@ -0,0 +1,69 @@
+package com.hartwig.hmftools.sage.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Counts values in fixed buckets so memory is constant however many values are recorded. Values below 64 have a bucket each and larger
+ * values share 32 buckets per power of two, so percentiles are within about 3% of the exact value. Each bucket retains the largest value
+ * added to it, which is reported as the percentile, so a percentile is always a recorded value.
+ */
+class MetricHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int EXACT_BUCKETS = 2 * SUB_BUCKETS;
+    private static final int BUCKETS = EXACT_BUCKETS + (Long.SIZE - 1 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private final int[] counts = new int[BUCKETS];
+    private final long[] bucketMax = new long[BUCKETS];
+    private int count;
+    private long total;
+    private long max;
+
+    synchronized void add(long value) {
+        final long bounded = Math.max(0, value);
+        final int bucket = bucket(bounded);
+        counts[bucket]++;
+        bucketMax[bucket] = Math.max(bucketMax[bucket], bounded);
+
+        count++;
+        total += bounded;
+        max = Math.max(max, bounded);
+    }
+
+    synchronized long total() {
+        return total;
+    }
+
+    @NotNull
+    synchronized MetricSummary summary() {
+        return new MetricSummary(count, total, percentile(0.5), percentile(0.95), max);
+    }
+
+    long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+
+        // Nearest rank
+        final int rank = Math.max(1, (int) Math.ceil(percentile * count));
+        int cumulative = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            cumulative += counts[bucket];
+            if (cumulative >= rank) {
+                return bucketMax[bucket];
+            }
+        }
+        return max;
+    }
+
+    static int bucket(long value) {
+        if (value < EXACT_BUCKETS) {
+            return (int) value;
+        }
+
+        final int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        final int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return EXACT_BUCKETS + (shift - 1) * SUB_BUCKETS + subBucket;
+    }
+}
@@ -0,0 +1,38 @@
+package com.hartwig.hmftools.sage.metrics;
+
+public class MetricSummary {
+
+    private final int count;
+    private final long total;
+    private final long p50;
+    private final long p95;
+    private final long max;
+
+    MetricSummary(final int count, final long total, final long p50, final long p95, final long max) {
+        this.count = count;
+        this.total = total;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.max = max;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public long p50() {
+        return p50;
+    }
+
+    public long p95() {
+        return p95;
+    }
+
+    public long max() {
+        return max;
+    }
+}
@@ -0,0 +1,152 @@
+package com.hartwig.hmftools.sage.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import com.google.common.collect.Maps;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Records the time spent in each stage of the pipeline and the number of records, candidates and counters, once per region and
+ * sample. Values recorded for the region as a whole rather than a single sample use {@link #ALL_SAMPLES}.
+ */
+public class SageMetrics implements SageMetricsMXBean {
+
+    private static final Logger LOGGER = LogManager.getLogger(SageMetrics.class);
+
+    public static final String ALL_SAMPLES = "ALL";
+
+    private static final String OBJECT_NAME = "com.hartwig.hmftools.sage:type=SageMetrics";
+
+    public enum Stage {
+        CANDIDATES,
+        TUMOR_EVIDENCE,
+        NORMAL_EVIDENCE,
+        COMBINE,
+        PHASE
+    }
+
+    public enum Metric {
+        NANOS,
+        RECORDS_READ,
+        RECORDS_SELECTED,
+        CANDIDATES,
+        READ_CONTEXT_COUNTERS
+    }
+
+    private final Map<MetricKey, MetricHistogram> histograms = new ConcurrentHashMap<>();
+    private final AtomicLong completedRegions = new AtomicLong();
+
+    public void record(@NotNull final Stage stage, @NotNull final String sample, @NotNull final Metric metric, long value) {
+        histograms.computeIfAbsent(new MetricKey(stage, sample, metric), x -> new MetricHistogram()).add(value);
+    }
+
+    public void recordNanos(@NotNull final Stage stage, @NotNull final String sample, long startNanos) {
+        record(stage, sample, Metric.NANOS, System.nanoTime() - startNanos);
+    }
+
+    public void completeRegion() {
+        completedRegions.incrementAndGet();
+    }
+
+    /**
+     * Summaries ordered by stage, sample and metric.
+     */
+    @NotNull
+    public SortedMap<MetricKey, MetricSummary> summaries() {
+        final SortedMap<MetricKey, MetricSummary> result = Maps.newTreeMap();
+        histograms.forEach((key, histogram) -> result.put(key, histogram.summary()));
+        return result;
+    }
+
+    public void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+            LOGGER.info("Registered live metrics as JMX bean {}", OBJECT_NAME);
+        } catch (JMException e) {
+            LOGGER.warn("Unable to register JMX bean {}: {}", OBJECT_NAME, e.getMessage());
+        }
+    }
+
+    @Override
+    public long getCompletedRegions() {
+        return completedRegions.get();
+    }
+
+    @Override
+    @NotNull
+    public Map<String, Long> getTotals() {
+        final Map<String, Long> result = Maps.newTreeMap();
+        histograms.forEach((key, histogram) -> result.put(key.toString(), histogram.total()));
+        return result;
+    }
+
+    public static final class MetricKey implements Comparable<MetricKey> {
+
+        private static final Comparator<MetricKey> COMPARATOR =
+                Comparator.<MetricKey, Stage>comparing(x -> x.stage).thenComparing(x -> x.sample).thenComparing(x -> x.metric);
+
+        private final Stage stage;
+        private final String sample;
+        private final Metric metric;
+
+        MetricKey(@NotNull final Stage stage, @NotNull final String sample, @NotNull final Metric metric) {
+            this.stage = stage;
+            this.sample = sample;
+            this.metric = metric;
+        }
+
+        @NotNull
+        public Stage stage() {
+            return stage;
+        }
+
+        @NotNull
+        public String sample() {
+            return sample;
+        }
+
+        @NotNull
+        public Metric metric() {
+            return metric;
+        }
+
+        @Override
+        public int compareTo(@NotNull final MetricKey other) {
+            return COMPARATOR.compare(this, other);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final MetricKey other = (MetricKey) o;
+            return stage == other.stage && sample.equals(other.sample) && metric == other.metric;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(stage, sample, metric);
+        }
+
+        @Override
+        public String toString() {
+            return stage + "." + sample + "." + metric;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.hartwig.hmftools.sage.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import com.google.common.collect.Lists;
+
+import org.jetbrains.annotations.NotNull;
+
+public class SageMetricsFile {
+
+    private static final String DELIMITER = "\t";
+
+    public static void write(@NotNull final String filename, @NotNull final SageMetrics metrics) throws IOException {
+        Files.write(new File(filename).toPath(), toLines(metrics.summaries()));
+    }
+
+    @NotNull
+    static List<String> toLines(@NotNull final Map<SageMetrics.MetricKey, MetricSummary> summaries) {
+        final List<String> lines = Lists.newArrayList();
+        lines.add(header());
+        summaries.forEach((key, summary) -> lines.add(toString(key, summary)));
+        return lines;
+    }
+
+    @NotNull
+    private static String toString(@NotNull final SageMetrics.MetricKey key, @NotNull final MetricSummary summary) {
+        return new StringJoiner(DELIMITER).add(key.stage().toString())
+                .add(key.sample())
+                .add(key.metric().toString())
+                .add(String.valueOf(summary.count()))
+                .add(String.valueOf(summary.total()))
+                .add(String.valueOf(summary.p50()))
+                .add(String.valueOf(summary.p95()))
+                .add(String.valueOf(summary.max()))
+                .toString();
+    }
+
+    @NotNull
+    private static String header() {
+        return new StringJoiner(DELIMITER, "", "").add("stage")
+                .add("sample")
+                .add("metric")
+                .add("count")
+                .add("total")
+                .add("p50")
+                .add("p95")
+                .add("max")
+                .toString();
+    }
+}
@@ -0,0 +1,16 @@
+package com.hartwig.hmftools.sage.metrics;
+
+import java.util.Map;
+
+/**
+ * Live view of {@link SageMetrics} while a run is in progress.
+ */
+public interface SageMetricsMXBean {
+
+    long getCompletedRegions();
+
+    /**
+     * Running total of each metric keyed by stage, sample and metric, eg CANDIDATES.TUMOR.RECORDS_READ
+     */
+    Map<String, Long> getTotals();
+}
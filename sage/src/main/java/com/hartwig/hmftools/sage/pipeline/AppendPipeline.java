@@ -0,0 +1,175 @@
+package com.hartwig.hmftools.sage.pipeline;
+
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.genome.region.GenomeRegion;
+import com.hartwig.hmftools.common.genome.region.GenomeRegions;
+import com.hartwig.hmftools.sage.candidate.Candidate;
+import com.hartwig.hmftools.sage.candidate.CandidateSerialization;
+import com.hartwig.hmftools.sage.config.SageConfig;
+import com.hartwig.hmftools.sage.evidence.ReadContextEvidence;
+import com.hartwig.hmftools.sage.metrics.SageMetrics;
+import com.hartwig.hmftools.sage.quality.QualityRecalibrationMap;
+import com.hartwig.hmftools.sage.read.ReadContextCounter;
+import com.hartwig.hmftools.sage.read.ReadContextFactory;
+import com.hartwig.hmftools.sage.ref.RefSequence;
+import com.hartwig.hmftools.sage.sam.SamReaderPool;
+import com.hartwig.hmftools.sage.sam.SamSlicerFactory;
+import com.hartwig.hmftools.sage.variant.SageVariantContextFactory;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import htsjdk.variant.variantcontext.VariantContext;
+
+/**
+ * Appends the evidence of additional samples to the variants of an existing SAGE vcf. The existing vcf is read once and its variants
+ * are grouped into slices that are evaluated concurrently. Slices are written in input order as they complete.
+ */
+public class AppendPipeline {
+
+    private static final Logger LOGGER = LogManager.getLogger(AppendPipeline.class);
+
+    private final SageConfig config;
+    private final Executor executor;
+    private final SamReaderPool readerPool;
+    private final Map<String, QualityRecalibrationMap> qualityRecalibrationMap;
+    private final Consumer<VariantContext> consumer;
+    private final ReadContextFactory readContextFactory;
+    private final SageMetrics metrics;
+    private final AtomicInteger unrestoredCores = new AtomicInteger();
+
+    public AppendPipeline(@NotNull final SageConfig config, @NotNull final Executor executor, @NotNull final SamReaderPool readerPool,
+            @NotNull final Map<String, QualityRecalibrationMap> qualityRecalibrationMap, @NotNull final Consumer<VariantContext> consumer,
+            @NotNull final SageMetrics metrics) {
+        this.config = config;
+        this.metrics = metrics;
+        this.executor = executor;
+        this.readerPool = readerPool;
+        this.qualityRecalibrationMap = qualityRecalibrationMap;
+        this.consumer = consumer;
+        this.readContextFactory = new ReadContextFactory(config.readContextFlankSize());
+    }
+
+    public void append(@NotNull final Iterable<VariantContext> existing) {
+        final Deque<CompletableFuture<List<VariantContext>>> pending = new ArrayDeque<>();
+
+        List<VariantContext> slice = Lists.newArrayList();
+        String contig = null;
+        for (VariantContext context : existing) {
+            if (!context.getContig().equals(contig)) {
+                LOGGER.info("Processing chromosome {}", context.getContig());
+                contig = context.getContig();
+            }
+
+            if (!slice.isEmpty()) {
+                final VariantContext first = slice.get(0);
+                if (!first.getContig().equals(contig) || context.getStart() - first.getStart() >= config.regionSliceSize()) {
+                    submit(slice, pending);
+                    slice = Lists.newArrayList();
+                }
+            }
+
+            slice.add(context);
+        }
+
+        if (!slice.isEmpty()) {
+            submit(slice, pending);
+        }
+
+        while (!pending.isEmpty()) {
+            pending.poll().join().forEach(consumer);
+        }
+
+        if (unrestoredCores.get() > 0) {
+            LOGGER.warn("{} variants could not restore their recorded read context core, see debug logging", unrestoredCores.get());
+        }
+    }
+
+    private void submit(@NotNull final List<VariantContext> slice, @NotNull final Deque<CompletableFuture<List<VariantContext>>> pending) {
+        while (pending.size() >= config.maxPendingSlices()) {
+            pending.poll().join().forEach(consumer);
+        }
+
+        pending.add(append(slice));
+    }
+
+    @NotNull
+    private CompletableFuture<List<VariantContext>> append(@NotNull final List<VariantContext> slice) {
+        final VariantContext first = slice.get(0);
+        final int end = slice.stream().mapToInt(VariantContext::getEnd).max().orElse(first.getEnd());
+        final GenomeRegion region = GenomeRegions.create(first.getContig(), first.getStart(), end);
+
+        final CompletableFuture<List<Candidate>> candidatesFuture = supplyAsync(() -> {
+            LOGGER.debug("Appending evidence in {}:{}", region.chromosome(), region.start());
+            final RefSequence refSequence = new RefSequence(region, readerPool.refGenome());
+            final List<Candidate> candidates = Lists.newArrayListWithExpectedSize(slice.size());
+            for (VariantContext context : slice) {
+                final Candidate candidate = CandidateSerialization.toCandidate(context, refSequence, readContextFactory);
+                if (!CandidateSerialization.isCoreRestored(candidate, context)) {
+                    unrestoredCores.incrementAndGet();
+                }
+                candidates.add(candidate);
+            }
+            return candidates;
+        }, executor);
+
+        // Panel only slicing is limited to the region of the existing variants
+        final SamSlicerFactory samSlicerFactory = new SamSlicerFactory(config, Collections.singletonList(region));
+        final ReadContextEvidence readContextEvidence =
+                new ReadContextEvidence(config, samSlicerFactory, readerPool, qualityRecalibrationMap, metrics);
+
+        return candidatesFuture.thenCompose(candidates -> {
+            final List<CompletableFuture<List<ReadContextCounter>>> sampleCounters = Lists.newArrayList();
+            for (int i = 0; i < config.reference().size(); i++) {
+                sampleCounters.add(evidence(readContextEvidence,
+                        SageMetrics.Stage.NORMAL_EVIDENCE,
+                        candidates,
+                        config.reference().get(i),
+                        config.referenceBam().get(i)));
+            }
+            for (int i = 0; i < config.tumor().size(); i++) {
+                sampleCounters.add(evidence(readContextEvidence,
+                        SageMetrics.Stage.TUMOR_EVIDENCE,
+                        candidates,
+                        config.tumor().get(i),
+                        config.tumorBam().get(i)));
+            }
+
+            return CompletableFuture.allOf(sampleCounters.toArray(new CompletableFuture[0])).thenApply(aVoid -> {
+                final List<VariantContext> result = Lists.newArrayListWithExpectedSize(slice.size());
+                for (int i = 0; i < slice.size(); i++) {
+                    final List<ReadContextCounter> variantCounters = Lists.newArrayList();
+                    for (CompletableFuture<List<ReadContextCounter>> sampleCounter : sampleCounters) {
+                        variantCounters.add(sampleCounter.join().get(i));
+                    }
+                    result.add(SageVariantContextFactory.appendGenotypes(slice.get(i),
+                            candidates.get(i).variant(),
+                            variantCounters,
+                            config.reference().size()));
+                }
+                metrics.completeRegion();
+                return result;
+            });
+        });
+    }
+
+    @NotNull
+    private CompletableFuture<List<ReadContextCounter>> evidence(@NotNull final ReadContextEvidence readContextEvidence,
+            @NotNull final SageMetrics.Stage stage, @NotNull final List<Candidate> candidates, @NotNull final String sample,
+            @NotNull final String sampleBam) {
+        return supplyAsync(() -> readContextEvidence.get(stage, candidates, sample, sampleBam), executor);
+    }
+}
@@ -1,26 +1,25 @@
 package com.hartwig.hmftools.sage.pipeline;
 
-import java.io.File;
-import java.io.IOException;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.EnumSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
-import java.util.function.Consumer;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
-import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.genome.chromosome.MitochondrialChromosome;
 import com.hartwig.hmftools.common.genome.region.GenomeRegion;
-import com.hartwig.hmftools.common.genome.region.GenomeRegions;
 import com.hartwig.hmftools.common.variant.hotspot.VariantHotspot;
 import com.hartwig.hmftools.sage.config.SageConfig;
+import com.hartwig.hmftools.sage.metrics.SageMetrics;
 import com.hartwig.hmftools.sage.phase.Phase;
 import com.hartwig.hmftools.sage.quality.QualityRecalibrationMap;
 import com.hartwig.hmftools.sage.read.ReadContextCounter;
+import com.hartwig.hmftools.sage.sam.SamReaderPool;
+import com.hartwig.hmftools.sage.sam.SamRecordBudget;
 import com.hartwig.hmftools.sage.variant.SageVariant;
 import com.hartwig.hmftools.sage.variant.SageVariantContextFactory;
 import com.hartwig.hmftools.sage.variant.SageVariantTier;
@@ -29,32 +28,44 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
 
-import htsjdk.samtools.reference.IndexedFastaSequenceFile;
-import htsjdk.variant.variantcontext.VariantContext;
-
-public class ChromosomePipeline implements AutoCloseable {
+public class ChromosomePipeline {
 
     private static final Logger LOGGER = LogManager.getLogger(ChromosomePipeline.class);
     private static final EnumSet<SageVariantTier> PANEL_ONLY_TIERS = EnumSet.of(SageVariantTier.HOTSPOT, SageVariantTier.PANEL);
 
     private final String chromosome;
     private final SageConfig config;
-    private final List<RegionFuture<List<SageVariant>>> regions = Lists.newArrayList();
-    private final IndexedFastaSequenceFile refGenome;
+    private final Executor executor;
+    private final Semaphore regionPermits;
+    private final SamReaderPool readerPool;
+    private final SlicePlanner slicePlanner;
     private final SageVariantPipeline sageVariantPipeline;
-    private final Consumer<VariantContext> consumer;
+    private final OrderedChromosomeConsumer.ChromosomeBuffer consumer;
+    private final SageMetrics metrics;
 
     public ChromosomePipeline(@NotNull final String chromosome, @NotNull final SageConfig config, @NotNull final Executor executor,
             @NotNull final List<VariantHotspot> hotspots, @NotNull final List<GenomeRegion> panelRegions,
             @NotNull final List<GenomeRegion> highConfidenceRegions, final Map<String, QualityRecalibrationMap> qualityRecalibrationMap,
-            final Consumer<VariantContext> consumer)
-            throws IOException {
+            @NotNull final SamReaderPool readerPool, @NotNull final Semaphore regionPermits,
+            @NotNull final OrderedChromosomeConsumer.ChromosomeBuffer consumer, @NotNull final SamRecordBudget readBudget,
+            @NotNull final SageMetrics metrics) {
         this.chromosome = chromosome;
+        this.metrics = metrics;
         this.config = config;
-        this.refGenome = new IndexedFastaSequenceFile(new File(config.refGenome()));
+        this.executor = executor;
+        this.regionPermits = regionPermits;
+        this.readerPool = readerPool;
         this.consumer = consumer;
-        this.sageVariantPipeline =
-                new SomaticPipeline(config, executor, refGenome, hotspots, panelRegions, highConfidenceRegions, qualityRecalibrationMap);
+        this.slicePlanner = new SlicePlanner(config, readerPool);
+        this.sageVariantPipeline = new SomaticPipeline(config,
+                executor,
+                readerPool,
+                hotspots,
+                panelRegions,
+                highConfidenceRegions,
+                qualityRecalibrationMap,
+                readBudget,
+                metrics);
     }
 
     @NotNull
@@ -63,58 +74,79 @@ public class ChromosomePipeline implements AutoCloseable {
     }
 
     public void process() throws ExecutionException, InterruptedException {
-        process(1, refGenome.getSequence(chromosome).length());
+        submit().get();
     }
 
     public void process(int minPosition, int maxPosition) throws ExecutionException, InterruptedException {
-        // This is for the benefit of MT
-        int dynamicSliceSize = maxPosition / Math.min(config.threads(), 4) + 1;
-
-        final int regionSliceSize = Math.min(dynamicSliceSize, config.regionSliceSize());
-        for (int i = 0; ; i++) {
-            int start = minPosition + i * regionSliceSize;
-            int end = Math.min(start + regionSliceSize - 1, maxPosition);
-            addRegion(start, end);
-
-            if (end >= maxPosition) {
-                break;
-            }
-        }
-
-        submit().get();
+        submit(minPosition, maxPosition).get();
     }
 
-    private void addRegion(int start, int end) {
-        final GenomeRegion region = GenomeRegions.create(chromosome, start, end);
-        final CompletableFuture<List<SageVariant>> future = sageVariantPipeline.variants(region);
-        final RegionFuture<List<SageVariant>> regionFuture = new RegionFuture<>(region, future);
-        regions.add(regionFuture);
+    @NotNull
+    public CompletableFuture<ChromosomePipeline> submit() throws InterruptedException {
+        return submit(1, readerPool.refGenome().getSequenceDictionary().getSequence(chromosome).getSequenceLength());
     }
 
+    /**
+     * Submits each region once a permit is available. Permits are only returned once a region has been phased and its variants
+     * written, so the regions held in memory, whether unphased or phased but waiting behind an earlier chromosome, are bounded even
+     * when multiple chromosomes are in flight. Permits must be acquired in chromosome order so that the chromosome being written
+     * never waits on permits held by a later one.
+     */
     @NotNull
-    private CompletableFuture<ChromosomePipeline> submit() {
-        // Even if regions were executed out of order, they must be phased in order
-        regions.sort(Comparator.comparing(RegionFuture::region));
+    public CompletableFuture<ChromosomePipeline> submit(int minPosition, int maxPosition) throws InterruptedException {
+        // This is for the benefit of MT
+        int dynamicSliceSize = maxPosition / Math.min(config.threads(), 4) + 1;
+        final int regionSliceSize = Math.min(dynamicSliceSize, config.regionSliceSize());
+        final List<SlicePlanner.Slice> slices = slicePlanner.slices(chromosome, minPosition, maxPosition, regionSliceSize);
 
         // Phasing must be done in order but we can do it eagerly as each new region comes in.
         // It is not necessary to wait for the entire chromosome to be finished to start.
         CompletableFuture<Void> done = CompletableFuture.completedFuture(null);
         final Phase phase = new Phase(config, chromosome, this::write);
-        final Iterator<RegionFuture<List<SageVariant>>> regionsIterator = regions.iterator();
-        while (regionsIterator.hasNext()) {
-            CompletableFuture<List<SageVariant>> region = regionsIterator.next().future();
+        final long[] sliceMillis = new long[slices.size()];
+
+        for (int i = 0; i < slices.size(); i++) {
+            final SlicePlanner.Slice slice = slices.get(i);
+            final int sliceIndex = i;
+
+            regionPermits.acquire();
+            // The clock starts once the slice first runs on the executor so waiting for it to start is excluded. Its later stages
+            // still queue behind other slices, so this is elapsed time rather than compute time, which is recorded per stage in metrics.
+            final CompletableFuture<List<SageVariant>> region = CompletableFuture.supplyAsync(System::nanoTime, executor)
+                    .thenCompose(startTime -> sageVariantPipeline.variants(slice.region()).thenApply(sageVariants -> {
+                        sliceMillis[sliceIndex] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+                        LOGGER.debug("Slice {}:{}-{} with {} expected bytes completed in {}ms",
+                                chromosome,
+                                slice.region().start(),
+                                slice.region().end(),
+                                slice.expectedBytes(),
+                                sliceMillis[sliceIndex]);
+                        return sageVariants;
+                    }));
             done = done.thenCombine(region, (aVoid, sageVariants) -> {
-
+                final long phaseTime = System.nanoTime();
                 sageVariants.forEach(phase);
+                metrics.recordNanos(SageMetrics.Stage.PHASE, SageMetrics.ALL_SAMPLES, phaseTime);
+                metrics.completeRegion();
                 return null;
             });
-
-            regionsIterator.remove();
+            done.whenComplete((aVoid, throwable) -> {
+                if (throwable == null) {
+                    consumer.releaseWhenWritten(regionPermits::release);
+                } else {
+                    regionPermits.release();
+                }
+            });
         }
 
         return done.thenApply(aVoid -> {
             phase.flush();
-            LOGGER.info("Processing chromosome {} complete", chromosome);
+            Arrays.sort(sliceMillis);
+            LOGGER.info("Processing chromosome {} complete, {} slices taking median {}ms and max {}ms",
+                    chromosome,
+                    sliceMillis.length,
+                    sliceMillis[sliceMillis.length / 2],
+                    sliceMillis[sliceMillis.length - 1]);
             return ChromosomePipeline.this;
         });
     }
@@ -156,28 +188,4 @@ public class ChromosomePipeline implements AutoCloseable {
 
         return true;
     }
-
-    @Override
-    public void close() throws IOException {
-        refGenome.close();
-    }
-
-    private static class RegionFuture<T> {
-
-        private final CompletableFuture<T> future;
-        private final GenomeRegion region;
-
-        public RegionFuture(final GenomeRegion region, final CompletableFuture<T> future) {
-            this.region = region;
-            this.future = future;
-        }
-
-        public CompletableFuture<T> future() {
-            return future;
-        }
-
-        public GenomeRegion region() {
-            return region;
-        }
-    }
 }
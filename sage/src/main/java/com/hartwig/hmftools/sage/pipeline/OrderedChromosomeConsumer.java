@@ -0,0 +1,112 @@
+package com.hartwig.hmftools.sage.pipeline;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.google.common.collect.Lists;
+
+import org.jetbrains.annotations.NotNull;
+
+import htsjdk.variant.variantcontext.VariantContext;
+
+/**
+ * Allows multiple chromosomes to be processed concurrently while still writing them in the order they were registered.
+ * Output of the earliest incomplete chromosome is passed straight through, all later chromosomes are buffered until it completes.
+ *
+ * The buffers are bounded by the producers rather than here. A producer hands over a release action, typically returning a region
+ * permit, with the output of each region. The action runs once that output has been written, so a later chromosome cannot buffer more
+ * regions than it holds permits for while an earlier one is slow.
+ */
+public class OrderedChromosomeConsumer {
+
+    private final Consumer<VariantContext> consumer;
+    private final Deque<ChromosomeBuffer> chromosomes = new ArrayDeque<>();
+
+    public OrderedChromosomeConsumer(@NotNull final Consumer<VariantContext> consumer) {
+        this.consumer = consumer;
+    }
+
+    @NotNull
+    public synchronized ChromosomeBuffer register(@NotNull final String chromosome) {
+        final ChromosomeBuffer buffer = new ChromosomeBuffer(chromosome);
+        buffer.writing = chromosomes.isEmpty();
+        chromosomes.add(buffer);
+        return buffer;
+    }
+
+    /**
+     * Number of variants held back behind an incomplete earlier chromosome.
+     */
+    public synchronized int buffered() {
+        return chromosomes.stream().mapToInt(x -> x.variants.size()).sum();
+    }
+
+    private synchronized void accept(@NotNull final ChromosomeBuffer buffer, @NotNull final VariantContext context) {
+        if (buffer.writing) {
+            consumer.accept(context);
+        } else {
+            buffer.variants.add(context);
+        }
+    }
+
+    private synchronized void releaseWhenWritten(@NotNull final ChromosomeBuffer buffer, @NotNull final Runnable release) {
+        if (buffer.writing) {
+            release.run();
+        } else {
+            buffer.releases.add(release);
+        }
+    }
+
+    private synchronized void complete(@NotNull final ChromosomeBuffer buffer) {
+        buffer.complete = true;
+        while (!chromosomes.isEmpty() && chromosomes.peekFirst().complete) {
+            chromosomes.removeFirst();
+
+            final ChromosomeBuffer next = chromosomes.peekFirst();
+            if (next != null) {
+                next.writing = true;
+                next.variants.forEach(consumer);
+                next.variants.clear();
+                next.releases.forEach(Runnable::run);
+                next.releases.clear();
+            }
+        }
+    }
+
+    public class ChromosomeBuffer implements Consumer<VariantContext> {
+
+        private final String chromosome;
+        private final List<VariantContext> variants = Lists.newArrayList();
+        private final List<Runnable> releases = Lists.newArrayList();
+        private boolean writing;
+        private boolean complete;
+
+        private ChromosomeBuffer(@NotNull final String chromosome) {
+            this.chromosome = chromosome;
+        }
+
+        @NotNull
+        public String chromosome() {
+            return chromosome;
+        }
+
+        @Override
+        public void accept(@NotNull final VariantContext context) {
+            OrderedChromosomeConsumer.this.accept(this, context);
+        }
+
+        /**
+         * Runs the release once every variant accepted so far has been written, which is immediately if this is the chromosome
+         * being written.
+         */
+        public void releaseWhenWritten(@NotNull final Runnable release) {
+            OrderedChromosomeConsumer.this.releaseWhenWritten(this, release);
+        }
+
+        public void complete() {
+            OrderedChromosomeConsumer.this.complete(this);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.hartwig.hmftools.sage.pipeline;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.genome.region.GenomeRegion;
+import com.hartwig.hmftools.common.genome.region.GenomeRegions;
+import com.hartwig.hmftools.sage.config.SageConfig;
+import com.hartwig.hmftools.sage.sam.SamReaderPool;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import htsjdk.samtools.BAMFileSpan;
+import htsjdk.samtools.BAMIndex;
+import htsjdk.samtools.Chunk;
+import htsjdk.samtools.SamReader;
+
+/**
+ * Splits a chromosome into slices of roughly equal expected work. Work is estimated from the compressed bytes the bam (or cram) index
+ * attributes to each 16kb window, summed over every bam. Without index statistics the chromosome is split into fixed size slices.
+ * The span of a window includes the chunks of every higher level bin containing it, so each chunk is only counted in the first window
+ * it is seen in rather than in every window it overlaps.
+ */
+public class SlicePlanner {
+
+    private static final Logger LOGGER = LogManager.getLogger(SlicePlanner.class);
+
+    static final int WINDOW_SIZE = 16_384;
+    static final int MAX_SLICE_SIZE_MULTIPLE = 10;
+
+    // Chunks within a single bgzf block only have an uncompressed offset, assume typical compression
+    private static final int COMPRESSION_RATIO = 3;
+
+    private final SageConfig config;
+    private final SamReaderPool readerPool;
+
+    public SlicePlanner(@NotNull final SageConfig config, @NotNull final SamReaderPool readerPool) {
+        this.config = config;
+        this.readerPool = readerPool;
+    }
+
+    @NotNull
+    public List<Slice> slices(@NotNull final String chromosome, int minPosition, int maxPosition, int sliceSize) {
+        if (config.adaptiveSlicing()) {
+            final long[] windowBytes = windowBytes(chromosome, minPosition, maxPosition);
+            if (windowBytes != null) {
+                return adaptiveSlices(chromosome, minPosition, maxPosition, sliceSize, windowBytes);
+            }
+
+            LOGGER.debug("No index statistics available for chromosome {}, using fixed slices", chromosome);
+        }
+
+        return fixedSlices(chromosome, minPosition, maxPosition, sliceSize);
+    }
+
+    @NotNull
+    static List<Slice> fixedSlices(@NotNull final String chromosome, int minPosition, int maxPosition, int sliceSize) {
+        final List<Slice> result = Lists.newArrayList();
+        for (int i = 0; ; i++) {
+            int start = minPosition + i * sliceSize;
+            int end = Math.min(start + sliceSize - 1, maxPosition);
+            result.add(new Slice(GenomeRegions.create(chromosome, start, end), 0));
+
+            if (end >= maxPosition) {
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Produces as many slices as fixed slicing would but with boundaries chosen so each holds an equal share of the estimated bytes.
+     * Slices never span more than MAX_SLICE_SIZE_MULTIPLE fixed slices so that sparse regions do not require excessive ref sequence.
+     */
+    @VisibleForTesting
+    @NotNull
+    static List<Slice> adaptiveSlices(@NotNull final String chromosome, int minPosition, int maxPosition, int sliceSize,
+            @NotNull final long[] windowBytes) {
+        long totalBytes = 0;
+        for (long bytes : windowBytes) {
+            totalBytes += bytes;
+        }
+
+        if (totalBytes == 0) {
+            return fixedSlices(chromosome, minPosition, maxPosition, sliceSize);
+        }
+
+        final int expectedSlices = (maxPosition - minPosition) / sliceSize + 1;
+        final double targetBytes = (double) totalBytes / expectedSlices;
+        final long maxSliceSize = (long) MAX_SLICE_SIZE_MULTIPLE * sliceSize;
+
+        final List<Slice> result = Lists.newArrayList();
+        int start = minPosition;
+        long sliceBytes = 0;
+        for (int i = 0; i < windowBytes.length; i++) {
+            final int windowEnd = Math.min(minPosition + (i + 1) * WINDOW_SIZE - 1, maxPosition);
+            sliceBytes += windowBytes[i];
+
+            boolean lastWindow = windowEnd >= maxPosition;
+            boolean nextWindowExceedsMaxSize = windowEnd + WINDOW_SIZE - start + 1 > maxSliceSize;
+            if (lastWindow || sliceBytes >= targetBytes || nextWindowExceedsMaxSize) {
+                result.add(new Slice(GenomeRegions.create(chromosome, start, windowEnd), sliceBytes));
+                start = windowEnd + 1;
+                sliceBytes = 0;
+            }
+
+            if (lastWindow) {
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    @Nullable
+    private long[] windowBytes(@NotNull final String chromosome, int minPosition, int maxPosition) {
+        final int windows = (maxPosition - minPosition) / WINDOW_SIZE + 1;
+        final long[] result = new long[windows];
+
+        final List<String> bams = Lists.newArrayList(config.referenceBam());
+        bams.addAll(config.tumorBam());
+        for (String bam : bams) {
+            try {
+                final SamReader reader = readerPool.reader(bam);
+                if (!reader.hasIndex()) {
+                    return null;
+                }
+
+                final int referenceIndex = reader.getFileHeader().getSequenceIndex(chromosome);
+                if (referenceIndex < 0) {
+                    return null;
+                }
+
+                final BAMIndex index = reader.indexing().getIndex();
+                final TreeMap<Long, Long> counted = new TreeMap<>();
+                for (int i = 0; i < windows; i++) {
+                    int start = minPosition + i * WINDOW_SIZE;
+                    int end = Math.min(start + WINDOW_SIZE - 1, maxPosition);
+                    result[i] += uncountedBytes(index.getSpanOverlapping(referenceIndex, start, end), counted);
+                }
+            } catch (Exception e) {
+                LOGGER.debug("Unable to read index statistics of {}: {}", bam, e.getMessage());
+                return null;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Bytes of the span not already in counted, which is a map of disjoint virtual offset ranges from start to end. The span is then
+     * added to counted.
+     */
+    @VisibleForTesting
+    static long uncountedBytes(@Nullable final BAMFileSpan span, @NotNull final TreeMap<Long, Long> counted) {
+        if (span == null) {
+            return 0;
+        }
+
+        long result = 0;
+        for (Chunk chunk : span.getChunks()) {
+            long start = chunk.getChunkStart();
+            long end = chunk.getChunkEnd();
+
+            final Map.Entry<Long, Long> previous = counted.floorEntry(start);
+            if (previous != null && previous.getValue() >= start) {
+                start = previous.getKey();
+                end = Math.max(end, previous.getValue());
+            }
+
+            // Count the gaps between the ranges already counted and merge them into a single range
+            long position = chunk.getChunkStart();
+            final Iterator<Map.Entry<Long, Long>> overlapping = counted.subMap(start, true, end, true).entrySet().iterator();
+            while (overlapping.hasNext()) {
+                final Map.Entry<Long, Long> range = overlapping.next();
+                result += bytes(position, range.getKey());
+                position = Math.max(position, range.getValue());
+                end = Math.max(end, range.getValue());
+                overlapping.remove();
+            }
+            result += bytes(position, chunk.getChunkEnd());
+            counted.put(start, end);
+        }
+
+        return result;
+    }
+
+    private static long bytes(long startOffset, long endOffset) {
+        if (endOffset <= startOffset) {
+            return 0;
+        }
+
+        long startBlock = startOffset >>> 16;
+        long endBlock = endOffset >>> 16;
+        if (endBlock > startBlock) {
+            return endBlock - startBlock;
+        }
+
+        return Math.max(0, (endOffset & 0xFFFF) - (startOffset & 0xFFFF)) / COMPRESSION_RATIO;
+    }
+
+    public static class Slice {
+
+        private final GenomeRegion region;
+        private final long expectedBytes;
+
+        Slice(@NotNull final GenomeRegion region, long expectedBytes) {
+            this.region = region;
+            this.expectedBytes = expectedBytes;
+        }
+
+        @NotNull
+        public GenomeRegion region() {
+            return region;
+        }
+
+        public long expectedBytes() {
+            return expectedBytes;
+        }
+    }
+}
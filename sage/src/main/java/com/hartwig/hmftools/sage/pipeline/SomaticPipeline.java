@@ -2,6 +2,7 @@ package com.hartwig.hmftools.sage.pipeline;
 
 import static java.util.concurrent.CompletableFuture.supplyAsync;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -9,16 +10,22 @@ import java.util.concurrent.Executor;
 
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.genome.region.GenomeRegion;
+import com.hartwig.hmftools.common.genome.region.GenomeRegions;
 import com.hartwig.hmftools.common.variant.hotspot.VariantHotspot;
 import com.hartwig.hmftools.sage.candidate.Candidate;
 import com.hartwig.hmftools.sage.candidate.Candidates;
 import com.hartwig.hmftools.sage.config.SageConfig;
+import com.hartwig.hmftools.sage.context.AltContext;
 import com.hartwig.hmftools.sage.evidence.CandidateEvidence;
 import com.hartwig.hmftools.sage.evidence.ReadContextEvidence;
+import com.hartwig.hmftools.sage.metrics.SageMetrics;
 import com.hartwig.hmftools.sage.quality.QualityRecalibrationMap;
 import com.hartwig.hmftools.sage.read.ReadContextCounter;
 import com.hartwig.hmftools.sage.read.ReadContextCounters;
 import com.hartwig.hmftools.sage.ref.RefSequence;
+import com.hartwig.hmftools.sage.sam.SamReaderPool;
+import com.hartwig.hmftools.sage.sam.SamRecordBuffer;
+import com.hartwig.hmftools.sage.sam.SamRecordBudget;
 import com.hartwig.hmftools.sage.sam.SamSlicerFactory;
 import com.hartwig.hmftools.sage.variant.SageVariant;
 import com.hartwig.hmftools.sage.variant.SageVariantFactory;
@@ -26,8 +33,7 @@ import com.hartwig.hmftools.sage.variant.SageVariantFactory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
-
-import htsjdk.samtools.reference.ReferenceSequenceFile;
+import org.jetbrains.annotations.Nullable;
 
 public class SomaticPipeline implements SageVariantPipeline {
 
@@ -36,90 +42,154 @@ public class SomaticPipeline implements SageVariantPipeline {
     private final SageConfig config;
     private final Executor executor;
     private final List<VariantHotspot> hotspots;
-    private final ReferenceSequenceFile refGenome;
+    private final SamReaderPool readerPool;
     private final List<GenomeRegion> panelRegions;
     private final CandidateEvidence candidateEvidence;
     private final ReadContextEvidence readContextEvidence;
     private final List<GenomeRegion> highConfidenceRegions;
+    private final SageMetrics metrics;
+    private final SamRecordBudget readBudget;
 
-    SomaticPipeline(@NotNull final SageConfig config, @NotNull final Executor executor, @NotNull final ReferenceSequenceFile refGenome,
+    SomaticPipeline(@NotNull final SageConfig config, @NotNull final Executor executor, @NotNull final SamReaderPool readerPool,
             @NotNull final List<VariantHotspot> hotspots, @NotNull final List<GenomeRegion> panelRegions,
             @NotNull final List<GenomeRegion> highConfidenceRegions,
-            @NotNull final Map<String, QualityRecalibrationMap> qualityRecalibrationMap) {
+            @NotNull final Map<String, QualityRecalibrationMap> qualityRecalibrationMap, @NotNull final SamRecordBudget readBudget,
+            @NotNull final SageMetrics metrics) {
         this.config = config;
+        this.readBudget = readBudget;
+        this.metrics = metrics;
         this.executor = executor;
         final SamSlicerFactory samSlicerFactory = new SamSlicerFactory(config, panelRegions);
         this.hotspots = hotspots;
         this.panelRegions = panelRegions;
         this.highConfidenceRegions = highConfidenceRegions;
-        this.candidateEvidence = new CandidateEvidence(config, hotspots, panelRegions, samSlicerFactory, refGenome);
-        this.readContextEvidence = new ReadContextEvidence(config, samSlicerFactory, refGenome, qualityRecalibrationMap);
-        this.refGenome = refGenome;
+        this.candidateEvidence = new CandidateEvidence(config, hotspots, panelRegions, samSlicerFactory, readerPool, metrics);
+        this.readContextEvidence = new ReadContextEvidence(config, samSlicerFactory, readerPool, qualityRecalibrationMap, metrics);
+        this.readerPool = readerPool;
     }
 
     @NotNull
     public CompletableFuture<List<SageVariant>> variants(@NotNull final GenomeRegion region) {
-        final CompletableFuture<RefSequence> refSequenceFuture = supplyAsync(() -> new RefSequence(region, refGenome), executor);
+        final CompletableFuture<RefSequence> refSequenceFuture = supplyAsync(() -> new RefSequence(region, readerPool.refGenome()), executor);
+
+        // Tumor records are retained from the candidate pass so that the tumor bams only need to be read once
+        final List<SamRecordBuffer> tumorReads = tumorReadBuffers(region);
 
-        final CompletableFuture<List<Candidate>> initialCandidates = bamCandidates(region, refSequenceFuture);
-        final CompletableFuture<ReadContextCounters> tumorEvidence = bamEvidence(region, config.tumor(), config.tumorBam(), initialCandidates);
+        final CompletableFuture<List<Candidate>> initialCandidates = bamCandidates(region, refSequenceFuture, tumorReads);
+        final CompletableFuture<ReadContextCounters> tumorEvidence =
+                bamEvidence(SageMetrics.Stage.TUMOR_EVIDENCE, region, config.tumor(), config.tumorBam(), tumorReads, initialCandidates);
 
         final CompletableFuture<List<Candidate>> finalCandidates = filteredCandidates(tumorEvidence);
-        final CompletableFuture<ReadContextCounters> normalEvidence = bamEvidence(region, config.reference(), config.referenceBam(), finalCandidates);
+        final CompletableFuture<ReadContextCounters> normalEvidence =
+                bamEvidence(SageMetrics.Stage.NORMAL_EVIDENCE,
+                        region,
+                        config.reference(),
+                        config.referenceBam(),
+                        Collections.emptyList(),
+                        finalCandidates);
+
+        // Return the buffered bases to the shared budget even if an earlier stage failed before the buffers were replayed
+        return combine(region, finalCandidates, tumorEvidence, normalEvidence)
+                .whenComplete((variants, throwable) -> tumorReads.forEach(SamRecordBuffer::clear));
+    }
 
-        return combine(region, finalCandidates, tumorEvidence, normalEvidence);
+    @NotNull
+    private List<SamRecordBuffer> tumorReadBuffers(@NotNull final GenomeRegion region) {
+        if (config.maxBufferedBases() <= 0) {
+            return Collections.emptyList();
+        }
+
+        final GenomeRegion bounds = GenomeRegions.create(region.chromosome(),
+                Math.max(region.start() - config.typicalReadLength(), 1),
+                region.end() + config.typicalReadLength());
+
+        final List<SamRecordBuffer> result = Lists.newArrayList();
+        for (int i = 0; i < config.tumor().size(); i++) {
+            result.add(new SamRecordBuffer(bounds, readBudget));
+        }
+        return result;
+    }
+
+    @Nullable
+    private static SamRecordBuffer buffer(@NotNull final List<SamRecordBuffer> buffers, int index) {
+        return index < buffers.size() ? buffers.get(index) : null;
     }
 
     @NotNull
     private CompletableFuture<List<Candidate>> bamCandidates(@NotNull final GenomeRegion region,
-            final CompletableFuture<RefSequence> refSequenceFuture) {
+            final CompletableFuture<RefSequence> refSequenceFuture, @NotNull final List<SamRecordBuffer> buffers) {
         return refSequenceFuture.thenCompose(refSequence -> {
             if (region.start() == 1) {
                 LOGGER.info("Processing chromosome {}", region.chromosome());
             }
             LOGGER.debug("Processing candidates in {}:{}", region.chromosome(), region.start());
+            final long startTime = System.nanoTime();
 
-            final Candidates initialCandidates = new Candidates(hotspots, panelRegions, highConfidenceRegions);
-
-            CompletableFuture<Void> done = CompletableFuture.completedFuture(null);
+            // Each sample is scanned concurrently but added in sample order so the candidates are deterministic
+            final List<CompletableFuture<List<AltContext>>> sampleAltContexts = Lists.newArrayList();
             for (int i = 0; i < config.tumor().size(); i++) {
                 final String sample = config.tumor().get(i);
                 final String sampleBam = config.tumorBam().get(i);
-                done = done.thenApply(aVoid -> candidateEvidence.get(sample, sampleBam, refSequence, region))
-                        .thenAccept(initialCandidates::add);
+                final SamRecordBuffer buffer = buffer(buffers, i);
+                sampleAltContexts.add(supplyAsync(() -> candidateEvidence.get(sample, sampleBam, refSequence, region, buffer), executor));
             }
-            return done.thenApply(y -> initialCandidates.candidates());
+
+            return allOf(sampleAltContexts).thenApply(aVoid -> {
+                final Candidates initialCandidates = new Candidates(hotspots, panelRegions, highConfidenceRegions);
+                sampleAltContexts.forEach(x -> initialCandidates.add(x.join()));
+                metrics.recordNanos(SageMetrics.Stage.CANDIDATES, SageMetrics.ALL_SAMPLES, startTime);
+                return initialCandidates.candidates();
+            });
         });
     }
 
     @NotNull
-    private CompletableFuture<ReadContextCounters> bamEvidence(@NotNull final GenomeRegion region, @NotNull final List<String> samples,
-            @NotNull final List<String> sampleBams, @NotNull final CompletableFuture<List<Candidate>> candidates) {
+    private CompletableFuture<ReadContextCounters> bamEvidence(@NotNull final SageMetrics.Stage stage, @NotNull final GenomeRegion region,
+            @NotNull final List<String> samples,
+            @NotNull final List<String> sampleBams, @NotNull final List<SamRecordBuffer> buffers,
+            @NotNull final CompletableFuture<List<Candidate>> candidates) {
         // Scan tumors for evidence
         return candidates.thenCompose(initialCandidates -> {
             LOGGER.debug("Scanning for evidence in {}:{}", region.chromosome(), region.start());
+            final long startTime = System.nanoTime();
             final String primarySample = samples.isEmpty() ? "PRIMARY" : samples.get(0);
 
-            final ReadContextCounters result = new ReadContextCounters(primarySample, initialCandidates);
-
-            CompletableFuture<Void> done = CompletableFuture.completedFuture(null);
+            final List<CompletableFuture<List<ReadContextCounter>>> sampleCounters = Lists.newArrayList();
             for (int i = 0; i < samples.size(); i++) {
                 final String sample = samples.get(i);
                 final String sampleBam = sampleBams.get(i);
-
-                done = done.thenApply(x -> readContextEvidence.get(initialCandidates, sample, sampleBam)).thenAccept(result::addCounters);
+                final SamRecordBuffer buffer = buffer(buffers, i);
+
+                sampleCounters.add(supplyAsync(() -> {
+                    final List<ReadContextCounter> counters = readContextEvidence.get(stage, initialCandidates, sample, sampleBam, buffer);
+                    if (buffer != null) {
+                        buffer.clear();
+                    }
+                    return counters;
+                }, executor));
             }
 
-            return done.thenApply(x -> result);
+            return allOf(sampleCounters).thenApply(aVoid -> {
+                final ReadContextCounters result = new ReadContextCounters(primarySample, initialCandidates);
+                sampleCounters.forEach(x -> result.addCounters(x.join()));
+                metrics.recordNanos(stage, SageMetrics.ALL_SAMPLES, startTime);
+                return result;
+            });
         });
     }
 
+    @NotNull
+    private static CompletableFuture<Void> allOf(@NotNull final List<? extends CompletableFuture<?>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
     @NotNull
     private CompletableFuture<List<SageVariant>> combine(@NotNull final GenomeRegion region,
             final CompletableFuture<List<Candidate>> candidates, final CompletableFuture<ReadContextCounters> doneTumor,
             final CompletableFuture<ReadContextCounters> doneNormal) {
         return doneNormal.thenCombine(doneTumor, (normalCandidates, tumorCandidates) -> {
             LOGGER.debug("Gathering evidence in {}:{}", region.chromosome(), region.start());
+            final long startTime = System.nanoTime();
             final SageVariantFactory variantFactory = new SageVariantFactory(config.filter());
 
             // Combine normal and tumor together and create variants
@@ -131,6 +201,7 @@ public class SomaticPipeline implements SageVariantPipeline {
                 result.add(sageVariant);
             }
 
+            metrics.recordNanos(SageMetrics.Stage.COMBINE, SageMetrics.ALL_SAMPLES, startTime);
             return result;
         });
     }
@@ -36,6 +36,7 @@ public class PonApplication implements AutoCloseable {
     private static final String THREADS = "threads";
     private static final String IN_VCF = "in";
     private static final String OUT_VCF = "out";
+    private static final String STREAMING = "streaming";
     private static final String GLOB = "*.sage.somatic.vcf.gz";
 
     public static void main(String[] args) throws IOException, ParseException, ExecutionException, InterruptedException {
@@ -44,6 +45,7 @@ public class PonApplication implements AutoCloseable {
         final String inputFilePath = cmd.getOptionValue(IN_VCF);
         final String outputFilePath = cmd.getOptionValue(OUT_VCF);
         final int threads = Configs.defaultIntValue(cmd, THREADS, 5);
+        final boolean streaming = cmd.hasOption(STREAMING);
 
         if (outputFilePath == null || inputFilePath == null) {
             final HelpFormatter formatter = new HelpFormatter();
@@ -52,7 +54,11 @@ public class PonApplication implements AutoCloseable {
         }
 
         try (PonApplication app = new PonApplication(threads, inputFilePath, outputFilePath)) {
-            app.run();
+            if (streaming) {
+                app.runStreaming();
+            } else {
+                app.run();
+            }
         }
     }
 
@@ -106,6 +112,18 @@ public class PonApplication implements AutoCloseable {
         }
     }
 
+    private void runStreaming() {
+        if (files.isEmpty()) {
+            return;
+        }
+
+        final VCFFileReader dictionaryReader = new VCFFileReader(files.get(0), false);
+        SAMSequenceDictionary dictionary = dictionaryReader.getFileHeader().getSequenceDictionary();
+        dictionaryReader.close();
+
+        new PonMerger(dictionary, vcf::write).merge(files);
+    }
+
     private void addVariantsFromFileToBuilder(final PonBuilder ponBuilder, final SAMSequenceRecord samSequenceRecord, final Path file) {
         try (VCFFileReader fileReader = new VCFFileReader(file.toFile(), true)) {
             CloseableIterator<VariantContext> iter =
@@ -129,6 +147,7 @@ public class PonApplication implements AutoCloseable {
         options.addOption(IN_VCF, true, "Input file.");
         options.addOption(OUT_VCF, true, "Output file.");
         options.addOption(THREADS, true, "Number of threads [1]");
+        options.addOption(STREAMING, false, "Merge all inputs in a single sorted pass with memory bounded by the number of inputs");
         return options;
     }
 
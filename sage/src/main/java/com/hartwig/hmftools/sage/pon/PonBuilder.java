@@ -43,11 +43,17 @@ public class PonBuilder {
         return map.values()
                 .stream()
                 .filter(x -> x.counter() >= MIN_OUTPUT_COUNT)
-                .sorted(Comparator.comparing(o -> o.hotspot))
+                .sorted(Comparator.comparing((Counter o) -> o.hotspot)
+                        .thenComparing(o -> o.hotspot.ref())
+                        .thenComparing(o -> o.hotspot.alt()))
                 .map(PonBuilder::context)
                 .collect(Collectors.toList());
     }
 
+    void clear() {
+        map.clear();
+    }
+
     @NotNull
     private static VariantHotspot hotspot(@NotNull final VariantContext context) {
         return ImmutableVariantHotspotImpl.builder()
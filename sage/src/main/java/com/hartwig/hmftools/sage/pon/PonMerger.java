@@ -0,0 +1,125 @@
+package com.hartwig.hmftools.sage.pon;
+
+import java.io.File;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+import com.google.common.collect.Lists;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
+
+/**
+ * Streams every input vcf once and merges their sorted records with a heap. Variants are aggregated one position at a time and
+ * written as soon as the merge passes that position, so memory is bounded by the number of inputs rather than the number of variants.
+ */
+class PonMerger {
+
+    private static final Logger LOGGER = LogManager.getLogger(PonMerger.class);
+
+    private final SAMSequenceDictionary dictionary;
+    private final Consumer<VariantContext> consumer;
+
+    PonMerger(@NotNull final SAMSequenceDictionary dictionary, @NotNull final Consumer<VariantContext> consumer) {
+        this.dictionary = dictionary;
+        this.consumer = consumer;
+    }
+
+    void merge(@NotNull final List<File> files) {
+        final List<Input> inputs = Lists.newArrayList();
+        final PriorityQueue<Input> queue = new PriorityQueue<>(Math.max(1, files.size()),
+                Comparator.<Input>comparingInt(x -> x.contigIndex).thenComparingInt(x -> x.position));
+        try {
+            for (File file : files) {
+                final Input input = new Input(file);
+                inputs.add(input);
+                if (input.advance()) {
+                    queue.add(input);
+                }
+            }
+
+            final PonBuilder positionBuilder = new PonBuilder();
+            int currentContigIndex = -1;
+            while (!queue.isEmpty()) {
+                final Input first = queue.poll();
+                final int contigIndex = first.contigIndex;
+                final int position = first.position;
+                if (contigIndex != currentContigIndex) {
+                    LOGGER.info("Processing sequence {}", first.current.getContig());
+                    currentContigIndex = contigIndex;
+                }
+
+                positionBuilder.add(first.current);
+                if (first.advance()) {
+                    queue.add(first);
+                }
+
+                while (!queue.isEmpty() && queue.peek().contigIndex == contigIndex && queue.peek().position == position) {
+                    final Input next = queue.poll();
+                    positionBuilder.add(next.current);
+                    if (next.advance()) {
+                        queue.add(next);
+                    }
+                }
+
+                positionBuilder.build().forEach(consumer);
+                positionBuilder.clear();
+            }
+        } finally {
+            inputs.forEach(Input::close);
+        }
+    }
+
+    private class Input {
+
+        private final File file;
+        private final VCFFileReader reader;
+        private final CloseableIterator<VariantContext> iterator;
+
+        private VariantContext current;
+        private int contigIndex = -1;
+        private int position;
+
+        Input(@NotNull final File file) {
+            this.file = file;
+            this.reader = new VCFFileReader(file, false);
+            this.iterator = reader.iterator();
+        }
+
+        boolean advance() {
+            while (iterator.hasNext()) {
+                final VariantContext next = iterator.next();
+                final int nextContigIndex = dictionary.getSequenceIndex(next.getContig());
+                if (nextContigIndex < 0) {
+                    continue;
+                }
+
+                if (nextContigIndex < contigIndex || (nextContigIndex == contigIndex && next.getStart() < position)) {
+                    throw new IllegalStateException(
+                            "Input " + file + " is not sorted at " + next.getContig() + ":" + next.getStart());
+                }
+
+                current = next;
+                contigIndex = nextContigIndex;
+                position = next.getStart();
+                return true;
+            }
+
+            current = null;
+            return false;
+        }
+
+        void close() {
+            iterator.close();
+            reader.close();
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package com.hartwig.hmftools.sage.quality;
 
-import java.io.File;
 import java.util.Collection;
 import java.util.concurrent.CompletionException;
 
@@ -8,28 +7,24 @@ import com.hartwig.hmftools.common.genome.region.GenomeRegion;
 import com.hartwig.hmftools.sage.SageApplication;
 import com.hartwig.hmftools.sage.config.BaseQualityRecalibrationConfig;
 import com.hartwig.hmftools.sage.ref.RefSequence;
+import com.hartwig.hmftools.sage.sam.SamReaderPool;
 import com.hartwig.hmftools.sage.sam.SamSlicer;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
 
-import htsjdk.samtools.SamReader;
-import htsjdk.samtools.SamReaderFactory;
-import htsjdk.samtools.cram.ref.ReferenceSource;
-import htsjdk.samtools.reference.ReferenceSequenceFile;
-
 class QualityCounterFactory {
 
     private static final Logger LOGGER = LogManager.getLogger(SageApplication.class);
 
     private final String bamFile;
-    private final ReferenceSequenceFile refGenome;
+    private final SamReaderPool readerPool;
     private final BaseQualityRecalibrationConfig config;
 
-    public QualityCounterFactory(final BaseQualityRecalibrationConfig config, final String bamFile, final ReferenceSequenceFile refGenome ) {
+    public QualityCounterFactory(final BaseQualityRecalibrationConfig config, final String bamFile, final SamReaderPool readerPool) {
         this.bamFile = bamFile;
-        this.refGenome = refGenome;
+        this.readerPool = readerPool;
         this.config = config;
     }
 
@@ -37,16 +32,11 @@ class QualityCounterFactory {
     public Collection<QualityCounter> regionCount(@NotNull final GenomeRegion bounds) {
         LOGGER.debug("Processing bqr region {}", bounds);
 
-        final RefSequence refSequence = new RefSequence(bounds, refGenome);
+        final RefSequence refSequence = new RefSequence(bounds, readerPool.refGenome());
         final QualityCounterCigarHandler counter = new QualityCounterCigarHandler(refSequence, bounds, config.maxAltCount());
         final SamSlicer slicer = new SamSlicer(config.minMapQuality(), bounds);
-        try (final SamReader tumorReader = SamReaderFactory.makeDefault()
-                .referenceSource(new ReferenceSource(refGenome))
-                .open(new File(bamFile))) {
-
-            // First parse
-            slicer.slice(tumorReader, counter::processRecord);
-
+        try {
+            slicer.slice(readerPool.reader(bamFile), counter::processRecord);
         } catch (Exception e) {
             throw new CompletionException(e);
         }
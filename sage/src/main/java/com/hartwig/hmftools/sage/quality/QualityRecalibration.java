@@ -14,22 +14,22 @@ import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.genome.region.GenomeRegion;
 import com.hartwig.hmftools.common.genome.region.GenomeRegions;
 import com.hartwig.hmftools.sage.config.BaseQualityRecalibrationConfig;
+import com.hartwig.hmftools.sage.sam.SamReaderPool;
 
 import org.jetbrains.annotations.NotNull;
 
 import htsjdk.samtools.SAMSequenceRecord;
-import htsjdk.samtools.reference.IndexedFastaSequenceFile;
 
 public class QualityRecalibration {
 
     private final ExecutorService executorService;
-    private final IndexedFastaSequenceFile refGenome;
+    private final SamReaderPool readerPool;
     private final BaseQualityRecalibrationConfig config;
 
     public QualityRecalibration(final BaseQualityRecalibrationConfig config, final ExecutorService executorService,
-            final IndexedFastaSequenceFile refGenome) {
+            final SamReaderPool readerPool) {
         this.executorService = executorService;
-        this.refGenome = refGenome;
+        this.readerPool = readerPool;
         this.config = config;
     }
 
@@ -38,7 +38,7 @@ public class QualityRecalibration {
         final Map<QualityCounterKey, QualityCounter> map = new ConcurrentHashMap<>(Maps.newHashMap());
         final List<CompletableFuture<Void>> doneList = Lists.newArrayList();
 
-        for (final SAMSequenceRecord sequenceRecord : refGenome.getSequenceDictionary().getSequences()) {
+        for (final SAMSequenceRecord sequenceRecord : readerPool.refGenome().getSequenceDictionary().getSequences()) {
             final String contig = sequenceRecord.getSequenceName();
 
             if (HumanChromosome.contains(contig) && HumanChromosome.fromString(contig).isAutosome()) {
@@ -65,7 +65,7 @@ public class QualityRecalibration {
 
     public CompletableFuture<Collection<QualityCounter>> addRegion(String bam, String contig, int start, int end) {
         final GenomeRegion bounds = GenomeRegions.create(contig, start, end);
-        return CompletableFuture.supplyAsync(() -> new QualityCounterFactory(config, bam, refGenome).regionCount(bounds),
+        return CompletableFuture.supplyAsync(() -> new QualityCounterFactory(config, bam, readerPool).regionCount(bounds),
                 executorService);
     }
 
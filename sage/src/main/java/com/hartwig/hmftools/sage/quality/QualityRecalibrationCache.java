@@ -0,0 +1,115 @@
+package com.hartwig.hmftools.sage.quality;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+import com.google.common.hash.Hashing;
+import com.hartwig.hmftools.sage.config.BaseQualityRecalibrationConfig;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import htsjdk.samtools.SamFiles;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+
+/**
+ * Recalibration records are cached per bam under a fingerprint of the bam (size, modification time, header and index checksum),
+ * the reference genome (absolute path, size and modification time) and the recalibration settings. Any change to these results in a
+ * different cache file and the records being recalculated.
+ */
+public class QualityRecalibrationCache {
+
+    private static final Logger LOGGER = LogManager.getLogger(QualityRecalibrationCache.class);
+    private static final String EXTENSION = ".sage.bqr.cache.tsv";
+
+    private final BaseQualityRecalibrationConfig config;
+    private final String refGenome;
+    private final String version;
+
+    public QualityRecalibrationCache(@NotNull final BaseQualityRecalibrationConfig config, @NotNull final String refGenome,
+            @NotNull final String version) {
+        this.config = config;
+        this.refGenome = refGenome;
+        this.version = version;
+    }
+
+    @NotNull
+    public Optional<List<QualityRecalibrationRecord>> read(@NotNull final String bam) {
+        if (!config.cache()) {
+            return Optional.empty();
+        }
+
+        try {
+            final File cacheFile = cacheFile(bam);
+            if (cacheFile.exists()) {
+                LOGGER.info("Reading cached base quality recalibration file: {}", cacheFile);
+                return Optional.of(QualityRecalibrationFile.read(cacheFile.toString()));
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Unable to read cached base quality recalibration of {}: {}", bam, e.getMessage());
+        }
+
+        return Optional.empty();
+    }
+
+    public void write(@NotNull final String bam, @NotNull final List<QualityRecalibrationRecord> records) {
+        if (!config.cache()) {
+            return;
+        }
+
+        try {
+            final File cacheFile = cacheFile(bam);
+            final Path directory = Files.createDirectories(cacheFile.getAbsoluteFile().getParentFile().toPath());
+            final Path tempFile = Files.createTempFile(directory, cacheFile.getName(), ".tmp");
+            QualityRecalibrationFile.writeExact(tempFile.toString(), records);
+            Files.move(tempFile, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.info("Writing cached base quality recalibration file: {}", cacheFile);
+        } catch (Exception e) {
+            LOGGER.warn("Unable to write cached base quality recalibration of {}: {}", bam, e.getMessage());
+        }
+    }
+
+    @NotNull
+    File cacheFile(@NotNull final String bam) throws IOException {
+        final File bamFile = new File(bam);
+        final File directory = config.cacheDir().isEmpty() ? bamFile.getAbsoluteFile().getParentFile() : new File(config.cacheDir());
+        return new File(directory, bamFile.getName() + "." + fingerprint(bamFile) + EXTENSION);
+    }
+
+    @NotNull
+    String fingerprint(@NotNull final File bamFile) throws IOException {
+        final String header;
+        try (SamReader reader = SamReaderFactory.makeDefault().open(bamFile)) {
+            header = reader.getFileHeader().getSAMString();
+        }
+
+        @Nullable
+        final File index = SamFiles.findIndex(bamFile);
+        final String indexChecksum = index == null ? "" : com.google.common.io.Files.asByteSource(index).hash(Hashing.crc32()).toString();
+        final File refGenomeFile = new File(refGenome);
+
+        final String fingerprint = new StringJoiner("\t").add(version)
+                .add(String.valueOf(bamFile.length()))
+                .add(String.valueOf(bamFile.lastModified()))
+                .add(Hashing.md5().hashUnencodedChars(header).toString())
+                .add(indexChecksum)
+                .add(refGenomeFile.getAbsolutePath())
+                .add(String.valueOf(refGenomeFile.length()))
+                .add(String.valueOf(refGenomeFile.lastModified()))
+                .add(String.valueOf(config.maxAltCount()))
+                .add(String.valueOf(config.sampleSize()))
+                .add(String.valueOf(config.minMapQuality()))
+                .toString();
+
+        return Hashing.md5().hashUnencodedChars(fingerprint).toString();
+    }
+}
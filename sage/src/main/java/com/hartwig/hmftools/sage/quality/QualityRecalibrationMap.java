@@ -1,25 +1,91 @@
 package com.hartwig.hmftools.sage.quality;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+
+import com.google.common.collect.Maps;
 
 import org.jetbrains.annotations.NotNull;
 
+/**
+ * Recalibrated qualities are held in a flat table indexed by ref, alt, trinucleotide context and quality so that lookups do not
+ * allocate. Keys that cannot be represented in the table, ie non ACGT bases or qualities outside the table, fall back to a map.
+ */
 public class QualityRecalibrationMap {
 
+    static final int MAX_QUAL = 64;
+
+    private static final int BASES = 4;
+    private static final int TABLE_SIZE = BASES * BASES * BASES * BASES * BASES * MAX_QUAL;
+
+    private static final int[] BASE_INDEX = new int[256];
+
+    static {
+        Arrays.fill(BASE_INDEX, -1);
+        BASE_INDEX['A'] = 0;
+        BASE_INDEX['C'] = 1;
+        BASE_INDEX['G'] = 2;
+        BASE_INDEX['T'] = 3;
+    }
+
+    private final double[] table;
     @NotNull
-    private final Map<QualityRecalibrationKey, QualityRecalibrationRecord> map;
+    private final Map<QualityRecalibrationKey, QualityRecalibrationRecord> fallback;
 
     public QualityRecalibrationMap(@NotNull final List<QualityRecalibrationRecord> records) {
-        this.map = records.stream().collect(Collectors.toMap(QualityRecalibrationRecord::key, x -> x));
+        this.table = new double[TABLE_SIZE];
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            table[i] = i % MAX_QUAL;
+        }
+
+        final Map<QualityRecalibrationKey, QualityRecalibrationRecord> fallback = Maps.newHashMap();
+        for (QualityRecalibrationRecord record : records) {
+            final QualityRecalibrationKey key = record.key();
+            int index = index(key.ref(), key.alt(), key.trinucleotideContext(), key.qual());
+            if (index >= 0) {
+                table[index] = record.recalibratedQual();
+            } else {
+                fallback.put(key, record);
+            }
+        }
+
+        this.fallback = fallback.isEmpty() ? Collections.emptyMap() : fallback;
     }
 
     public double quality(byte ref, byte alt, byte[] trinucleotideContext, byte qual) {
+        int index = index(ref, alt, trinucleotideContext, qual);
+        if (index >= 0) {
+            return table[index];
+        }
+
         final QualityRecalibrationKey key =
                 ImmutableQualityRecalibrationKey.builder().ref(ref).alt(alt).qual(qual).trinucleotideContext(trinucleotideContext).build();
 
-        return Optional.ofNullable(map.get(key)).map(QualityRecalibrationRecord::recalibratedQual).orElse(qual * 1d);
+        return Optional.ofNullable(fallback.get(key)).map(QualityRecalibrationRecord::recalibratedQual).orElse(qual * 1d);
+    }
+
+    private static int index(byte ref, byte alt, byte[] trinucleotideContext, byte qual) {
+        if (qual < 0 || qual >= MAX_QUAL || trinucleotideContext.length != 3) {
+            return -1;
+        }
+
+        int refIndex = baseIndex(ref);
+        int altIndex = baseIndex(alt);
+        int firstIndex = baseIndex(trinucleotideContext[0]);
+        int secondIndex = baseIndex(trinucleotideContext[1]);
+        int thirdIndex = baseIndex(trinucleotideContext[2]);
+        if ((refIndex | altIndex | firstIndex | secondIndex | thirdIndex) < 0) {
+            return -1;
+        }
+
+        int baseIndex = (((refIndex * BASES + altIndex) * BASES + firstIndex) * BASES + secondIndex) * BASES + thirdIndex;
+        return baseIndex * MAX_QUAL + qual;
+    }
+
+    private static int baseIndex(byte base) {
+        return BASE_INDEX[base & 0xFF];
     }
 }
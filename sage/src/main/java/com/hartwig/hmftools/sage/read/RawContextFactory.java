@@ -23,4 +23,15 @@ public class RawContextFactory {
         RawContext result = handler.result();
         return result == null ? DUMMY : result;
     }
+
+    /**
+     * Equivalent to {@link #create(int, SAMRecord)} but replays the precomputed traversal from the variant position.
+     */
+    @NotNull
+    public RawContext create(final int maxSkippedReferenceRegions, @NotNull final ReadAlignmentMap alignment) {
+        RawContextCigarHandler handler = new RawContextCigarHandler(maxSkippedReferenceRegions, variant);
+        alignment.traverse(variant.position(), handler);
+        RawContext result = handler.result();
+        return result == null ? DUMMY : result;
+    }
 }
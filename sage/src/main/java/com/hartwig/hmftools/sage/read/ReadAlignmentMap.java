@@ -0,0 +1,180 @@
+package com.hartwig.hmftools.sage.read;
+
+import java.util.Arrays;
+
+import com.hartwig.hmftools.sage.sam.CigarHandler;
+import com.hartwig.hmftools.sage.sam.CigarTraversal;
+
+import org.jetbrains.annotations.NotNull;
+
+import htsjdk.samtools.CigarElement;
+import htsjdk.samtools.SAMRecord;
+
+/**
+ * Cigar traversal of a record, recorded once and shared by every candidate the record overlaps. Each traversal event is indexed by
+ * the last reference position it can resolve, so a candidate replays only the events from its own position onwards rather than
+ * walking the whole cigar. The traversal is deferred until first use as most records overlap no candidate at all.
+ */
+public class ReadAlignmentMap {
+
+    private static final int LEFT_SOFT_CLIP = 0;
+    private static final int RIGHT_SOFT_CLIP = 1;
+    private static final int ALIGNMENT = 2;
+    private static final int INSERT = 3;
+    private static final int DELETE = 4;
+    private static final int SKIPPED = 5;
+
+    private final SAMRecord record;
+
+    private int size = -1;
+    private int[] types;
+    private int[] readIndexes;
+    private int[] refPositions;
+    private int[] lastPositions;
+    private CigarElement[] elements;
+    private int indelLength;
+
+    public ReadAlignmentMap(@NotNull final SAMRecord record) {
+        this.record = record;
+    }
+
+    @NotNull
+    public SAMRecord record() {
+        return record;
+    }
+
+    /**
+     * Total length of all inserts and deletes in the record.
+     */
+    public int indelLength() {
+        initialise();
+        return indelLength;
+    }
+
+    /**
+     * Replays the traversal to the handler in cigar order, skipping events that end before the position. Skipped events cannot
+     * resolve the position so a handler that stops at the first event resolving it sees the same result as a full traversal.
+     */
+    public void traverse(long position, @NotNull final CigarHandler handler) {
+        initialise();
+        if (size == 0) {
+            return;
+        }
+
+        // Always replay the final event so that handlers may still reject positions beyond the record
+        for (int i = Math.min(firstEventEndingAtOrAfter(position), size - 1); i < size; i++) {
+            switch (types[i]) {
+                case LEFT_SOFT_CLIP:
+                    handler.handleLeftSoftClip(record, elements[i]);
+                    break;
+                case RIGHT_SOFT_CLIP:
+                    handler.handleRightSoftClip(record, elements[i], readIndexes[i], refPositions[i]);
+                    break;
+                case ALIGNMENT:
+                    handler.handleAlignment(record, elements[i], readIndexes[i], refPositions[i]);
+                    break;
+                case INSERT:
+                    handler.handleInsert(record, elements[i], readIndexes[i], refPositions[i]);
+                    break;
+                case DELETE:
+                    handler.handleDelete(record, elements[i], readIndexes[i], refPositions[i]);
+                    break;
+                case SKIPPED:
+                    handler.handleSkippedReference(record, elements[i], readIndexes[i], refPositions[i]);
+                    break;
+            }
+        }
+    }
+
+    private int firstEventEndingAtOrAfter(long position) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (lastPositions[mid] < position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void initialise() {
+        if (size >= 0) {
+            return;
+        }
+
+        final int capacity = record.getCigar().numCigarElements();
+        size = 0;
+        types = new int[capacity];
+        readIndexes = new int[capacity];
+        refPositions = new int[capacity];
+        lastPositions = new int[capacity];
+        elements = new CigarElement[capacity];
+
+        for (CigarElement element : record.getCigar()) {
+            switch (element.getOperator()) {
+                case I:
+                case D:
+                    indelLength += element.getLength();
+            }
+        }
+
+        CigarTraversal.traverseCigar(record, new CigarHandler() {
+            @Override
+            public void handleLeftSoftClip(@NotNull final SAMRecord record, @NotNull final CigarElement element) {
+                add(LEFT_SOFT_CLIP, element, 0, 0, record.getAlignmentStart() - 1);
+            }
+
+            @Override
+            public void handleRightSoftClip(@NotNull final SAMRecord record, @NotNull final CigarElement element, final int readIndex,
+                    final int refPosition) {
+                add(RIGHT_SOFT_CLIP, element, readIndex, refPosition, refPosition + element.getLength() - 1);
+            }
+
+            @Override
+            public void handleAlignment(@NotNull final SAMRecord record, @NotNull final CigarElement element, final int readIndex,
+                    final int refPosition) {
+                add(ALIGNMENT, element, readIndex, refPosition, refPosition + element.getLength() - 1);
+            }
+
+            @Override
+            public void handleInsert(@NotNull final SAMRecord record, @NotNull final CigarElement element, final int readIndex,
+                    final int refPosition) {
+                add(INSERT, element, readIndex, refPosition, refPosition);
+            }
+
+            @Override
+            public void handleDelete(@NotNull final SAMRecord record, @NotNull final CigarElement element, final int readIndex,
+                    final int refPosition) {
+                add(DELETE, element, readIndex, refPosition, refPosition + element.getLength());
+            }
+
+            @Override
+            public void handleSkippedReference(@NotNull final SAMRecord record, @NotNull final CigarElement element, final int readIndex,
+                    final int refPosition) {
+                add(SKIPPED, element, readIndex, refPosition, refPosition + element.getLength());
+            }
+        });
+    }
+
+    private void add(int type, @NotNull final CigarElement element, int readIndex, int refPosition, int lastPosition) {
+        if (size == types.length) {
+            final int capacity = Math.max(4, size * 2);
+            types = Arrays.copyOf(types, capacity);
+            readIndexes = Arrays.copyOf(readIndexes, capacity);
+            refPositions = Arrays.copyOf(refPositions, capacity);
+            lastPositions = Arrays.copyOf(lastPositions, capacity);
+            elements = Arrays.copyOf(elements, capacity);
+        }
+
+        types[size] = type;
+        elements[size] = element;
+        readIndexes[size] = readIndex;
+        refPositions[size] = refPosition;
+        // Guard against events that resolve no position, eg an empty alignment ahead of an indel, breaking the ordering
+        lastPositions[size] = size == 0 ? lastPosition : Math.max(lastPosition, lastPositions[size - 1]);
+        size++;
+    }
+}
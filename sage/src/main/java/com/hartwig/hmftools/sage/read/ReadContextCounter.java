@@ -14,7 +14,6 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
 
-import htsjdk.samtools.CigarElement;
 import htsjdk.samtools.SAMRecord;
 
 public class ReadContextCounter implements VariantHotspot {
@@ -192,6 +191,14 @@ public class ReadContextCounter implements VariantHotspot {
     }
 
     public void accept(final SAMRecord record, final SageConfig sageConfig, final int rawNumberOfEvents) {
+        accept(new ReadAlignmentMap(record), sageConfig, rawNumberOfEvents);
+    }
+
+    /**
+     * The alignment map may be shared with the other counters the record overlaps.
+     */
+    public void accept(final ReadAlignmentMap alignment, final SageConfig sageConfig, final int rawNumberOfEvents) {
+        final SAMRecord record = alignment.record();
         try {
             if (coverage >= maxCoverage) {
                 return;
@@ -201,7 +208,7 @@ public class ReadContextCounter implements VariantHotspot {
                 return;
             }
 
-            final RawContext rawContext = rawFactory.create(sageConfig.maxSkippedReferenceRegions(), record);
+            final RawContext rawContext = rawFactory.create(sageConfig.maxSkippedReferenceRegions(), alignment);
             if (rawContext.isReadIndexInSkipped()) {
                 return;
             }
@@ -258,7 +265,7 @@ public class ReadContextCounter implements VariantHotspot {
             }
 
             // Check if REALIGNED
-            final RealignedContext realignment = realignmentContext(realign, readIndex, record);
+            final RealignedContext realignment = realignmentContext(realign, readIndex, alignment);
             final RealignedType realignmentType = realignment.type();
             if (realignmentType.equals(RealignedType.EXACT)) {
                 realigned++;
@@ -301,7 +308,7 @@ public class ReadContextCounter implements VariantHotspot {
     }
 
     @NotNull
-    private RealignedContext realignmentContext(boolean realign, int readIndex, SAMRecord record) {
+    private RealignedContext realignmentContext(boolean realign, int readIndex, ReadAlignmentMap alignment) {
         if (!realign) {
             return new RealignedContext(RealignedType.NONE, 0);
         }
@@ -313,10 +320,10 @@ public class ReadContextCounter implements VariantHotspot {
         int leftOffset = index - leftIndex;
         int rightOffset = rightIndex - index;
 
-        int indelLength = indelLength(record);
+        int indelLength = alignment.indelLength();
         return Realigned.realignedAroundIndex(readContext,
                 readIndex,
-                record.getReadBases(),
+                alignment.record().getReadBases(),
                 Math.max(indelLength + Math.max(leftOffset, rightOffset), Realigned.MAX_REPEAT_SIZE));
     }
 
@@ -365,20 +372,6 @@ public class ReadContextCounter implements VariantHotspot {
         }
     }
 
-    private int indelLength(@NotNull final SAMRecord record) {
-        int result = 0;
-        for (CigarElement cigarElement : record.getCigar()) {
-            switch (cigarElement.getOperator()) {
-                case I:
-                case D:
-                    result += cigarElement.getLength();
-            }
-
-        }
-
-        return result;
-    }
-
     private int readDistanceFromEdge(int readIndex, @NotNull final SAMRecord record) {
         int index = readContext.readBasesPositionIndex();
         int leftIndex = readContext.readBasesLeftCentreIndex();
@@ -0,0 +1,99 @@
+package com.hartwig.hmftools.sage.sam;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.Maps;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.cram.ref.ReferenceSource;
+import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+
+/**
+ * Thread affine bam readers and ref genome. Each thread lazily opens one reader per bam and one ref genome which are then reused
+ * by every subsequent region processed on that thread. Readers must not be closed by the caller and must only be used on the thread
+ * that obtained them.
+ */
+public class SamReaderPool implements AutoCloseable {
+
+    private static final Logger LOGGER = LogManager.getLogger(SamReaderPool.class);
+
+    private final String refGenomePath;
+    private final Queue<Closeable> resources = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Map<String, SamReader>> readers = ThreadLocal.withInitial(Maps::newHashMap);
+    private final ThreadLocal<IndexedFastaSequenceFile> refGenome = new ThreadLocal<>();
+
+    private final AtomicInteger readerOpens = new AtomicInteger();
+    private final AtomicInteger readerReuses = new AtomicInteger();
+    private final AtomicInteger refGenomeOpens = new AtomicInteger();
+
+    public SamReaderPool(@NotNull final String refGenomePath) {
+        this.refGenomePath = refGenomePath;
+    }
+
+    @NotNull
+    public SamReader reader(@NotNull final String bamFile) {
+        final Map<String, SamReader> threadReaders = readers.get();
+        SamReader reader = threadReaders.get(bamFile);
+        if (reader == null) {
+            reader = SamReaderFactory.makeDefault().referenceSource(new ReferenceSource(refGenome())).open(new File(bamFile));
+            threadReaders.put(bamFile, reader);
+            resources.add(reader);
+            readerOpens.incrementAndGet();
+        } else {
+            readerReuses.incrementAndGet();
+        }
+
+        return reader;
+    }
+
+    @NotNull
+    public IndexedFastaSequenceFile refGenome() {
+        IndexedFastaSequenceFile result = refGenome.get();
+        if (result == null) {
+            try {
+                result = new IndexedFastaSequenceFile(new File(refGenomePath));
+            } catch (FileNotFoundException e) {
+                throw new CompletionException(e);
+            }
+            refGenome.set(result);
+            resources.add(result);
+            refGenomeOpens.incrementAndGet();
+        }
+
+        return result;
+    }
+
+    public int readerOpens() {
+        return readerOpens.get();
+    }
+
+    public int readerReuses() {
+        return readerReuses.get();
+    }
+
+    public int refGenomeOpens() {
+        return refGenomeOpens.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        LOGGER.info("Opened {} bam readers with {} reuses and {} ref genomes", readerOpens(), readerReuses(), refGenomeOpens());
+        for (Closeable resource : resources) {
+            resource.close();
+        }
+        resources.clear();
+    }
+}
@@ -0,0 +1,37 @@
+package com.hartwig.hmftools.sage.sam;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bases that may be retained across every {@link SamRecordBuffer} sharing this budget, so the memory held by buffered records is
+ * bounded however many slices and tumors are in flight.
+ */
+public class SamRecordBudget {
+
+    private final AtomicLong remaining;
+
+    public SamRecordBudget(final long maxBases) {
+        this.remaining = new AtomicLong(maxBases);
+    }
+
+    boolean tryAcquire(final long bases) {
+        while (true) {
+            final long current = remaining.get();
+            if (current < bases) {
+                return false;
+            }
+
+            if (remaining.compareAndSet(current, current - bases)) {
+                return true;
+            }
+        }
+    }
+
+    void release(final long bases) {
+        remaining.addAndGet(bases);
+    }
+
+    public long remaining() {
+        return remaining.get();
+    }
+}
@@ -0,0 +1,79 @@
+package com.hartwig.hmftools.sage.sam;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.genome.region.GenomeRegion;
+
+import org.jetbrains.annotations.NotNull;
+
+import htsjdk.samtools.SAMRecord;
+
+/**
+ * Retains the records of a single slice so that they can be replayed without re-querying the bam.
+ * Each record draws its read length from a budget shared with the buffers of other slices. Once the budget is exhausted the buffer is
+ * discarded and marked incomplete so callers fall back to reading the bam.
+ */
+public class SamRecordBuffer implements Consumer<SAMRecord> {
+
+    private final SamRecordBudget budget;
+    private final GenomeRegion bounds;
+    private final List<SAMRecord> records = Lists.newArrayList();
+
+    private boolean complete = true;
+    private long bases;
+
+    public SamRecordBuffer(@NotNull final GenomeRegion bounds, @NotNull final SamRecordBudget budget) {
+        this.bounds = bounds;
+        this.budget = budget;
+    }
+
+    @NotNull
+    public GenomeRegion bounds() {
+        return bounds;
+    }
+
+    @Override
+    public void accept(@NotNull final SAMRecord record) {
+        if (!complete) {
+            return;
+        }
+
+        final int recordBases = record.getReadLength();
+        if (!budget.tryAcquire(recordBases)) {
+            complete = false;
+            clear();
+            return;
+        }
+
+        records.add(record);
+        bases += recordBases;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public boolean contains(@NotNull final GenomeRegion region) {
+        return bounds.chromosome().equals(region.chromosome()) && bounds.start() <= region.start() && bounds.end() >= region.end();
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    @NotNull
+    List<SAMRecord> records() {
+        return records;
+    }
+
+    /**
+     * Discards the records and returns their bases to the budget. Safe to call more than once.
+     */
+    public void clear() {
+        records.clear();
+        budget.release(bases);
+        bases = 0;
+    }
+}
@@ -22,6 +22,9 @@ public class SamSlicer {
     private final int minMappingQuality;
     private final Collection<GenomeRegion> regions;
 
+    private long recordsRead;
+    private long recordsSelected;
+
     public SamSlicer(final int minMappingQuality, @NotNull final GenomeRegion slice) {
         this.minMappingQuality = minMappingQuality;
         this.regions = Collections.singletonList(slice);
@@ -50,13 +53,53 @@ public class SamSlicer {
         try (final SAMRecordIterator iterator = samReader.queryOverlapping(queryIntervals)) {
             while (iterator.hasNext()) {
                 final SAMRecord record = iterator.next();
+                recordsRead++;
                 if (samRecordMeetsQualityRequirements(record)) {
+                    recordsSelected++;
                     consumer.accept(record);
                 }
             }
         }
     }
 
+    public void slice(@NotNull final SamRecordBuffer buffer, @NotNull final Consumer<SAMRecord> consumer) {
+        for (final SAMRecord record : buffer.records()) {
+            recordsRead++;
+            if (overlaps(record)) {
+                recordsSelected++;
+                consumer.accept(record);
+            }
+        }
+    }
+
+    /**
+     * Number of records read from the bam or buffer by this slicer.
+     */
+    public long recordsRead() {
+        return recordsRead;
+    }
+
+    /**
+     * Number of records passed to a consumer by this slicer.
+     */
+    public long recordsSelected() {
+        return recordsSelected;
+    }
+
+    /**
+     * Mirrors the semantics of queryOverlapping so that buffered records can be filtered as if they were read from the bam.
+     */
+    public boolean overlaps(@NotNull final SAMRecord record) {
+        for (final GenomeRegion region : regions) {
+            if (region.chromosome().equals(record.getContig()) && record.getAlignmentStart() <= region.end()
+                    && record.getAlignmentEnd() >= region.start()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     @NotNull
     private static QueryInterval[] createIntervals(@NotNull final Collection<GenomeRegion> regions, @NotNull final SAMFileHeader header) {
         final List<QueryInterval> queryIntervals = Lists.newArrayList();
@@ -53,6 +53,20 @@ public class SageVariantContextFactory {
         return createContext(entry, createAlleles(entry.variant()), genotypes, entry.readContext());
     }
 
+    /**
+     * Adds a genotype for each counter to a variant read from an existing SAGE vcf, leaving the variant itself untouched. The first
+     * referenceCount counters are of reference samples and are genotyped as germline, so may be hom-ref or hom-alt.
+     */
+    @NotNull
+    public static VariantContext appendGenotypes(@NotNull final VariantContext context, @NotNull final VariantHotspot variant,
+            @NotNull final List<ReadContextCounter> counters, int referenceCount) {
+        final List<Genotype> genotypes = Lists.newArrayList(context.getGenotypes());
+        for (int i = 0; i < counters.size(); i++) {
+            genotypes.add(createGenotype(i < referenceCount, variant, counters.get(i)));
+        }
+        return new VariantContextBuilder(context).genotypes(genotypes).make();
+    }
+
     @NotNull
     private static VariantContext createContext(@NotNull final SageVariant variant, @NotNull final List<Allele> alleles,
             @NotNull final List<Genotype> genotypes, @NotNull final ReadContext counter) {
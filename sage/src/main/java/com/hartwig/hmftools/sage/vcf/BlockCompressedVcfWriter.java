@@ -0,0 +1,139 @@
+package com.hartwig.hmftools.sage.vcf;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutorService;
+
+import org.jetbrains.annotations.NotNull;
+
+import htsjdk.samtools.util.RuntimeIOException;
+import htsjdk.tribble.Feature;
+import htsjdk.tribble.SimpleFeature;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.tribble.index.tabix.TabixIndexCreator;
+import htsjdk.tribble.util.TabixUtils;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.vcf.VCFEncoder;
+import htsjdk.variant.vcf.VCFHeader;
+
+/**
+ * Writes a bgzipped vcf and its tabix index with blocks compressed in parallel. The text of each record matches that of the htsjdk
+ * writer. Index entries are held back until the compressed address of the block they start in is known.
+ */
+public class BlockCompressedVcfWriter implements VariantContextWriter {
+
+    private final File file;
+    private final ParallelBlockCompressedOutputStream stream;
+    private final Deque<PendingFeature> pendingFeatures = new ArrayDeque<>();
+    private final StringBuilder line = new StringBuilder();
+
+    private VCFEncoder encoder;
+    private TabixIndexCreator indexCreator;
+
+    public BlockCompressedVcfWriter(@NotNull final String file, @NotNull final ExecutorService executor, int maxPendingBlocks) {
+        try {
+            this.file = new File(file);
+            this.stream = new ParallelBlockCompressedOutputStream(new BufferedOutputStream(new FileOutputStream(this.file)),
+                    executor,
+                    maxPendingBlocks);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    @Override
+    public void writeHeader(@NotNull final VCFHeader header) {
+        // Delegate header formatting to htsjdk so it is identical to that of the standard writer
+        final ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        final VariantContextWriter headerWriter = new VariantContextWriterBuilder().setOutputStream(headerBytes)
+                .unsetOption(Options.INDEX_ON_THE_FLY)
+                .build();
+        headerWriter.writeHeader(header);
+        headerWriter.close();
+
+        try {
+            stream.write(headerBytes.toByteArray());
+        } catch (IOException e) {
+            throw new RuntimeIOException("Unable to write to " + file, e);
+        }
+        setHeader(header);
+    }
+
+    @Override
+    public void setHeader(@NotNull final VCFHeader header) {
+        encoder = new VCFEncoder(header, false, false);
+        indexCreator = header.getSequenceDictionary() == null
+                ? new TabixIndexCreator(TabixFormat.VCF)
+                : new TabixIndexCreator(header.getSequenceDictionary(), TabixFormat.VCF);
+    }
+
+    @Override
+    public void add(@NotNull final VariantContext context) {
+        if (encoder == null) {
+            throw new IllegalStateException("The VCF Header must be written before records can be added: " + file);
+        }
+
+        try {
+            pendingFeatures.add(new PendingFeature(new SimpleFeature(context.getContig(), context.getStart(), context.getEnd()),
+                    stream.block(),
+                    stream.offset()));
+
+            line.setLength(0);
+            encoder.write(line, context);
+            line.append('\n');
+            stream.write(line.toString().getBytes(VCFEncoder.VCF_CHARSET));
+        } catch (IOException e) {
+            throw new RuntimeIOException("Unable to write to " + file, e);
+        }
+
+        indexResolvedFeatures();
+    }
+
+    @Override
+    public boolean checkError() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        try {
+            stream.close();
+            indexResolvedFeatures();
+            if (indexCreator != null) {
+                final int endBlock = stream.block();
+                indexCreator.finalizeIndex(stream.filePointer(endBlock, 0))
+                        .write(new File(file.toString() + TabixUtils.STANDARD_INDEX_EXTENSION));
+            }
+        } catch (IOException e) {
+            throw new RuntimeIOException("Unable to close " + file, e);
+        }
+    }
+
+    private void indexResolvedFeatures() {
+        while (!pendingFeatures.isEmpty() && stream.isAddressKnown(pendingFeatures.peekFirst().block)) {
+            final PendingFeature pending = pendingFeatures.removeFirst();
+            indexCreator.addFeature(pending.feature, stream.filePointer(pending.block, pending.offset));
+        }
+    }
+
+    private static class PendingFeature {
+
+        private final Feature feature;
+        private final int block;
+        private final int offset;
+
+        private PendingFeature(@NotNull final Feature feature, int block, int offset) {
+            this.feature = feature;
+            this.block = block;
+            this.offset = offset;
+        }
+    }
+}
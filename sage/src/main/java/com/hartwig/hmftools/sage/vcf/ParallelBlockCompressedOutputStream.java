@@ -0,0 +1,200 @@
+package com.hartwig.hmftools.sage.vcf;
+
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.DEFAULT_COMPRESSION_LEVEL;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.DEFAULT_UNCOMPRESSED_BLOCK_SIZE;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * BGZF output stream that deflates blocks on an executor while writing them in order. As the compressed address of a block is only
+ * known once all previous blocks are written, positions are reported as a block number and offset and resolved to a virtual file
+ * pointer with {@link #filePointer} once {@link #isAddressKnown} for that block. Not thread safe, other than the compression itself.
+ */
+public class ParallelBlockCompressedOutputStream extends OutputStream {
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(DEFAULT_COMPRESSION_LEVEL, true));
+    private static final ThreadLocal<Deflater> NO_COMPRESSION_DEFLATER =
+            ThreadLocal.withInitial(() -> new Deflater(Deflater.NO_COMPRESSION, true));
+
+    private final OutputStream out;
+    private final ExecutorService executor;
+    private final int maxPendingBlocks;
+    private final Deque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+
+    private byte[] buffer = new byte[DEFAULT_UNCOMPRESSED_BLOCK_SIZE];
+    private int bufferSize;
+
+    private int submittedBlocks;
+    private int writtenBlocks;
+    private long[] blockAddresses = new long[1024];
+
+    public ParallelBlockCompressedOutputStream(@NotNull final OutputStream out, @NotNull final ExecutorService executor,
+            int maxPendingBlocks) {
+        this.out = out;
+        this.executor = executor;
+        this.maxPendingBlocks = maxPendingBlocks;
+    }
+
+    /**
+     * Number of the block that the next byte will be written to.
+     */
+    public int block() {
+        return submittedBlocks;
+    }
+
+    /**
+     * Offset within the current block that the next byte will be written to.
+     */
+    public int offset() {
+        return bufferSize;
+    }
+
+    public boolean isAddressKnown(int block) {
+        return block <= writtenBlocks;
+    }
+
+    public long filePointer(int block, int offset) {
+        if (!isAddressKnown(block)) {
+            throw new IllegalStateException("Address of block " + block + " not yet known");
+        }
+
+        return (blockAddresses[block] << 16) | offset;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        buffer[bufferSize++] = (byte) b;
+        if (bufferSize == buffer.length) {
+            submitBlock();
+        }
+    }
+
+    @Override
+    public void write(@NotNull final byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            int copyLength = Math.min(length, buffer.length - bufferSize);
+            System.arraycopy(bytes, offset, buffer, bufferSize, copyLength);
+            bufferSize += copyLength;
+            offset += copyLength;
+            length -= copyLength;
+
+            if (bufferSize == buffer.length) {
+                submitBlock();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (bufferSize > 0) {
+            submitBlock();
+        }
+
+        while (!pendingBlocks.isEmpty()) {
+            writeNextBlock();
+        }
+
+        out.write(EMPTY_GZIP_BLOCK);
+        out.close();
+    }
+
+    private void submitBlock() throws IOException {
+        final byte[] block = buffer;
+        final int blockSize = bufferSize;
+        pendingBlocks.add(executor.submit(() -> compress(block, blockSize)));
+        submittedBlocks++;
+
+        buffer = new byte[DEFAULT_UNCOMPRESSED_BLOCK_SIZE];
+        bufferSize = 0;
+
+        while (pendingBlocks.size() > maxPendingBlocks) {
+            writeNextBlock();
+        }
+    }
+
+    private void writeNextBlock() throws IOException {
+        final byte[] compressed;
+        try {
+            compressed = pendingBlocks.removeFirst().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+
+        out.write(compressed);
+        if (writtenBlocks + 1 >= blockAddresses.length) {
+            blockAddresses = Arrays.copyOf(blockAddresses, blockAddresses.length * 2);
+        }
+        blockAddresses[writtenBlocks + 1] = blockAddresses[writtenBlocks] + compressed.length;
+        writtenBlocks++;
+    }
+
+    @NotNull
+    static byte[] compress(@NotNull final byte[] block, int blockSize) {
+        final byte[] compressed = new byte[MAX_COMPRESSED_BLOCK_SIZE];
+        int compressedSize = deflate(DEFLATER.get(), block, blockSize, compressed);
+        if (compressedSize < 0) {
+            // Incompressible data must still fit in a single block
+            compressedSize = deflate(NO_COMPRESSION_DEFLATER.get(), block, blockSize, compressed);
+        }
+
+        final CRC32 crc = new CRC32();
+        crc.update(block, 0, blockSize);
+
+        final int totalSize = BLOCK_HEADER_LENGTH + compressedSize + BLOCK_FOOTER_LENGTH;
+        final byte[] result = new byte[totalSize];
+        writeHeader(result, totalSize);
+        System.arraycopy(compressed, 0, result, BLOCK_HEADER_LENGTH, compressedSize);
+        writeInt(result, BLOCK_HEADER_LENGTH + compressedSize, (int) crc.getValue());
+        writeInt(result, BLOCK_HEADER_LENGTH + compressedSize + 4, blockSize);
+        return result;
+    }
+
+    private static int deflate(@NotNull final Deflater deflater, @NotNull final byte[] block, int blockSize,
+            @NotNull final byte[] compressed) {
+        final int maxSize = MAX_COMPRESSED_BLOCK_SIZE - BLOCK_HEADER_LENGTH - BLOCK_FOOTER_LENGTH;
+        deflater.reset();
+        deflater.setInput(block, 0, blockSize);
+        deflater.finish();
+        final int compressedSize = deflater.deflate(compressed, 0, maxSize);
+        return deflater.finished() ? compressedSize : -1;
+    }
+
+    private static void writeHeader(@NotNull final byte[] target, int totalSize) {
+        target[0] = 31;         // ID1
+        target[1] = (byte) 139; // ID2
+        target[2] = 8;          // CM deflate
+        target[3] = 4;          // FLG extra field
+        target[9] = (byte) 255; // OS unknown
+        target[10] = 6;         // XLEN
+        target[12] = 'B';
+        target[13] = 'C';
+        target[14] = 2;         // SLEN
+        target[16] = (byte) ((totalSize - 1) & 0xFF);
+        target[17] = (byte) (((totalSize - 1) >> 8) & 0xFF);
+    }
+
+    private static void writeInt(@NotNull final byte[] target, int offset, int value) {
+        target[offset] = (byte) (value & 0xFF);
+        target[offset + 1] = (byte) ((value >> 8) & 0xFF);
+        target[offset + 2] = (byte) ((value >> 16) & 0xFF);
+        target[offset + 3] = (byte) ((value >> 24) & 0xFF);
+    }
+}
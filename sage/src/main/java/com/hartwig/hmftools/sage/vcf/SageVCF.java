@@ -2,14 +2,24 @@ package com.hartwig.hmftools.sage.vcf;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.hartwig.hmftools.common.sage.SageMetaData;
 import com.hartwig.hmftools.common.variant.enrich.SomaticRefContextEnrichment;
 import com.hartwig.hmftools.sage.config.SageConfig;
 import com.hartwig.hmftools.sage.config.SoftFilter;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import htsjdk.samtools.reference.IndexedFastaSequenceFile;
 import htsjdk.variant.variantcontext.VariantContext;
@@ -68,24 +78,121 @@ public class SageVCF implements AutoCloseable {
     public final static String RIGHT_ALIGNED_MICROHOMOLOGY = "RAM";
     public final static String RIGHT_ALIGNED_MICROHOMOLOGY_DESCRIPTION = "Right aligned microhomology";
 
+    private static final int MAX_PENDING_BLOCKS_PER_THREAD = 4;
+    private static final int MAX_COMPRESSION_THREADS = 2;
+    private static final int MAX_PENDING_WRITES = 1024;
+
     private final VariantContextWriter writer;
-    private final SomaticRefContextEnrichment refContextEnrichment;
+    private final Consumer<VariantContext> consumer;
+    private final ExecutorService writerExecutor;
+    @Nullable
+    private final ExecutorService compressionExecutor;
+    private volatile Throwable failure;
 
     public SageVCF(@NotNull final IndexedFastaSequenceFile reference, @NotNull final SageConfig config) {
-        writer = new VariantContextWriterBuilder().setOutputFile(config.outputFile())
-                .modifyOption(Options.INDEX_ON_THE_FLY, true)
-                .modifyOption(Options.USE_ASYNC_IO, false)
-                .setReferenceDictionary(reference.getSequenceDictionary())
-                .build();
-        refContextEnrichment = new SomaticRefContextEnrichment(reference, this::writeToFile);
+        compressionExecutor = compressionExecutor(config);
+        writer = writer(reference, config, compressionExecutor);
+        final SomaticRefContextEnrichment refContextEnrichment = new SomaticRefContextEnrichment(reference, this::writeToFile);
+        consumer = refContextEnrichment;
 
         final VCFHeader header = refContextEnrichment.enrichHeader(header(config));
         header.setSequenceDictionary(reference.getSequenceDictionary());
         writer.writeHeader(header);
+
+        writerExecutor = writerExecutor();
     }
 
+    /**
+     * Appends the samples of the config to the header of an existing SAGE vcf. Variants of the existing vcf are already enriched so
+     * are written as is.
+     */
+    public SageVCF(@NotNull final IndexedFastaSequenceFile reference, @NotNull final SageConfig config,
+            @NotNull final VCFHeader existingHeader) {
+        compressionExecutor = compressionExecutor(config);
+        writer = writer(reference, config, compressionExecutor);
+        consumer = this::writeToFile;
+
+        final List<String> samples = Lists.newArrayList(existingHeader.getGenotypeSamples());
+        samples.addAll(config.reference());
+        samples.addAll(config.tumor());
+
+        final VCFHeader header = new VCFHeader(existingHeader.getMetaDataInInputOrder(), samples);
+        header.setSequenceDictionary(reference.getSequenceDictionary());
+        writer.writeHeader(header);
+
+        writerExecutor = writerExecutor();
+    }
+
+    /**
+     * Writes are queued to a single thread in order. Once the queue is full, callers block until there is space rather than running
+     * the write themselves, which would reorder the output, so the variants held in the queue are bounded.
+     */
+    @NotNull
+    private static ExecutorService writerExecutor() {
+        return new ThreadPoolExecutor(1,
+                1,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_PENDING_WRITES),
+                new ThreadFactoryBuilder().setNameFormat("SAGE-VCF-%d").build(),
+                (task, executor) -> {
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("VCF writer is closed");
+                    }
+                    try {
+                        executor.getQueue().put(task);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException(e);
+                    }
+                });
+    }
+
+    private static int compressionThreads(@NotNull final SageConfig config) {
+        return Math.max(1, Math.min(config.threads(), MAX_COMPRESSION_THREADS));
+    }
+
+    /**
+     * Compression runs in addition to the main pool so is capped at a few threads, which keeps up with the single writer.
+     */
+    @Nullable
+    private static ExecutorService compressionExecutor(@NotNull final SageConfig config) {
+        return config.outputFile().endsWith(".gz")
+                ? Executors.newFixedThreadPool(compressionThreads(config),
+                new ThreadFactoryBuilder().setNameFormat("SAGE-BGZF-%d").setDaemon(true).build())
+                : null;
+    }
+
+    @NotNull
+    private static VariantContextWriter writer(@NotNull final IndexedFastaSequenceFile reference, @NotNull final SageConfig config,
+            @Nullable final ExecutorService compressionExecutor) {
+        if (compressionExecutor != null) {
+            return new BlockCompressedVcfWriter(config.outputFile(),
+                    compressionExecutor,
+                    MAX_PENDING_BLOCKS_PER_THREAD * compressionThreads(config));
+        }
+
+        return new VariantContextWriterBuilder().setOutputFile(config.outputFile())
+                .modifyOption(Options.INDEX_ON_THE_FLY, true)
+                .modifyOption(Options.USE_ASYNC_IO, false)
+                .setReferenceDictionary(reference.getSequenceDictionary())
+                .build();
+    }
+
+    /**
+     * Variants are enriched, encoded and written on a dedicated thread so that callers do not wait on compression unless the writer
+     * has fallen behind.
+     */
     public void write(@NotNull final VariantContext context) {
-        refContextEnrichment.accept(context);
+        writerExecutor.execute(() -> {
+            if (failure == null) {
+                try {
+                    consumer.accept(context);
+                } catch (Throwable e) {
+                    failure = e;
+                }
+            }
+        });
     }
 
     private void writeToFile(@NotNull final VariantContext context) {
@@ -169,7 +276,22 @@ public class SageVCF implements AutoCloseable {
 
     @Override
     public void close() {
+        writerExecutor.shutdown();
+        try {
+            writerExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+
         writer.close();
+        if (compressionExecutor != null) {
+            compressionExecutor.shutdown();
+        }
+
+        if (failure != null) {
+            throw new CompletionException(failure);
+        }
     }
 
 }
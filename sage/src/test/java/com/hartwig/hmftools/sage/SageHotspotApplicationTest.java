@@ -0,0 +1,158 @@
+package com.hartwig.hmftools.sage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+
+public class SageHotspotApplicationTest {
+
+    private static final String CONTIG = "1";
+    private static final int CONTIG_LENGTH = 70_000;
+    private static final int READ_LENGTH = 100;
+    private static final int READ_SPACING = 5;
+    private static final int LINE_LENGTH = 60;
+
+    // Hotspots either side of the boundaries of 16kb batches and within them
+    private static final int[] HOTSPOTS = { 1_000, 16_383, 16_384, 16_385, 16_400, 32_768, 32_769, 50_000, 65_535, 65_536, 69_000 };
+
+    @Rule
+    public final TemporaryFolder directory = new TemporaryFolder();
+
+    @Test
+    public void testBatchedThreadsMatchSingleThread() throws IOException {
+        final byte[] ref = new byte[CONTIG_LENGTH];
+        final Random random = new Random(0);
+        for (int i = 0; i < CONTIG_LENGTH; i++) {
+            ref[i] = (byte) "ACGT".charAt(random.nextInt(4));
+        }
+
+        final File refGenome = writeRefGenome(ref);
+        final File hotspots = writeHotspots(ref);
+        final File codingRegions = directory.newFile("coding_regions.bed");
+        Files.write(codingRegions.toPath(), Lists.newArrayList(CONTIG + "\t0\t" + CONTIG_LENGTH));
+
+        final File tumorBam = writeBam("tumor.bam", ref, 3);
+        final File referenceBam = writeBam("reference.bam", ref, 0);
+
+        final File single = new File(directory.getRoot(), "single.vcf");
+        final File batched = new File(directory.getRoot(), "batched.vcf");
+        SageHotspotApplication.main(args(refGenome, hotspots, codingRegions, tumorBam, referenceBam, single, 1, CONTIG_LENGTH));
+        SageHotspotApplication.main(args(refGenome, hotspots, codingRegions, tumorBam, referenceBam, batched, 4, 1));
+
+        final List<String> singleVariants = variants(single);
+        assertEquals(HOTSPOTS.length, singleVariants.size());
+        assertTrue(singleVariants.stream().allMatch(x -> x.contains("HOTSPOT=known")));
+        assertEquals(Files.readAllLines(single.toPath()), Files.readAllLines(batched.toPath()));
+    }
+
+    @NotNull
+    private static String[] args(@NotNull final File refGenome, @NotNull final File hotspots, @NotNull final File codingRegions,
+            @NotNull final File tumorBam, @NotNull final File referenceBam, @NotNull final File output, int threads, int batchSize) {
+        return new String[] { "-tumor", "TUMOR", "-tumor_bam", tumorBam.toString(), "-reference", "NORMAL", "-reference_bam",
+                referenceBam.toString(), "-ref_genome", refGenome.toString(), "-known_hotspots", hotspots.toString(), "-coding_regions",
+                codingRegions.toString(), "-out", output.toString(), "-threads", String.valueOf(threads), "-batch_size",
+                String.valueOf(batchSize) };
+    }
+
+    @NotNull
+    private static List<String> variants(@NotNull final File vcf) throws IOException {
+        return Files.readAllLines(vcf.toPath()).stream().filter(x -> !x.startsWith("#")).collect(Collectors.toList());
+    }
+
+    private static byte alt(byte ref) {
+        return (byte) (ref == 'A' ? 'C' : 'A');
+    }
+
+    @NotNull
+    private File writeRefGenome(@NotNull final byte[] ref) throws IOException {
+        final File fasta = directory.newFile("ref.fasta");
+        final List<String> lines = Lists.newArrayList(">" + CONTIG);
+        for (int i = 0; i < ref.length; i += LINE_LENGTH) {
+            lines.add(new String(ref, i, Math.min(LINE_LENGTH, ref.length - i)));
+        }
+        Files.write(fasta.toPath(), lines);
+
+        final String length = String.valueOf(ref.length);
+        final String offset = String.valueOf(CONTIG.length() + 2);
+        final String index = String.join("\t", CONTIG, length, offset, String.valueOf(LINE_LENGTH), String.valueOf(LINE_LENGTH + 1));
+        Files.write(new File(fasta + ".fai").toPath(), Lists.newArrayList(index));
+        Files.write(new File(directory.getRoot(), "ref.dict").toPath(),
+                Lists.newArrayList("@HD\tVN:1.6", "@SQ\tSN:" + CONTIG + "\tLN:" + length));
+        return fasta;
+    }
+
+    @NotNull
+    private File writeHotspots(@NotNull final byte[] ref) throws IOException {
+        final File hotspots = directory.newFile("hotspots.tsv");
+        final List<String> lines = Lists.newArrayList();
+        for (int position : HOTSPOTS) {
+            final byte refBase = ref[position - 1];
+            lines.add(CONTIG + "\t" + position + "\t" + (char) refBase + "\t" + (char) alt(refBase));
+        }
+        Files.write(hotspots.toPath(), lines);
+        return hotspots;
+    }
+
+    /**
+     * Reads tile the contig so many of them span the hotspots and the batch boundaries. Every altFrequency'th read supports the
+     * alt of each hotspot it covers.
+     */
+    @NotNull
+    private File writeBam(@NotNull final String name, @NotNull final byte[] ref, int altFrequency) {
+        final SAMSequenceDictionary dictionary = new SAMSequenceDictionary();
+        dictionary.addSequence(new SAMSequenceRecord(CONTIG, ref.length));
+        final SAMFileHeader header = new SAMFileHeader(dictionary);
+        header.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+
+        final byte[] qualities = new byte[READ_LENGTH];
+        Arrays.fill(qualities, (byte) 37);
+
+        final File file = new File(directory.getRoot(), name);
+        try (SAMFileWriter writer = new SAMFileWriterFactory().setCreateIndex(true).makeBAMWriter(header, false, file)) {
+            int read = 0;
+            for (int start = 1; start + READ_LENGTH - 1 <= ref.length; start += READ_SPACING, read++) {
+                final byte[] bases = Arrays.copyOfRange(ref, start - 1, start - 1 + READ_LENGTH);
+                if (altFrequency > 0 && read % altFrequency == 0) {
+                    for (int position : HOTSPOTS) {
+                        final int index = position - start;
+                        if (index >= 0 && index < READ_LENGTH) {
+                            bases[index] = alt(bases[index]);
+                        }
+                    }
+                }
+
+                final SAMRecord record = new SAMRecord(header);
+                record.setReadName("READ" + read);
+                record.setReferenceName(CONTIG);
+                record.setAlignmentStart(start);
+                record.setCigarString(READ_LENGTH + "M");
+                record.setMappingQuality(60);
+                record.setReadBases(bases);
+                record.setBaseQualities(qualities);
+                writer.addAlignment(record);
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,87 @@
+package com.hartwig.hmftools.sage.candidate;
+
+import static com.hartwig.hmftools.sage.ref.RefSequenceTest.buildSamRecord;
+import static com.hartwig.hmftools.sage.vcf.SageVCF.RAW_DEPTH;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.base.Strings;
+import com.hartwig.hmftools.common.variant.hotspot.ImmutableVariantHotspotImpl;
+import com.hartwig.hmftools.common.variant.hotspot.VariantHotspot;
+import com.hartwig.hmftools.sage.read.IndexedBases;
+import com.hartwig.hmftools.sage.read.ReadContext;
+import com.hartwig.hmftools.sage.read.ReadContextFactory;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import htsjdk.samtools.SAMRecord;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+
+public class CandidateSerializationTest {
+
+    private static final String REF = "CGTACGTTAGCATGCACTGATCGGCTAGCTAGGCTTACGATCGATGCATCGAC";
+    private static final IndexedBases REF_BASES = new IndexedBases(1000, 0, REF.getBytes());
+    private static final ReadContextFactory FACTORY = new ReadContextFactory(10);
+
+    @Test
+    public void testSnv() {
+        final ReadContext victim = CandidateSerialization.readContext(variant(1020, "T", "A"), "GAACG", REF_BASES, FACTORY);
+        assertEquals("GAACG", victim.toString());
+        assertEquals(1020, victim.position());
+    }
+
+    @Test
+    public void testMnv() {
+        final ReadContext victim = CandidateSerialization.readContext(variant(1020, "TC", "GG"), "GAGGGGC", REF_BASES, FACTORY);
+        assertEquals("GAGGGGC", victim.toString());
+    }
+
+    @Test
+    public void testDeleteMatchesReadContextOfRead() {
+        // Delete CGG after 1021
+        final String read = REF.substring(0, 22) + REF.substring(25);
+        final SAMRecord record = buildSamRecord(1000, "22M3D" + (REF.length() - 25) + "M", read, Strings.repeat("F", read.length()));
+        final String expected = FACTORY.createDelContext("CCGG", 1021, 21, record, REF_BASES).toString();
+
+        final ReadContext victim = CandidateSerialization.readContext(variant(1021, "CCGG", "C"), expected, REF_BASES, FACTORY);
+        assertEquals(expected, victim.toString());
+    }
+
+    @Test
+    public void testInsertMatchesReadContextOfRead() {
+        // Insert AAT after 1021
+        final String read = REF.substring(0, 22) + "AAT" + REF.substring(22);
+        final SAMRecord record = buildSamRecord(1000, "22M3I" + (REF.length() - 22) + "M", read, Strings.repeat("F", read.length()));
+        final String expected = FACTORY.createInsertContext("CAAT", 1021, 21, record, REF_BASES).toString();
+
+        final ReadContext victim = CandidateSerialization.readContext(variant(1021, "C", "CAAT"), expected, REF_BASES, FACTORY);
+        assertEquals(expected, victim.toString());
+    }
+
+    @Test
+    public void testRecordedCoreReplacesReference() {
+        // Base at 1018 differed from the reference in the reads the candidate was found in
+        final ReadContext victim = CandidateSerialization.readContext(variant(1020, "T", "A"), "CAACG", REF_BASES, FACTORY);
+        assertEquals("CAACG", victim.toString());
+    }
+
+    @Test
+    public void testCoreOfDifferentLengthFallsBackToRebuiltCore() {
+        final ReadContext victim = CandidateSerialization.readContext(variant(1020, "T", "A"), "GAACGT", REF_BASES, FACTORY);
+        assertEquals("GAACG", victim.toString());
+    }
+
+    @Test
+    public void testRawDepth() {
+        assertEquals(25, CandidateSerialization.rawDepth(new GenotypeBuilder("SAMPLE").attribute(RAW_DEPTH, 25).make()));
+        assertEquals(25, CandidateSerialization.rawDepth(new GenotypeBuilder("SAMPLE").attribute(RAW_DEPTH, "25").make()));
+        assertEquals(0, CandidateSerialization.rawDepth(new GenotypeBuilder("SAMPLE").attribute(RAW_DEPTH, ".").make()));
+        assertEquals(0, CandidateSerialization.rawDepth(new GenotypeBuilder("SAMPLE").make()));
+    }
+
+    @NotNull
+    private static VariantHotspot variant(long position, @NotNull final String ref, @NotNull final String alt) {
+        return ImmutableVariantHotspotImpl.builder().chromosome("1").position(position).ref(ref).alt(alt).build();
+    }
+}
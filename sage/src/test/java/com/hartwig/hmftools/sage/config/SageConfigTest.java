@@ -1,5 +1,6 @@
 package com.hartwig.hmftools.sage.config;
 
+import static com.hartwig.hmftools.sage.config.BaseQualityRecalibrationConfig.DEFAULT_BQR_CACHE;
 import static com.hartwig.hmftools.sage.config.BaseQualityRecalibrationConfig.DEFAULT_BQR_MAX_ALT_COUNT;
 import static com.hartwig.hmftools.sage.config.BaseQualityRecalibrationConfig.DEFAULT_BQR_MIN_MAP_QUAL;
 import static com.hartwig.hmftools.sage.config.BaseQualityRecalibrationConfig.DEFAULT_BQR_SAMPLE_SIZE;
@@ -17,6 +18,7 @@ import static com.hartwig.hmftools.sage.config.QualityConfig.DEFAULT_MAP_QUAL_FI
 import static com.hartwig.hmftools.sage.config.QualityConfig.DEFAULT_MAP_QUAL_IMPROPER_PAIR_PENALTY;
 import static com.hartwig.hmftools.sage.config.QualityConfig.DEFAULT_MAP_QUAL_READ_EVENTS_PENALTY;
 import static com.hartwig.hmftools.sage.config.QualityConfig.DEFAULT_READ_EDGE_FIXED_PENALTY;
+import static com.hartwig.hmftools.sage.config.SageConfig.DEFAULT_MAX_BUFFERED_BASES;
 import static com.hartwig.hmftools.sage.config.SageConfig.DEFAULT_MAX_READ_DEPTH;
 import static com.hartwig.hmftools.sage.config.SageConfig.DEFAULT_MAX_READ_DEPTH_PANEL;
 import static com.hartwig.hmftools.sage.config.SageConfig.DEFAULT_MAX_REALIGNMENT_DEPTH;
@@ -26,8 +28,11 @@ import static com.hartwig.hmftools.sage.config.SageConfig.DEFAULT_THREADS;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.List;
+
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.genome.genepanel.HmfGenePanelSupplier;
+import com.hartwig.hmftools.common.genome.region.HmfTranscriptRegion;
 
 import org.jetbrains.annotations.NotNull;
 import org.junit.Test;
@@ -45,11 +50,16 @@ public class SageConfigTest {
 
     @NotNull
     public static SageConfig testConfig() {
+        return testConfig(HmfGenePanelSupplier.allGeneList37());
+    }
+
+    @NotNull
+    public static SageConfig testConfig(@NotNull final List<HmfTranscriptRegion> transcriptRegions) {
         return ImmutableSageConfig.builder()
                 .panelOnly(false)
                 .version("2.2")
                 .outputFile("out.vcf")
-                .transcriptRegions(HmfGenePanelSupplier.allGeneList37())
+                .transcriptRegions(transcriptRegions)
                 .reference(Lists.newArrayList("reference"))
                 .referenceBam(Lists.newArrayList("referenceBam"))
                 .tumor(Lists.newArrayList("tumorList"))
@@ -62,13 +72,18 @@ public class SageConfigTest {
                 .threads(DEFAULT_THREADS)
                 .minMapQuality(DEFAULT_MIN_MAP_QUALITY)
                 .maxRealignmentDepth(DEFAULT_MAX_REALIGNMENT_DEPTH)
+                .maxBufferedBases(DEFAULT_MAX_BUFFERED_BASES)
                 .maxReadDepth(DEFAULT_MAX_READ_DEPTH)
                 .maxReadDepthPanel(DEFAULT_MAX_READ_DEPTH_PANEL)
                 .qualityConfig(defaultQualityConfig())
                 .regionSliceSize(500_000)
+                .adaptiveSlicing(false)
+                .maxPendingSlices(SageConfig.DEFAULT_PENDING_SLICES_PER_THREAD * DEFAULT_THREADS)
                 .filter(defaultFilterConfig())
                 .readContextFlankSize(SageConfig.DEFAULT_READ_CONTEXT_FLANK_SIZE)
                 .baseQualityRecalibrationConfig(defaultQualityRecalibrationConfig())
+                .inputVcf("")
+                .metricsJmx(false)
                 .build();
     }
 
@@ -106,6 +121,8 @@ public class SageConfigTest {
                 .maxAltCount(DEFAULT_BQR_MAX_ALT_COUNT)
                 .sampleSize(DEFAULT_BQR_SAMPLE_SIZE)
                 .minMapQuality(DEFAULT_BQR_MIN_MAP_QUAL)
+                .cache(DEFAULT_BQR_CACHE)
+                .cacheDir("")
                 .build();
     }
 }
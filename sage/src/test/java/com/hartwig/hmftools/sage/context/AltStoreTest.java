@@ -0,0 +1,64 @@
+package com.hartwig.hmftools.sage.context;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Set;
+
+import com.google.common.collect.Sets;
+
+import org.junit.Test;
+
+public class AltStoreTest {
+
+    private final RefContext refContext = new RefContext("SAMPLE", "1", 1000, 1000);
+
+    @Test
+    public void testSameAlleleReturnsSameContext() {
+        final AltStore victim = new AltStore();
+        final AltContext snv = victim.computeIfAbsent(refContext, "C", "T");
+        assertSame(snv, victim.computeIfAbsent(refContext, "C", "T"));
+        assertNotSame(snv, victim.computeIfAbsent(refContext, "C", "A"));
+        assertNotSame(snv, victim.computeIfAbsent(refContext, "CA", "TA"));
+        assertEquals(3, victim.size());
+    }
+
+    @Test
+    public void testKeysIncludeAlleleLengths() {
+        assertNotEquals(AltStore.key("A", "AA"), AltStore.key("AA", "A"));
+        assertNotEquals(AltStore.key("A", "AAA"), AltStore.key("AA", "AA"));
+        assertNotEquals(AltStore.key("A", "C"), AltStore.key("C", "A"));
+    }
+
+    @Test
+    public void testAllelesThatCannotBeEncoded() {
+        final String longInsert = "ACGTACGTACGTACGTACGTACGTACGT";
+        final AltStore victim = new AltStore();
+        final AltContext n = victim.computeIfAbsent(refContext, "N", "A");
+        final AltContext insert = victim.computeIfAbsent(refContext, "A", longInsert);
+
+        assertNotSame(n, insert);
+        assertSame(n, victim.computeIfAbsent(refContext, "N", "A"));
+        assertSame(insert, victim.computeIfAbsent(refContext, "A", longInsert));
+        assertEquals(2, victim.size());
+    }
+
+    @Test
+    public void testResize() {
+        final AltStore victim = new AltStore();
+        final Set<AltContext> expected = Sets.newHashSet();
+        for (String ref : new String[] { "A", "C", "G", "T", "N" }) {
+            for (String alt : new String[] { "A", "C", "G", "T", "AC", "AG" }) {
+                expected.add(victim.computeIfAbsent(refContext, ref, alt));
+            }
+        }
+
+        assertEquals(30, victim.size());
+        assertEquals(expected, Sets.newHashSet(victim.values()));
+        for (AltContext altContext : expected) {
+            assertSame(altContext, victim.computeIfAbsent(refContext, altContext.ref(), altContext.alt()));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.hartwig.hmftools.sage.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class SageMetricsTest {
+
+    @Test
+    public void testPercentiles() {
+        final MetricHistogram victim = new MetricHistogram();
+        for (int i = 100; i >= 1; i--) {
+            victim.add(i);
+        }
+
+        final MetricSummary summary = victim.summary();
+        assertEquals(100, summary.count());
+        assertEquals(5050, summary.total());
+        assertEquals(50, summary.p50());
+        assertEquals(95, summary.p95());
+        assertEquals(100, summary.max());
+    }
+
+    @Test
+    public void testEmptyPercentile() {
+        final MetricSummary summary = new MetricHistogram().summary();
+        assertEquals(0, summary.count());
+        assertEquals(0, summary.p50());
+        assertEquals(0, summary.p95());
+    }
+
+    @Test
+    public void testLargeValuePercentilesAreWithinBucketPrecision() {
+        final MetricHistogram victim = new MetricHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            victim.add(i * 1_000_000);
+        }
+
+        final MetricSummary summary = victim.summary();
+        assertEquals(1000, summary.count());
+        assertEquals(500_500_000_000L, summary.total());
+        assertEquals(500_000_000, summary.p50(), 500_000_000 / 32d);
+        assertEquals(950_000_000, summary.p95(), 950_000_000 / 32d);
+        assertEquals(1_000_000_000, summary.max());
+    }
+
+    @Test
+    public void testBucketsAreContiguous() {
+        assertEquals(63, MetricHistogram.bucket(63));
+        assertEquals(64, MetricHistogram.bucket(64));
+        assertEquals(64, MetricHistogram.bucket(65));
+        assertEquals(65, MetricHistogram.bucket(66));
+        assertEquals(MetricHistogram.bucket(127) + 1, MetricHistogram.bucket(128));
+        assertEquals(MetricHistogram.bucket(Long.MAX_VALUE - 1), MetricHistogram.bucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testSummariesAreOrderedByStageSampleAndMetric() {
+        final SageMetrics victim = new SageMetrics();
+        victim.record(SageMetrics.Stage.PHASE, SageMetrics.ALL_SAMPLES, SageMetrics.Metric.NANOS, 10);
+        victim.record(SageMetrics.Stage.CANDIDATES, "TUMOR", SageMetrics.Metric.RECORDS_READ, 200);
+        victim.record(SageMetrics.Stage.CANDIDATES, "TUMOR", SageMetrics.Metric.NANOS, 30);
+        victim.record(SageMetrics.Stage.CANDIDATES, "TUMOR", SageMetrics.Metric.RECORDS_READ, 100);
+
+        final List<String> lines = SageMetricsFile.toLines(victim.summaries());
+        assertEquals(4, lines.size());
+        assertEquals("stage\tsample\tmetric\tcount\ttotal\tp50\tp95\tmax", lines.get(0));
+        assertEquals("CANDIDATES\tTUMOR\tNANOS\t1\t30\t30\t30\t30", lines.get(1));
+        assertEquals("CANDIDATES\tTUMOR\tRECORDS_READ\t2\t300\t100\t200\t200", lines.get(2));
+        assertEquals("PHASE\tALL\tNANOS\t1\t10\t10\t10\t10", lines.get(3));
+
+        final Map<String, Long> totals = victim.getTotals();
+        assertEquals(300L, (long) totals.get("CANDIDATES.TUMOR.RECORDS_READ"));
+    }
+}
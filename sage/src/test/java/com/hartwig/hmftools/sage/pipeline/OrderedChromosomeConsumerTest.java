@@ -0,0 +1,120 @@
+package com.hartwig.hmftools.sage.pipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+
+public class OrderedChromosomeConsumerTest {
+
+    @Test
+    public void testLaterChromosomesAreBufferedUntilEarlierComplete() {
+        final List<VariantContext> output = Lists.newArrayList();
+        final OrderedChromosomeConsumer victim = new OrderedChromosomeConsumer(output::add);
+
+        final OrderedChromosomeConsumer.ChromosomeBuffer first = victim.register("1");
+        final OrderedChromosomeConsumer.ChromosomeBuffer second = victim.register("2");
+        final OrderedChromosomeConsumer.ChromosomeBuffer third = victim.register("3");
+
+        third.accept(create("3", 100));
+        third.complete();
+        second.accept(create("2", 100));
+        first.accept(create("1", 100));
+        assertEquals(1, output.size());
+
+        second.accept(create("2", 200));
+        first.accept(create("1", 200));
+        assertEquals(2, output.size());
+
+        first.complete();
+        assertEquals(4, output.size());
+
+        second.accept(create("2", 300));
+        assertEquals(5, output.size());
+
+        second.complete();
+        assertEquals(6, output.size());
+
+        assertVariant(output.get(0), "1", 100);
+        assertVariant(output.get(1), "1", 200);
+        assertVariant(output.get(2), "2", 100);
+        assertVariant(output.get(3), "2", 200);
+        assertVariant(output.get(4), "2", 300);
+        assertVariant(output.get(5), "3", 100);
+    }
+
+    @Test
+    public void testStalledChromosomeBoundsLaterBuffers() throws InterruptedException {
+        final int permits = 4;
+        final int regions = 20;
+        final int variantsPerRegion = 10;
+
+        final List<VariantContext> output = Lists.newArrayList();
+        final OrderedChromosomeConsumer victim = new OrderedChromosomeConsumer(output::add);
+        final OrderedChromosomeConsumer.ChromosomeBuffer first = victim.register("1");
+        final OrderedChromosomeConsumer.ChromosomeBuffer second = victim.register("2");
+
+        // Regions of the first chromosome pass straight through and return their permits
+        final Semaphore regionPermits = new Semaphore(permits);
+        regionPermits.acquire();
+        first.accept(create("1", 100));
+        first.releaseWhenWritten(regionPermits::release);
+        assertEquals(permits, regionPermits.availablePermits());
+
+        final Thread producer = new Thread(() -> {
+            try {
+                for (int region = 0; region < regions; region++) {
+                    regionPermits.acquire();
+                    for (int i = 0; i < variantsPerRegion; i++) {
+                        second.accept(create("2", region * variantsPerRegion + i + 1));
+                    }
+                    second.releaseWhenWritten(regionPermits::release);
+                }
+                second.complete();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+
+        // While the first chromosome is stalled the second can only buffer as many regions as there are permits
+        producer.join(TimeUnit.SECONDS.toMillis(1));
+        assertTrue(producer.isAlive());
+        assertEquals(0, regionPermits.availablePermits());
+        assertEquals(permits * variantsPerRegion, victim.buffered());
+        assertEquals(1, output.size());
+
+        first.complete();
+        producer.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(producer.isAlive());
+        assertEquals(0, victim.buffered());
+        assertEquals(permits, regionPermits.availablePermits());
+        assertEquals(1 + regions * variantsPerRegion, output.size());
+    }
+
+    private static void assertVariant(@NotNull final VariantContext context, @NotNull final String chromosome, int position) {
+        assertEquals(chromosome, context.getContig());
+        assertEquals(position, context.getStart());
+    }
+
+    @NotNull
+    private static VariantContext create(@NotNull final String chromosome, int position) {
+        return new VariantContextBuilder().chr(chromosome)
+                .start(position)
+                .stop(position)
+                .alleles(Lists.newArrayList(Allele.create("A", true), Allele.create("T", false)))
+                .make();
+    }
+}
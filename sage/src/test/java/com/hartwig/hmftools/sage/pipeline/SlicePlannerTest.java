@@ -0,0 +1,95 @@
+package com.hartwig.hmftools.sage.pipeline;
+
+import static com.hartwig.hmftools.sage.pipeline.SlicePlanner.WINDOW_SIZE;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.TreeMap;
+
+import com.google.common.collect.Lists;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import htsjdk.samtools.BAMFileSpan;
+import htsjdk.samtools.Chunk;
+
+public class SlicePlannerTest {
+
+    private static final String CHROM = "1";
+
+    @Test
+    public void testFixedSlices() {
+        final List<SlicePlanner.Slice> slices = SlicePlanner.fixedSlices(CHROM, 1, 250, 100);
+        assertEquals(3, slices.size());
+        assertSlice(slices.get(0), 1, 100);
+        assertSlice(slices.get(1), 101, 200);
+        assertSlice(slices.get(2), 201, 250);
+    }
+
+    @Test
+    public void testEmptyIndexUsesFixedSlices() {
+        final List<SlicePlanner.Slice> slices = SlicePlanner.adaptiveSlices(CHROM, 1, 4 * WINDOW_SIZE, 2 * WINDOW_SIZE, new long[4]);
+        assertEquals(2, slices.size());
+        assertSlice(slices.get(0), 1, 2 * WINDOW_SIZE);
+        assertSlice(slices.get(1), 2 * WINDOW_SIZE + 1, 4 * WINDOW_SIZE);
+    }
+
+    @Test
+    public void testDenseWindowsGetSmallerSlices() {
+        final long[] windowBytes = { 0, 0, 0, 0, 100, 100, 100, 100 };
+        final int maxPosition = windowBytes.length * WINDOW_SIZE;
+        final List<SlicePlanner.Slice> slices = SlicePlanner.adaptiveSlices(CHROM, 1, maxPosition, 2 * WINDOW_SIZE, windowBytes);
+
+        assertEquals(4, slices.size());
+        assertSlice(slices.get(0), 1, 5 * WINDOW_SIZE);
+        assertSlice(slices.get(1), 5 * WINDOW_SIZE + 1, 6 * WINDOW_SIZE);
+        assertSlice(slices.get(2), 6 * WINDOW_SIZE + 1, 7 * WINDOW_SIZE);
+        assertSlice(slices.get(3), 7 * WINDOW_SIZE + 1, maxPosition);
+        assertEquals(100, slices.get(3).expectedBytes());
+    }
+
+    @Test
+    public void testSparseSlicesAreLimitedInSize() {
+        final long[] windowBytes = new long[30];
+        windowBytes[29] = 100;
+        final int maxPosition = windowBytes.length * WINDOW_SIZE;
+        final List<SlicePlanner.Slice> slices = SlicePlanner.adaptiveSlices(CHROM, 1, maxPosition, WINDOW_SIZE, windowBytes);
+
+        assertEquals(3, slices.size());
+        assertSlice(slices.get(0), 1, 10 * WINDOW_SIZE);
+        assertSlice(slices.get(1), 10 * WINDOW_SIZE + 1, 20 * WINDOW_SIZE);
+        assertSlice(slices.get(2), 20 * WINDOW_SIZE + 1, maxPosition);
+    }
+
+    @Test
+    public void testChunksSharedByWindowsAreCountedOnce() {
+        // A higher level bin chunk spanning blocks 10 to 20 is included in the span of both windows
+        final Chunk parent = chunk(10, 20);
+        final TreeMap<Long, Long> counted = new TreeMap<>();
+
+        assertEquals(10 + 2, SlicePlanner.uncountedBytes(new BAMFileSpan(Lists.newArrayList(chunk(0, 2), parent)), counted));
+        assertEquals(3, SlicePlanner.uncountedBytes(new BAMFileSpan(Lists.newArrayList(parent, chunk(30, 33))), counted));
+    }
+
+    @Test
+    public void testPartiallyCountedChunksOnlyCountTheRemainder() {
+        final TreeMap<Long, Long> counted = new TreeMap<>();
+        assertEquals(4, SlicePlanner.uncountedBytes(new BAMFileSpan(Lists.newArrayList(chunk(2, 4), chunk(6, 8))), counted));
+        assertEquals(6, SlicePlanner.uncountedBytes(new BAMFileSpan(chunk(0, 10)), counted));
+        assertEquals(0, SlicePlanner.uncountedBytes(new BAMFileSpan(chunk(1, 9)), counted));
+        assertEquals(1, counted.size());
+    }
+
+    @NotNull
+    private static Chunk chunk(long startBlock, long endBlock) {
+        return new Chunk(startBlock << 16, endBlock << 16);
+    }
+
+    private static void assertSlice(@NotNull final SlicePlanner.Slice slice, int start, int end) {
+        assertEquals(CHROM, slice.region().chromosome());
+        assertEquals(start, slice.region().start());
+        assertEquals(end, slice.region().end());
+    }
+}
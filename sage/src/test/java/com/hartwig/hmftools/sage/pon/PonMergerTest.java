@@ -0,0 +1,119 @@
+package com.hartwig.hmftools.sage.pon;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.sage.vcf.SageVCF;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.vcf.VCFFormatHeaderLine;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderLineType;
+import htsjdk.variant.vcf.VCFStandardHeaderLines;
+
+public class PonMergerTest {
+
+    private static final String SAMPLE = "SAMPLE";
+
+    @Rule
+    public final TemporaryFolder directory = new TemporaryFolder();
+
+    @Test
+    public void testMatchesInMemoryBuilder() {
+        final List<List<VariantContext>> inputs = Lists.newArrayList();
+        inputs.add(Lists.newArrayList(variant("1", 100, "A", "T", 5),
+                variant("1", 100, "A", "G", 4),
+                variant("1", 200, "C", "CA", 3),
+                variant("2", 50, "G", "A", 10)));
+        inputs.add(Lists.newArrayList(variant("1", 100, "A", "T", 7),
+                variant("1", 150, "T", "C", 3),
+                variant("1", 200, "C", "CA", 6),
+                variant("2", 50, "G", "A", 2)));
+        inputs.add(Lists.newArrayList(variant("1", 100, "A", "G", 3),
+                variant("1", 150, "T", "C", 8),
+                variant("2", 50, "G", "A", 4),
+                variant("2", 60, "GT", "G", 3)));
+        inputs.add(Lists.newArrayList(variant("2", 60, "GT", "G", 9)));
+
+        final List<File> files = Lists.newArrayList();
+        for (int i = 0; i < inputs.size(); i++) {
+            files.add(write("input" + i + ".vcf", inputs.get(i)));
+        }
+
+        final List<VariantContext> expected = Lists.newArrayList();
+        for (String contig : new String[] { "1", "2" }) {
+            final PonBuilder builder = new PonBuilder();
+            inputs.stream().flatMap(List::stream).filter(x -> x.getContig().equals(contig)).forEach(builder::add);
+            expected.addAll(builder.build());
+        }
+
+        final List<VariantContext> victim = Lists.newArrayList();
+        new PonMerger(dictionary(), victim::add).merge(files);
+
+        assertEquals(6, expected.size());
+        assertEquals(expected.size(), victim.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toStringDecodeGenotypes(), victim.get(i).toStringDecodeGenotypes());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnsortedInputFails() {
+        final File file = write("unsorted.vcf", Lists.newArrayList(variant("1", 200, "A", "T", 5), variant("1", 100, "A", "T", 5)));
+        new PonMerger(dictionary(), x -> {
+        }).merge(Lists.newArrayList(file));
+    }
+
+    @NotNull
+    private File write(@NotNull final String name, @NotNull final List<VariantContext> variants) {
+        final File file = new File(directory.getRoot(), name);
+        final VariantContextWriter writer = new VariantContextWriterBuilder().setOutputFile(file)
+                .unsetOption(Options.INDEX_ON_THE_FLY)
+                .build();
+
+        final VCFHeader header = new VCFHeader(Collections.emptySet(), Lists.newArrayList(SAMPLE));
+        header.addMetaDataLine(VCFStandardHeaderLines.getFormatLine("GT"));
+        header.addMetaDataLine(new VCFFormatHeaderLine(SageVCF.RAW_ALLELIC_DEPTH, 2, VCFHeaderLineType.Integer, "Raw allelic depth"));
+        header.setSequenceDictionary(dictionary());
+        writer.writeHeader(header);
+        variants.forEach(writer::add);
+        writer.close();
+        return file;
+    }
+
+    @NotNull
+    private static VariantContext variant(@NotNull final String contig, int position, @NotNull final String ref, @NotNull final String alt,
+            int altDepth) {
+        final List<Allele> alleles = Lists.newArrayList(Allele.create(ref, true), Allele.create(alt, false));
+        return new VariantContextBuilder().chr(contig)
+                .start(position)
+                .alleles(alleles)
+                .computeEndFromAlleles(alleles, position)
+                .genotypes(new GenotypeBuilder(SAMPLE).alleles(alleles)
+                        .attribute(SageVCF.RAW_ALLELIC_DEPTH, "20," + altDepth)
+                        .make())
+                .make();
+    }
+
+    @NotNull
+    private static SAMSequenceDictionary dictionary() {
+        return new SAMSequenceDictionary(Lists.newArrayList(new SAMSequenceRecord("1", 1000), new SAMSequenceRecord("2", 1000)));
+    }
+}
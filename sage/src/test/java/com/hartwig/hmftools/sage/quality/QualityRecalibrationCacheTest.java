@@ -0,0 +1,126 @@
+package com.hartwig.hmftools.sage.quality;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.sage.config.BaseQualityRecalibrationConfig;
+import com.hartwig.hmftools.sage.config.ImmutableBaseQualityRecalibrationConfig;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMSequenceRecord;
+
+public class QualityRecalibrationCacheTest {
+
+    @Rule
+    public final TemporaryFolder directory = new TemporaryFolder();
+
+    private String bam;
+
+    @Before
+    public void setup() {
+        final SAMFileHeader header = new SAMFileHeader();
+        header.addSequence(new SAMSequenceRecord("1", 1000));
+        final File bamFile = new File(directory.getRoot(), "SAMPLE.bam");
+        new SAMFileWriterFactory().makeBAMWriter(header, true, bamFile).close();
+        bam = bamFile.toString();
+    }
+
+    @Test
+    public void testCacheMissThenHit() {
+        final QualityRecalibrationCache victim = new QualityRecalibrationCache(config(2_000_000), "ref.fasta", "2.2");
+        assertFalse(victim.read(bam).isPresent());
+
+        final QualityRecalibrationRecord record = record(25.123456789);
+        victim.write(bam, Lists.newArrayList(record));
+
+        final Optional<List<QualityRecalibrationRecord>> cached = victim.read(bam);
+        assertTrue(cached.isPresent());
+        assertEquals(1, cached.get().size());
+
+        final QualityRecalibrationRecord victimRecord = cached.get().get(0);
+        assertEquals(record.recalibratedQual(), victimRecord.recalibratedQual(), 0);
+        assertEquals(record.count(), victimRecord.count());
+        assertEquals(record.key().ref(), victimRecord.key().ref());
+        assertEquals(record.key().alt(), victimRecord.key().alt());
+        assertEquals(record.key().qual(), victimRecord.key().qual());
+        assertArrayEquals(record.key().trinucleotideContext(), victimRecord.key().trinucleotideContext());
+    }
+
+    @Test
+    public void testSettingsChangeFingerprint() throws IOException {
+        final File bamFile = new File(bam);
+        final String fingerprint = new QualityRecalibrationCache(config(2_000_000), "ref.fasta", "2.2").fingerprint(bamFile);
+
+        assertEquals(fingerprint, new QualityRecalibrationCache(config(2_000_000), "ref.fasta", "2.2").fingerprint(bamFile));
+        assertNotEquals(fingerprint, new QualityRecalibrationCache(config(1_000_000), "ref.fasta", "2.2").fingerprint(bamFile));
+        assertNotEquals(fingerprint, new QualityRecalibrationCache(config(2_000_000), "ref.fasta", "2.3").fingerprint(bamFile));
+    }
+
+    @Test
+    public void testModifiedBamChangesFingerprint() throws IOException {
+        final File bamFile = new File(bam);
+        final QualityRecalibrationCache victim = new QualityRecalibrationCache(config(2_000_000), "ref.fasta", "2.2");
+        final String fingerprint = victim.fingerprint(bamFile);
+
+        assertTrue(bamFile.setLastModified(bamFile.lastModified() - 10_000));
+        assertNotEquals(fingerprint, victim.fingerprint(bamFile));
+    }
+
+    @Test
+    public void testRefGenomeChangesFingerprint() throws IOException {
+        final File bamFile = new File(bam);
+        final File refGenome = new File(directory.newFolder("v1"), "ref.fasta");
+        final File otherRefGenome = new File(directory.newFolder("v2"), "ref.fasta");
+        assertTrue(refGenome.createNewFile());
+        assertTrue(otherRefGenome.createNewFile());
+
+        final QualityRecalibrationCache victim = new QualityRecalibrationCache(config(2_000_000), refGenome.toString(), "2.2");
+        final String fingerprint = victim.fingerprint(bamFile);
+        assertNotEquals(fingerprint,
+                new QualityRecalibrationCache(config(2_000_000), otherRefGenome.toString(), "2.2").fingerprint(bamFile));
+
+        assertTrue(refGenome.setLastModified(refGenome.lastModified() - 10_000));
+        assertNotEquals(fingerprint, victim.fingerprint(bamFile));
+    }
+
+    @NotNull
+    private BaseQualityRecalibrationConfig config(int sampleSize) {
+        return ImmutableBaseQualityRecalibrationConfig.builder()
+                .enabled(true)
+                .plot(false)
+                .maxAltCount(3)
+                .sampleSize(sampleSize)
+                .minMapQuality(10)
+                .cache(true)
+                .cacheDir(directory.getRoot().toString())
+                .build();
+    }
+
+    @NotNull
+    private static QualityRecalibrationRecord record(double recalibratedQual) {
+        final QualityRecalibrationKey key = ImmutableQualityRecalibrationKey.builder()
+                .ref((byte) 'A')
+                .alt((byte) 'C')
+                .trinucleotideContext("GAT".getBytes())
+                .qual((byte) 37)
+                .build();
+
+        return ImmutableQualityRecalibrationRecord.builder().key(key).count(12).recalibratedQual(recalibratedQual).build();
+    }
+}
@@ -0,0 +1,64 @@
+package com.hartwig.hmftools.sage.quality;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+public class QualityRecalibrationMapTest {
+
+    private static final double EPSILON = 1e-10;
+
+    @Test
+    public void testRecalibratedQuality() {
+        final List<QualityRecalibrationRecord> records =
+                Lists.newArrayList(record('A', 'C', "GAT", 37, 25.5), record('T', 'T', "TTT", 12, 12), record('G', 'A', "CGA", 63, 50.1));
+        final QualityRecalibrationMap victim = new QualityRecalibrationMap(records);
+
+        assertEquals(25.5, victim.quality((byte) 'A', (byte) 'C', "GAT".getBytes(), (byte) 37), EPSILON);
+        assertEquals(12, victim.quality((byte) 'T', (byte) 'T', "TTT".getBytes(), (byte) 12), EPSILON);
+        assertEquals(50.1, victim.quality((byte) 'G', (byte) 'A', "CGA".getBytes(), (byte) 63), EPSILON);
+    }
+
+    @Test
+    public void testMissingKeyDefaultsToQuality() {
+        final QualityRecalibrationMap victim = new QualityRecalibrationMap(Lists.newArrayList(record('A', 'C', "GAT", 37, 25.5)));
+
+        assertEquals(36, victim.quality((byte) 'A', (byte) 'C', "GAT".getBytes(), (byte) 36), EPSILON);
+        assertEquals(37, victim.quality((byte) 'A', (byte) 'G', "GAT".getBytes(), (byte) 37), EPSILON);
+        assertEquals(37, victim.quality((byte) 'A', (byte) 'C', "GAA".getBytes(), (byte) 37), EPSILON);
+        assertEquals(37, victim.quality((byte) 'A', (byte) 'C', "GA".getBytes(), (byte) 37), EPSILON);
+        assertEquals(20, victim.quality((byte) 'N', (byte) 'C', "GNT".getBytes(), (byte) 20), EPSILON);
+        assertEquals(70, victim.quality((byte) 'A', (byte) 'C', "GAT".getBytes(), (byte) 70), EPSILON);
+    }
+
+    @Test
+    public void testKeysOutsideTableAreStillRecalibrated() {
+        final List<QualityRecalibrationRecord> records =
+                Lists.newArrayList(record('a', 'C', "gat", 37, 25.5), record('A', 'C', "GAT", QualityRecalibrationMap.MAX_QUAL, 40.2));
+        final QualityRecalibrationMap victim = new QualityRecalibrationMap(records);
+
+        assertEquals(25.5, victim.quality((byte) 'a', (byte) 'C', "gat".getBytes(), (byte) 37), EPSILON);
+        assertEquals(37, victim.quality((byte) 'A', (byte) 'C', "GAT".getBytes(), (byte) 37), EPSILON);
+        assertEquals(40.2,
+                victim.quality((byte) 'A', (byte) 'C', "GAT".getBytes(), (byte) QualityRecalibrationMap.MAX_QUAL),
+                EPSILON);
+    }
+
+    @NotNull
+    private static QualityRecalibrationRecord record(char ref, char alt, @NotNull String trinucleotideContext, int qual,
+            double recalibratedQual) {
+        final QualityRecalibrationKey key = ImmutableQualityRecalibrationKey.builder()
+                .ref((byte) ref)
+                .alt((byte) alt)
+                .trinucleotideContext(trinucleotideContext.getBytes())
+                .qual((byte) qual)
+                .build();
+
+        return ImmutableQualityRecalibrationRecord.builder().key(key).count(1).recalibratedQual(recalibratedQual).build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.hartwig.hmftools.sage.read;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.base.Strings;
+import com.hartwig.hmftools.common.variant.hotspot.ImmutableVariantHotspotImpl;
+import com.hartwig.hmftools.common.variant.hotspot.VariantHotspot;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import htsjdk.samtools.SAMRecord;
+
+public class ReadAlignmentMapTest {
+
+    private static final int MAX_SKIPPED_REFERENCE_REGIONS = 50;
+    private static final String[] CIGARS =
+            { "30M", "5S25M", "25M5S", "5S10M2I13M", "10M3D20M", "10M1I1D19M", "10M100N20M", "10M10N20M", "3S10M2D5M2I10M3S",
+                    "2I28M", "10M2I3D18M" };
+
+    @Test
+    public void testMatchesFullTraversal() {
+        for (String cigar : CIGARS) {
+            final SAMRecord record = record(cigar);
+            final ReadAlignmentMap victim = new ReadAlignmentMap(record);
+            final int end = record.getAlignmentEnd() + (cigar.endsWith("S") ? 0 : 5);
+
+            for (int position = 990; position <= end; position++) {
+                for (VariantHotspot variant : new VariantHotspot[] { variant(position, "A", "C"), variant(position, "A", "AC"),
+                        variant(position, "AC", "A"), variant(position, "ACG", "A") }) {
+                    final RawContextFactory factory = new RawContextFactory(variant);
+                    final RawContext expected = factory.create(MAX_SKIPPED_REFERENCE_REGIONS, record);
+                    final RawContext actual = factory.create(MAX_SKIPPED_REFERENCE_REGIONS, victim);
+                    assertEquals(cigar + " at " + position, describe(expected), describe(actual));
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testVariantAfterRightSoftClippedRecordFails() {
+        final SAMRecord record = record("25M5S");
+        new RawContextFactory(variant(record.getAlignmentEnd() + 10, "A", "C")).create(MAX_SKIPPED_REFERENCE_REGIONS,
+                new ReadAlignmentMap(record));
+    }
+
+    @Test
+    public void testIndelLength() {
+        assertEquals(0, new ReadAlignmentMap(record("30M")).indelLength());
+        assertEquals(4, new ReadAlignmentMap(record("3S10M2D5M2I10M3S")).indelLength());
+    }
+
+    @NotNull
+    private static String describe(@NotNull final RawContext context) {
+        return context.readIndex() + "," + context.isReadIndexInDelete() + "," + context.isReadIndexInSkipped() + ","
+                + context.isReadIndexInSoftClip() + "," + context.isIndelAtPosition() + "," + context.isAltSupport() + ","
+                + context.isRefSupport() + "," + context.isDepthSupport() + "," + context.altQuality() + "," + context.refQuality();
+    }
+
+    @NotNull
+    private static SAMRecord record(@NotNull final String cigar) {
+        final SAMRecord record = new SAMRecord(null);
+        record.setAlignmentStart(1000);
+        record.setCigarString(cigar);
+        final int length = record.getCigar().getReadLength();
+        record.setReadString(Strings.repeat("ACGT", length / 4 + 1).substring(0, length));
+        record.setBaseQualityString(Strings.repeat("F", length));
+        return record;
+    }
+
+    @NotNull
+    private static VariantHotspot variant(long position, @NotNull final String ref, @NotNull final String alt) {
+        return ImmutableVariantHotspotImpl.builder().chromosome("1").position(position).ref(ref).alt(alt).build();
+    }
+}
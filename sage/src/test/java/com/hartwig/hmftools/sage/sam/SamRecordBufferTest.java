@@ -0,0 +1,90 @@
+package com.hartwig.hmftools.sage.sam;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.genome.region.GenomeRegion;
+import com.hartwig.hmftools.common.genome.region.GenomeRegions;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.TextCigarCodec;
+
+public class SamRecordBufferTest {
+
+    private static final GenomeRegion BOUNDS = GenomeRegions.create("1", 1000, 2000);
+
+    @Test
+    public void testReplayOnlyOverlappingRecords() {
+        final SamRecordBuffer victim = new SamRecordBuffer(BOUNDS, new SamRecordBudget(500));
+        victim.accept(record(900, "50M"));
+        victim.accept(record(1080, "50M"));
+        victim.accept(record(1500, "50M"));
+        victim.accept(record(1900, "50M"));
+
+        final List<SAMRecord> replayed = Lists.newArrayList();
+        new SamSlicer(0, GenomeRegions.create("1", 1100, 1950)).slice(victim, replayed::add);
+
+        assertEquals(3, replayed.size());
+        assertEquals(1080, replayed.get(0).getAlignmentStart());
+        assertEquals(1500, replayed.get(1).getAlignmentStart());
+        assertEquals(1900, replayed.get(2).getAlignmentStart());
+    }
+
+    @Test
+    public void testExceedingLimitMarksIncomplete() {
+        final SamRecordBudget budget = new SamRecordBudget(100);
+        final SamRecordBuffer victim = new SamRecordBuffer(BOUNDS, budget);
+        victim.accept(record(1000, "50M"));
+        victim.accept(record(1010, "50M"));
+        assertTrue(victim.isComplete());
+        assertEquals(0, budget.remaining());
+
+        victim.accept(record(1020, "50M"));
+        assertFalse(victim.isComplete());
+        assertEquals(0, victim.size());
+        assertEquals(100, budget.remaining());
+    }
+
+    @Test
+    public void testBudgetIsSharedAcrossBuffers() {
+        final SamRecordBudget budget = new SamRecordBudget(150);
+        final SamRecordBuffer first = new SamRecordBuffer(BOUNDS, budget);
+        final SamRecordBuffer second = new SamRecordBuffer(BOUNDS, budget);
+
+        first.accept(record(1000, "100M"));
+        second.accept(record(1000, "50M"));
+        second.accept(record(1010, "50M"));
+        assertTrue(first.isComplete());
+        assertFalse(second.isComplete());
+        assertEquals(50, budget.remaining());
+
+        first.clear();
+        first.clear();
+        assertEquals(150, budget.remaining());
+    }
+
+    @Test
+    public void testContains() {
+        final SamRecordBuffer victim = new SamRecordBuffer(BOUNDS, new SamRecordBudget(100));
+        assertTrue(victim.contains(GenomeRegions.create("1", 1000, 2000)));
+        assertFalse(victim.contains(GenomeRegions.create("1", 999, 2000)));
+        assertFalse(victim.contains(GenomeRegions.create("2", 1000, 2000)));
+    }
+
+    @NotNull
+    private static SAMRecord record(int alignmentStart, @NotNull final String cigar) {
+        final SAMRecord record = new SAMRecord(null);
+        record.setReferenceName("1");
+        record.setAlignmentStart(alignmentStart);
+        record.setCigarString(cigar);
+        record.setReadBases(new byte[TextCigarCodec.decode(cigar).getReadLength()]);
+        return record;
+    }
+}
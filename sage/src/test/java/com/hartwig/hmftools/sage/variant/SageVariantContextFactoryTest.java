@@ -0,0 +1,97 @@
+package com.hartwig.hmftools.sage.variant;
+
+import static com.hartwig.hmftools.sage.ref.RefSequenceTest.buildSamRecord;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.variant.hotspot.ImmutableVariantHotspotImpl;
+import com.hartwig.hmftools.common.variant.hotspot.VariantHotspot;
+import com.hartwig.hmftools.sage.config.SageConfig;
+import com.hartwig.hmftools.sage.config.SageConfigTest;
+import com.hartwig.hmftools.sage.quality.QualityRecalibrationMap;
+import com.hartwig.hmftools.sage.read.IndexedBases;
+import com.hartwig.hmftools.sage.read.ReadContext;
+import com.hartwig.hmftools.sage.read.ReadContextCounter;
+import com.hartwig.hmftools.sage.read.ReadContextFactory;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import htsjdk.samtools.SAMRecord;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.GenotypeType;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+
+public class SageVariantContextFactoryTest {
+
+    private static final SageConfig CONFIG = SageConfigTest.testConfig(Collections.emptyList());
+    private static final QualityRecalibrationMap RECALIBRATION = new QualityRecalibrationMap(Collections.emptyList());
+    private static final String REF = "CGTACGTTAGCATGCACTGATCGGCTAGCTAGGCTTACGATCGATGCATCGAC";
+    private static final String ALT = REF.substring(0, 20) + "A" + REF.substring(21);
+    private static final IndexedBases REF_BASES = new IndexedBases(1000, 0, REF.getBytes());
+    private static final VariantHotspot VARIANT =
+            ImmutableVariantHotspotImpl.builder().chromosome("1").ref("T").alt("A").position(1020).build();
+
+    @Test
+    public void testAppendedReferencesAreGenotypedAsGermline() {
+        final List<ReadContextCounter> counters =
+                Lists.newArrayList(counter("HOM_ALT", 10, 0), counter("HOM_REF", 0, 10), counter("TUMOR", 0, 10));
+        final VariantContext victim = SageVariantContextFactory.appendGenotypes(existing(), VARIANT, counters, 2);
+
+        assertEquals(GenotypeType.HOM_VAR, victim.getGenotype("HOM_ALT").getType());
+        assertEquals(GenotypeType.HOM_REF, victim.getGenotype("HOM_REF").getType());
+        assertEquals(GenotypeType.HET, victim.getGenotype("TUMOR").getType());
+        assertEquals(GenotypeType.HET, victim.getGenotype("EXISTING").getType());
+    }
+
+    @Test
+    public void testAppendedTumorsAreAlwaysHet() {
+        final List<ReadContextCounter> counters = Lists.newArrayList(counter("HOM_ALT", 10, 0), counter("HOM_REF", 0, 10));
+        final VariantContext victim = SageVariantContextFactory.appendGenotypes(existing(), VARIANT, counters, 0);
+
+        assertEquals(GenotypeType.HET, victim.getGenotype("HOM_ALT").getType());
+        assertEquals(GenotypeType.HET, victim.getGenotype("HOM_REF").getType());
+    }
+
+    @NotNull
+    private static VariantContext existing() {
+        final ReadContextCounter tumor = counter("EXISTING", 5, 5);
+        final List<Allele> alleles = Lists.newArrayList(Allele.create(VARIANT.ref(), true), Allele.create(VARIANT.alt(), false));
+        final VariantContext context = new VariantContextBuilder().chr(VARIANT.chromosome())
+                .start(VARIANT.position())
+                .stop(VARIANT.position())
+                .alleles(alleles)
+                .make();
+        return SageVariantContextFactory.appendGenotypes(context, VARIANT, Lists.newArrayList(tumor), 0);
+    }
+
+    @NotNull
+    private static ReadContextCounter counter(@NotNull final String sample, int altReads, int refReads) {
+        final SAMRecord altRecord = record(ALT);
+        final ReadContext readContext = new ReadContextFactory(10).createMNVContext(1020, 20, 1, altRecord, REF_BASES);
+        final ReadContextCounter counter =
+                new ReadContextCounter(sample, VARIANT, readContext, RECALIBRATION, SageVariantTier.PANEL, 1000, 0, true);
+        for (int i = 0; i < altReads; i++) {
+            counter.accept(altRecord, CONFIG, 1);
+        }
+        for (int i = 0; i < refReads; i++) {
+            counter.accept(record(REF), CONFIG, 1);
+        }
+        return counter;
+    }
+
+    @NotNull
+    private static SAMRecord record(@NotNull final String bases) {
+        final SAMRecord record = buildSamRecord(1000, bases.length() + "M", bases, Strings.repeat("F", bases.length()));
+        record.setMappingQuality(60);
+        record.setReadPairedFlag(true);
+        record.setProperPairFlag(true);
+        return record;
+    }
+}
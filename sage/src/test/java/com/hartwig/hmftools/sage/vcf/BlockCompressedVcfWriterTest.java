@@ -0,0 +1,151 @@
+package com.hartwig.hmftools.sage.vcf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.vcf.VCFFileReader;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderLineType;
+import htsjdk.variant.vcf.VCFInfoHeaderLine;
+import htsjdk.variant.vcf.VCFStandardHeaderLines;
+
+public class BlockCompressedVcfWriterTest {
+
+    private static final String SAMPLE = "SAMPLE";
+    private static final int VARIANTS_PER_CHROMOSOME = 20_000;
+
+    @Rule
+    public final TemporaryFolder directory = new TemporaryFolder();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testMatchesHtsjdkOutputAndIndex() throws IOException {
+        final List<VariantContext> variants = variants();
+
+        final File expectedFile = new File(directory.getRoot(), "expected.vcf.gz");
+        final VariantContextWriter expectedWriter = new VariantContextWriterBuilder().setOutputFile(expectedFile)
+                .modifyOption(Options.INDEX_ON_THE_FLY, true)
+                .modifyOption(Options.USE_ASYNC_IO, false)
+                .setReferenceDictionary(dictionary())
+                .build();
+        write(expectedWriter, variants);
+
+        final File victimFile = new File(directory.getRoot(), "victim.vcf.gz");
+        write(new BlockCompressedVcfWriter(victimFile.toString(), executor, 2), variants);
+
+        assertEquals(decompress(expectedFile), decompress(victimFile));
+        assertTrue(new File(victimFile + ".tbi").exists());
+
+        try (VCFFileReader reader = new VCFFileReader(victimFile, true)) {
+            assertQuery(reader, "1", 1, 100);
+            assertQuery(reader, "1", 150_000, 160_000);
+            assertQuery(reader, "2", 1, 1_000_000);
+            assertQuery(reader, "2", 99_990, 100_010);
+        }
+    }
+
+    private static void assertQuery(@NotNull final VCFFileReader reader, @NotNull final String contig, int start, int end) {
+        int expected = 0;
+        for (int i = 0; i < VARIANTS_PER_CHROMOSOME; i++) {
+            int position = position(i);
+            if (position >= start && position <= end) {
+                expected++;
+            }
+        }
+
+        int actual = 0;
+        try (CloseableIterator<VariantContext> iterator = reader.query(contig, start, end)) {
+            while (iterator.hasNext()) {
+                final VariantContext context = iterator.next();
+                assertEquals(contig, context.getContig());
+                assertTrue(context.getStart() >= start && context.getStart() <= end);
+                actual++;
+            }
+        }
+
+        assertEquals(expected, actual);
+    }
+
+    private static void write(@NotNull final VariantContextWriter writer, @NotNull final List<VariantContext> variants) {
+        final VCFHeader header = new VCFHeader(Collections.emptySet(), Lists.newArrayList(SAMPLE));
+        header.addMetaDataLine(VCFStandardHeaderLines.getFormatLine("GT"));
+        header.addMetaDataLine(VCFStandardHeaderLines.getFormatLine("DP"));
+        header.addMetaDataLine(new VCFInfoHeaderLine("RC", 1, VCFHeaderLineType.String, "Read context"));
+        header.setSequenceDictionary(dictionary());
+
+        writer.writeHeader(header);
+        variants.forEach(writer::add);
+        writer.close();
+    }
+
+    @NotNull
+    private static String decompress(@NotNull final File file) throws IOException {
+        try (GZIPInputStream stream = new GZIPInputStream(new FileInputStream(file))) {
+            return new String(ByteStreams.toByteArray(stream), StandardCharsets.UTF_8);
+        }
+    }
+
+    @NotNull
+    private static SAMSequenceDictionary dictionary() {
+        return new SAMSequenceDictionary(Lists.newArrayList(new SAMSequenceRecord("1", 10_000_000),
+                new SAMSequenceRecord("2", 10_000_000)));
+    }
+
+    private static int position(int i) {
+        return 10 * i + 1;
+    }
+
+    @NotNull
+    private static List<VariantContext> variants() {
+        final List<VariantContext> result = Lists.newArrayList();
+        for (String contig : new String[] { "1", "2" }) {
+            for (int i = 0; i < VARIANTS_PER_CHROMOSOME; i++) {
+                final int position = position(i);
+                final List<Allele> alleles = Lists.newArrayList(Allele.create("A", true), Allele.create("T", false));
+                result.add(new VariantContextBuilder().chr(contig)
+                        .start(position)
+                        .stop(position)
+                        .alleles(alleles)
+                        .attribute("RC", "ACGTACGT" + i)
+                        .genotypes(new GenotypeBuilder(SAMPLE).alleles(alleles).DP(i).make())
+                        .make());
+            }
+        }
+        return result;
+    }
+}